@@ -0,0 +1,30 @@
+package com.gic.cinema.order.analytics;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Occupancy - booked seats out of sellable seats
+ */
+@Data
+@AllArgsConstructor
+public class Occupancy {
+    public static final Occupancy NONE = new Occupancy(0, 0);
+
+    /*
+     * seats booked
+     */
+    private final long booked;
+    /*
+     * seats for sale, blocked and house seats excluded
+     */
+    private final long capacity;
+
+    /**
+     * booked / capacity, 0 for no capacity
+     * @return
+     */
+    public double getRate() {
+        return capacity == 0 ? 0 : (double) booked / capacity;
+    }
+}
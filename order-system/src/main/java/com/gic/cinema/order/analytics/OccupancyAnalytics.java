@@ -0,0 +1,515 @@
+package com.gic.cinema.order.analytics;
+
+import com.gic.cinema.order.event.HallEvent;
+import com.gic.cinema.order.event.HallEventStore;
+import com.gic.cinema.order.event.HallEventType;
+import com.gic.cinema.order.model.CinemaHall;
+import com.gic.cinema.order.model.SeatMapTemplate;
+import com.gic.cinema.order.model.SeatStatus;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * OccupancyAnalytics - live occupancy per movie, hall, row band and seat, kept up to date from hall events.
+ * Counters are columnar arrays indexed by hall or movie ordinal, so queries never touch a seat map:
+ * movie and hall occupancy are O(1), row bands O(bands) and ranking halls O(halls).
+ * Row bands split each hall into equal parts by distance from the screen, band 0 nearest.
+ * Seat heatmaps count bookings per seat over every screening of the same layout (template name or rows x seats).
+ * Writers never wait on analytics: events are queued and applied by one applier at a time, a writer that finds
+ * the lock free or a query that drains the queue first. Ordinals of removed halls, and of movies and layouts
+ * without halls left, are reused.
+ */
+public class OccupancyAnalytics {
+    private final HallEventStore eventStore;
+    private final int bands;
+
+    /*
+     * hall ordinal per key, columns per hall ordinal
+     */
+    private final Map<String, Integer> hallOrdinals = new HashMap<>();
+    private String[] hallKeys = new String[64];
+    private int[] hallMovie = new int[64];
+    private int[] hallBooked = new int[64];
+    private int[] hallCapacity = new int[64];
+    private long[] hallSeq = new long[64];
+    private HallShape[] hallShape = new HallShape[64];
+    private int[][] hallRowBooked = new int[64][];
+    private BitSet[] hallSeats = new BitSet[64];
+    private int hallCount;
+    private final ArrayDeque<Integer> freeHalls = new ArrayDeque<>();
+
+    /*
+     * movie ordinal per title, columns per movie ordinal
+     */
+    private final Map<String, Integer> movieOrdinals = new HashMap<>();
+    private long[] movieBooked = new long[16];
+    private long[] movieCapacity = new long[16];
+    private long[][] movieBandBooked = new long[16][];
+    private long[][] movieBandCapacity = new long[16][];
+    private int[] movieHalls = new int[16];
+    private int movieCount;
+    private final ArrayDeque<Integer> freeMovies = new ArrayDeque<>();
+
+    /*
+     * seat heat per layout
+     */
+    private final Map<String, Heat> heat = new HashMap<>();
+    /*
+     * live events of halls not yet rebuilt, applied once the rebuild reaches them
+     */
+    private final Map<String, List<HallEvent>> pending = new HashMap<>();
+    private boolean rebuilding;
+    /*
+     * events not yet applied, and the lock of the single applier guarding every counter above
+     */
+    private final ConcurrentLinkedQueue<HallEvent> queued = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * follow event store, three row bands (front, middle, back)
+     * @param eventStore
+     */
+    public OccupancyAnalytics(HallEventStore eventStore) {
+        this(eventStore, 3);
+    }
+
+    /**
+     * follow event store
+     * @param eventStore
+     * @param bands - row bands per hall
+     */
+    public OccupancyAnalytics(HallEventStore eventStore, int bands) {
+        if (bands < 1) throw new IllegalArgumentException("Bands must be > 0.");
+        this.eventStore = eventStore;
+        this.bands = bands;
+        eventStore.subscribe(this::onEvent);
+    }
+
+    /**
+     * count halls already in the event store, e.g. when analytics start after the service
+     */
+    public void rebuild() {
+        read(() -> rebuilding = true);
+        try {
+            for (String key : eventStore.getHallKeys()) {
+                long seq = eventStore.getLastSeq(key);
+                if (seq == 0) continue;
+                CinemaHall h;
+                try {
+                    h = eventStore.stateAt(key, seq);
+                } catch (IllegalArgumentException e) {
+                    continue;
+                }
+                CinemaHall state = h;
+                read(() -> {
+                    Integer ordinal = hallOrdinals.get(key);
+                    if (ordinal == null || hallSeq[ordinal] < seq) load(key, state, seq);
+                    return null;
+                });
+            }
+        } finally {
+            read(() -> {
+                rebuilding = false;
+                for (List<HallEvent> events : pending.values()) {
+                    events.forEach(this::apply);
+                }
+                pending.clear();
+                return null;
+            });
+        }
+    }
+
+    /**
+     * get occupancy of every hall
+     * @return
+     */
+    public Occupancy total() {
+        return read(() -> {
+            long booked = 0;
+            long capacity = 0;
+            // free movie ordinals count zero
+            for (int i = 0; i < movieCount; i++) {
+                booked += movieBooked[i];
+                capacity += movieCapacity[i];
+            }
+            return new Occupancy(booked, capacity);
+        });
+    }
+
+    /**
+     * get occupancy of every screening of a movie
+     * @param movieName
+     * @return
+     */
+    public Occupancy movie(String movieName) {
+        return read(() -> {
+            Integer m = movieOrdinals.get(movieName);
+            return m == null ? Occupancy.NONE : new Occupancy(movieBooked[m], movieCapacity[m]);
+        });
+    }
+
+    /**
+     * get occupancy of one hall
+     * @param hallKey
+     * @return
+     */
+    public Occupancy hall(String hallKey) {
+        return read(() -> {
+            Integer h = hallOrdinals.get(hallKey);
+            return h == null ? Occupancy.NONE : new Occupancy(hallBooked[h], hallCapacity[h]);
+        });
+    }
+
+    /**
+     * get occupancy per row band of one hall, band 0 nearest the screen
+     * @param hallKey
+     * @return
+     */
+    public Occupancy[] hallBands(String hallKey) {
+        return read(() -> {
+            Integer h = hallOrdinals.get(hallKey);
+            Occupancy[] result = new Occupancy[bands];
+            Arrays.fill(result, Occupancy.NONE);
+            if (h == null) return result;
+            HallShape shape = hallShape[h];
+            long[] booked = new long[bands];
+            for (int r = 0; r < shape.rows; r++) {
+                booked[band(r, shape.rows)] += hallRowBooked[h][r];
+            }
+            for (int b = 0; b < bands; b++) {
+                result[b] = new Occupancy(booked[b], shape.bandCapacity[b]);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * get occupancy per row band over every screening of a movie, band 0 nearest the screen
+     * @param movieName
+     * @return
+     */
+    public Occupancy[] movieBands(String movieName) {
+        return read(() -> {
+            Integer m = movieOrdinals.get(movieName);
+            Occupancy[] result = new Occupancy[bands];
+            for (int b = 0; b < bands; b++) {
+                result[b] = m == null ? Occupancy.NONE : new Occupancy(movieBandBooked[m][b], movieBandCapacity[m][b]);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * get booked count per seat over every screening of a layout, [row][col]
+     * @param layout - template name, or rows x seats (e.g. 26x50) for halls without template
+     * @return
+     */
+    public int[][] heatmap(String layout) {
+        return read(() -> {
+            Heat h = heat.get(layout);
+            if (h == null) return new int[0][0];
+            int[][] result = new int[h.rows][h.seatsPerRow];
+            for (int r = 0; r < h.rows; r++) {
+                System.arraycopy(h.booked, r * h.seatsPerRow, result[r], 0, h.seatsPerRow);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * get screenings counted in a layout heatmap
+     * @param layout
+     * @return
+     */
+    public int screenings(String layout) {
+        return read(() -> {
+            Heat h = heat.get(layout);
+            return h == null ? 0 : h.screenings;
+        });
+    }
+
+    /**
+     * get hall keys with the highest occupancy rate, highest first
+     * @param n
+     * @return
+     */
+    public List<String> busiestHalls(int n) {
+        return read(() -> {
+            Integer[] order = new Integer[hallCount];
+            int live = 0;
+            for (int i = 0; i < hallCount; i++) {
+                if (hallKeys[i] != null) order[live++] = i;
+            }
+            Arrays.sort(order, 0, live, Comparator.comparingDouble(
+                    (Integer i) -> hallCapacity[i] == 0 ? 0 : (double) hallBooked[i] / hallCapacity[i]).reversed());
+            List<String> result = new ArrayList<>(Math.min(n, live));
+            for (int i = 0; i < live && i < n; i++) {
+                result.add(hallKeys[order[i]]);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * get hall ordinals in use or free, i.e. the size of the hall columns
+     * @return
+     */
+    public int getHallSlots() {
+        return read(() -> hallCount);
+    }
+
+    /**
+     * get movies counted
+     * @return
+     */
+    public int getMovieCount() {
+        return read(movieOrdinals::size);
+    }
+
+    /**
+     * stop counting a removed hall
+     * @param hallKey
+     */
+    public void remove(String hallKey) {
+        read(() -> {
+            Integer h = hallOrdinals.remove(hallKey);
+            if (h == null) return null;
+            unload(h);
+            hallKeys[h] = null;
+            hallSeats[h] = null;
+            hallShape[h] = null;
+            hallRowBooked[h] = null;
+            freeHalls.push(h);
+            return null;
+        });
+    }
+
+    /*
+     * event store listener, runs on the writer thread: queue the event, apply the queue only if no one else does
+     */
+    private void onEvent(HallEvent e) {
+        if (e.getType() == HallEventType.RESERVED) return;
+        queued.offer(e);
+        // re-check after letting go, an event queued while the holder was finishing is not left behind
+        while (!queued.isEmpty() && lock.tryLock()) {
+            try {
+                drain();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /*
+     * run query on up to date counters
+     */
+    private <T> T read(Supplier<T> query) {
+        lock.lock();
+        try {
+            drain();
+            return query.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+     * apply queued events in order, caller holds the lock
+     */
+    private void drain() {
+        for (HallEvent e; (e = queued.poll()) != null; ) {
+            accept(e);
+        }
+    }
+
+    private void accept(HallEvent e) {
+        if (rebuilding && e.getType() != HallEventType.CONFIGURED && !hallOrdinals.containsKey(e.getHallKey())) {
+            pending.computeIfAbsent(e.getHallKey(), k -> new ArrayList<>()).add(e);
+            return;
+        }
+        apply(e);
+    }
+
+    /*
+     * apply one event, skipping what a rebuild already counted
+     */
+    private void apply(HallEvent e) {
+        Integer ordinal = hallOrdinals.get(e.getHallKey());
+        if (e.getType() == HallEventType.CONFIGURED) {
+            if (ordinal != null) unload(ordinal);
+            register(e.getHallKey(), e.getMovieName(), shapeOf(e.getRows(), e.getSeatsPerRow(), e.getTemplate()), e.getSeq());
+            return;
+        }
+        if (ordinal == null || e.getSeq() <= hallSeq[ordinal]) return;
+        hallSeq[ordinal] = e.getSeq();
+        int delta = e.getType() == HallEventType.CONFIRMED ? 1 : e.getType() == HallEventType.CANCELLED ? -1 : 0;
+        if (delta == 0) return;
+        for (int id : e.getSeatIds()) {
+            count(ordinal, id, delta);
+        }
+    }
+
+    /*
+     * register hall from rebuilt state
+     */
+    private void load(String key, CinemaHall h, long seq) {
+        Integer old = hallOrdinals.get(key);
+        if (old != null) unload(old);
+        int ordinal = register(key, h.getMovieName(), shapeOf(h.getRows(), h.getSeatsPerRow(), h.getTemplate()), seq);
+        for (int r = 0; r < h.getRows(); r++) {
+            for (int c = 0; c < h.getSeatsPerRow(); c++) {
+                if (h.getSeatStatus(r, c) == SeatStatus.BOOKED) count(ordinal, r * h.getSeatsPerRow() + c, 1);
+            }
+        }
+    }
+
+    /*
+     * add hall with nothing booked
+     */
+    private int register(String key, String movieName, HallShape shape, long seq) {
+        Integer existing = hallOrdinals.get(key);
+        int h = existing != null ? existing : !freeHalls.isEmpty() ? freeHalls.pop() : hallCount++;
+        if (h == hallKeys.length) growHalls();
+        int m = movieOrdinals.computeIfAbsent(movieName, k -> {
+            int next = !freeMovies.isEmpty() ? freeMovies.pop() : movieCount++;
+            if (next == movieBooked.length) growMovies();
+            movieBooked[next] = 0;
+            movieCapacity[next] = 0;
+            movieBandBooked[next] = new long[bands];
+            movieBandCapacity[next] = new long[bands];
+            return next;
+        });
+        movieHalls[m]++;
+        hallOrdinals.put(key, h);
+        hallKeys[h] = key;
+        hallMovie[h] = m;
+        hallBooked[h] = 0;
+        hallCapacity[h] = shape.capacity;
+        hallSeq[h] = seq;
+        hallShape[h] = shape;
+        hallRowBooked[h] = new int[shape.rows];
+        hallSeats[h] = new BitSet(shape.rows * shape.seatsPerRow);
+        movieCapacity[m] += shape.capacity;
+        for (int b = 0; b < bands; b++) {
+            movieBandCapacity[m][b] += shape.bandCapacity[b];
+        }
+        heat.computeIfAbsent(shape.layout, k -> new Heat(shape.rows, shape.seatsPerRow)).screenings++;
+        return h;
+    }
+
+    /*
+     * take hall counts out of movie and heat totals
+     */
+    private void unload(int h) {
+        HallShape shape = hallShape[h];
+        int m = hallMovie[h];
+        Heat lh = heat.get(shape.layout);
+        BitSet booked = hallSeats[h];
+        for (int id = booked.nextSetBit(0); id >= 0; id = booked.nextSetBit(id + 1)) {
+            lh.booked[id]--;
+        }
+        movieBooked[m] -= hallBooked[h];
+        movieCapacity[m] -= hallCapacity[h];
+        for (int r = 0; r < shape.rows; r++) {
+            movieBandBooked[m][band(r, shape.rows)] -= hallRowBooked[h][r];
+        }
+        for (int b = 0; b < bands; b++) {
+            movieBandCapacity[m][b] -= shape.bandCapacity[b];
+        }
+        // drop what no hall uses any more, its ordinal or layout can be taken again
+        if (--lh.screenings == 0) heat.remove(shape.layout);
+        if (--movieHalls[m] == 0) {
+            movieOrdinals.values().remove(m);
+            freeMovies.push(m);
+        }
+        hallBooked[h] = 0;
+        hallRowBooked[h] = new int[shape.rows];
+        hallSeats[h] = new BitSet();
+    }
+
+    /*
+     * book (+1) or release (-1) one seat of hall
+     */
+    private void count(int h, int seatId, int delta) {
+        if (hallSeats[h].get(seatId) == delta > 0) return;
+        hallSeats[h].set(seatId, delta > 0);
+        HallShape shape = hallShape[h];
+        int row = seatId / shape.seatsPerRow;
+        int m = hallMovie[h];
+        hallBooked[h] += delta;
+        hallRowBooked[h][row] += delta;
+        movieBooked[m] += delta;
+        movieBandBooked[m][band(row, shape.rows)] += delta;
+        heat.get(shape.layout).booked[seatId] += delta;
+    }
+
+    private int band(int row, int rows) {
+        return (int) ((long) row * bands / rows);
+    }
+
+    /*
+     * capacity per band of a layout
+     */
+    private HallShape shapeOf(int rows, int seatsPerRow, SeatMapTemplate template) {
+        int[] bandCapacity = new int[bands];
+        int capacity = 0;
+        for (int r = 0; r < rows; r++) {
+            int sellable = seatsPerRow;
+            if (template != null) {
+                for (int c = 0; c < seatsPerRow; c++) {
+                    if (template.statusAt(r, c) != SeatStatus.AVAILABLE) sellable--;
+                }
+            }
+            bandCapacity[band(r, rows)] += sellable;
+            capacity += sellable;
+        }
+        String layout = template != null ? template.getName() : rows + "x" + seatsPerRow;
+        return new HallShape(layout, rows, seatsPerRow, capacity, bandCapacity);
+    }
+
+    private void growHalls() {
+        int n = hallKeys.length * 2;
+        hallKeys = Arrays.copyOf(hallKeys, n);
+        hallMovie = Arrays.copyOf(hallMovie, n);
+        hallBooked = Arrays.copyOf(hallBooked, n);
+        hallCapacity = Arrays.copyOf(hallCapacity, n);
+        hallSeq = Arrays.copyOf(hallSeq, n);
+        hallShape = Arrays.copyOf(hallShape, n);
+        hallRowBooked = Arrays.copyOf(hallRowBooked, n);
+        hallSeats = Arrays.copyOf(hallSeats, n);
+    }
+
+    private void growMovies() {
+        int n = movieBooked.length * 2;
+        movieBooked = Arrays.copyOf(movieBooked, n);
+        movieCapacity = Arrays.copyOf(movieCapacity, n);
+        movieBandBooked = Arrays.copyOf(movieBandBooked, n);
+        movieBandCapacity = Arrays.copyOf(movieBandCapacity, n);
+        movieHalls = Arrays.copyOf(movieHalls, n);
+    }
+
+    /*
+     * layout, size and sellable seats of a hall
+     */
+    private record HallShape(String layout, int rows, int seatsPerRow, int capacity, int[] bandCapacity) {
+    }
+
+    /*
+     * booked count per seat id over the screenings of one layout
+     */
+    private static class Heat {
+        private final int rows;
+        private final int seatsPerRow;
+        private final int[] booked;
+        private int screenings;
+
+        Heat(int rows, int seatsPerRow) {
+            this.rows = rows;
+            this.seatsPerRow = seatsPerRow;
+            this.booked = new int[rows * seatsPerRow];
+        }
+    }
+}
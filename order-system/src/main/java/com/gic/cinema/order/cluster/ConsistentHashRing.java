@@ -0,0 +1,101 @@
+package com.gic.cinema.order.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * ConsistentHashRing - maps hall keys to node ids; adding or removing a node only moves
+ * the halls of the ring segments it gains or loses. Not thread-safe, callers copy on change.
+ */
+public class ConsistentHashRing {
+    public static final int DEFAULT_VIRTUAL_NODES = 128;
+
+    /*
+     * ring position to node id
+     */
+    private final TreeMap<Long, String> ring = new TreeMap<>();
+    /*
+     * node ids on the ring
+     */
+    private final Set<String> nodes = new TreeSet<>();
+    /*
+     * positions per node, more spreads halls more evenly
+     */
+    private final int virtualNodes;
+
+    public ConsistentHashRing() {
+        this(DEFAULT_VIRTUAL_NODES);
+    }
+
+    public ConsistentHashRing(int virtualNodes) {
+        if (virtualNodes < 1) throw new IllegalArgumentException("Virtual nodes must be > 0.");
+        this.virtualNodes = virtualNodes;
+    }
+
+    /**
+     * copy of ring
+     * @return
+     */
+    public ConsistentHashRing copy() {
+        ConsistentHashRing copy = new ConsistentHashRing(virtualNodes);
+        copy.ring.putAll(ring);
+        copy.nodes.addAll(nodes);
+        return copy;
+    }
+
+    /**
+     * add node
+     * @param nodeId
+     */
+    public void addNode(String nodeId) {
+        if (!nodes.add(nodeId)) return;
+        for (int i = 0; i < virtualNodes; i++) {
+            ring.put(hash(nodeId + "#" + i), nodeId);
+        }
+    }
+
+    /**
+     * remove node
+     * @param nodeId
+     */
+    public void removeNode(String nodeId) {
+        if (!nodes.remove(nodeId)) return;
+        ring.values().removeIf(nodeId::equals);
+    }
+
+    /**
+     * get owner node of key: first ring position at or after the key hash
+     * @param key
+     * @return
+     */
+    public String ownerOf(String key) {
+        if (ring.isEmpty()) throw new IllegalStateException("No nodes on ring.");
+        Map.Entry<Long, String> e = ring.ceilingEntry(hash(key));
+        return e != null ? e.getValue() : ring.firstEntry().getValue();
+    }
+
+    /**
+     * get node ids
+     * @return
+     */
+    public Set<String> getNodes() {
+        return Collections.unmodifiableSet(nodes);
+    }
+
+    /*
+     * FNV-1a with a murmur finalizer for spread
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
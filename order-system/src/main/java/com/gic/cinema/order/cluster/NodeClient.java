@@ -0,0 +1,99 @@
+package com.gic.cinema.order.cluster;
+
+import com.gic.cinema.order.exception.NotEnoughSeatsException;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static com.gic.cinema.order.cluster.NodeProtocol.*;
+
+/**
+ * NodeClient - pooled connections to one partition node.
+ * Connect and read are bounded by timeouts, so a hung node fails the call instead of the caller.
+ */
+class NodeClient implements AutoCloseable {
+    static final int CONNECT_TIMEOUT_MILLIS = 2_000;
+    static final int READ_TIMEOUT_MILLIS = 10_000;
+    private final String host;
+    private final int port;
+    private final ConcurrentLinkedQueue<Connection> idle = new ConcurrentLinkedQueue<>();
+
+    NodeClient(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    /**
+     * send one request
+     * @param fields
+     * @return reply fields after OK
+     */
+    String[] call(String... fields) {
+        Connection c = idle.poll();
+        try {
+            if (c == null) c = new Connection(host, port);
+            String reply = c.request(String.join(SEP, fields));
+            idle.offer(c);
+            c = null;
+            String[] r = reply.split(SEP, -1);
+            if (OK.equals(r[0])) return Arrays.copyOfRange(r, 1, r.length);
+            // a bare ERR carries no code
+            String code = r.length > 1 ? r[1] : INTERNAL;
+            String msg = r.length > 2 ? r[2] : reply;
+            if (NOT_ENOUGH_SEATS.equals(code)) throw new NotEnoughSeatsException(NOT_ENOUGH_SEATS, msg);
+            if (INVALID.equals(code)) throw new IllegalArgumentException(msg);
+            throw new IllegalStateException(msg);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Node " + host + ":" + port + " unreachable.", e);
+        } finally {
+            if (c != null) c.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        Connection c;
+        while ((c = idle.poll()) != null) {
+            c.close();
+        }
+    }
+
+    /*
+     * one socket, used by one caller at a time
+     */
+    private static class Connection {
+        private final Socket socket;
+        private final BufferedReader in;
+        private final Writer out;
+
+        Connection(String host, int port) throws IOException {
+            socket = new Socket();
+            socket.setTcpNoDelay(true);
+            socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MILLIS);
+            socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+        }
+
+        String request(String line) throws IOException {
+            out.write(line);
+            out.write('\n');
+            out.flush();
+            String reply = in.readLine();
+            if (reply == null) throw new EOFException("Connection closed.");
+            return reply;
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // already gone
+            }
+        }
+    }
+}
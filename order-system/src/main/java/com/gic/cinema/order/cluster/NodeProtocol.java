@@ -0,0 +1,51 @@
+package com.gic.cinema.order.cluster;
+
+/**
+ * NodeProtocol - line protocol between router and partition nodes.
+ * One request per line, fields separated by tab; reply is OK or ERR followed by fields.
+ */
+final class NodeProtocol {
+    static final String SEP = "\t";
+    static final String LIST_SEP = ",";
+    static final String ORDER_SEP = ":";
+
+    /*
+     * requests
+     */
+    static final String CONFIGURE = "CONFIGURE";   // title rows cols -> key
+    static final String BOOK = "BOOK";             // key tickets orderId -> labels
+    static final String BOOK_AT = "BOOK_AT";       // key tickets seatLabel orderId -> labels
+    static final String CANCEL = "CANCEL";         // key orderId
+    static final String AVAILABLE = "AVAILABLE";   // key -> count
+    static final String KEYS = "KEYS";             // -> keys
+    static final String EXPORT = "EXPORT";         // key -> title rows cols orderId:labels...
+    static final String IMPORT = "IMPORT";         // title rows cols orderId:labels... -> key
+    static final String DROP = "DROP";             // key
+
+    /*
+     * replies
+     */
+    static final String OK = "OK";
+    static final String ERR = "ERR";
+
+    /*
+     * error codes
+     */
+    static final String NOT_ENOUGH_SEATS = "NOT_ENOUGH_SEATS";
+    static final String INVALID = "INVALID";
+    static final String INTERNAL = "INTERNAL";
+
+    private NodeProtocol() {
+    }
+
+    /**
+     * check a field can be sent as is
+     * @param field
+     * @return
+     */
+    static String field(String field) {
+        if (field.contains(SEP) || field.contains("\n") || field.contains("\r"))
+            throw new IllegalArgumentException("Field must not contain tab or line break: " + field);
+        return field;
+    }
+}
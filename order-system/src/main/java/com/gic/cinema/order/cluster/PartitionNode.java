@@ -0,0 +1,203 @@
+package com.gic.cinema.order.cluster;
+
+import com.gic.cinema.order.exception.NotEnoughSeatsException;
+import com.gic.cinema.order.model.CinemaHall;
+import com.gic.cinema.order.model.Order;
+import com.gic.cinema.order.model.Seat;
+import com.gic.cinema.order.service.CinemaService;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static com.gic.cinema.order.cluster.NodeProtocol.*;
+
+/**
+ * PartitionNode - serves the halls it owns from its own CinemaService over a loopback socket.
+ * Halls never need cross-node coordination, so nodes share nothing.
+ * Run standalone with: java ... com.gic.cinema.order.cluster.PartitionNode [port]
+ */
+@Slf4j
+public class PartitionNode implements AutoCloseable {
+    private final CinemaService cinemaService;
+    private final ExecutorService handlers = Executors.newVirtualThreadPerTaskExecutor();
+    private ServerSocket server;
+    private Thread acceptor;
+
+    public PartitionNode(CinemaService cinemaService) {
+        this.cinemaService = cinemaService;
+    }
+
+    /**
+     * run one node until killed
+     * @param args - port, default 7070
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 7070;
+        PartitionNode node = new PartitionNode(new CinemaService());
+        System.out.println("Partition node listening on " + node.start(port));
+    }
+
+    /**
+     * listen on loopback
+     * @param port - 0 for any free port
+     * @return bound port
+     * @throws IOException
+     */
+    public synchronized int start(int port) throws IOException {
+        if (server != null) throw new IllegalStateException("Node already started.");
+        server = new ServerSocket(port, 128, InetAddress.getLoopbackAddress());
+        acceptor = new Thread(this::acceptLoop, "partition-node-" + server.getLocalPort());
+        acceptor.start();
+        return server.getLocalPort();
+    }
+
+    /**
+     * get service behind node
+     * @return
+     */
+    public CinemaService getCinemaService() {
+        return cinemaService;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (server != null) server.close();
+        handlers.shutdownNow();
+    }
+
+    /*
+     * accept connections, one virtual thread each
+     */
+    private void acceptLoop() {
+        try {
+            while (!server.isClosed()) {
+                Socket socket = server.accept();
+                handlers.submit(() -> serve(socket));
+            }
+        } catch (SocketException e) {
+            // server closed
+        } catch (IOException e) {
+            log.error("Partition node on port {} stopped accepting.", server.getLocalPort(), e);
+        }
+    }
+
+    /*
+     * serve requests of one connection
+     */
+    private void serve(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            socket.setTcpNoDelay(true);
+            String line;
+            while ((line = in.readLine()) != null) {
+                out.write(handle(line.split(SEP, -1)));
+                out.write('\n');
+                out.flush();
+            }
+        } catch (IOException e) {
+            // client went away
+        }
+    }
+
+    /*
+     * handle one request
+     */
+    String handle(String[] f) {
+        try {
+            return switch (f[0]) {
+                case CONFIGURE -> ok(cinemaService.configureHall(f[1], Integer.parseInt(f[2]), Integer.parseInt(f[3])).getKey());
+                case BOOK -> book(cinemaService.getHall(f[1]), Integer.parseInt(f[2]), null, f[3]);
+                case BOOK_AT -> book(cinemaService.getHall(f[1]), Integer.parseInt(f[2]), f[3], f[4]);
+                case CANCEL -> {
+                    cinemaService.cancelOrder(cinemaService.getHall(f[1]), f[2]);
+                    yield OK;
+                }
+                case AVAILABLE -> ok(String.valueOf(cinemaService.getHall(f[1]).getAvailableSeatCount()));
+                case KEYS -> ok(cinemaService.getHallKeys().toArray(new String[0]));
+                case EXPORT -> ok(export(cinemaService.getHall(f[1])));
+                case IMPORT -> ok(importHall(f));
+                case DROP -> {
+                    cinemaService.removeHall(f[1]);
+                    yield OK;
+                }
+                default -> ERR + SEP + INVALID + SEP + "Unknown request " + f[0];
+            };
+        } catch (NotEnoughSeatsException e) {
+            return ERR + SEP + NOT_ENOUGH_SEATS + SEP + clean(e.getMessage());
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            return ERR + SEP + INVALID + SEP + clean(e.getMessage());
+        } catch (RuntimeException e) {
+            return ERR + SEP + INTERNAL + SEP + clean(e.getMessage());
+        }
+    }
+
+    /*
+     * allocate and confirm in one call - remote callers cannot hold seats between calls.
+     * No hall lock is held here, so commit barriers run after the hall is released;
+     * confirm rejects a second booking under the same order id
+     */
+    private String book(CinemaHall h, int tickets, String seatLabel, String orderId) {
+        List<Seat> seats = seatLabel == null
+                ? cinemaService.bookDefault(h, tickets)
+                : cinemaService.bookFromPosition(h, tickets, seatLabel.charAt(0), Integer.parseInt(seatLabel.substring(1)));
+        Order order = Order.builder().id(orderId).movieName(h.getMovieName()).hallName(h.getHallName()).build();
+        cinemaService.confirmOrder(h, order, seats);
+        return ok(order.getSeatLabels().toArray(new String[0]));
+    }
+
+    /*
+     * hall as title rows cols orderId:labels...
+     */
+    private String[] export(CinemaHall h) {
+        synchronized (h) {
+            List<String> fields = new ArrayList<>();
+            fields.add(h.getMovieName());
+            fields.add(String.valueOf(h.getRows()));
+            fields.add(String.valueOf(h.getSeatsPerRow()));
+            for (Order o : h.getOrders().values()) {
+                fields.add(o.getId() + ORDER_SEP + String.join(LIST_SEP, o.getSeatLabels()));
+            }
+            return fields.toArray(new String[0]);
+        }
+    }
+
+    /*
+     * rebuild exported hall
+     */
+    private String importHall(String[] f) {
+        CinemaHall h = cinemaService.configureHall(f[1], Integer.parseInt(f[2]), Integer.parseInt(f[3]));
+        // one confirm per order, each takes the hall lock and runs commit barriers after it
+        for (int i = 4; i < f.length; i++) {
+            int split = f[i].indexOf(ORDER_SEP);
+            String orderId = f[i].substring(0, split);
+            List<String> labels = Arrays.asList(f[i].substring(split + 1).split(LIST_SEP));
+            List<Seat> seats = labels.stream().map(label -> {
+                int[] pos = Seat.parseLabel(label, h.getRows(), h.getSeatsPerRow());
+                return h.seatAt(pos[0] * h.getSeatsPerRow() + pos[1]);
+            }).collect(Collectors.toList());
+            Order order = Order.builder().id(orderId).movieName(h.getMovieName()).hallName(h.getHallName())
+                    .tickets(labels.size()).seatLabels(new ArrayList<>(labels)).build();
+            cinemaService.confirmOrder(h, order, seats);
+        }
+        return h.getKey();
+    }
+
+    private static String ok(String... fields) {
+        return fields.length == 0 ? OK : OK + SEP + String.join(SEP, fields);
+    }
+
+    private static String clean(String msg) {
+        return msg == null ? "" : msg.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+}
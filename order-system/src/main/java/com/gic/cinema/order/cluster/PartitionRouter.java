@@ -0,0 +1,182 @@
+package com.gic.cinema.order.cluster;
+
+import com.gic.cinema.order.service.CinemaService;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static com.gic.cinema.order.cluster.NodeProtocol.*;
+
+/**
+ * PartitionRouter - forwards booking calls to the node owning the hall key on a consistent hash ring.
+ * When a node joins or leaves only the halls whose owner changed are moved; calls wait while halls move.
+ */
+public class PartitionRouter implements AutoCloseable {
+    /*
+     * current ring, replaced as a whole on rebalance
+     */
+    private volatile ConsistentHashRing ring;
+    /*
+     * client per node id
+     */
+    private final Map<String, NodeClient> clients = new ConcurrentHashMap<>();
+    /*
+     * calls share, rebalance is exclusive
+     */
+    private final ReentrantReadWriteLock rebalanceLock = new ReentrantReadWriteLock();
+
+    public PartitionRouter() {
+        this(new ConsistentHashRing());
+    }
+
+    public PartitionRouter(ConsistentHashRing ring) {
+        this.ring = ring;
+    }
+
+    /**
+     * configure hall on its owner node
+     * @param title
+     * @param rows
+     * @param seatsPerRow
+     * @return hall key
+     */
+    public String configureHall(String title, int rows, int seatsPerRow) {
+        String key = CinemaService.hallKey(field(title), rows, seatsPerRow);
+        return route(key, CONFIGURE, title, String.valueOf(rows), String.valueOf(seatsPerRow))[0];
+    }
+
+    /**
+     * book and confirm default seats
+     * @param hallKey
+     * @param tickets
+     * @param orderId
+     * @return seat labels
+     */
+    public List<String> book(String hallKey, int tickets, String orderId) {
+        return List.of(route(hallKey, BOOK, hallKey, String.valueOf(tickets), field(orderId)));
+    }
+
+    /**
+     * book and confirm seats from a starting position
+     * @param hallKey
+     * @param tickets
+     * @param seatLabel - e.g. B04
+     * @param orderId
+     * @return seat labels
+     */
+    public List<String> bookFromPosition(String hallKey, int tickets, String seatLabel, String orderId) {
+        return List.of(route(hallKey, BOOK_AT, hallKey, String.valueOf(tickets), field(seatLabel), field(orderId)));
+    }
+
+    /**
+     * cancel order
+     * @param hallKey
+     * @param orderId
+     */
+    public void cancel(String hallKey, String orderId) {
+        route(hallKey, CANCEL, hallKey, field(orderId));
+    }
+
+    /**
+     * get available seat count
+     * @param hallKey
+     * @return
+     */
+    public int availableSeats(String hallKey) {
+        return Integer.parseInt(route(hallKey, AVAILABLE, hallKey)[0]);
+    }
+
+    /**
+     * get owner node id of hall
+     * @param hallKey
+     * @return
+     */
+    public String ownerOf(String hallKey) {
+        return ring.ownerOf(hallKey);
+    }
+
+    /**
+     * add node and move halls it now owns
+     * @param nodeId
+     * @param host
+     * @param port
+     * @return halls moved
+     */
+    public int addNode(String nodeId, String host, int port) {
+        rebalanceLock.writeLock().lock();
+        try {
+            if (clients.containsKey(nodeId)) throw new IllegalArgumentException("Node already added: " + nodeId);
+            clients.put(nodeId, new NodeClient(host, port));
+            ConsistentHashRing next = ring.copy();
+            next.addNode(nodeId);
+            return rebalance(next);
+        } finally {
+            rebalanceLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * move halls off node, then remove it
+     * @param nodeId
+     * @return halls moved
+     */
+    public int removeNode(String nodeId) {
+        rebalanceLock.writeLock().lock();
+        try {
+            if (!clients.containsKey(nodeId)) throw new IllegalArgumentException("Unknown node: " + nodeId);
+            ConsistentHashRing next = ring.copy();
+            next.removeNode(nodeId);
+            if (next.getNodes().isEmpty()) throw new IllegalStateException("Cannot remove last node.");
+            int moved = rebalance(next);
+            clients.remove(nodeId).close();
+            return moved;
+        } finally {
+            rebalanceLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        clients.values().forEach(NodeClient::close);
+        clients.clear();
+    }
+
+    /*
+     * send request to owner of key
+     */
+    private String[] route(String key, String... request) {
+        rebalanceLock.readLock().lock();
+        try {
+            return clients.get(ring.ownerOf(key)).call(request);
+        } finally {
+            rebalanceLock.readLock().unlock();
+        }
+    }
+
+    /*
+     * copy halls whose owner changed to the new owner, switch ring, drop old copies
+     */
+    private int rebalance(ConsistentHashRing next) {
+        List<String[]> drops = new ArrayList<>();
+        for (String nodeId : ring.getNodes()) {
+            NodeClient from = clients.get(nodeId);
+            for (String key : from.call(KEYS)) {
+                if (key.isEmpty()) continue;
+                String owner = next.ownerOf(key);
+                if (owner.equals(nodeId)) continue;
+                String[] hall = from.call(EXPORT, key);
+                String[] request = new String[hall.length + 1];
+                request[0] = IMPORT;
+                System.arraycopy(hall, 0, request, 1, hall.length);
+                clients.get(owner).call(request);
+                drops.add(new String[]{nodeId, key});
+            }
+        }
+        ring = next;
+        for (String[] drop : drops) {
+            clients.get(drop[0]).call(DROP, drop[1]);
+        }
+        return drops.size();
+    }
+}
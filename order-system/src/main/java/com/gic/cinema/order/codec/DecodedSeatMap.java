@@ -0,0 +1,46 @@
+package com.gic.cinema.order.codec;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * DecodedSeatMap - seat symbols of one decoded wire seat map
+ */
+@Getter
+@ToString(exclude = "symbols")
+public class DecodedSeatMap {
+    /*
+     * snapshot version the map was encoded from
+     */
+    private final long version;
+    /*
+     * total rows
+     */
+    private final int rows;
+    /*
+     * total seats per row
+     */
+    private final int seatsPerRow;
+    /*
+     * symbol per seat id, see SeatMapCodec symbols
+     */
+    @Getter(lombok.AccessLevel.NONE)
+    private final byte[] symbols;
+
+    DecodedSeatMap(long version, int rows, int seatsPerRow, byte[] symbols) {
+        this.version = version;
+        this.rows = rows;
+        this.seatsPerRow = seatsPerRow;
+        this.symbols = symbols;
+    }
+
+    /**
+     * get symbol of seat
+     * @param rowIndex
+     * @param colIndex
+     * @return SeatMapCodec.AVAILABLE / BOOKED / UNAVAILABLE / HIGHLIGHT
+     */
+    public int symbolAt(int rowIndex, int colIndex) {
+        return symbols[rowIndex * seatsPerRow + colIndex];
+    }
+}
@@ -0,0 +1,211 @@
+package com.gic.cinema.order.codec;
+
+import com.gic.cinema.order.model.AvailabilitySnapshot;
+import com.gic.cinema.order.model.Seat;
+import com.gic.cinema.order.model.SeatStatus;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+
+/**
+ * SeatMapCodec - compact binary seat map for mobile and kiosk clients.
+ * Every seat is one of 4 symbols; each row is written in whichever mode is smaller:
+ *  - RLE: run count, then one varint per run (length << 2 | symbol)
+ *  - bitmap: 2 bits per seat
+ * Layout: 'S', format version, varint rows, varint seatsPerRow, varint snapshot version, rows.
+ */
+public final class SeatMapCodec {
+    /*
+     * seat symbols
+     */
+    public static final int AVAILABLE = 0;
+    public static final int BOOKED = 1;
+    public static final int UNAVAILABLE = 2;
+    public static final int HIGHLIGHT = 3;
+
+    private static final byte MAGIC = 'S';
+    private static final byte FORMAT_VERSION = 1;
+    private static final byte MODE_RLE = 0;
+    private static final byte MODE_BITMAP = 1;
+    /*
+     * largest rows / seats per row accepted by decode
+     */
+    private static final int MAX_DIMENSION = 0xFFFF;
+    /*
+     * largest seat map accepted by decode, far above any hall size
+     */
+    public static final int MAX_SEATS = 1 << 20;
+
+    private SeatMapCodec() {
+    }
+
+    /**
+     * encode full seat map
+     * @param snapshot
+     * @return
+     */
+    public static byte[] encode(AvailabilitySnapshot snapshot) {
+        return encode(snapshot, new BitSet());
+    }
+
+    /**
+     * encode seat map with booking highlight overlay
+     * @param snapshot
+     * @param highlightLabels - seat labels of the booking, e.g. B04
+     * @return
+     */
+    public static byte[] encode(AvailabilitySnapshot snapshot, Collection<String> highlightLabels) {
+        BitSet highlight = new BitSet();
+        for (String label : highlightLabels) {
+            int[] pos = Seat.parseLabel(label, snapshot.getRows(), snapshot.getSeatsPerRow());
+            highlight.set(pos[0] * snapshot.getSeatsPerRow() + pos[1]);
+        }
+        return encode(snapshot, highlight);
+    }
+
+    /**
+     * encode seat map with booking highlight overlay
+     * @param snapshot
+     * @param highlight - seat ids of the booking
+     * @return
+     */
+    public static byte[] encode(AvailabilitySnapshot snapshot, BitSet highlight) {
+        int rows = snapshot.getRows();
+        int cols = snapshot.getSeatsPerRow();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + rows * 4);
+        out.write(MAGIC);
+        out.write(FORMAT_VERSION);
+        writeVarint(out, rows);
+        writeVarint(out, cols);
+        writeVarint(out, snapshot.getVersion());
+        int[] symbols = new int[cols];
+        int bitmapSize = (cols * 2 + 7) / 8;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                symbols[c] = highlight.get(r * cols + c) ? HIGHLIGHT : symbolOf(snapshot.statusAt(r, c));
+            }
+            // size of the row in RLE mode
+            int runs = 0;
+            int rleSize = 0;
+            for (int c = 1, start = 0; c <= cols; c++) {
+                if (c == cols || symbols[c] != symbols[start]) {
+                    rleSize += varintSize((long) (c - start) << 2);
+                    runs++;
+                    start = c;
+                }
+            }
+            rleSize += varintSize(runs);
+            if (rleSize <= bitmapSize) {
+                out.write(MODE_RLE);
+                writeVarint(out, runs);
+                int start = 0;
+                for (int c = 1; c <= cols; c++) {
+                    if (c == cols || symbols[c] != symbols[start]) {
+                        writeVarint(out, ((long) (c - start) << 2) | symbols[start]);
+                        start = c;
+                    }
+                }
+            } else {
+                out.write(MODE_BITMAP);
+                byte[] bits = new byte[bitmapSize];
+                for (int c = 0; c < cols; c++) {
+                    bits[c >>> 2] |= (byte) (symbols[c] << ((c & 3) * 2));
+                }
+                out.write(bits, 0, bits.length);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * reference decoder
+     * @param data
+     * @return
+     */
+    public static DecodedSeatMap decode(byte[] data) {
+        try {
+            ByteBuffer in = ByteBuffer.wrap(data);
+            if (in.get() != MAGIC || in.get() != FORMAT_VERSION) throw new IllegalArgumentException("Not a seat map.");
+            long rowCount = readVarint(in);
+            long colCount = readVarint(in);
+            long version = readVarint(in);
+            // header is untrusted: bound it by what the rest of the input can describe before allocating
+            if (rowCount > MAX_DIMENSION || colCount > MAX_DIMENSION)
+                throw new IllegalArgumentException("Seat map size " + rowCount + "x" + colCount + " out of range.");
+            // every row costs at least its mode byte
+            if (rowCount > in.remaining())
+                throw new IllegalArgumentException("Seat map size " + rowCount + "x" + colCount + " exceeds its input.");
+            if (rowCount * colCount > MAX_SEATS)
+                throw new IllegalArgumentException("Seat map size " + rowCount + "x" + colCount + " over " + MAX_SEATS + " seats.");
+            int rows = (int) rowCount;
+            int cols = (int) colCount;
+            byte[] symbols = new byte[rows * cols];
+            for (int r = 0; r < rows; r++) {
+                int base = r * cols;
+                byte mode = in.get();
+                if (mode == MODE_RLE) {
+                    long runs = readVarint(in);
+                    int c = 0;
+                    for (long i = 0; i < runs; i++) {
+                        long run = readVarint(in);
+                        long len = run >>> 2;
+                        if (c + len > cols) throw new IllegalArgumentException("Run overflows row " + r + ".");
+                        Arrays.fill(symbols, base + c, base + c + (int) len, (byte) (run & 3));
+                        c += (int) len;
+                    }
+                    if (c != cols) throw new IllegalArgumentException("Runs do not fill row " + r + ".");
+                } else if (mode == MODE_BITMAP) {
+                    byte[] bits = new byte[(cols * 2 + 7) / 8];
+                    in.get(bits);
+                    for (int c = 0; c < cols; c++) {
+                        symbols[base + c] = (byte) ((bits[c >>> 2] >>> ((c & 3) * 2)) & 3);
+                    }
+                } else {
+                    throw new IllegalArgumentException("Unknown row mode " + mode + ".");
+                }
+            }
+            return new DecodedSeatMap(version, rows, cols, symbols);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated seat map.", e);
+        }
+    }
+
+    /*
+     * seat status to symbol
+     */
+    private static int symbolOf(SeatStatus status) {
+        return switch (status) {
+            case AVAILABLE -> AVAILABLE;
+            case BOOKED -> BOOKED;
+            default -> UNAVAILABLE;
+        };
+    }
+
+    private static int varintSize(long v) {
+        int n = 1;
+        while ((v >>>= 7) != 0) n++;
+        return n;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long v) {
+        while ((v & ~0x7FL) != 0) {
+            out.write((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.write((int) v);
+    }
+
+    private static long readVarint(ByteBuffer in) {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+        throw new IllegalArgumentException("Malformed varint.");
+    }
+}
@@ -0,0 +1,38 @@
+package com.gic.cinema.order.event;
+
+import com.gic.cinema.order.model.Order;
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * HallCheckpoint - hall state folded from every event up to seq
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class HallCheckpoint {
+    /*
+     * last event folded in
+     */
+    private long seq;
+    /*
+     * timestamp of last event folded in
+     */
+    private long timestamp;
+    /*
+     * CONFIGURED event of the hall
+     */
+    private HallEvent configured;
+    /*
+     * SeatStatus ordinal per seat id
+     */
+    @ToString.Exclude
+    private byte[] statuses;
+    /*
+     * order copies in booking order
+     */
+    private List<Order> orders;
+}
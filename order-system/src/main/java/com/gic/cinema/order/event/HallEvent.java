@@ -0,0 +1,96 @@
+package com.gic.cinema.order.event;
+
+import com.gic.cinema.order.model.SeatMapTemplate;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * HallEvent - one immutable entry of a hall event stream, seat ids are copied on the way in and out
+ */
+@Value
+public class HallEvent {
+    /*
+     * sequence in hall stream, 1-based, assigned on append
+     */
+    long seq;
+    /*
+     * hall key in CinemaService
+     */
+    String hallKey;
+    /*
+     * event type
+     */
+    HallEventType type;
+    /*
+     * append time in epoch millis
+     */
+    long timestamp;
+    /*
+     * movie name - CONFIGURED / CONFIRMED
+     */
+    String movieName;
+    /*
+     * hall name - CONFIGURED
+     */
+    String hallName;
+    /*
+     * total rows - CONFIGURED
+     */
+    int rows;
+    /*
+     * total seats per row - CONFIGURED
+     */
+    int seatsPerRow;
+    /*
+     * showtime start - CONFIGURED, null for halls built by configureHall
+     */
+    LocalDateTime startsAt;
+    /*
+     * shared seat layout - CONFIGURED, null for halls built by configureHall
+     */
+    @ToString.Exclude
+    SeatMapTemplate template;
+    /*
+     * order id - RESERVED / CONFIRMED / CANCELLED
+     */
+    String orderId;
+    /*
+     * seat ids (row * seatsPerRow + col) - RESERVED / CONFIRMED / CANCELLED
+     */
+    @Getter(AccessLevel.NONE)
+    int[] seatIds;
+
+    @Builder(toBuilder = true)
+    public HallEvent(long seq, String hallKey, HallEventType type, long timestamp, String movieName, String hallName,
+                     int rows, int seatsPerRow, LocalDateTime startsAt, SeatMapTemplate template, String orderId, int[] seatIds) {
+        this.seq = seq;
+        this.hallKey = hallKey;
+        this.type = type;
+        this.timestamp = timestamp;
+        this.movieName = movieName;
+        this.hallName = hallName;
+        this.rows = rows;
+        this.seatsPerRow = seatsPerRow;
+        this.startsAt = startsAt;
+        this.template = template;
+        this.orderId = orderId;
+        this.seatIds = seatIds == null ? null : seatIds.clone();
+    }
+
+    /**
+     * get copy of seat ids
+     * @return
+     */
+    public int[] getSeatIds() {
+        return seatIds == null ? null : seatIds.clone();
+    }
+
+    /**
+     * get number of seat ids
+     * @return
+     */
+    public int getSeatCount() {
+        return seatIds == null ? 0 : seatIds.length;
+    }
+}
@@ -0,0 +1,361 @@
+package com.gic.cinema.order.event;
+
+import com.gic.cinema.order.model.CinemaHall;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * HallEventStore - append-only event stream per hall, the source of truth for hall state.
+ * CinemaHall is a projection rebuilt from the latest checkpoint plus the events after it.
+ * Compaction folds events into checkpoints and keeps full history only back to the oldest retained checkpoint.
+ * Append hands it to a background compactor every compactEvery events of a hall, so streams stay bounded
+ * and the writer, which may hold its hall lock, never pays for the replay.
+ * RESERVED events do not change state, they are kept only after the newest checkpoint.
+ */
+public class HallEventStore {
+    public static final int DEFAULT_MAX_CHECKPOINTS = 2;
+    public static final int DEFAULT_COMPACT_EVERY = 4096;
+
+    /*
+     * stream per hall key
+     */
+    private final Map<String, HallStream> streams = new ConcurrentHashMap<>();
+    /*
+     * subscribers notified on every append, in hall stream order
+     */
+    private final List<Consumer<HallEvent>> listeners = new CopyOnWriteArrayList<>();
+    /*
+     * checkpoints kept per hall after compaction
+     */
+    private final int maxCheckpoints;
+    /*
+     * events appended to a hall between automatic compactions
+     */
+    private final int compactEvery;
+    /*
+     * single background thread for automatic compaction, started on first use
+     */
+    private final ExecutorService compactor =
+            Executors.newSingleThreadExecutor(Thread.ofPlatform().daemon().name("hall-compactor").factory());
+
+    public HallEventStore() {
+        this(DEFAULT_MAX_CHECKPOINTS, DEFAULT_COMPACT_EVERY);
+    }
+
+    public HallEventStore(int maxCheckpoints) {
+        this(maxCheckpoints, DEFAULT_COMPACT_EVERY);
+    }
+
+    /**
+     * init store
+     * @param maxCheckpoints - checkpoints kept per hall
+     * @param compactEvery - events appended to a hall before it is compacted
+     */
+    public HallEventStore(int maxCheckpoints, int compactEvery) {
+        if (maxCheckpoints < 1) throw new IllegalArgumentException("Max checkpoints must be > 0.");
+        if (compactEvery < 1) throw new IllegalArgumentException("Compact every must be > 0.");
+        this.maxCheckpoints = maxCheckpoints;
+        this.compactEvery = compactEvery;
+    }
+
+    /**
+     * append event to its hall stream, a hall stream must start with CONFIGURED
+     * @param event
+     * @return appended event with seq and timestamp
+     */
+    public HallEvent append(HallEvent event) {
+        HallStream stream = event.getType() == HallEventType.CONFIGURED
+                ? streams.computeIfAbsent(event.getHallKey(), k -> new HallStream())
+                : streams.get(event.getHallKey());
+        if (stream == null) throw new IllegalStateException("Hall not configured: " + event.getHallKey());
+        HallEvent appended;
+        boolean compact;
+        synchronized (stream) {
+            if (event.getType() == HallEventType.CONFIGURED && stream.configured != null)
+                throw new IllegalStateException("Hall already configured: " + event.getHallKey());
+            appended = event.toBuilder().seq(stream.lastSeq + 1).timestamp(System.currentTimeMillis()).build();
+            stream.events.add(appended);
+            stream.lastSeq = appended.getSeq();
+            if (appended.getType() == HallEventType.CONFIGURED) stream.configured = appended;
+            for (Consumer<HallEvent> l : listeners) {
+                l.accept(appended);
+            }
+            // one queued compaction per hall at a time, it folds up to the last seq when it runs
+            compact = ++stream.sinceCompaction >= compactEvery && !stream.compactQueued;
+            if (compact) {
+                stream.sinceCompaction = 0;
+                stream.compactQueued = true;
+            }
+        }
+        // amortised: one replay from the newest checkpoint every compactEvery events, off the writer thread
+        if (compact) compactor.execute(() -> compactQuietly(event.getHallKey(), stream));
+        return appended;
+    }
+
+    /**
+     * wait until compactions handed off so far are done, e.g. before measuring stream sizes
+     */
+    public void awaitCompaction() {
+        try {
+            compactor.submit(() -> { }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /*
+     * background compaction, a hall removed meanwhile has nothing left to compact
+     */
+    private void compactQuietly(String hallKey, HallStream stream) {
+        synchronized (stream) {
+            stream.compactQueued = false;
+        }
+        if (streams.get(hallKey) == stream) {
+            try {
+                compact(hallKey);
+            } catch (IllegalArgumentException removed) {
+                // stream dropped between the check and the compaction
+            }
+        }
+    }
+
+    /**
+     * subscribe to appended events
+     * @param listener
+     */
+    public void subscribe(Consumer<HallEvent> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * drop stream of hall
+     * @param hallKey
+     */
+    public void remove(String hallKey) {
+        streams.remove(hallKey);
+    }
+
+    /**
+     * get hall keys with a stream
+     * @return
+     */
+    public Set<String> getHallKeys() {
+        return Collections.unmodifiableSet(streams.keySet());
+    }
+
+    /**
+     * get last appended seq of hall, 0 if none
+     * @param hallKey
+     * @return
+     */
+    public long getLastSeq(String hallKey) {
+        HallStream stream = streams.get(hallKey);
+        if (stream == null) return 0;
+        synchronized (stream) {
+            return stream.lastSeq;
+        }
+    }
+
+    /**
+     * get CONFIGURED event of hall, kept even after compaction
+     * @param hallKey
+     * @return
+     */
+    public HallEvent getConfigured(String hallKey) {
+        HallStream stream = requireStream(hallKey);
+        synchronized (stream) {
+            return stream.configured;
+        }
+    }
+
+    /**
+     * get retained events of hall, oldest first
+     * @param hallKey
+     * @return
+     */
+    public List<HallEvent> getEvents(String hallKey) {
+        HallStream stream = requireStream(hallKey);
+        synchronized (stream) {
+            return List.copyOf(stream.events);
+        }
+    }
+
+    /**
+     * get retained events touching one order
+     * @param hallKey
+     * @param orderId
+     * @return
+     */
+    public List<HallEvent> audit(String hallKey, String orderId) {
+        return getEvents(hallKey).stream()
+                .filter(e -> orderId.equals(e.getOrderId()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * rebuild current hall state
+     * @param hallKey
+     * @return
+     */
+    public CinemaHall replay(String hallKey) {
+        return stateAt(hallKey, Long.MAX_VALUE);
+    }
+
+    /**
+     * rebuild hall state as of seq: floor checkpoint plus the events after it
+     * @param hallKey
+     * @param seq
+     * @return
+     */
+    public CinemaHall stateAt(String hallKey, long seq) {
+        HallStream stream = requireStream(hallKey);
+        HallCheckpoint cp;
+        HallEvent[] tail;
+        synchronized (stream) {
+            Map.Entry<Long, HallCheckpoint> floor = stream.checkpoints.floorEntry(seq);
+            cp = floor == null ? null : floor.getValue();
+            long from = cp == null ? 1 : cp.getSeq() + 1;
+            if (from < stream.historyFrom)
+                throw new IllegalArgumentException("History of " + hallKey + " before seq " + stream.historyFrom + " was compacted.");
+            // retained seqs have gaps where RESERVED events were dropped
+            int lo = indexOf(stream.events, from);
+            int hi = indexOf(stream.events, Math.min(seq, stream.lastSeq) + 1);
+            tail = stream.events.subList(lo, Math.max(lo, hi)).toArray(new HallEvent[0]);
+        }
+        if (cp == null && tail.length == 0) throw new IllegalArgumentException("No state of " + hallKey + " at seq " + seq + ".");
+        CinemaHall hall = cp != null ? HallProjection.restore(cp) : HallProjection.create(tail[0]);
+        for (HallEvent e : tail) {
+            HallProjection.apply(hall, e);
+        }
+        if (hall.isMaterialized()) hall.publishSnapshot();
+        return hall;
+    }
+
+    /**
+     * rebuild hall state as of a point in time
+     * @param hallKey
+     * @param at
+     * @return
+     */
+    public CinemaHall stateAt(String hallKey, Instant at) {
+        HallStream stream = requireStream(hallKey);
+        long millis = at.toEpochMilli();
+        long seq = 0;
+        synchronized (stream) {
+            // events are appended in time order - binary search the last one at or before the instant
+            int lo = 0, hi = stream.events.size() - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (stream.events.get(mid).getTimestamp() <= millis) {
+                    seq = stream.events.get(mid).getSeq();
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            if (seq == 0) {
+                for (HallCheckpoint cp : stream.checkpoints.values()) {
+                    if (cp.getTimestamp() <= millis) seq = cp.getSeq();
+                }
+            }
+        }
+        if (seq == 0) throw new IllegalArgumentException("No state of " + hallKey + " at " + at + ".");
+        return stateAt(hallKey, seq);
+    }
+
+    /**
+     * rebuild every hall, streaming each hall's events, halls in parallel
+     * @return hall key to hall
+     */
+    public Map<String, CinemaHall> replayAll() {
+        return streams.keySet().parallelStream()
+                .collect(Collectors.toConcurrentMap(k -> k, this::replay));
+    }
+
+    /*
+     * index of the first event at or after seq
+     */
+    private static int indexOf(List<HallEvent> events, long seq) {
+        int lo = 0, hi = events.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (events.get(mid).getSeq() < seq) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * fold hall events into a new checkpoint, drop events older than the oldest retained checkpoint
+     * and RESERVED events up to the new one
+     * @param hallKey
+     */
+    public void compact(String hallKey) {
+        HallStream stream = requireStream(hallKey);
+        long seq;
+        long timestamp;
+        HallEvent configured;
+        synchronized (stream) {
+            if (stream.events.isEmpty()) return;
+            seq = stream.lastSeq;
+            timestamp = stream.events.get(stream.events.size() - 1).getTimestamp();
+            configured = stream.configured;
+        }
+        HallCheckpoint cp = HallProjection.checkpoint(stateAt(hallKey, seq), configured, seq, timestamp);
+        synchronized (stream) {
+            stream.checkpoints.put(seq, cp);
+            while (stream.checkpoints.size() > maxCheckpoints) {
+                stream.checkpoints.pollFirstEntry();
+            }
+            long oldest = stream.checkpoints.firstKey();
+            stream.events.subList(0, indexOf(stream.events, oldest + 1)).clear();
+            stream.historyFrom = oldest + 1;
+            stream.events.removeIf(e -> e.getType() == HallEventType.RESERVED && e.getSeq() <= seq);
+        }
+    }
+
+    /**
+     * compact every hall in parallel
+     */
+    public void compactAll() {
+        streams.keySet().parallelStream().forEach(this::compact);
+    }
+
+    /*
+     * get stream or fail
+     */
+    private HallStream requireStream(String hallKey) {
+        HallStream stream = streams.get(hallKey);
+        if (stream == null) throw new IllegalArgumentException("Unknown hall: " + hallKey);
+        return stream;
+    }
+
+    /*
+     * events and checkpoints of one hall, guarded by its own monitor
+     */
+    private static class HallStream {
+        private final List<HallEvent> events = new ArrayList<>();
+        private final TreeMap<Long, HallCheckpoint> checkpoints = new TreeMap<>();
+        private HallEvent configured;
+        private long lastSeq;
+        /*
+         * first seq whose state changing events are all retained
+         */
+        private long historyFrom = 1;
+        /*
+         * events appended since the last automatic compaction
+         */
+        private int sinceCompaction;
+        private boolean compactQueued;
+    }
+}
@@ -0,0 +1,24 @@
+package com.gic.cinema.order.event;
+
+/**
+ * Hall Event Type
+ */
+public enum HallEventType {
+    /*
+     * hall or showtime created
+     */
+    CONFIGURED,
+    /*
+     * seats allocated for a booking not yet confirmed - audit only, seat status unchanged.
+     * The service no longer records it; streams written by older builds still carry it
+     */
+    RESERVED,
+    /*
+     * seats booked by an order
+     */
+    CONFIRMED,
+    /*
+     * seats released from an order
+     */
+    CANCELLED
+}
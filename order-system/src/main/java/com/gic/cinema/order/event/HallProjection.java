@@ -0,0 +1,150 @@
+package com.gic.cinema.order.event;
+
+import com.gic.cinema.order.model.CinemaHall;
+import com.gic.cinema.order.model.Order;
+import com.gic.cinema.order.model.Seat;
+import com.gic.cinema.order.model.SeatStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * HallProjection - rebuild CinemaHall from hall events and checkpoints
+ */
+public final class HallProjection {
+    private static final SeatStatus[] STATUSES = SeatStatus.values();
+
+    private HallProjection() {
+    }
+
+    /**
+     * build empty hall from CONFIGURED event
+     * @param configured
+     * @return
+     */
+    public static CinemaHall create(HallEvent configured) {
+        CinemaHall hall = configured.getTemplate() != null
+                ? new CinemaHall(configured.getMovieName(), configured.getTemplate(), configured.getHallName(), configured.getStartsAt())
+                : new CinemaHall(configured.getMovieName(), configured.getRows(), configured.getSeatsPerRow(), configured.getHallName());
+        hall.setKey(configured.getHallKey());
+        return hall;
+    }
+
+    /**
+     * apply one event to hall
+     * @param hall
+     * @param e
+     */
+    public static void apply(CinemaHall hall, HallEvent e) {
+        switch (e.getType()) {
+            case CONFIRMED -> {
+                Order order = hall.getOrders().get(e.getOrderId());
+                if (order == null) {
+                    order = Order.builder().id(e.getOrderId()).movieName(e.getMovieName())
+                            .hallName(hall.getHallName()).seatLabels(new ArrayList<>()).build();
+                    hall.putOrder(order);
+                }
+                for (int id : e.getSeatIds()) {
+                    Seat s = hall.seatAt(id);
+                    s.setStatus(SeatStatus.BOOKED);
+                    s.setOrderId(e.getOrderId());
+                    order.getSeatLabels().add(s.getLabel());
+                }
+                order.getSeatLabels().sort(null);
+                order.setTickets(order.getSeatLabels().size());
+            }
+            case CANCELLED -> {
+                Order order = hall.getOrders().get(e.getOrderId());
+                for (int id : e.getSeatIds()) {
+                    Seat s = hall.seatAt(id);
+                    s.setStatus(SeatStatus.AVAILABLE);
+                    s.setOrderId(null);
+                    if (order != null) order.getSeatLabels().remove(s.getLabel());
+                }
+                if (order != null) {
+                    order.setTickets(order.getSeatLabels().size());
+                    if (order.getSeatLabels().isEmpty()) hall.removeOrder(order.getId());
+                }
+            }
+            default -> {
+                // CONFIGURED builds the hall, RESERVED is audit only
+            }
+        }
+    }
+
+    /**
+     * fold hall state into a checkpoint
+     * @param hall
+     * @param configured
+     * @param seq
+     * @param timestamp
+     * @return
+     */
+    public static HallCheckpoint checkpoint(CinemaHall hall, HallEvent configured, long seq, long timestamp) {
+        byte[] statuses = new byte[hall.getRows() * hall.getSeatsPerRow()];
+        for (int r = 0; r < hall.getRows(); r++) {
+            for (int c = 0; c < hall.getSeatsPerRow(); c++) {
+                statuses[r * hall.getSeatsPerRow() + c] = (byte) hall.getSeatStatus(r, c).ordinal();
+            }
+        }
+        List<Order> orders = new ArrayList<>(hall.getOrders().size());
+        for (Order o : hall.getOrders().values()) {
+            orders.add(copy(o));
+        }
+        return HallCheckpoint.builder().seq(seq).timestamp(timestamp).configured(configured)
+                .statuses(statuses).orders(orders).build();
+    }
+
+    /**
+     * fold hall state into the shortest event list that rebuilds it: CONFIGURED, then one CONFIRMED per order
+     * @param hall
+     * @param configured
+     * @return
+     */
+    public static List<HallEvent> toEvents(CinemaHall hall, HallEvent configured) {
+        List<HallEvent> events = new ArrayList<>(hall.getOrders().size() + 1);
+        events.add(configured);
+        for (Order o : hall.getOrders().values()) {
+            int[] ids = new int[o.getSeatLabels().size()];
+            for (int i = 0; i < ids.length; i++) {
+                int[] pos = Seat.parseLabel(o.getSeatLabels().get(i), hall.getRows(), hall.getSeatsPerRow());
+                ids[i] = pos[0] * hall.getSeatsPerRow() + pos[1];
+            }
+            events.add(HallEvent.builder().hallKey(configured.getHallKey()).type(HallEventType.CONFIRMED)
+                    .movieName(o.getMovieName()).orderId(o.getId()).seatIds(ids).build());
+        }
+        return events;
+    }
+
+    /**
+     * rebuild hall from checkpoint
+     * @param cp
+     * @return
+     */
+    public static CinemaHall restore(HallCheckpoint cp) {
+        CinemaHall hall = create(cp.getConfigured());
+        byte[] statuses = cp.getStatuses();
+        int cols = hall.getSeatsPerRow();
+        for (int id = 0; id < statuses.length; id++) {
+            SeatStatus status = STATUSES[statuses[id]];
+            if (hall.getSeatStatus(id / cols, id % cols) != status) hall.seatAt(id).setStatus(status);
+        }
+        for (Order o : cp.getOrders()) {
+            Order order = copy(o);
+            hall.putOrder(order);
+            for (String label : order.getSeatLabels()) {
+                int[] pos = Seat.parseLabel(label, hall.getRows(), cols);
+                hall.seatAt(pos[0] * cols + pos[1]).setOrderId(order.getId());
+            }
+        }
+        return hall;
+    }
+
+    /*
+     * copy order so checkpoints never share mutable state with live halls
+     */
+    private static Order copy(Order o) {
+        return Order.builder().id(o.getId()).movieName(o.getMovieName()).tickets(o.getTickets())
+                .seatLabels(new ArrayList<>(o.getSeatLabels())).hallName(o.getHallName()).build();
+    }
+}
@@ -0,0 +1,25 @@
+package com.gic.cinema.order.exception;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * AdmissionRejectedException - request turned away by the hall waiting room
+ */
+@Data
+@EqualsAndHashCode(callSuper = false)
+public class AdmissionRejectedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public static final String QUEUE_FULL = "QUEUE_FULL";
+    public static final String TIMEOUT = "TIMEOUT";
+    /*
+     * Error Code
+     */
+    private String code;
+
+    public AdmissionRejectedException(String code, String msg) {
+        super(msg);
+        this.code = code;
+    }
+}
@@ -11,6 +11,8 @@ import lombok.EqualsAndHashCode;
 @Builder
 @EqualsAndHashCode(callSuper = false)
 public class NotEnoughSeatsException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
     /*
      * Error Code
      */
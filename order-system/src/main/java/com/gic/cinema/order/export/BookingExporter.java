@@ -0,0 +1,533 @@
+package com.gic.cinema.order.export;
+
+import com.gic.cinema.order.event.HallEvent;
+import com.gic.cinema.order.event.HallEventStore;
+import com.gic.cinema.order.event.HallProjection;
+import com.gic.cinema.order.model.CinemaHall;
+import com.gic.cinema.order.model.Order;
+import com.gic.cinema.order.model.Seat;
+import com.gic.cinema.order.model.SeatStatus;
+import com.gic.cinema.order.service.HallArchive;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * BookingExporter - stream every hall's orders and seat states to CSV or to a columnar binary file.
+ *  - every hall's last seq is read in one pass before any hall is rebuilt, so the export is one cut across halls
+ *  - each hall is rebuilt at its cut seq from its newest checkpoint at or before it, bookings never wait for the export
+ *  - halls are exported in parallel, each worker encodes into its own direct buffer
+ *  - a full buffer is written to the shared file channel in one piece, so memory stays at workers x buffer size
+ * Halls archived to disk are not in the event store: when an archive is given they are read back from it
+ * and exported at seq 0 after the event store halls, a hall in both is exported from the event store.
+ */
+public class BookingExporter {
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+    public static final int MAGIC = 0x43455831; // CEX1
+    public static final String ORDERS_HEADER = "hall_key,seq,order_id,movie,tickets,seats\n";
+    public static final String SEATS_HEADER = "hall_key,seq,seat,status,order_id\n";
+
+    /*
+     * marks the end of a columnar file
+     */
+    private static final int END_OF_HALLS = 0;
+    /*
+     * cut seq of a hall read from the archive
+     */
+    private static final long ARCHIVED = -1;
+
+    private final HallEventStore eventStore;
+    /*
+     * closed halls evicted from the event store, null if none
+     */
+    private final HallArchive archive;
+    /*
+     * worker threads
+     */
+    private final int parallelism;
+    /*
+     * direct buffer per worker and file
+     */
+    private final int bufferSize;
+
+    public BookingExporter(HallEventStore eventStore) {
+        this(eventStore, null);
+    }
+
+    public BookingExporter(HallEventStore eventStore, HallArchive archive) {
+        this(eventStore, archive, Runtime.getRuntime().availableProcessors(), DEFAULT_BUFFER_SIZE);
+    }
+
+    public BookingExporter(HallEventStore eventStore, int parallelism, int bufferSize) {
+        this(eventStore, null, parallelism, bufferSize);
+    }
+
+    public BookingExporter(HallEventStore eventStore, HallArchive archive, int parallelism, int bufferSize) {
+        if (parallelism < 1) throw new IllegalArgumentException("Parallelism must be > 0.");
+        if (bufferSize < 4096) throw new IllegalArgumentException("Buffer size must be >= 4096.");
+        this.eventStore = eventStore;
+        this.archive = archive;
+        this.parallelism = parallelism;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * export orders and seat states of every hall to two CSV files
+     * @param ordersFile
+     * @param seatsFile
+     * @return
+     */
+    public ExportStats exportCsv(Path ordersFile, Path seatsFile) {
+        try (FileChannel orders = open(ordersFile); FileChannel seats = open(seatsFile)) {
+            Sink orderSink = new Sink(orders);
+            Sink seatSink = new Sink(seats);
+            orderSink.write(ByteBuffer.wrap(ORDERS_HEADER.getBytes(StandardCharsets.UTF_8)));
+            seatSink.write(ByteBuffer.wrap(SEATS_HEADER.getBytes(StandardCharsets.UTF_8)));
+            ExportStats stats = run(() -> new CsvWorker(orderSink, seatSink));
+            stats.setBytes(orders.size() + seats.size());
+            return stats;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * export every hall to one columnar file, one self-describing block per hall
+     * @param file
+     * @return
+     */
+    public ExportStats exportColumnar(Path file) {
+        try (FileChannel ch = open(file)) {
+            Sink sink = new Sink(ch);
+            sink.write(ByteBuffer.allocate(4).putInt(0, MAGIC));
+            ExportStats stats = run(() -> new ColumnarWorker(sink));
+            sink.write(ByteBuffer.allocate(4).putInt(0, END_OF_HALLS));
+            stats.setBytes(ch.size());
+            return stats;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * read a columnar export back, one hall at a time
+     * @param file
+     * @param consumer
+     */
+    public static void readColumnar(Path file, Consumer<ExportedHall> consumer) {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(4);
+            readFully(ch, head);
+            if (head.getInt(0) != MAGIC) throw new IllegalArgumentException("Not a columnar export: " + file);
+            while (true) {
+                head.clear();
+                readFully(ch, head);
+                int length = head.getInt(0);
+                if (length == END_OF_HALLS) return;
+                // a corrupt length must not allocate past what the file can hold
+                if (length < 0 || length > ch.size() - ch.position())
+                    throw new IllegalArgumentException("Corrupt columnar hall block length " + length + " in " + file);
+                ByteBuffer block = ByteBuffer.allocate(length);
+                readFully(ch, block);
+                block.flip();
+                consumer.accept(decode(block));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /*
+     * take the cut, then hand its halls to workers until none is left
+     */
+    private ExportStats run(Supplier<Worker> workers) {
+        Queue<Map.Entry<String, Long>> keys = new ConcurrentLinkedQueue<>();
+        Set<String> live = new HashSet<>();
+        for (String key : eventStore.getHallKeys()) {
+            long seq = eventStore.getLastSeq(key);
+            if (seq > 0) {
+                keys.add(Map.entry(key, seq));
+                live.add(key);
+            }
+        }
+        if (archive != null) {
+            for (String key : archive.getHallKeys()) {
+                if (!live.contains(key)) keys.add(Map.entry(key, ARCHIVED));
+            }
+        }
+        ExportStats stats = new ExportStats();
+        AtomicLong halls = new AtomicLong();
+        AtomicLong pastCut = new AtomicLong();
+        AtomicLong orders = new AtomicLong();
+        AtomicLong seats = new AtomicLong();
+        int threads = Math.max(1, Math.min(parallelism, keys.size()));
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "booking-exporter");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(pool.submit(() -> {
+                    Worker w = workers.get();
+                    for (Map.Entry<String, Long> cut = keys.poll(); cut != null; cut = keys.poll()) {
+                        String key = cut.getKey();
+                        long seq = cut.getValue();
+                        CinemaHall hall;
+                        if (seq == ARCHIVED) {
+                            hall = unarchive(key);
+                            if (hall == null) continue;
+                            seq = 0;
+                        } else {
+                            try {
+                                hall = eventStore.stateAt(key, seq);
+                            } catch (IllegalArgumentException e) {
+                                // removed since the cut, or compacted past it under heavy booking: export the latest state
+                                seq = eventStore.getLastSeq(key);
+                                if (seq == 0) continue;
+                                try {
+                                    hall = eventStore.stateAt(key, seq);
+                                } catch (IllegalArgumentException removed) {
+                                    continue;
+                                }
+                                pastCut.incrementAndGet();
+                            }
+                        }
+                        w.hall(key, seq, hall);
+                        halls.incrementAndGet();
+                        orders.addAndGet(hall.getOrders().size());
+                        seats.addAndGet((long) hall.getRows() * hall.getSeatsPerRow());
+                    }
+                    w.flush();
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Export interrupted.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException u) throw u;
+            throw new IllegalStateException("Export failed.", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        stats.setHalls(halls.get());
+        stats.setHallsPastCut(pastCut.get());
+        stats.setOrders(orders.get());
+        stats.setSeats(seats.get());
+        return stats;
+    }
+
+    /*
+     * project archived hall from its stored events, null if it left the archive since the cut
+     */
+    private CinemaHall unarchive(String key) {
+        List<HallEvent> events = archive.load(key);
+        if (events.isEmpty()) return null;
+        CinemaHall hall = HallProjection.create(events.get(0));
+        for (HallEvent e : events.subList(1, events.size())) {
+            HallProjection.apply(hall, e);
+        }
+        return hall;
+    }
+
+    /*
+     * order id per seat id, from the order seat labels
+     */
+    private static String[] seatOrders(CinemaHall hall) {
+        String[] out = new String[hall.getRows() * hall.getSeatsPerRow()];
+        for (Order o : hall.getOrders().values()) {
+            if (o.getSeatLabels() == null) continue;
+            for (String label : o.getSeatLabels()) {
+                int[] pos = Seat.parseLabel(label, hall.getRows(), hall.getSeatsPerRow());
+                out[pos[0] * hall.getSeatsPerRow() + pos[1]] = o.getId();
+            }
+        }
+        return out;
+    }
+
+    private static FileChannel open(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private static void readFully(FileChannel ch, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            if (ch.read(buf) < 0) throw new IllegalArgumentException("Truncated columnar export.");
+        }
+    }
+
+    /*
+     * decode one hall block: header, status column, order slot column, order id table
+     */
+    private static ExportedHall decode(ByteBuffer b) {
+        try {
+            String key = getString(b);
+            long seq = b.getLong();
+            String movie = getString(b);
+            int rows = b.getShort();
+            int cols = b.getShort();
+            byte[] statuses = new byte[rows * cols];
+            b.get(statuses);
+            int[] slots = new int[statuses.length];
+            for (int i = 0; i < slots.length; i++) {
+                slots[i] = b.getShort() & 0xFFFF;
+            }
+            String[] ids = new String[b.getShort() & 0xFFFF];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = getString(b);
+            }
+            String[] seatOrders = new String[slots.length];
+            for (int i = 0; i < slots.length; i++) {
+                if (slots[i] > 0) seatOrders[i] = ids[slots[i] - 1];
+            }
+            return ExportedHall.builder().hallKey(key).seq(seq).movieName(movie).rows(rows).seatsPerRow(cols)
+                    .statuses(statuses).seatOrders(seatOrders).build();
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Corrupt columnar hall block.", e);
+        }
+    }
+
+    private static String getString(ByteBuffer b) {
+        byte[] bytes = new byte[b.getShort() & 0xFFFF];
+        b.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /*
+     * file channel shared by every worker, each write lands in one piece
+     */
+    private static final class Sink {
+        private final FileChannel ch;
+
+        Sink(FileChannel ch) {
+            this.ch = ch;
+        }
+
+        void write(ByteBuffer buf) {
+            try {
+                synchronized (this) {
+                    while (buf.hasRemaining()) {
+                        ch.write(buf);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /*
+     * encodes halls into worker-owned buffers
+     */
+    private abstract class Worker {
+        abstract void hall(String key, long seq, CinemaHall hall);
+
+        abstract void flush();
+
+        /*
+         * write out buffer if fewer than need bytes remain
+         */
+        void ensure(ByteBuffer buf, Sink sink, int need) {
+            if (buf.remaining() < need) drain(buf, sink);
+        }
+
+        void drain(ByteBuffer buf, Sink sink) {
+            buf.flip();
+            sink.write(buf);
+            buf.clear();
+        }
+    }
+
+    /*
+     * one CSV line per order and per seat, a line never spans two writes
+     */
+    private final class CsvWorker extends Worker {
+        private final Sink orderSink;
+        private final Sink seatSink;
+        private final ByteBuffer orderBuf = ByteBuffer.allocateDirect(bufferSize);
+        private final ByteBuffer seatBuf = ByteBuffer.allocateDirect(bufferSize);
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+        private final StringBuilder line = new StringBuilder(256);
+
+        CsvWorker(Sink orderSink, Sink seatSink) {
+            this.orderSink = orderSink;
+            this.seatSink = seatSink;
+        }
+
+        @Override
+        void hall(String key, long seq, CinemaHall hall) {
+            for (Order o : hall.getOrders().values()) {
+                line.setLength(0);
+                field(key).append(',').append(seq).append(',');
+                field(o.getId()).append(',');
+                field(o.getMovieName() == null ? hall.getMovieName() : o.getMovieName()).append(',').append(o.getTickets()).append(',');
+                field(o.getSeatLabels() == null ? "" : String.join(" ", o.getSeatLabels())).append('\n');
+                put(orderBuf, orderSink);
+            }
+            String[] seatOrders = seatOrders(hall);
+            for (int r = hall.getRows() - 1; r >= 0; r--) {
+                for (int c = 0; c < hall.getSeatsPerRow(); c++) {
+                    line.setLength(0);
+                    field(key).append(',').append(seq).append(',');
+                    line.append(Seat.labelOf(r, c, hall.getRows())).append(',');
+                    line.append(hall.getSeatStatus(r, c).name()).append(',');
+                    String orderId = seatOrders[r * hall.getSeatsPerRow() + c];
+                    if (orderId != null) field(orderId);
+                    line.append('\n');
+                    put(seatBuf, seatSink);
+                }
+            }
+        }
+
+        @Override
+        void flush() {
+            drain(orderBuf, orderSink);
+            drain(seatBuf, seatSink);
+        }
+
+        /*
+         * append CSV field, quoted when it holds a separator, quote or line break
+         */
+        private StringBuilder field(String s) {
+            if (s == null) return line;
+            boolean quote = false;
+            for (int i = 0; i < s.length() && !quote; i++) {
+                char ch = s.charAt(i);
+                quote = ch == ',' || ch == '"' || ch == '\n' || ch == '\r';
+            }
+            if (!quote) return line.append(s);
+            line.append('"');
+            for (int i = 0; i < s.length(); i++) {
+                char ch = s.charAt(i);
+                if (ch == '"') line.append('"');
+                line.append(ch);
+            }
+            return line.append('"');
+        }
+
+        /*
+         * encode line into buffer, at most 3 bytes per char
+         */
+        private void put(ByteBuffer buf, Sink sink) {
+            int need = line.length() * 3;
+            if (need > buf.capacity()) {
+                // longer than a whole buffer - keep order and write it on its own
+                drain(buf, sink);
+                sink.write(ByteBuffer.wrap(line.toString().getBytes(StandardCharsets.UTF_8)));
+                return;
+            }
+            ensure(buf, sink, need);
+            encoder.reset();
+            CoderResult result = encoder.encode(CharBuffer.wrap(line), buf, true);
+            if (result.isError()) throw new IllegalArgumentException("Cannot encode export line: " + result);
+            encoder.flush(buf);
+        }
+    }
+
+    /*
+     * one block per hall: length, key, seq, movie, rows, cols, status column, order slot column, order id table
+     */
+    private final class ColumnarWorker extends Worker {
+        private final Sink sink;
+        private final ByteBuffer buf = ByteBuffer.allocateDirect(bufferSize);
+
+        ColumnarWorker(Sink sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        void hall(String key, long seq, CinemaHall hall) {
+            int rows = hall.getRows();
+            int cols = hall.getSeatsPerRow();
+            byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            byte[] movieBytes = hall.getMovieName() == null ? new byte[0] : hall.getMovieName().getBytes(StandardCharsets.UTF_8);
+            List<byte[]> ids = new ArrayList<>(hall.getOrders().size());
+            int idBytes = 0;
+            for (String id : hall.getOrders().keySet()) {
+                byte[] b = id.getBytes(StandardCharsets.UTF_8);
+                ids.add(b);
+                idBytes += 2 + b.length;
+            }
+            if (ids.size() > 0xFFFF) throw new IllegalStateException("Too many orders in " + key + " for one block.");
+            int length = 2 + keyBytes.length + 8 + 2 + movieBytes.length + 4 + rows * cols * 3 + 2 + idBytes;
+            ByteBuffer out = buf;
+            if (4 + length > buf.capacity()) {
+                drain(buf, sink);
+                out = ByteBuffer.allocate(4 + length);
+            } else {
+                ensure(buf, sink, 4 + length);
+            }
+            out.putInt(length);
+            putBytes(out, keyBytes).putLong(seq);
+            putBytes(out, movieBytes).putShort((short) rows).putShort((short) cols);
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < cols; c++) {
+                    out.put((byte) hall.getSeatStatus(r, c).ordinal());
+                }
+            }
+            String[] seatOrders = seatOrders(hall);
+            Map<String, Integer> slotOf = new HashMap<>(ids.size() * 2);
+            int slot = 0;
+            for (String id : hall.getOrders().keySet()) {
+                slotOf.put(id, ++slot);
+            }
+            for (String id : seatOrders) {
+                out.putShort((short) (id == null ? 0 : slotOf.getOrDefault(id, 0)));
+            }
+            out.putShort((short) ids.size());
+            for (byte[] b : ids) {
+                putBytes(out, b);
+            }
+            if (out != buf) {
+                out.flip();
+                sink.write(out);
+            }
+        }
+
+        @Override
+        void flush() {
+            drain(buf, sink);
+        }
+
+        private ByteBuffer putBytes(ByteBuffer out, byte[] b) {
+            return out.putShort((short) b.length).put(b);
+        }
+    }
+
+    /**
+     * seat status of a status column byte
+     * @param b
+     * @return
+     */
+    public static SeatStatus statusOf(byte b) {
+        return SeatStatus.values()[b];
+    }
+}
@@ -0,0 +1,34 @@
+package com.gic.cinema.order.export;
+
+import lombok.*;
+
+/**
+ * ExportStats - totals of one export run
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class ExportStats {
+    /*
+     * halls exported
+     */
+    private long halls;
+    /*
+     * orders exported
+     */
+    private long orders;
+    /*
+     * seats exported
+     */
+    private long seats;
+    /*
+     * halls whose history before the cut was compacted during the export, exported at a later seq
+     */
+    private long hallsPastCut;
+    /*
+     * bytes written, every file
+     */
+    private long bytes;
+}
@@ -0,0 +1,44 @@
+package com.gic.cinema.order.export;
+
+import lombok.*;
+
+/**
+ * ExportedHall - one hall block read back from a columnar export
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class ExportedHall {
+    /*
+     * hall key
+     */
+    private String hallKey;
+    /*
+     * last hall event in the snapshot
+     */
+    private long seq;
+    /*
+     * movie name
+     */
+    private String movieName;
+    /*
+     * total rows
+     */
+    private int rows;
+    /*
+     * total seats per row
+     */
+    private int seatsPerRow;
+    /*
+     * SeatStatus ordinal per seat id
+     */
+    @ToString.Exclude
+    private byte[] statuses;
+    /*
+     * order id per seat id, null if none
+     */
+    @ToString.Exclude
+    private String[] seatOrders;
+}
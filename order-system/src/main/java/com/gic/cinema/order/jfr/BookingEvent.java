@@ -0,0 +1,27 @@
+package com.gic.cinema.order.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * BookingEvent - seats allocated by bookDefault or bookFromPosition, before confirmation
+ */
+@Name("com.gic.cinema.order.Booking")
+@Label("Booking")
+@Description("Seats allocated by bookDefault or bookFromPosition, before confirmation")
+public class BookingEvent extends CinemaEvent {
+    public static final String DEFAULT = "DEFAULT";
+    public static final String POSITION = "POSITION";
+
+    @Label("Rule")
+    private final String rule;
+
+    /**
+     * init event
+     * @param rule - DEFAULT or POSITION
+     */
+    public BookingEvent(String rule) {
+        this.rule = rule;
+    }
+}
@@ -0,0 +1,40 @@
+package com.gic.cinema.order.jfr;
+
+import jdk.jfr.Configuration;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+
+/**
+ * BookingStormProfile - bundled flight recorder settings for capturing a booking storm:
+ * every cinema event, GC pauses and heap, lock contention, thread parking and CPU / allocation samples.
+ * From the command line: -XX:StartFlightRecording:settings=src/main/resources/jfr/booking-storm.jfc,filename=storm.jfr
+ */
+public final class BookingStormProfile {
+    public static final String RESOURCE = "/jfr/booking-storm.jfc";
+
+    private BookingStormProfile() {
+    }
+
+    /**
+     * load profile from the classpath, e.g. for new Recording(BookingStormProfile.load())
+     * @return
+     */
+    public static Configuration load() {
+        try (InputStream in = BookingStormProfile.class.getResourceAsStream(RESOURCE)) {
+            if (in == null) throw new IllegalStateException("Missing " + RESOURCE);
+            try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                return Configuration.create(reader);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read " + RESOURCE + ": " + e.getMessage(), e);
+        } catch (ParseException e) {
+            throw new IllegalStateException("Invalid " + RESOURCE + ": " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.gic.cinema.order.jfr;
+
+import com.gic.cinema.order.exception.NotEnoughSeatsException;
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * CinemaEvent - common fields of the booking pipeline flight recorder events.
+ * With recording off begin / end are no-ops and the fields are never set, so an event costs one allocation
+ * the JIT usually removes. Fields are protected: the recorder leaves out private fields of a super class.
+ */
+@Category({"Cinema", "Booking"})
+@StackTrace(false)
+public abstract class CinemaEvent extends Event {
+    public static final String OK = "OK";
+    public static final String NOT_ENOUGH_SEATS = "NOT_ENOUGH_SEATS";
+    public static final String INVALID = "INVALID";
+    public static final String REJECTED = "REJECTED";
+    public static final String ERROR = "ERROR";
+
+    @Label("Hall Key")
+    protected String hallKey;
+    @Label("Tickets")
+    protected int tickets;
+    @Label("Rows Scanned")
+    protected int rowsScanned;
+    @Label("Outcome")
+    protected String outcome;
+
+    /**
+     * end and commit event if recorded
+     * @param hallKey
+     * @param tickets
+     * @param rowsScanned
+     * @param outcome
+     */
+    public void end(String hallKey, int tickets, int rowsScanned, String outcome) {
+        if (!shouldCommit()) return;
+        this.hallKey = hallKey;
+        this.tickets = tickets;
+        this.rowsScanned = rowsScanned;
+        this.outcome = outcome;
+        commit();
+    }
+
+    /**
+     * end and commit event of a failed call
+     * @param hallKey
+     * @param tickets
+     * @param e
+     */
+    public void failed(String hallKey, int tickets, Throwable e) {
+        if (!shouldCommit()) return;
+        end(hallKey, tickets, 0, outcomeOf(e));
+    }
+
+    /**
+     * outcome of a failed call
+     * @param e
+     * @return
+     */
+    public static String outcomeOf(Throwable e) {
+        if (e instanceof NotEnoughSeatsException) return NOT_ENOUGH_SEATS;
+        if (e instanceof IllegalArgumentException) return INVALID;
+        if (e instanceof IllegalStateException) return REJECTED;
+        return ERROR;
+    }
+}
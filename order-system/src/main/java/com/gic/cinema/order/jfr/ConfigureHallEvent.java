@@ -0,0 +1,14 @@
+package com.gic.cinema.order.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * ConfigureHallEvent - hall looked up or built by configureHall
+ */
+@Name("com.gic.cinema.order.ConfigureHall")
+@Label("Configure Hall")
+@Description("Hall looked up or built by configureHall")
+public class ConfigureHallEvent extends CinemaEvent {
+}
@@ -0,0 +1,33 @@
+package com.gic.cinema.order.jfr;
+
+import com.gic.cinema.order.model.Seat;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.util.List;
+
+/**
+ * ConfirmEvent - seats booked for an order by confirmOrder
+ */
+@Name("com.gic.cinema.order.Confirm")
+@Label("Confirm Order")
+@Description("Seats booked for an order by confirmOrder")
+public class ConfirmEvent extends CinemaEvent {
+
+    /**
+     * end and commit event of a confirmed order; nothing is scanned, rows counts the rows the order spans
+     * @param hallKey
+     * @param seats
+     */
+    public void succeeded(String hallKey, List<Seat> seats) {
+        if (!shouldCommit()) return;
+        int lowest = Integer.MAX_VALUE;
+        int highest = -1;
+        for (Seat s : seats) {
+            lowest = Math.min(lowest, s.getRowIndex());
+            highest = Math.max(highest, s.getRowIndex());
+        }
+        end(hallKey, seats.size(), seats.isEmpty() ? 0 : highest - lowest + 1, OK);
+    }
+}
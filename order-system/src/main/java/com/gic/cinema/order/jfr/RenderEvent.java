@@ -0,0 +1,14 @@
+package com.gic.cinema.order.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * RenderEvent - seat map printed by the console menu
+ */
+@Name("com.gic.cinema.order.Render")
+@Label("Render Seat Map")
+@Description("Seat map printed by the console menu")
+public class RenderEvent extends CinemaEvent {
+}
@@ -1,6 +1,9 @@
 package com.gic.cinema.order.menu;
 
 import com.gic.cinema.order.exception.NotEnoughSeatsException;
+import com.gic.cinema.order.jfr.CinemaEvent;
+import com.gic.cinema.order.jfr.RenderEvent;
+import com.gic.cinema.order.model.AvailabilitySnapshot;
 import com.gic.cinema.order.model.CinemaHall;
 import com.gic.cinema.order.model.Order;
 import com.gic.cinema.order.model.Seat;
@@ -35,8 +38,8 @@ public class MainMenu {
     public void process(BufferedReader scanner, CinemaHall hall) throws Exception{
         // ------- Main menu loop -------
         while (true) {
-            // get available seat count in current movie hall
-            int available = hall.getAvailableSeatCount();
+            // get available seat count in current movie hall, from the published snapshot without the hall lock
+            int available = hall.getPublishedAvailableSeatCount();
             System.out.println();
             System.out.printf("Welcome to GIC Cinemas%n");
             System.out.printf("[1] Book tickets for %s (%d seats available)%n", hall.getMovieName(), available);
@@ -97,7 +100,7 @@ public class MainMenu {
                 continue;
             }
             //if input tickets number is large than hall available seat count, return to booking workflow menu
-            if (tickets > hall.getAvailableSeatCount()) {
+            if (tickets > hall.getPublishedAvailableSeatCount()) {
                 System.out.println("Not enough seats available. Try a smaller number.");
                 continue; // let user try again
             }
@@ -181,9 +184,12 @@ public class MainMenu {
      *  '.' = available
      *  '#' = previously booked
      *  'O' = seats in current booking (highlight)
+     *  'X' = blocked or house seat
      * Back row (furthest from screen) appears at top.
      */
     private void printSeatingMap(CinemaHall hall, Set<String> highlightSeats) {
+        RenderEvent event = new RenderEvent();
+        event.begin();
         int totalLen=hall.getSeatsPerRow()*3+1;
         //display Screen front top, display Screen in the middle
         if(totalLen <=6){
@@ -201,8 +207,8 @@ public class MainMenu {
             }
             System.out.println("");
         }
-        //hall seats
-        Seat[][] seats = hall.getSeats();
+        //hall seats, read from the published snapshot so rendering never races with bookings
+        AvailabilitySnapshot snapshot = hall.getSnapshot();
         //display one line between Screen and seats map
         System.out.print("-");
         for (int c = 0; c < hall.getSeatsPerRow(); c++) {
@@ -217,14 +223,17 @@ public class MainMenu {
             sb.append(rowChar).append(' ');
             //loop seat per row
             for (int c = 0; c < hall.getSeatsPerRow(); c++) {
-                Seat s = seats[hall.getRows()-r][c];
-                String label = s.getLabel();
+                int rowIndex = hall.getRows()-r;
+                SeatStatus status = snapshot.statusAt(rowIndex, c);
+                String label = Seat.labelOf(rowIndex, c, hall.getRows());
                 String ch ="";
                 //display seat status
                 if (highlightSeats.contains(label)) {  //seating booking
                     ch = " O ";
-                } else if (s.getStatus() == SeatStatus.BOOKED) { //seating booked
+                } else if (status == SeatStatus.BOOKED) { //seating booked
                     ch = " # ";
+                } else if (status != SeatStatus.AVAILABLE) { //not for sale
+                    ch = " X ";
                 } else {
                     ch = " . ";  //seat available
                 }
@@ -242,21 +251,23 @@ public class MainMenu {
             }
         }
         System.out.println(sb1);
-        System.out.println("Legend: '.'=available, '#'=booked, 'O'=this booking");
+        System.out.println("Legend: '.'=available, '#'=booked, 'O'=this booking, 'X'=unavailable");
+        event.end(hall.getKey(), highlightSeats.size(), hall.getRows(), CinemaEvent.OK);
     }
     /**
      * show current cinema hall bookings
      * @param hall
      */
     public void showBookings(BufferedReader scanner,CinemaHall hall) throws Exception{
-        //check order status
-        if (hall.getOrders().isEmpty()) {
+        //check order status, orders of the published snapshot so listing never races with bookings
+        List<Order> orders = hall.getPublishedOrders();
+        if (orders.isEmpty()) {
             System.out.println("No bookings yet.");
             return;
         }
         //print booking info
         System.out.println("Existing bookings:");
-        for (Order b : hall.getOrders().values()) {
+        for (Order b : orders) {
             System.out.printf("  ID: %s | Tickets: %d | Seats: %s%n",
                     b.getId(), b.getTickets(), String.join(", ", b.getSeatLabels()));
         }
@@ -270,7 +281,7 @@ public class MainMenu {
                 return;
             }
             //get order/booking id
-            Order booking = hall.getOrders().get(line);
+            Order booking = hall.getPublishedOrder(line);
             if(booking == null){
                 System.out.println("Invalid bookings!");
             }else {
@@ -0,0 +1,105 @@
+package com.gic.cinema.order.model;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * AvailabilitySnapshot - immutable seat availability of one hall at one version.
+ * Halls publish a new snapshot after every committed change, readers never lock.
+ */
+@Getter
+@ToString(exclude = {"booked", "unavailable"})
+public final class AvailabilitySnapshot {
+    /*
+     * hall version, increased by every publish
+     */
+    private final long version;
+    /*
+     * total rows
+     */
+    private final int rows;
+    /*
+     * total seats per row
+     */
+    private final int seatsPerRow;
+    /*
+     * AVAILABLE seats
+     */
+    private final int availableCount;
+    /*
+     * BOOKED seats
+     */
+    private final int bookedCount;
+    /*
+     * bit per seat id set if BOOKED, never exposed
+     */
+    @Getter(lombok.AccessLevel.NONE)
+    private final long[] booked;
+    /*
+     * bit per seat id set if neither AVAILABLE nor BOOKED (blocked, house, reserved), never exposed
+     */
+    @Getter(lombok.AccessLevel.NONE)
+    private final long[] unavailable;
+
+    /**
+     * init snapshot - bitmaps must not be changed afterwards
+     * @param version
+     * @param rows
+     * @param seatsPerRow
+     * @param availableCount
+     * @param bookedCount
+     * @param booked
+     * @param unavailable
+     */
+    AvailabilitySnapshot(long version, int rows, int seatsPerRow, int availableCount, int bookedCount,
+                         long[] booked, long[] unavailable) {
+        this.version = version;
+        this.rows = rows;
+        this.seatsPerRow = seatsPerRow;
+        this.availableCount = availableCount;
+        this.bookedCount = bookedCount;
+        this.booked = booked;
+        this.unavailable = unavailable;
+    }
+
+    /**
+     * whether seat is available
+     * @param seatId
+     * @return
+     */
+    public boolean isAvailable(int seatId) {
+        return !isSet(booked, seatId) && !isSet(unavailable, seatId);
+    }
+
+    /**
+     * get seat status: AVAILABLE, BOOKED or BLOCKED for any other seat not for sale
+     * @param rowIndex
+     * @param colIndex
+     * @return
+     */
+    public SeatStatus statusAt(int rowIndex, int colIndex) {
+        int seatId = rowIndex * seatsPerRow + colIndex;
+        if (isSet(booked, seatId)) return SeatStatus.BOOKED;
+        if (isSet(unavailable, seatId)) return SeatStatus.BLOCKED;
+        return SeatStatus.AVAILABLE;
+    }
+
+    /**
+     * get copy of occupancy bitmap, bit per seat id set if not available
+     * @return
+     */
+    public long[] occupancy() {
+        long[] bits = new long[booked.length];
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = booked[i] | unavailable[i];
+        }
+        return bits;
+    }
+
+    /*
+     * test bit of seat id
+     */
+    private static boolean isSet(long[] bits, int seatId) {
+        return (bits[seatId >>> 6] & (1L << seatId)) != 0;
+    }
+}
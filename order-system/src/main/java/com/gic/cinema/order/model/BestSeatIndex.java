@@ -0,0 +1,72 @@
+package com.gic.cinema.order.model;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * BestSeatIndex - priority structure of free seats of one hall ordered by SeatQuality rank.
+ * Kept up to date on every seat change in O(log S), top N free seats are read in O(N log S).
+ * Not thread-safe: like the seats it mirrors, it is guarded by the hall monitor.
+ */
+public class BestSeatIndex implements SeatStatusListener {
+    /*
+     * seat quality of the hall layout
+     */
+    private final SeatQuality quality;
+    /*
+     * ranks of free seats, best first
+     */
+    private final TreeSet<Integer> freeRanks = new TreeSet<>();
+
+    /**
+     * build index from current free seats of hall
+     * @param hall
+     * @param quality
+     */
+    BestSeatIndex(CinemaHall hall, SeatQuality quality) {
+        if (quality.getRows() != hall.getRows() || quality.getSeatsPerRow() != hall.getSeatsPerRow())
+            throw new IllegalArgumentException("Seat quality does not match hall layout.");
+        this.quality = quality;
+        for (int r = 0; r < hall.getRows(); r++) {
+            for (int c = 0; c < hall.getSeatsPerRow(); c++) {
+                if (hall.getSeatStatus(r, c) == SeatStatus.AVAILABLE) {
+                    freeRanks.add(quality.rankOf(r * hall.getSeatsPerRow() + c));
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onSeatStatusChanged(Seat seat, SeatStatus oldStatus, SeatStatus newStatus) {
+        int rank = quality.rankOf(seat.getRowIndex() * quality.getSeatsPerRow() + seat.getColIndex());
+        if (newStatus == SeatStatus.AVAILABLE) {
+            freeRanks.add(rank);
+        } else {
+            freeRanks.remove(rank);
+        }
+    }
+
+    /**
+     * get seat ids of the best n free seats, best first - caller holds the hall lock, seat changes update the index
+     * @param n
+     * @return fewer than n if the hall has fewer free seats
+     */
+    public List<Integer> best(int n) {
+        List<Integer> result = new ArrayList<>(Math.min(n, freeRanks.size()));
+        Iterator<Integer> it = freeRanks.iterator();
+        while (result.size() < n && it.hasNext()) {
+            result.add(quality.seatAtRank(it.next()));
+        }
+        return result;
+    }
+
+    /**
+     * get seat quality of the index
+     * @return
+     */
+    public SeatQuality getQuality() {
+        return quality;
+    }
+}
@@ -1,7 +1,10 @@
 package com.gic.cinema.order.model;
 import lombok.*;
 
+import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 /**
  * Cinema Hall info
@@ -10,7 +13,8 @@ import java.util.Map;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@ToString
+@ToString(doNotUseGetters = true)
+@EqualsAndHashCode(doNotUseGetters = true)
 public class CinemaHall {
     public static final String DEFAULT_HALL_NAME = "Hall_1";
     /*
@@ -26,9 +30,9 @@ public class CinemaHall {
      */
     private int seatsPerRow;
     /*
-     * total seats in cinema hall - [row][col]
+     * total seats in cinema hall - [row][col], null until first write for showtimes (copy-on-write)
      */
-    private Seat[][] seats;
+    private volatile Seat[][] seats;
     /*
      * Orders info
      */
@@ -39,6 +43,82 @@ public class CinemaHall {
      */
     private String hallName;
 
+    /*
+     * key in CinemaService hall map
+     */
+    private String key;
+
+    /*
+     * showtime start, null for halls built by configureHall
+     */
+    private LocalDateTime startsAt;
+
+    /*
+     * shared seat layout, seats are copied from it on first write
+     */
+    @ToString.Exclude
+    private SeatMapTemplate template;
+
+    /*
+     * off-heap seat state, null for halls with plain Seat objects; seats then stays null and
+     * seat objects are short-lived views built on demand
+     */
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Setter(AccessLevel.NONE)
+    private OffHeapSeatStore offHeap;
+
+    /*
+     * derived seat structures, built with the seat map
+     */
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Setter(AccessLevel.NONE)
+    private volatile SeatIndex index;
+
+    /*
+     * free seats by quality, built on first best-available booking
+     */
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private BestSeatIndex bestSeats;
+
+    /*
+     * last published availability, read lock-free
+     */
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile AvailabilitySnapshot snapshot;
+    /*
+     * orders as of the last published snapshot, read lock-free
+     */
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile OrderLog.View publishedOrders;
+    /*
+     * orders in booking order behind the published views, removals leave tombstones
+     */
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final OrderLog orderLog = new OrderLog();
+
+    /*
+     * seat change feed, created on first subscriber
+     */
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private SeatChangeFeed feed;
+
     /**
      * init CinemaHall include seat info
      * @param movieName
@@ -56,6 +136,8 @@ public class CinemaHall {
                 seats[r][c] = new Seat(r, c,rows);
             }
         }
+        this.index = new SeatIndex(seats);
+        this.snapshot = index.snapshot(0);
         this.hallName= DEFAULT_HALL_NAME;
     }
 
@@ -71,11 +153,272 @@ public class CinemaHall {
         this.hallName=hallName;
     }
 
+    /**
+     * init one showtime from a shared template - seat map is not copied until first booking
+     * @param movieName
+     * @param template
+     * @param hallName
+     * @param startsAt
+     */
+    public CinemaHall(String movieName, SeatMapTemplate template, String hallName, LocalDateTime startsAt) {
+        this.movieName = movieName;
+        this.rows = template.getRows();
+        this.seatsPerRow = template.getSeatsPerRow();
+        this.template = template;
+        this.hallName = hallName;
+        this.startsAt = startsAt;
+    }
+
+    /**
+     * init CinemaHall keeping seat state off-heap, seat views are built on first access
+     * @param movieName
+     * @param rows
+     * @param seatsPerRow
+     * @param hallName
+     * @return
+     */
+    public static CinemaHall offHeap(String movieName, int rows, int seatsPerRow, String hallName) {
+        CinemaHall hall = new CinemaHall();
+        hall.movieName = movieName;
+        hall.rows = rows;
+        hall.seatsPerRow = seatsPerRow;
+        hall.hallName = hallName;
+        hall.offHeap = new OffHeapSeatStore(rows, seatsPerRow);
+        hall.index = new SeatIndex(hall.offHeap);
+        return hall;
+    }
+
+    /**
+     * init one showtime keeping seat state off-heap, initialized from the template
+     * @param movieName
+     * @param template
+     * @param hallName
+     * @param startsAt
+     * @return
+     */
+    public static CinemaHall offHeap(String movieName, SeatMapTemplate template, String hallName, LocalDateTime startsAt) {
+        CinemaHall hall = new CinemaHall(movieName, template, hallName, startsAt);
+        hall.offHeap = OffHeapSeatStore.of(template);
+        return hall;
+    }
+
+    /**
+     * get seat map, copying it from the template on first access.
+     * An off-heap hall builds a fresh map of views on every call, e.g. for the console renderer, and keeps none;
+     * booking paths go by seat id through seatAt and getSeatStatus instead
+     * @return
+     */
+    public Seat[][] getSeats() {
+        Seat[][] s = seats;
+        if (s != null) return s;
+        return offHeap != null ? offHeap.views(getIndex()) : materialize();
+    }
+
+    /**
+     * set seat map and rebuild its index
+     * @param seats
+     */
+    public void setSeats(Seat[][] seats) {
+        this.offHeap = null;
+        this.index = seats == null ? null : new SeatIndex(seats);
+        this.seats = seats;
+        if (seats != null) publishSnapshot();
+    }
+
+    /**
+     * get seat index, building the seat map from the template if needed
+     * @return
+     */
+    public SeatIndex getIndex() {
+        SeatIndex i = index;
+        if (i == null && offHeap != null) {
+            i = indexOffHeap();
+        } else if (i == null && template != null) {
+            materialize();
+            i = index;
+        }
+        return i;
+    }
+
+    /**
+     * get best seat index, building it from current free seats on first call
+     * @param quality - seat quality of hall layout
+     * @return
+     */
+    public synchronized BestSeatIndex getBestSeats(SeatQuality quality) {
+        if (bestSeats == null) {
+            SeatIndex i = getIndex();
+            bestSeats = new BestSeatIndex(this, quality);
+            i.addListener(bestSeats);
+        }
+        return bestSeats;
+    }
+
+    /**
+     * get last published availability - lock-free, never blocks writers
+     * @return null for halls without seat map
+     */
+    public AvailabilitySnapshot getSnapshot() {
+        AvailabilitySnapshot s = snapshot;
+        if (s != null) return s;
+        if (seats == null && index == null && template != null) return template.getInitialSnapshot();
+        return index == null && offHeap == null ? null : publishSnapshot();
+    }
+
+    /**
+     * get available seat count of the last published snapshot - lock-free, never blocks writers
+     * @return
+     */
+    public int getPublishedAvailableSeatCount() {
+        AvailabilitySnapshot s = getSnapshot();
+        return s != null ? s.getAvailableCount() : getAvailableSeatCount();
+    }
+
+    /**
+     * get orders as of the last published snapshot in booking order - lock-free, unmodifiable
+     * @return
+     */
+    public List<Order> getPublishedOrders() {
+        OrderLog.View o = publishedOrders;
+        return o != null ? o : OrderLog.View.EMPTY;
+    }
+
+    /**
+     * get order by id as of the last published snapshot - lock-free
+     * @param orderId
+     * @return null if not booked
+     */
+    public Order getPublishedOrder(String orderId) {
+        OrderLog.View o = publishedOrders;
+        return o != null ? o.find(orderId) : null;
+    }
+
+    /**
+     * get orders by id - read-only, writers use putOrder / removeOrder
+     * @return
+     */
+    public Map<String, Order> getOrders() {
+        return Collections.unmodifiableMap(orders);
+    }
+
+    /**
+     * add or replace order, caller holds the hall lock and publishes the snapshot.
+     * A published order is never changed in place: replace it with a copy, which lists last in published orders
+     * @param order
+     */
+    public void putOrder(Order order) {
+        Order previous = orders.put(order.getId(), order);
+        if (previous != order) orderLog.put(order);
+    }
+
+    /**
+     * remove order, caller holds the hall lock and publishes the snapshot
+     * @param orderId
+     */
+    public void removeOrder(String orderId) {
+        if (orders.remove(orderId) != null) orderLog.remove(orderId);
+    }
+
+    /**
+     * publish current availability as a new snapshot, called by writers after each committed change
+     * @return
+     */
+    public synchronized AvailabilitySnapshot publishSnapshot() {
+        AvailabilitySnapshot previous = snapshot;
+        long version = previous != null ? previous.getVersion() + 1
+                : template != null ? template.getInitialSnapshot().getVersion() + 1 : 1;
+        AvailabilitySnapshot next = getIndex().snapshot(version);
+        // O(1): a view over the append-only slots, no copy of the orders
+        publishedOrders = orderLog.publish();
+        snapshot = next;
+        if (feed != null) feed.publish(next);
+        return next;
+    }
+
+    /**
+     * follow seat changes as deltas after the current snapshot
+     * @param capacity - deltas buffered before the subscriber must resync
+     * @return
+     */
+    public synchronized SeatFeedSubscription subscribe(int capacity) {
+        if (feed == null) {
+            SeatIndex i = getIndex();
+            feed = new SeatChangeFeed(this);
+            i.addListener(feed);
+        }
+        return feed.subscribe(capacity);
+    }
+
+    /**
+     * whether this hall owns its own seat map yet
+     * @return
+     */
+    public boolean isMaterialized() {
+        return seats != null || template == null || offHeap != null;
+    }
+
+    /**
+     * get seat status without copying the template
+     * @param rowIndex
+     * @param colIndex
+     * @return
+     */
+    public SeatStatus getSeatStatus(int rowIndex, int colIndex) {
+        Seat[][] s = seats;
+        if (s != null) return s[rowIndex][colIndex].getStatus();
+        return offHeap != null ? offHeap.getStatus(rowIndex * seatsPerRow + colIndex) : template.statusAt(rowIndex, colIndex);
+    }
+
+    /**
+     * get seat id (row * seatsPerRow + col)
+     * @param seat
+     * @return
+     */
+    public int seatIdOf(Seat seat) {
+        return seat.getRowIndex() * seatsPerRow + seat.getColIndex();
+    }
+
+    /**
+     * get seat by seat id (row * seatsPerRow + col)
+     * @param seatId
+     * @return
+     */
+    public Seat seatAt(int seatId) {
+        // off-heap: a view writing through to the store, dropped by the caller
+        if (offHeap != null) return offHeap.view(seatId, getIndex());
+        return getSeats()[seatId / seatsPerRow][seatId % seatsPerRow];
+    }
+
+    /*
+     * index the off-heap store once, on the first write to a showtime
+     */
+    private synchronized SeatIndex indexOffHeap() {
+        if (index == null) index = new SeatIndex(offHeap);
+        return index;
+    }
+
+    /*
+     * copy seat map from template once
+     */
+    private synchronized Seat[][] materialize() {
+        if (seats == null && template != null) {
+            Seat[][] copy = template.newSeats();
+            index = new SeatIndex(copy);
+            seats = copy;
+        }
+        return seats;
+    }
+
     /**
      * get available seat count
      * @return
      */
     public int getAvailableSeatCount() {
+        SeatIndex i = index;
+        if (i != null) return i.getAvailableCount();
+        // no index yet: nothing was written since the hall opened
+        if (seats == null && template != null) return template.getAvailableCount();
+        // seat map set without an index, e.g. by builder
         int count = 0;
         for (Seat[] row : seats) {
             for (Seat s : row) {
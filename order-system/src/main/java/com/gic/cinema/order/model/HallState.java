@@ -0,0 +1,19 @@
+package com.gic.cinema.order.model;
+
+/**
+ * Hall lifecycle state
+ */
+public enum HallState {
+    /*
+     * on sale
+     */
+    OPEN,
+    /*
+     * screening over, no more bookings, still in memory
+     */
+    CLOSED,
+    /*
+     * closed and moved to the archive, reloaded on access
+     */
+    ARCHIVED
+}
@@ -0,0 +1,193 @@
+package com.gic.cinema.order.model;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * OffHeapSeatStore - seat status and order slot of every seat in one direct buffer, row-major by seat id
+ * (row * seatsPerRow + col):
+ *  - bytes [0, seats)           status ordinal, one byte per seat
+ *  - bytes [seats, seats * 5)   order slot, one int per seat, 0 = no order
+ * Order ids are interned per hall into slots, so each booked seat costs four bytes, not a String reference.
+ * A slot is freed once no seat refers to it and reused by the next order.
+ * The buffer can also be a mapped file; only the slot table of order ids lives on the heap.
+ */
+public class OffHeapSeatStore {
+    private static final SeatStatus[] STATUSES = SeatStatus.values();
+    public static final int BYTES_PER_SEAT = 5;
+
+    private final int rows;
+    private final int seatsPerRow;
+    private final int seatCount;
+    private final ByteBuffer buffer;
+    /*
+     * order id per slot, slot 0 unused
+     */
+    private final List<String> orderIds = new ArrayList<>();
+    private final Map<String, Integer> slots = new HashMap<>();
+    /*
+     * seats referring to each slot, and slots free for reuse
+     */
+    private int[] refCounts = new int[16];
+    private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+
+    /**
+     * allocate store with every seat available
+     * @param rows
+     * @param seatsPerRow
+     */
+    public OffHeapSeatStore(int rows, int seatsPerRow) {
+        this(ByteBuffer.allocateDirect(rows * seatsPerRow * BYTES_PER_SEAT), rows, seatsPerRow);
+    }
+
+    /**
+     * wrap an existing buffer, e.g. a mapped file, of at least rows * seatsPerRow * BYTES_PER_SEAT bytes
+     * @param buffer
+     * @param rows
+     * @param seatsPerRow
+     */
+    public OffHeapSeatStore(ByteBuffer buffer, int rows, int seatsPerRow) {
+        if (buffer.capacity() < rows * seatsPerRow * BYTES_PER_SEAT)
+            throw new IllegalArgumentException("Buffer too small for " + rows + "x" + seatsPerRow + " seats.");
+        this.rows = rows;
+        this.seatsPerRow = seatsPerRow;
+        this.seatCount = rows * seatsPerRow;
+        this.buffer = buffer;
+        orderIds.add(null);
+    }
+
+    /**
+     * allocate store holding the template layout
+     * @param template
+     * @return
+     */
+    public static OffHeapSeatStore of(SeatMapTemplate template) {
+        OffHeapSeatStore store = new OffHeapSeatStore(template.getRows(), template.getSeatsPerRow());
+        for (int r = 0; r < template.getRows(); r++) {
+            for (int c = 0; c < template.getSeatsPerRow(); c++) {
+                store.setStatus(r * template.getSeatsPerRow() + c, template.statusAt(r, c));
+            }
+        }
+        return store;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getSeatsPerRow() {
+        return seatsPerRow;
+    }
+
+    /**
+     * get status of seat
+     * @param seatId
+     * @return
+     */
+    public SeatStatus getStatus(int seatId) {
+        return STATUSES[buffer.get(seatId)];
+    }
+
+    /**
+     * set status of seat
+     * @param seatId
+     * @param status
+     */
+    public void setStatus(int seatId, SeatStatus status) {
+        buffer.put(seatId, (byte) status.ordinal());
+    }
+
+    /**
+     * get order id of seat, null if none
+     * @param seatId
+     * @return
+     */
+    public synchronized String getOrderId(int seatId) {
+        return orderIds.get(buffer.getInt(seatCount + seatId * 4));
+    }
+
+    /**
+     * set order id of seat
+     * @param seatId
+     * @param orderId - null to clear
+     */
+    public synchronized void setOrderId(int seatId, String orderId) {
+        int at = seatCount + seatId * 4;
+        int old = buffer.getInt(at);
+        int slot = orderId == null ? 0 : slots.computeIfAbsent(orderId, this::newSlot);
+        if (slot == old) return;
+        if (slot != 0) refCounts[slot]++;
+        buffer.putInt(at, slot);
+        if (old != 0 && --refCounts[old] == 0) {
+            slots.remove(orderIds.get(old));
+            orderIds.set(old, null);
+            freeSlots.push(old);
+        }
+    }
+
+    /**
+     * get order id slots in use
+     * @return
+     */
+    public synchronized int getOrderSlotCount() {
+        return slots.size();
+    }
+
+    /*
+     * take a free slot or add one
+     */
+    private int newSlot(String orderId) {
+        Integer free = freeSlots.poll();
+        int slot;
+        if (free != null) {
+            slot = free;
+            orderIds.set(slot, orderId);
+        } else {
+            orderIds.add(orderId);
+            slot = orderIds.size() - 1;
+            if (slot == refCounts.length) refCounts = Arrays.copyOf(refCounts, slot * 2);
+        }
+        return slot;
+    }
+
+    /**
+     * seat view over the store, attached to index if given
+     * @param seatId
+     * @param index
+     * @return
+     */
+    Seat view(int seatId, SeatIndex index) {
+        Seat s = new SeatView(this, seatId / seatsPerRow, seatId % seatsPerRow);
+        if (index != null) s.attach(index);
+        return s;
+    }
+
+    /**
+     * build seat views over the store, attached to index if given
+     * @param index
+     * @return
+     */
+    Seat[][] views(SeatIndex index) {
+        Seat[][] seats = new Seat[rows][seatsPerRow];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < seatsPerRow; c++) {
+                seats[r][c] = new SeatView(this, r, c);
+                if (index != null) seats[r][c].attach(index);
+            }
+        }
+        return seats;
+    }
+
+    /**
+     * read-only view of the raw buffer, e.g. to write it to a file
+     * @return
+     */
+    public ByteBuffer asReadOnlyBuffer() {
+        return buffer.asReadOnlyBuffer();
+    }
+}
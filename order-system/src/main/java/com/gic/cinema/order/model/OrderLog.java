@@ -0,0 +1,194 @@
+package com.gic.cinema.order.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * OrderLog - orders of a hall in booking order behind lock-free published views.
+ * Slots are append-only: a removed or replaced order leaves a tombstone instead of shifting the rest,
+ * and the log is compacted into fresh arrays once tombstones outnumber live orders, so each change is O(1) amortised.
+ * Slots below a published count never change; a tombstone only records the count it died at,
+ * which is always past every view published before it. Writers hold the hall lock.
+ */
+class OrderLog {
+    private static final int MIN_SLOTS = 16;
+
+    private Order[] slots = new Order[MIN_SLOTS];
+    /*
+     * per slot: log count the order died at, 0 while live
+     */
+    private int[] diedAt = new int[MIN_SLOTS];
+    private int count;
+    private int dead;
+    /*
+     * order id to its live slot, read by published views for keyed lookup
+     */
+    private Map<String, Integer> slotOf = new ConcurrentHashMap<>();
+    /*
+     * bumped on every change, a view published at the current version can trust slotOf alone
+     */
+    private volatile long version;
+
+    /**
+     * append order, the live slot of an order with the same id becomes a tombstone
+     * @param order
+     */
+    void put(Order order) {
+        Integer previous = slotOf.get(order.getId());
+        if (previous != null) kill(previous);
+        append(order);
+        slotOf.put(order.getId(), count - 1);
+    }
+
+    /**
+     * turn the live slot of order into a tombstone
+     * @param orderId
+     */
+    void remove(String orderId) {
+        Integer slot = slotOf.remove(orderId);
+        if (slot == null) return;
+        kill(slot);
+        // an empty slot moves the count past the tombstone, so views published from now on skip it
+        append(null);
+        dead++;
+        if (dead > MIN_SLOTS && dead > count - dead) compact();
+    }
+
+    /**
+     * view of the live orders as of now
+     * @return
+     */
+    View publish() {
+        return new View(this, slots, diedAt, count, count - dead, slotOf);
+    }
+
+    /*
+     * mark slot dead as of the next append
+     */
+    private void kill(int slot) {
+        diedAt[slot] = count + 1;
+        dead++;
+    }
+
+    private void append(Order order) {
+        if (count == slots.length) {
+            slots = Arrays.copyOf(slots, count * 2);
+            diedAt = Arrays.copyOf(diedAt, count * 2);
+        }
+        slots[count++] = order;
+        version++;
+    }
+
+    /*
+     * copy live orders into fresh arrays, published views keep the old ones
+     */
+    private void compact() {
+        int live = count - dead;
+        Order[] fresh = new Order[Math.max(MIN_SLOTS, live * 2)];
+        Map<String, Integer> freshSlots = new ConcurrentHashMap<>();
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            if (slots[i] != null && diedAt[i] == 0) {
+                freshSlots.put(slots[i].getId(), n);
+                fresh[n++] = slots[i];
+            }
+        }
+        slots = fresh;
+        diedAt = new int[fresh.length];
+        count = n;
+        dead = 0;
+        slotOf = freshSlots;
+    }
+
+    /**
+     * unmodifiable live orders of one published count, iterated in booking order
+     */
+    static final class View extends AbstractList<Order> {
+        static final View EMPTY = new View(null, new Order[0], new int[0], 0, 0, Map.of());
+
+        private final OrderLog log;
+        private final long version;
+        private final Order[] slots;
+        private final int[] diedAt;
+        private final int count;
+        private final int size;
+        private final Map<String, Integer> slotOf;
+
+        private View(OrderLog log, Order[] slots, int[] diedAt, int count, int size, Map<String, Integer> slotOf) {
+            this.log = log;
+            this.version = log == null ? 0 : log.version;
+            this.slots = slots;
+            this.diedAt = diedAt;
+            this.count = count;
+            this.size = size;
+            this.slotOf = slotOf;
+        }
+
+        /**
+         * find order by id, O(1) unless the order changed after this view was published
+         * @param orderId
+         * @return null if not in this view
+         */
+        Order find(String orderId) {
+            Integer slot = slotOf.get(orderId);
+            if (slot != null && slot < count && live(slot)) return slots[slot];
+            if (log == null || log.version == version) return null;
+            // replaced or removed since publishing: the view may still hold an older slot
+            for (Order o : this) {
+                if (orderId.equals(o.getId())) return o;
+            }
+            return null;
+        }
+
+        @Override
+        public Order get(int index) {
+            if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index);
+            if (size == count) return slots[index];
+            for (int i = 0, seen = 0; i < count; i++) {
+                if (live(i) && seen++ == index) return slots[i];
+            }
+            throw new IndexOutOfBoundsException(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Iterator<Order> iterator() {
+            return new Iterator<>() {
+                private int next = advance(0);
+
+                @Override
+                public boolean hasNext() {
+                    return next < count;
+                }
+
+                @Override
+                public Order next() {
+                    if (next >= count) throw new NoSuchElementException();
+                    Order o = slots[next];
+                    next = advance(next + 1);
+                    return o;
+                }
+            };
+        }
+
+        private int advance(int from) {
+            while (from < count && !live(from)) {
+                from++;
+            }
+            return from;
+        }
+
+        private boolean live(int slot) {
+            int d = diedAt[slot];
+            return slots[slot] != null && (d == 0 || d > count);
+        }
+    }
+}
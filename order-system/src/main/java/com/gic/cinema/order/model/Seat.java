@@ -7,8 +7,6 @@ import lombok.*;
  */
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
-@Builder
 @ToString
 public class Seat {
     /*
@@ -33,6 +31,15 @@ public class Seat {
      */
     private int maxRow;
 
+    /*
+     * hall index kept up to date on status change, null for detached seats
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private SeatIndex index;
+
     /**
      * inti seat
      * @param rowIndex
@@ -42,6 +49,48 @@ public class Seat {
         this.rowIndex = rowIndex;
         this.colIndex = colIndex;
         this.maxRow=maxRow;
+        this.status = SeatStatus.AVAILABLE;
+    }
+
+    /**
+     * detached seat, the hall index is attached by the hall only
+     * @param rowIndex
+     * @param colIndex
+     * @param status - AVAILABLE if null
+     * @param orderId
+     * @param maxRow
+     */
+    @Builder
+    public Seat(int rowIndex, int colIndex, SeatStatus status, String orderId, int maxRow) {
+        this.rowIndex = rowIndex;
+        this.colIndex = colIndex;
+        this.status = status == null ? SeatStatus.AVAILABLE : status;
+        this.orderId = orderId;
+        this.maxRow = maxRow;
+    }
+
+    /**
+     * set seat status and update hall index
+     * @param status
+     */
+    public void setStatus(SeatStatus status) {
+        SeatStatus old = this.status;
+        this.status = status;
+        statusChanged(old, status);
+    }
+
+    /*
+     * tell hall index about a status change
+     */
+    void statusChanged(SeatStatus old, SeatStatus status) {
+        if (index != null && old != status) index.onStatusChanged(this, old, status);
+    }
+
+    /*
+     * attach seat to hall index
+     */
+    void attach(SeatIndex index) {
+        this.index = index;
     }
 
     /**
@@ -49,9 +98,42 @@ public class Seat {
      * @return
      */
     public String getLabel() {
+        return labelOf(rowIndex, colIndex, maxRow);
+    }
+
+    /**
+     * return Seat Label of position - the furthest screen row is A
+     * @param rowIndex
+     * @param colIndex
+     * @param maxRow
+     * @return
+     */
+    public static String labelOf(int rowIndex, int colIndex, int maxRow) {
         char rowChar = (char) ('A' + (maxRow-rowIndex-1));
         int seatNo = colIndex + 1;
-        return "%c%02d".formatted(rowChar, seatNo);
+        //same as %c%02d without the formatter, labels are built on every booking
+        return seatNo < 10 ? rowChar + "0" + seatNo : rowChar + String.valueOf(seatNo);
+    }
+
+    /**
+     * parse Seat Label (B04) to [rowIndex, colIndex] - the furthest screen row is A
+     * @param label
+     * @param maxRow
+     * @param seatsPerRow
+     * @return
+     */
+    public static int[] parseLabel(String label, int maxRow, int seatsPerRow) {
+        if (label == null || label.length() < 2) throw new IllegalArgumentException("Invalid seat format.");
+        int rowIndex = maxRow - (Character.toUpperCase(label.charAt(0)) - 'A') - 1;
+        int colIndex;
+        try {
+            colIndex = Integer.parseInt(label.substring(1)) - 1;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid seat number.");
+        }
+        if (rowIndex < 0 || rowIndex >= maxRow || colIndex < 0 || colIndex >= seatsPerRow)
+            throw new IllegalArgumentException("Seat out of bounds.");
+        return new int[]{rowIndex, colIndex};
     }
 
 
@@ -0,0 +1,70 @@
+package com.gic.cinema.order.model;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * SeatChangeFeed - per hall stream of compact seat deltas, one batch per published snapshot.
+ * Seat changes are collected between commits and sent grouped by new status.
+ */
+public class SeatChangeFeed implements SeatStatusListener {
+    private static final SeatStatus[] FEED_STATUSES = {SeatStatus.AVAILABLE, SeatStatus.BOOKED, SeatStatus.BLOCKED};
+
+    private final CinemaHall hall;
+    private final List<SeatFeedSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    /*
+     * seat ids changed since last publish, guarded by the hall lock
+     */
+    private final BitSet changed = new BitSet();
+
+    SeatChangeFeed(CinemaHall hall) {
+        this.hall = hall;
+    }
+
+    @Override
+    public void onSeatStatusChanged(Seat seat, SeatStatus oldStatus, SeatStatus newStatus) {
+        changed.set(seat.getRowIndex() * hall.getSeatsPerRow() + seat.getColIndex());
+    }
+
+    /**
+     * subscribe with a bounded buffer, starting after the current snapshot
+     * @param capacity - deltas buffered before the subscriber must resync
+     * @return
+     */
+    SeatFeedSubscription subscribe(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("Capacity must be > 0.");
+        SeatFeedSubscription sub = new SeatFeedSubscription(this, capacity, currentSnapshot().getVersion());
+        subscriptions.add(sub);
+        return sub;
+    }
+
+    void unsubscribe(SeatFeedSubscription sub) {
+        subscriptions.remove(sub);
+    }
+
+    AvailabilitySnapshot currentSnapshot() {
+        return hall.getSnapshot();
+    }
+
+    /*
+     * send seats changed since last publish, called by the hall with its lock held
+     */
+    void publish(AvailabilitySnapshot snapshot) {
+        if (changed.isEmpty()) return;
+        List<SeatDelta> deltas = new ArrayList<>(FEED_STATUSES.length);
+        for (SeatStatus status : FEED_STATUSES) {
+            int[] ids = changed.stream()
+                    .filter(id -> snapshot.statusAt(id / snapshot.getSeatsPerRow(), id % snapshot.getSeatsPerRow()) == status)
+                    .toArray();
+            if (ids.length > 0) deltas.add(new SeatDelta(snapshot.getVersion(), status, ids));
+        }
+        changed.clear();
+        for (SeatFeedSubscription sub : subscriptions) {
+            for (SeatDelta delta : deltas) {
+                sub.offer(delta);
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.gic.cinema.order.model;
+
+import lombok.*;
+
+/**
+ * SeatDelta - seats that changed to one status in one committed hall version
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class SeatDelta {
+    /*
+     * hall snapshot version the change was published with
+     */
+    private long version;
+    /*
+     * new status: AVAILABLE, BOOKED or BLOCKED, as in AvailabilitySnapshot
+     */
+    private SeatStatus status;
+    /*
+     * changed seat ids (row * seatsPerRow + col)
+     */
+    private int[] seatIds;
+}
@@ -0,0 +1,80 @@
+package com.gic.cinema.order.model;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SeatFeedSubscription - bounded delta buffer of one subscriber.
+ * A subscriber that falls behind loses its buffer and must resync from a snapshot before polling again.
+ */
+public class SeatFeedSubscription implements AutoCloseable {
+    private final SeatChangeFeed feed;
+    private final ArrayBlockingQueue<SeatDelta> buffer;
+    /*
+     * set when the buffer overflowed
+     */
+    private volatile boolean resyncRequired;
+    /*
+     * deltas at or below this version are already in the subscriber's snapshot
+     */
+    private volatile long baseVersion;
+
+    SeatFeedSubscription(SeatChangeFeed feed, int capacity, long baseVersion) {
+        this.feed = feed;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.baseVersion = baseVersion;
+    }
+
+    /*
+     * called by feed, never blocks the publishing writer
+     */
+    void offer(SeatDelta delta) {
+        if (resyncRequired) return;
+        if (!buffer.offer(delta)) {
+            resyncRequired = true;
+            buffer.clear();
+        }
+    }
+
+    /**
+     * wait for next delta
+     * @param timeout
+     * @param unit
+     * @return null on timeout or if a resync is required
+     * @throws InterruptedException
+     */
+    public SeatDelta poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!resyncRequired) {
+            SeatDelta delta = buffer.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            if (delta == null) return null;
+            if (delta.getVersion() > baseVersion) return delta;
+        }
+        return null;
+    }
+
+    /**
+     * whether the subscriber fell behind and must call resync
+     * @return
+     */
+    public boolean isResyncRequired() {
+        return resyncRequired;
+    }
+
+    /**
+     * drop buffered deltas and restart from the current hall snapshot
+     * @return snapshot to redraw from, following deltas apply on top of it
+     */
+    public AvailabilitySnapshot resync() {
+        resyncRequired = false;
+        buffer.clear();
+        AvailabilitySnapshot snapshot = feed.currentSnapshot();
+        baseVersion = snapshot.getVersion();
+        return snapshot;
+    }
+
+    @Override
+    public void close() {
+        feed.unsubscribe(this);
+    }
+}
@@ -0,0 +1,181 @@
+package com.gic.cinema.order.model;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * SeatIndex - derived seat structures of one hall, updated in O(1) per seat status change
+ *  - available seat count
+ *  - free seats per row
+ *  - booked and unavailable bitmaps by seat id, cloned into availability snapshots
+ */
+public class SeatIndex {
+    /*
+     * free (AVAILABLE) seat columns per row
+     */
+    private final BitSet[] rowFree;
+    /*
+     * total AVAILABLE seats
+     */
+    private int availableCount;
+    /*
+     * total BOOKED seats
+     */
+    private int bookedCount;
+    /*
+     * seats per row, for seat id
+     */
+    private final int seatsPerRow;
+    /*
+     * bit per seat id set if BOOKED
+     */
+    private final long[] booked;
+    /*
+     * bit per seat id set if neither AVAILABLE nor BOOKED
+     */
+    private final long[] unavailable;
+    /*
+     * more derived structures hooked onto seat changes
+     */
+    private final List<SeatStatusListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * build index from seat map and attach every seat to it
+     * @param seats
+     */
+    SeatIndex(Seat[][] seats) {
+        this.rowFree = new BitSet[seats.length];
+        this.seatsPerRow = seats.length == 0 ? 0 : seats[0].length;
+        this.booked = new long[(seats.length * seatsPerRow + 63) >>> 6];
+        this.unavailable = new long[booked.length];
+        for (int r = 0; r < seats.length; r++) {
+            rowFree[r] = new BitSet(seats[r].length);
+            for (int c = 0; c < seats[r].length; c++) {
+                if (seats[r][c].getStatus() == SeatStatus.AVAILABLE) {
+                    rowFree[r].set(c);
+                    availableCount++;
+                }
+                markBits(r * seatsPerRow + c, seats[r][c].getStatus());
+                seats[r][c].attach(this);
+            }
+        }
+    }
+
+    /**
+     * build index from an off-heap seat store, no seat objects involved
+     * @param store
+     */
+    SeatIndex(OffHeapSeatStore store) {
+        int rows = store.getRows();
+        this.rowFree = new BitSet[rows];
+        this.seatsPerRow = store.getSeatsPerRow();
+        this.booked = new long[(rows * seatsPerRow + 63) >>> 6];
+        this.unavailable = new long[booked.length];
+        for (int r = 0; r < rows; r++) {
+            rowFree[r] = new BitSet(seatsPerRow);
+            for (int c = 0; c < seatsPerRow; c++) {
+                SeatStatus status = store.getStatus(r * seatsPerRow + c);
+                if (status == SeatStatus.AVAILABLE) {
+                    rowFree[r].set(c);
+                    availableCount++;
+                }
+                markBits(r * seatsPerRow + c, status);
+            }
+        }
+    }
+
+    /*
+     * called by Seat on status change
+     */
+    void onStatusChanged(Seat seat, SeatStatus oldStatus, SeatStatus newStatus) {
+        boolean wasFree = oldStatus == SeatStatus.AVAILABLE;
+        boolean isFree = newStatus == SeatStatus.AVAILABLE;
+        if (wasFree != isFree) {
+            rowFree[seat.getRowIndex()].set(seat.getColIndex(), isFree);
+            availableCount += isFree ? 1 : -1;
+        }
+        if ((oldStatus == SeatStatus.BOOKED) != (newStatus == SeatStatus.BOOKED)) {
+            bookedCount += newStatus == SeatStatus.BOOKED ? 1 : -1;
+        }
+        markBits(seat.getRowIndex() * seatsPerRow + seat.getColIndex(), newStatus);
+        for (SeatStatusListener l : listeners) {
+            l.onSeatStatusChanged(seat, oldStatus, newStatus);
+        }
+    }
+
+    /*
+     * set booked / unavailable bits of seat id for status
+     */
+    private void markBits(int seatId, SeatStatus status) {
+        long bit = 1L << seatId;
+        int word = seatId >>> 6;
+        booked[word] = status == SeatStatus.BOOKED ? booked[word] | bit : booked[word] & ~bit;
+        boolean other = status != SeatStatus.AVAILABLE && status != SeatStatus.BOOKED;
+        unavailable[word] = other ? unavailable[word] | bit : unavailable[word] & ~bit;
+    }
+
+    /**
+     * copy current state into an immutable snapshot
+     * @param version
+     * @return
+     */
+    AvailabilitySnapshot snapshot(long version) {
+        return new AvailabilitySnapshot(version, rowFree.length, seatsPerRow, availableCount, bookedCount,
+                booked.clone(), unavailable.clone());
+    }
+
+    /**
+     * get available seat count
+     * @return
+     */
+    public int getAvailableCount() {
+        return availableCount;
+    }
+
+    /**
+     * get available seat count of one row
+     * @param rowIndex
+     * @return
+     */
+    public int getRowFreeCount(int rowIndex) {
+        return rowFree[rowIndex].cardinality();
+    }
+
+    /**
+     * get next free column at or after fromCol, -1 if none
+     * @param rowIndex
+     * @param fromCol
+     * @return
+     */
+    public int nextFree(int rowIndex, int fromCol) {
+        return rowFree[rowIndex].nextSetBit(fromCol);
+    }
+
+    /**
+     * get previous free column at or before fromCol, -1 if none
+     * @param rowIndex
+     * @param fromCol
+     * @return
+     */
+    public int prevFree(int rowIndex, int fromCol) {
+        return rowFree[rowIndex].previousSetBit(fromCol);
+    }
+
+    /**
+     * get copy of free columns of one row
+     * @param rowIndex
+     * @return
+     */
+    public BitSet getRowFree(int rowIndex) {
+        return (BitSet) rowFree[rowIndex].clone();
+    }
+
+    /**
+     * hook a derived structure onto seat changes
+     * @param listener
+     */
+    public void addListener(SeatStatusListener listener) {
+        listeners.add(listener);
+    }
+}
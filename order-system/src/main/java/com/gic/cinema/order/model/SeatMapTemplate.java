@@ -0,0 +1,110 @@
+package com.gic.cinema.order.model;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * SeatMapTemplate - immutable seat layout shared by every showtime of a hall.
+ * Blocked or house seats are fixed here once; showtimes only copy the layout
+ * when their first seat is booked (copy-on-write).
+ */
+@Getter
+@ToString(exclude = {"layout", "quality", "initialSnapshot"})
+public final class SeatMapTemplate {
+    /*
+     * template name, e.g. Hall_1
+     */
+    private final String name;
+    /*
+     * total rows
+     */
+    private final int rows;
+    /*
+     * total seats per row
+     */
+    private final int seatsPerRow;
+    /*
+     * seats still for sale when a showtime opens
+     */
+    private final int availableCount;
+    /*
+     * seat quality shared by every showtime
+     */
+    private final SeatQuality quality;
+    /*
+     * initial seat status - [row][col], never exposed
+     */
+    @Getter(AccessLevel.NONE)
+    private final SeatStatus[][] layout;
+    /*
+     * availability of a showtime nobody has booked yet, shared by every showtime
+     */
+    private final AvailabilitySnapshot initialSnapshot;
+
+    /**
+     * init template with every seat available
+     * @param name
+     * @param rows
+     * @param seatsPerRow
+     */
+    public SeatMapTemplate(String name, int rows, int seatsPerRow) {
+        this(name, rows, seatsPerRow, Map.of());
+    }
+
+    /**
+     * init template with special seats
+     * @param name
+     * @param rows
+     * @param seatsPerRow
+     * @param specialSeats - seat label (A01) to BLOCKED / HOUSE status
+     */
+    public SeatMapTemplate(String name, int rows, int seatsPerRow, Map<String, SeatStatus> specialSeats) {
+        this.name = name;
+        this.rows = rows;
+        this.seatsPerRow = seatsPerRow;
+        this.layout = new SeatStatus[rows][seatsPerRow];
+        for (SeatStatus[] row : layout) {
+            Arrays.fill(row, SeatStatus.AVAILABLE);
+        }
+        int unavailable = 0;
+        for (Map.Entry<String, SeatStatus> e : specialSeats.entrySet()) {
+            int[] pos = Seat.parseLabel(e.getKey(), rows, seatsPerRow);
+            if (e.getValue() != SeatStatus.BLOCKED && e.getValue() != SeatStatus.HOUSE)
+                throw new IllegalArgumentException("Template seat " + e.getKey() + " must be BLOCKED or HOUSE.");
+            if (layout[pos[0]][pos[1]] == SeatStatus.AVAILABLE) unavailable++;
+            layout[pos[0]][pos[1]] = e.getValue();
+        }
+        this.availableCount = rows * seatsPerRow - unavailable;
+        this.quality = SeatQuality.standard(rows, seatsPerRow);
+        this.initialSnapshot = new SeatIndex(newSeats()).snapshot(0);
+    }
+
+    /**
+     * get initial status of one seat
+     * @param rowIndex
+     * @param colIndex
+     * @return
+     */
+    public SeatStatus statusAt(int rowIndex, int colIndex) {
+        return layout[rowIndex][colIndex];
+    }
+
+    /**
+     * build a fresh seat map from the template
+     * @return
+     */
+    public Seat[][] newSeats() {
+        Seat[][] seats = new Seat[rows][seatsPerRow];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < seatsPerRow; c++) {
+                seats[r][c] = new Seat(r, c, rows);
+                seats[r][c].setStatus(layout[r][c]);
+            }
+        }
+        return seats;
+    }
+}
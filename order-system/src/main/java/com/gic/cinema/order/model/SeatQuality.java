@@ -0,0 +1,114 @@
+package com.gic.cinema.order.model;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+/**
+ * SeatQuality - precomputed quality score per seat of a layout, higher is better.
+ * Seats are also ranked once (rank 0 = best) so halls only keep ranks of free seats.
+ */
+public class SeatQuality {
+    /*
+     * max score of one seat
+     */
+    public static final int MAX_SCORE = 1000;
+    /*
+     * weight of column centrality against row preference, out of 10
+     */
+    private static final int COLUMN_WEIGHT = 6;
+
+    @Getter
+    private final int rows;
+    @Getter
+    private final int seatsPerRow;
+    /*
+     * score by seat id (row * seatsPerRow + col)
+     */
+    private final int[] scores;
+    /*
+     * seat id by rank
+     */
+    private final int[] rankToSeat;
+    /*
+     * rank by seat id
+     */
+    private final int[] seatToRank;
+
+    /**
+     * init quality from given scores
+     * @param rows
+     * @param seatsPerRow
+     * @param scores - score by seat id
+     */
+    public SeatQuality(int rows, int seatsPerRow, int[] scores) {
+        if (scores.length != rows * seatsPerRow) throw new IllegalArgumentException("One score per seat is required.");
+        this.rows = rows;
+        this.seatsPerRow = seatsPerRow;
+        this.scores = scores.clone();
+        // best score first, ties broken by seat id so ranking is stable
+        this.rankToSeat = IntStream.range(0, scores.length).boxed()
+                .sorted(Comparator.<Integer>comparingInt(id -> -scores[id]).thenComparingInt(id -> id))
+                .mapToInt(Integer::intValue).toArray();
+        this.seatToRank = new int[scores.length];
+        for (int rank = 0; rank < rankToSeat.length; rank++) {
+            seatToRank[rankToSeat[rank]] = rank;
+        }
+    }
+
+    /**
+     * standard scores: distance to screen centre column and row preference.
+     * The preferred row is two thirds of the way back from the screen.
+     * @param rows
+     * @param seatsPerRow
+     * @return
+     */
+    public static SeatQuality standard(int rows, int seatsPerRow) {
+        int[] scores = new int[rows * seatsPerRow];
+        double centre = (seatsPerRow - 1) / 2.0;
+        double preferredRow = (rows - 1) * 2 / 3.0;
+        for (int r = 0; r < rows; r++) {
+            double rowScore = 1 - Math.abs(r - preferredRow) / rows;
+            for (int c = 0; c < seatsPerRow; c++) {
+                double colScore = seatsPerRow == 1 ? 1 : 1 - Math.abs(c - centre) / (centre + 1);
+                double score = (COLUMN_WEIGHT * colScore + (10 - COLUMN_WEIGHT) * rowScore) / 10;
+                scores[r * seatsPerRow + c] = (int) Math.round(score * MAX_SCORE);
+            }
+        }
+        return new SeatQuality(rows, seatsPerRow, scores);
+    }
+
+    /**
+     * get score of seat
+     * @param seatId
+     * @return
+     */
+    public int scoreOf(int seatId) {
+        return scores[seatId];
+    }
+
+    /**
+     * get rank of seat, 0 = best
+     * @param seatId
+     * @return
+     */
+    public int rankOf(int seatId) {
+        return seatToRank[seatId];
+    }
+
+    /**
+     * get seat at rank
+     * @param rank
+     * @return
+     */
+    public int seatAtRank(int rank) {
+        return rankToSeat[rank];
+    }
+
+    @Override
+    public String toString() {
+        return "SeatQuality(rows=" + rows + ", seatsPerRow=" + seatsPerRow + ", scores=" + Arrays.toString(scores) + ")";
+    }
+}
@@ -15,5 +15,13 @@ public enum SeatStatus {
     /*
      * seats being reserved in the current booking
      */
-    RESERVED
+    RESERVED,
+    /*
+     * not for sale, e.g. broken seat or wheelchair space
+     */
+    BLOCKED,
+    /*
+     * held back by the house
+     */
+    HOUSE
 }
@@ -0,0 +1,15 @@
+package com.gic.cinema.order.model;
+
+/**
+ * SeatStatusListener - notified on every seat status change of a hall
+ */
+@FunctionalInterface
+public interface SeatStatusListener {
+    /**
+     * seat status changed
+     * @param seat
+     * @param oldStatus
+     * @param newStatus
+     */
+    void onSeatStatusChanged(Seat seat, SeatStatus oldStatus, SeatStatus newStatus);
+}
@@ -0,0 +1,38 @@
+package com.gic.cinema.order.model;
+
+/**
+ * SeatView - Seat backed by an OffHeapSeatStore: status and order id are read and written through,
+ * the view itself only holds its position
+ */
+class SeatView extends Seat {
+    private final transient OffHeapSeatStore store;
+    private final int seatId;
+
+    SeatView(OffHeapSeatStore store, int rowIndex, int colIndex) {
+        super(rowIndex, colIndex, store.getRows());
+        this.store = store;
+        this.seatId = rowIndex * store.getSeatsPerRow() + colIndex;
+    }
+
+    @Override
+    public SeatStatus getStatus() {
+        return store.getStatus(seatId);
+    }
+
+    @Override
+    public void setStatus(SeatStatus status) {
+        SeatStatus old = store.getStatus(seatId);
+        store.setStatus(seatId, status);
+        statusChanged(old, status);
+    }
+
+    @Override
+    public String getOrderId() {
+        return store.getOrderId(seatId);
+    }
+
+    @Override
+    public void setOrderId(String orderId) {
+        store.setOrderId(seatId, orderId);
+    }
+}
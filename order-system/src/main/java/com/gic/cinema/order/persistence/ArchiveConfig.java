@@ -0,0 +1,25 @@
+package com.gic.cinema.order.persistence;
+
+import com.gic.cinema.order.service.CinemaService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+/**
+ * ArchiveConfig - optional archive of closed halls, on when com.gic.cinema.order.archive.dir is set
+ */
+@Configuration
+@ConditionalOnProperty(name = "com.gic.cinema.order.archive.dir")
+public class ArchiveConfig {
+
+    @Bean
+    public FileHallArchive fileHallArchive(@Value("${com.gic.cinema.order.archive.dir}") String dir,
+                                           CinemaService cinemaService) {
+        FileHallArchive archive = new FileHallArchive(Path.of(dir));
+        cinemaService.setHallArchive(archive);
+        return archive;
+    }
+}
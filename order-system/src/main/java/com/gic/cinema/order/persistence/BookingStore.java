@@ -0,0 +1,176 @@
+package com.gic.cinema.order.persistence;
+
+import com.gic.cinema.order.event.HallEvent;
+import com.gic.cinema.order.event.HallEventType;
+import com.gic.cinema.order.model.Seat;
+import com.gic.cinema.order.model.SeatMapTemplate;
+import com.gic.cinema.order.model.SeatStatus;
+import com.gic.cinema.order.service.HallLoader;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * BookingStore - halls, seats and orders in an embedded SQL database (H2 by default).
+ * Only seats that are not available are stored: booked seats with their order, blocked and house seats of templates.
+ * Also the hall loader of CinemaService: a stored hall is read back as events on first access.
+ */
+public class BookingStore implements HallLoader, AutoCloseable {
+    private static final String[] SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS halls (hall_key VARCHAR(255) PRIMARY KEY, movie_name VARCHAR(255) NOT NULL,"
+                    + " hall_name VARCHAR(255), row_count INT NOT NULL, seats_per_row INT NOT NULL,"
+                    + " starts_at TIMESTAMP, template_name VARCHAR(255))",
+            "CREATE TABLE IF NOT EXISTS seats (hall_key VARCHAR(255) NOT NULL, seat_id INT NOT NULL,"
+                    + " status VARCHAR(16) NOT NULL, order_id VARCHAR(255), PRIMARY KEY (hall_key, seat_id))",
+            "CREATE TABLE IF NOT EXISTS orders (hall_key VARCHAR(255) NOT NULL, order_id VARCHAR(255) NOT NULL,"
+                    + " movie_name VARCHAR(255), PRIMARY KEY (hall_key, order_id))"
+    };
+    static final String MERGE_HALL = "MERGE INTO halls (hall_key, movie_name, hall_name, row_count, seats_per_row, starts_at, template_name)"
+            + " KEY (hall_key) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    static final String MERGE_SEAT = "MERGE INTO seats (hall_key, seat_id, status, order_id) KEY (hall_key, seat_id) VALUES (?, ?, ?, ?)";
+    static final String DELETE_SEAT = "DELETE FROM seats WHERE hall_key = ? AND seat_id = ?";
+    static final String MERGE_ORDER = "MERGE INTO orders (hall_key, order_id, movie_name) KEY (hall_key, order_id) VALUES (?, ?, ?)";
+    static final String[] DELETE_HALL = {
+            "DELETE FROM seats WHERE hall_key = ?",
+            "DELETE FROM orders WHERE hall_key = ?",
+            "DELETE FROM halls WHERE hall_key = ?"
+    };
+    static final String DELETE_EMPTY_ORDERS = "DELETE FROM orders o WHERE o.hall_key = ? AND NOT EXISTS"
+            + " (SELECT 1 FROM seats s WHERE s.hall_key = o.hall_key AND s.order_id = o.order_id)";
+
+    private final String url;
+    /*
+     * connection of the write-behind flusher, one writer at a time
+     */
+    private final Connection writer;
+
+    /**
+     * open store and create schema
+     * @param url - JDBC url, e.g. jdbc:h2:./data/bookings
+     * @throws SQLException
+     */
+    public BookingStore(String url) throws SQLException {
+        this.url = url;
+        this.writer = DriverManager.getConnection(url);
+        try (Statement st = writer.createStatement()) {
+            for (String ddl : SCHEMA) {
+                st.execute(ddl);
+            }
+        }
+        writer.setAutoCommit(false);
+    }
+
+    /**
+     * open a connection for readers and queries
+     * @return
+     * @throws SQLException
+     */
+    public Connection connect() throws SQLException {
+        return DriverManager.getConnection(url);
+    }
+
+    /**
+     * get connection of the write-behind flusher
+     * @return
+     */
+    Connection writer() {
+        return writer;
+    }
+
+    /**
+     * get keys of stored halls
+     * @return
+     */
+    public List<String> getHallKeys() {
+        try (Connection c = connect(); Statement st = c.createStatement();
+             ResultSet rs = st.executeQuery("SELECT hall_key FROM halls ORDER BY hall_key")) {
+            List<String> keys = new ArrayList<>();
+            while (rs.next()) {
+                keys.add(rs.getString(1));
+            }
+            return keys;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot read halls: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<HallEvent> load(String hallKey) {
+        try (Connection c = connect()) {
+            HallEvent configured;
+            try (PreparedStatement ps = c.prepareStatement("SELECT movie_name, hall_name, row_count, seats_per_row, starts_at,"
+                    + " template_name FROM halls WHERE hall_key = ?")) {
+                ps.setString(1, hallKey);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) return List.of();
+                    int rows = rs.getInt(3);
+                    int seatsPerRow = rs.getInt(4);
+                    Timestamp startsAt = rs.getTimestamp(5);
+                    String templateName = rs.getString(6);
+                    configured = HallEvent.builder().hallKey(hallKey).type(HallEventType.CONFIGURED)
+                            .movieName(rs.getString(1)).hallName(rs.getString(2)).rows(rows).seatsPerRow(seatsPerRow)
+                            .startsAt(startsAt == null ? null : startsAt.toLocalDateTime())
+                            .template(templateName == null ? null
+                                    : new SeatMapTemplate(templateName, rows, seatsPerRow, specialSeats(c, hallKey, rows, seatsPerRow)))
+                            .build();
+                }
+            }
+            List<HallEvent> events = new ArrayList<>();
+            events.add(configured);
+            // booked seats grouped by order, in order id order
+            Map<String, String> movieByOrder = new HashMap<>();
+            try (PreparedStatement ps = c.prepareStatement("SELECT order_id, movie_name FROM orders WHERE hall_key = ?")) {
+                ps.setString(1, hallKey);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        movieByOrder.put(rs.getString(1), rs.getString(2));
+                    }
+                }
+            }
+            Map<String, List<Integer>> seatsByOrder = new TreeMap<>();
+            try (PreparedStatement ps = c.prepareStatement("SELECT order_id, seat_id FROM seats WHERE hall_key = ? AND status = ?"
+                    + " ORDER BY order_id, seat_id")) {
+                ps.setString(1, hallKey);
+                ps.setString(2, SeatStatus.BOOKED.name());
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        seatsByOrder.computeIfAbsent(rs.getString(1), k -> new ArrayList<>()).add(rs.getInt(2));
+                    }
+                }
+            }
+            for (Map.Entry<String, List<Integer>> e : seatsByOrder.entrySet()) {
+                events.add(HallEvent.builder().hallKey(hallKey).type(HallEventType.CONFIRMED).orderId(e.getKey())
+                        .movieName(movieByOrder.getOrDefault(e.getKey(), configured.getMovieName()))
+                        .seatIds(e.getValue().stream().mapToInt(Integer::intValue).toArray()).build());
+            }
+            return events;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot load hall " + hallKey + ": " + e.getMessage(), e);
+        }
+    }
+
+    /*
+     * blocked and house seats of a templated hall, by label
+     */
+    private static Map<String, SeatStatus> specialSeats(Connection c, String hallKey, int rows, int seatsPerRow) throws SQLException {
+        Map<String, SeatStatus> special = new LinkedHashMap<>();
+        try (PreparedStatement ps = c.prepareStatement("SELECT seat_id, status FROM seats WHERE hall_key = ? AND status IN (?, ?)")) {
+            ps.setString(1, hallKey);
+            ps.setString(2, SeatStatus.BLOCKED.name());
+            ps.setString(3, SeatStatus.HOUSE.name());
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    int id = rs.getInt(1);
+                    special.put(Seat.labelOf(id / seatsPerRow, id % seatsPerRow, rows), SeatStatus.valueOf(rs.getString(2)));
+                }
+            }
+        }
+        return special;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        writer.close();
+    }
+}
@@ -0,0 +1,173 @@
+package com.gic.cinema.order.persistence;
+
+import com.gic.cinema.order.event.HallEvent;
+import com.gic.cinema.order.event.HallEventType;
+import com.gic.cinema.order.model.Seat;
+import com.gic.cinema.order.model.SeatMapTemplate;
+import com.gic.cinema.order.model.SeatStatus;
+import com.gic.cinema.order.service.HallArchive;
+
+import java.io.*;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * FileHallArchive - one gzipped binary file per closed hall.
+ * Layout: 'H', format version, hall key, movie, hall name, rows, seats per row, start time or empty,
+ * template name or empty, special seats (id, status), orders (id, movie, seat ids).
+ * Files are written to a temp file and moved into place, so a reader never sees half a hall.
+ */
+public class FileHallArchive implements HallArchive {
+    private static final byte MAGIC = 'H';
+    private static final byte FORMAT_VERSION = 1;
+    private static final String SUFFIX = ".hall";
+    private static final SeatStatus[] STATUSES = SeatStatus.values();
+
+    private final Path dir;
+
+    /**
+     * open archive, creating the directory if needed
+     * @param dir
+     */
+    public FileHallArchive(Path dir) {
+        try {
+            this.dir = Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create archive " + dir + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void store(String hallKey, List<HallEvent> events) {
+        HallEvent configured = events.get(0);
+        if (configured.getType() != HallEventType.CONFIGURED)
+            throw new IllegalArgumentException("Archived hall must start with CONFIGURED: " + hallKey);
+        Path file = fileOf(hallKey);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(tmp))))) {
+            int rows = configured.getRows();
+            int seatsPerRow = configured.getSeatsPerRow();
+            out.writeByte(MAGIC);
+            out.writeByte(FORMAT_VERSION);
+            out.writeUTF(hallKey);
+            out.writeUTF(configured.getMovieName());
+            out.writeUTF(nullToEmpty(configured.getHallName()));
+            out.writeShort(rows);
+            out.writeShort(seatsPerRow);
+            out.writeUTF(configured.getStartsAt() == null ? "" : configured.getStartsAt().toString());
+            SeatMapTemplate t = configured.getTemplate();
+            out.writeUTF(t == null ? "" : t.getName());
+            if (t != null) {
+                List<Integer> special = new ArrayList<>();
+                for (int r = 0; r < rows; r++) {
+                    for (int c = 0; c < seatsPerRow; c++) {
+                        if (t.statusAt(r, c) != SeatStatus.AVAILABLE) special.add(r * seatsPerRow + c);
+                    }
+                }
+                out.writeShort(special.size());
+                for (int id : special) {
+                    out.writeShort(id);
+                    out.writeByte(t.statusAt(id / seatsPerRow, id % seatsPerRow).ordinal());
+                }
+            }
+            out.writeInt(events.size() - 1);
+            for (HallEvent e : events.subList(1, events.size())) {
+                out.writeUTF(e.getOrderId());
+                out.writeUTF(nullToEmpty(e.getMovieName()));
+                out.writeShort(e.getSeatCount());
+                for (int id : e.getSeatIds()) {
+                    out.writeShort(id);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot archive hall " + hallKey + ": " + e.getMessage(), e);
+        }
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot archive hall " + hallKey + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<HallEvent> load(String hallKey) {
+        Path file = fileOf(hallKey);
+        if (!Files.exists(file)) return List.of();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file))))) {
+            if (in.readByte() != MAGIC || in.readByte() != FORMAT_VERSION)
+                throw new IllegalStateException("Not a hall archive: " + file);
+            String key = in.readUTF();
+            String movie = in.readUTF();
+            String hallName = in.readUTF();
+            int rows = in.readUnsignedShort();
+            int seatsPerRow = in.readUnsignedShort();
+            String startsAt = in.readUTF();
+            String templateName = in.readUTF();
+            SeatMapTemplate template = null;
+            if (!templateName.isEmpty()) {
+                Map<String, SeatStatus> special = new LinkedHashMap<>();
+                for (int n = in.readUnsignedShort(); n > 0; n--) {
+                    int id = in.readUnsignedShort();
+                    special.put(Seat.labelOf(id / seatsPerRow, id % seatsPerRow, rows), STATUSES[in.readByte()]);
+                }
+                template = new SeatMapTemplate(templateName, rows, seatsPerRow, special);
+            }
+            List<HallEvent> events = new ArrayList<>();
+            events.add(HallEvent.builder().hallKey(key).type(HallEventType.CONFIGURED).movieName(movie)
+                    .hallName(hallName.isEmpty() ? null : hallName).rows(rows).seatsPerRow(seatsPerRow)
+                    .startsAt(startsAt.isEmpty() ? null : LocalDateTime.parse(startsAt)).template(template).build());
+            for (int n = in.readInt(); n > 0; n--) {
+                String orderId = in.readUTF();
+                String orderMovie = in.readUTF();
+                int[] ids = new int[in.readUnsignedShort()];
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = in.readUnsignedShort();
+                }
+                events.add(HallEvent.builder().hallKey(key).type(HallEventType.CONFIRMED).orderId(orderId)
+                        .movieName(orderMovie.isEmpty() ? movie : orderMovie).seatIds(ids).build());
+            }
+            return events;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load archived hall " + hallKey + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean contains(String hallKey) {
+        return Files.exists(fileOf(hallKey));
+    }
+
+    @Override
+    public Set<String> getHallKeys() {
+        Set<String> keys = new HashSet<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                keys.add(URLDecoder.decode(name.substring(0, name.length() - SUFFIX.length()), StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list archive " + dir + ": " + e.getMessage(), e);
+        }
+        return keys;
+    }
+
+    /*
+     * archive file of hall key, the key url-encoded so any title is a safe file name
+     */
+    private Path fileOf(String hallKey) {
+        return dir.resolve(URLEncoder.encode(hallKey, StandardCharsets.UTF_8) + SUFFIX);
+    }
+
+    private static String nullToEmpty(String s) {
+        return s == null ? "" : s;
+    }
+}
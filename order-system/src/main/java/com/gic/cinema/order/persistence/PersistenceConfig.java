@@ -0,0 +1,34 @@
+package com.gic.cinema.order.persistence;
+
+import com.gic.cinema.order.service.CinemaService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.sql.SQLException;
+
+/**
+ * PersistenceConfig - optional SQL store, on when com.gic.cinema.order.persistence.url is set
+ */
+@Configuration
+@ConditionalOnProperty(name = "com.gic.cinema.order.persistence.url")
+public class PersistenceConfig {
+
+    @Bean(destroyMethod = "close")
+    public BookingStore bookingStore(@Value("${com.gic.cinema.order.persistence.url}") String url,
+                                     CinemaService cinemaService) throws SQLException {
+        BookingStore store = new BookingStore(url);
+        cinemaService.setHallLoader(store);
+        return store;
+    }
+
+    @Bean(destroyMethod = "close")
+    public WriteBehindPersister writeBehindPersister(BookingStore store, CinemaService cinemaService,
+                                                    @Value("${com.gic.cinema.order.persistence.capacity:65536}") int capacity,
+                                                    @Value("${com.gic.cinema.order.persistence.batchsize:500}") int batchSize) {
+        WriteBehindPersister persister = new WriteBehindPersister(store, cinemaService.getEventStore(), capacity, batchSize);
+        cinemaService.addRemovalListener(persister::forget);
+        return persister;
+    }
+}
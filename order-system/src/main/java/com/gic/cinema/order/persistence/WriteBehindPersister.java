@@ -0,0 +1,428 @@
+package com.gic.cinema.order.persistence;
+
+import com.gic.cinema.order.event.HallEvent;
+import com.gic.cinema.order.event.HallEventStore;
+import com.gic.cinema.order.event.HallEventType;
+import com.gic.cinema.order.event.HallProjection;
+import com.gic.cinema.order.model.SeatMapTemplate;
+import com.gic.cinema.order.model.SeatStatus;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * WriteBehindPersister - copies committed hall events to the BookingStore off the booking path.
+ *  - events are queued by the event store listener and flushed by one thread in batches, one transaction each
+ *  - within a batch only the last state of a seat or order is written, as JDBC batches
+ *  - the queue is bounded and never waited on: an event that does not fit (counted as an overflow) or a batch
+ *    dropped after retries marks its hall, which is rewritten from its current state once the queue has caught up
+ *  - a removed hall is deleted from the store the same way, after the events queued before its removal
+ *  - lag metrics: pending events, age of the oldest pending event and the worst age seen at flush
+ * Reservations carry no booking and are not stored.
+ */
+public class WriteBehindPersister implements AutoCloseable {
+    private static final int MAX_RETRIES = 3;
+    /*
+     * idle flusher looks for halls to rewrite this often
+     */
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final BookingStore store;
+    private final HallEventStore events;
+    private final ArrayBlockingQueue<HallEvent> queue;
+    private final int batchSize;
+    private final Thread flusher;
+    private final AtomicLong flushed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong overflows = new AtomicLong();
+    private final AtomicLong maxLagMillis = new AtomicLong();
+    /*
+     * appended events queued so far, and taken off the queue written or dropped, to wait for a flush
+     */
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    /*
+     * halls to rewrite from their current state, kept until the rewrite is done
+     */
+    private final Map<String, Resync> resyncs = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    public WriteBehindPersister(BookingStore store, HallEventStore events, int capacity, int batchSize) {
+        if (capacity < 1) throw new IllegalArgumentException("Capacity must be > 0.");
+        if (batchSize < 1) throw new IllegalArgumentException("Batch size must be > 0.");
+        this.store = store;
+        this.events = events;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flusher = Thread.ofPlatform().daemon().name("write-behind").start(this::run);
+        events.subscribe(this::enqueue);
+    }
+
+    /**
+     * get events waiting to be written
+     * @return
+     */
+    public int getPending() {
+        return queue.size();
+    }
+
+    /**
+     * get age of the oldest waiting event, 0 if none
+     * @return
+     */
+    public long getLagMillis() {
+        HallEvent oldest = queue.peek();
+        return oldest == null ? 0 : Math.max(0, System.currentTimeMillis() - oldest.getTimestamp());
+    }
+
+    /**
+     * get worst age of an event when it was written
+     * @return
+     */
+    public long getMaxLagMillis() {
+        return maxLagMillis.get();
+    }
+
+    /**
+     * get events written
+     * @return
+     */
+    public long getFlushed() {
+        return flushed.get();
+    }
+
+    /**
+     * get events dropped after failed retries, their halls are rewritten later
+     * @return
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * get batches written
+     * @return
+     */
+    public long getBatches() {
+        return batches.get();
+    }
+
+    /**
+     * get failed flush attempts
+     * @return
+     */
+    public long getFailures() {
+        return failures.get();
+    }
+
+    /**
+     * get events not queued because the queue was full, their halls are rewritten later
+     * @return
+     */
+    public long getOverflows() {
+        return overflows.get();
+    }
+
+    /**
+     * get halls waiting to be rewritten or deleted
+     * @return
+     */
+    public int getPendingResyncs() {
+        return resyncs.size();
+    }
+
+    /**
+     * delete stored hall once the events queued before are written, e.g. after CinemaService.removeHall
+     * @param hallKey
+     */
+    public void forget(String hallKey) {
+        resync(hallKey);
+    }
+
+    /**
+     * wait until every event queued so far is written and no hall waits to be rewritten
+     * @param timeout
+     * @param unit
+     * @return false on timeout or when events were dropped meanwhile
+     * @throws InterruptedException
+     */
+    public boolean awaitFlushed(long timeout, TimeUnit unit) throws InterruptedException {
+        long target = queued.get();
+        long droppedBefore = dropped.get();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (flushed) {
+            while (processed.get() < target || !resyncs.isEmpty()) {
+                long waitMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (waitMs <= 0) return false;
+                flushed.wait(waitMs);
+            }
+        }
+        return dropped.get() == droppedBefore;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        flusher.interrupt();
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            // the flusher still writes what is queued, keep the caller's interrupt
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /*
+     * event store listener, runs on the booking thread under the hall lock so it never waits
+     */
+    private void enqueue(HallEvent e) {
+        if (e.getType() == HallEventType.RESERVED || closed) return;
+        if (queue.offer(e)) {
+            queued.incrementAndGet();
+            return;
+        }
+        overflows.incrementAndGet();
+        resync(e.getHallKey());
+    }
+
+    /*
+     * mark hall to be rewritten after everything queued so far
+     */
+    private void resync(String hallKey) {
+        Resync mark = new Resync(queued.get());
+        // always a new mark, so a rewrite running meanwhile does not clear it
+        resyncs.merge(hallKey, mark, (old, m) -> old.after > m.after ? new Resync(old.after) : m);
+    }
+
+    /*
+     * flush loop, remaining events are written on close
+     */
+    private void run() {
+        List<HallEvent> batch = new ArrayList<>(batchSize);
+        while (true) {
+            HallEvent first;
+            try {
+                first = closed ? queue.poll() : queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                first = queue.poll();
+            }
+            if (first != null) {
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+                batch.clear();
+            }
+            resyncDue();
+            if (first == null && closed) return;
+        }
+    }
+
+    /*
+     * write one batch in one transaction, retried a few times before it is dropped
+     */
+    private void write(List<HallEvent> batch) {
+        boolean written = false;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                apply(store.writer(), batch);
+                written = true;
+                break;
+            } catch (SQLException e) {
+                failures.incrementAndGet();
+                rollback();
+                if (attempt == MAX_RETRIES) break;
+                try {
+                    Thread.sleep(100L * attempt);
+                } catch (InterruptedException ie) {
+                    closed = true;
+                }
+            }
+        }
+        if (written) {
+            maxLagMillis.accumulateAndGet(System.currentTimeMillis() - batch.get(0).getTimestamp(), Math::max);
+            batches.incrementAndGet();
+            flushed.addAndGet(batch.size());
+        } else {
+            dropped.addAndGet(batch.size());
+            for (HallEvent e : batch) {
+                resync(e.getHallKey());
+            }
+        }
+        synchronized (flushed) {
+            processed.addAndGet(batch.size());
+            flushed.notifyAll();
+        }
+    }
+
+    /*
+     * rewrite marked halls whose earlier events are all processed, a failed rewrite is tried again on the next round
+     */
+    private void resyncDue() {
+        if (resyncs.isEmpty()) return;
+        for (Map.Entry<String, Resync> r : resyncs.entrySet()) {
+            if (r.getValue().after > processed.get()) continue;
+            try {
+                replace(store.writer(), r.getKey(), currentEvents(r.getKey()));
+            } catch (SQLException e) {
+                failures.incrementAndGet();
+                rollback();
+                // kept for the next round, given up on close
+                if (!closed) continue;
+            }
+            resyncs.remove(r.getKey(), r.getValue());
+        }
+        synchronized (flushed) {
+            flushed.notifyAll();
+        }
+    }
+
+    /*
+     * current state of hall as events, none once the hall is removed
+     */
+    private List<HallEvent> currentEvents(String hallKey) {
+        try {
+            return HallProjection.toEvents(events.replay(hallKey), events.getConfigured(hallKey));
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
+    }
+
+    private void rollback() {
+        try {
+            store.writer().rollback();
+        } catch (SQLException ignored) {
+            // connection broken, next attempt fails too
+        }
+    }
+
+    /*
+     * delete stored rows of hall, then write its events, in one transaction
+     */
+    static void replace(Connection c, String hallKey, List<HallEvent> events) throws SQLException {
+        for (String sql : BookingStore.DELETE_HALL) {
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setString(1, hallKey);
+                ps.executeUpdate();
+            }
+        }
+        apply(c, events);
+    }
+
+    /*
+     * fold batch to last state per hall, seat and order, then write it with JDBC batches
+     */
+    static void apply(Connection c, List<HallEvent> batch) throws SQLException {
+        Map<String, HallEvent> halls = new LinkedHashMap<>();
+        Map<String, HallEvent> orders = new LinkedHashMap<>();
+        // last write per hall key and seat id
+        Map<String, Map<Integer, SeatWrite>> seats = new LinkedHashMap<>();
+        Set<String> cancelledHalls = new HashSet<>();
+        for (HallEvent e : batch) {
+            Map<Integer, SeatWrite> hallSeats = seats.computeIfAbsent(e.getHallKey(), k -> new LinkedHashMap<>());
+            switch (e.getType()) {
+                case CONFIGURED -> {
+                    halls.put(e.getHallKey(), e);
+                    SeatMapTemplate t = e.getTemplate();
+                    if (t == null) break;
+                    for (int r = 0; r < t.getRows(); r++) {
+                        for (int col = 0; col < t.getSeatsPerRow(); col++) {
+                            SeatStatus status = t.statusAt(r, col);
+                            if (status != SeatStatus.AVAILABLE) hallSeats.put(r * t.getSeatsPerRow() + col, new SeatWrite(status, null));
+                        }
+                    }
+                }
+                case CONFIRMED -> {
+                    orders.put(e.getHallKey() + "\u0000" + e.getOrderId(), e);
+                    for (int id : e.getSeatIds()) {
+                        hallSeats.put(id, new SeatWrite(SeatStatus.BOOKED, e.getOrderId()));
+                    }
+                }
+                case CANCELLED -> {
+                    cancelledHalls.add(e.getHallKey());
+                    for (int id : e.getSeatIds()) {
+                        hallSeats.put(id, SeatWrite.RELEASED);
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+        try (PreparedStatement mergeHall = c.prepareStatement(BookingStore.MERGE_HALL);
+             PreparedStatement mergeOrder = c.prepareStatement(BookingStore.MERGE_ORDER);
+             PreparedStatement mergeSeat = c.prepareStatement(BookingStore.MERGE_SEAT);
+             PreparedStatement deleteSeat = c.prepareStatement(BookingStore.DELETE_SEAT);
+             PreparedStatement deleteEmpty = c.prepareStatement(BookingStore.DELETE_EMPTY_ORDERS)) {
+            for (HallEvent e : halls.values()) {
+                mergeHall.setString(1, e.getHallKey());
+                mergeHall.setString(2, e.getMovieName());
+                mergeHall.setString(3, e.getHallName());
+                mergeHall.setInt(4, e.getRows());
+                mergeHall.setInt(5, e.getSeatsPerRow());
+                if (e.getStartsAt() == null) mergeHall.setNull(6, Types.TIMESTAMP);
+                else mergeHall.setTimestamp(6, Timestamp.valueOf(e.getStartsAt()));
+                mergeHall.setString(7, e.getTemplate() == null ? null : e.getTemplate().getName());
+                mergeHall.addBatch();
+            }
+            mergeHall.executeBatch();
+            for (HallEvent e : orders.values()) {
+                mergeOrder.setString(1, e.getHallKey());
+                mergeOrder.setString(2, e.getOrderId());
+                mergeOrder.setString(3, e.getMovieName());
+                mergeOrder.addBatch();
+            }
+            mergeOrder.executeBatch();
+            for (Map.Entry<String, Map<Integer, SeatWrite>> h : seats.entrySet()) {
+                for (Map.Entry<Integer, SeatWrite> s : h.getValue().entrySet()) {
+                    if (s.getValue() == SeatWrite.RELEASED) {
+                        deleteSeat.setString(1, h.getKey());
+                        deleteSeat.setInt(2, s.getKey());
+                        deleteSeat.addBatch();
+                    } else {
+                        mergeSeat.setString(1, h.getKey());
+                        mergeSeat.setInt(2, s.getKey());
+                        mergeSeat.setString(3, s.getValue().status().name());
+                        mergeSeat.setString(4, s.getValue().orderId());
+                        mergeSeat.addBatch();
+                    }
+                }
+            }
+            mergeSeat.executeBatch();
+            deleteSeat.executeBatch();
+            // orders whose last seat was released
+            for (String hallKey : cancelledHalls) {
+                deleteEmpty.setString(1, hallKey);
+                deleteEmpty.addBatch();
+            }
+            deleteEmpty.executeBatch();
+        }
+        c.commit();
+    }
+
+    /*
+     * hall to rewrite once the events queued before the mark are processed
+     */
+    private static final class Resync {
+        private final long after;
+
+        Resync(long after) {
+            this.after = after;
+        }
+    }
+
+    /*
+     * last state of one seat in a batch
+     */
+    private record SeatWrite(SeatStatus status, String orderId) {
+        static final SeatWrite RELEASED = new SeatWrite(SeatStatus.AVAILABLE, null);
+    }
+}
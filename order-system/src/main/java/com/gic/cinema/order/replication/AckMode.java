@@ -0,0 +1,15 @@
+package com.gic.cinema.order.replication;
+
+/**
+ * Ack Mode of replication
+ */
+public enum AckMode {
+    /*
+     * commit returns once every live follower applied it
+     */
+    SYNC,
+    /*
+     * commit returns at once, followers catch up in the background
+     */
+    ASYNC
+}
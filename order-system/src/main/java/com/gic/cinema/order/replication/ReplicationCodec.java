@@ -0,0 +1,185 @@
+package com.gic.cinema.order.replication;
+
+import com.gic.cinema.order.event.HallEvent;
+import com.gic.cinema.order.model.CinemaHall;
+import com.gic.cinema.order.model.Order;
+import com.gic.cinema.order.model.Seat;
+import com.gic.cinema.order.model.SeatMapTemplate;
+import com.gic.cinema.order.model.SeatStatus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ReplicationCodec - line messages from leader to followers, fields separated by tab.
+ *  HALL  repSeq hallSeq key movie hallName rows cols startsAt specialSeats orderId:labels...
+ *  EVENT repSeq hallSeq key type movie orderId seatIds
+ *  SYNCED repSeq - catch-up done, live stream follows
+ *  ACK   repSeq
+ */
+final class ReplicationCodec {
+    static final String HALL = "HALL";
+    static final String EVENT = "EVENT";
+    static final String SYNCED = "SYNCED";
+    static final String ACK = "ACK";
+    static final String SEP = "\t";
+
+    private ReplicationCodec() {
+    }
+
+    /**
+     * whole hall: from CONFIGURED event (no orders) or from a rebuilt hall for catch-up
+     * @param repSeq
+     * @param hallSeq
+     * @param key
+     * @param movieName
+     * @param hallName
+     * @param rows
+     * @param seatsPerRow
+     * @param startsAt
+     * @param template
+     * @param orders
+     * @return
+     */
+    static String hall(long repSeq, long hallSeq, String key, String movieName, String hallName, int rows, int seatsPerRow,
+                       Object startsAt, SeatMapTemplate template, Collection<Order> orders) {
+        StringBuilder special = new StringBuilder();
+        if (template != null) {
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < seatsPerRow; c++) {
+                    SeatStatus status = template.statusAt(r, c);
+                    if (status == SeatStatus.AVAILABLE) continue;
+                    if (special.length() > 0) special.append(',');
+                    special.append(Seat.labelOf(r, c, rows)).append('=').append(status);
+                }
+            }
+        }
+        StringBuilder sb = new StringBuilder(HALL).append(SEP).append(repSeq).append(SEP).append(hallSeq)
+                .append(SEP).append(escape(key)).append(SEP).append(escape(movieName)).append(SEP).append(escape(hallName))
+                .append(SEP).append(rows).append(SEP).append(seatsPerRow)
+                .append(SEP).append(startsAt == null ? "" : startsAt).append(SEP).append(special);
+        for (Order o : orders) {
+            sb.append(SEP).append(escape(o.getId())).append(':').append(String.join(",", o.getSeatLabels()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * CONFIGURED event as hall message
+     * @param repSeq
+     * @param e
+     * @return
+     */
+    static String configured(long repSeq, HallEvent e) {
+        return hall(repSeq, e.getSeq(), e.getHallKey(), e.getMovieName(), e.getHallName(), e.getRows(), e.getSeatsPerRow(),
+                e.getStartsAt(), e.getTemplate(), List.of());
+    }
+
+    /**
+     * rebuilt hall as hall message
+     * @param hallSeq
+     * @param h
+     * @return
+     */
+    static String snapshot(long hallSeq, CinemaHall h) {
+        return hall(0, hallSeq, h.getKey(), h.getMovieName(), h.getHallName(), h.getRows(), h.getSeatsPerRow(),
+                h.getStartsAt(), h.getTemplate(), h.getOrders().values());
+    }
+
+    /**
+     * CONFIRMED / CANCELLED event
+     * @param repSeq
+     * @param e
+     * @return
+     */
+    static String event(long repSeq, HallEvent e) {
+        StringBuilder ids = new StringBuilder();
+        for (int id : e.getSeatIds()) {
+            if (ids.length() > 0) ids.append(',');
+            ids.append(id);
+        }
+        return EVENT + SEP + repSeq + SEP + e.getSeq() + SEP + escape(e.getHallKey()) + SEP + e.getType()
+                + SEP + escape(e.getMovieName() == null ? "" : e.getMovieName()) + SEP + escape(e.getOrderId()) + SEP + ids;
+    }
+
+    /**
+     * parse special seats of hall message
+     * @param field
+     * @return
+     */
+    static Map<String, SeatStatus> specialSeats(String field) {
+        Map<String, SeatStatus> special = new LinkedHashMap<>();
+        if (field.isEmpty()) return special;
+        for (String entry : field.split(",")) {
+            int eq = entry.indexOf('=');
+            special.put(entry.substring(0, eq), SeatStatus.valueOf(entry.substring(eq + 1)));
+        }
+        return special;
+    }
+
+    /**
+     * parse seat ids of event message
+     * @param field
+     * @return
+     */
+    static int[] seatIds(String field) {
+        if (field.isEmpty()) return new int[0];
+        String[] parts = field.split(",");
+        int[] ids = new int[parts.length];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = Integer.parseInt(parts[i]);
+        }
+        return ids;
+    }
+
+    /**
+     * split line into unescaped fields
+     * @param line
+     * @return
+     */
+    static String[] split(String line) {
+        String[] f = line.split(SEP, -1);
+        for (int i = 0; i < f.length; i++) {
+            f[i] = unescape(f[i]);
+        }
+        return f;
+    }
+
+    static String escape(String s) {
+        if (s.indexOf('\\') < 0 && s.indexOf('\t') < 0 && s.indexOf('\n') < 0 && s.indexOf('\r') < 0) return s;
+        return s.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    static String unescape(String s) {
+        if (s.indexOf('\\') < 0) return s;
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            if (ch == '\\' && i + 1 < s.length()) {
+                char next = s.charAt(++i);
+                sb.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                sb.append(ch);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * parse orders of hall message from field index
+     * @param f
+     * @param from
+     * @return order id to labels
+     */
+    static Map<String, List<String>> orders(String[] f, int from) {
+        Map<String, List<String>> orders = new LinkedHashMap<>();
+        for (int i = from; i < f.length; i++) {
+            int split = f[i].lastIndexOf(':');
+            orders.put(f[i].substring(0, split), new ArrayList<>(List.of(f[i].substring(split + 1).split(","))));
+        }
+        return orders;
+    }
+}
@@ -0,0 +1,233 @@
+package com.gic.cinema.order.replication;
+
+import com.gic.cinema.order.model.CinemaHall;
+import com.gic.cinema.order.model.Order;
+import com.gic.cinema.order.model.Seat;
+import com.gic.cinema.order.model.SeatStatus;
+import com.gic.cinema.order.service.CinemaService;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.gic.cinema.order.replication.ReplicationCodec.*;
+
+/**
+ * ReplicationFollower - applies the leader stream to its own CinemaService, so its halls and
+ * seat indexes stay warm. On leader failure promote() stops following and the service takes over as is.
+ * Run standalone with: java ... com.gic.cinema.order.replication.ReplicationFollower [host] [port]
+ */
+public class ReplicationFollower implements AutoCloseable {
+    private final CinemaService cinemaService;
+    /*
+     * last applied hall seq of leader per hall key, older messages are already covered
+     */
+    private final Map<String, Long> appliedSeq = new ConcurrentHashMap<>();
+    private volatile long lastRepSeq;
+    private volatile boolean synced;
+    private volatile boolean promoted;
+    private Socket socket;
+    private Thread reader;
+
+    public ReplicationFollower(CinemaService cinemaService) {
+        this.cinemaService = cinemaService;
+    }
+
+    /**
+     * follow a leader until killed
+     * @param args - host and port, default localhost 7171
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 7171;
+        ReplicationFollower follower = new ReplicationFollower(new CinemaService());
+        follower.connect(host, port);
+        System.out.println("Following leader on " + host + ":" + port);
+        follower.reader.join();
+    }
+
+    /**
+     * connect to leader and start applying its stream
+     * @param host
+     * @param port
+     * @throws IOException
+     */
+    public synchronized void connect(String host, int port) throws IOException {
+        if (socket != null) throw new IllegalStateException("Follower already connected.");
+        if (promoted) throw new IllegalStateException("Follower already promoted.");
+        socket = new Socket();
+        socket.connect(new InetSocketAddress(host, port));
+        socket.setTcpNoDelay(true);
+        Socket s = socket;
+        reader = new Thread(() -> follow(s), "replication-follower-" + port);
+        reader.start();
+    }
+
+    /**
+     * stop following and take over with the replicated state
+     * @return service now owning the halls
+     */
+    public CinemaService promote() {
+        promoted = true;
+        disconnect();
+        return cinemaService;
+    }
+
+    /**
+     * get service the stream is applied to
+     * @return
+     */
+    public CinemaService getCinemaService() {
+        return cinemaService;
+    }
+
+    /**
+     * get last applied replication seq
+     * @return
+     */
+    public long getLastRepSeq() {
+        return lastRepSeq;
+    }
+
+    /**
+     * true once every hall of the leader was applied and the live stream started
+     * @return
+     */
+    public boolean isSynced() {
+        return synced;
+    }
+
+    /**
+     * true after promote
+     * @return
+     */
+    public boolean isPromoted() {
+        return promoted;
+    }
+
+    @Override
+    public void close() {
+        disconnect();
+    }
+
+    private synchronized void disconnect() {
+        if (socket == null) return;
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // already closed
+        }
+        try {
+            if (reader != Thread.currentThread()) reader.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        socket = null;
+    }
+
+    /*
+     * apply leader messages, ack each replicated one
+     */
+    private void follow(Socket s) {
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                long seq = apply(split(line));
+                if (seq > 0) {
+                    lastRepSeq = seq;
+                    out.write(ACK + SEP + seq + '\n');
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            // leader went away or follower disconnected
+        }
+    }
+
+    /*
+     * apply one message
+     * @return replication seq to ack, 0 for catch-up halls
+     */
+    long apply(String[] f) {
+        if (SYNCED.equals(f[0])) {
+            synced = true;
+            return Long.parseLong(f[1]);
+        }
+        long repSeq = Long.parseLong(f[1]);
+        long hallSeq = Long.parseLong(f[2]);
+        String key = f[3];
+        if (hallSeq <= appliedSeq.getOrDefault(key, 0L)) return repSeq;
+        if (HALL.equals(f[0])) {
+            applyHall(f);
+        } else {
+            applyEvent(key, f[4], f[5], f[6], seatIds(f[7]));
+        }
+        appliedSeq.put(key, hallSeq);
+        return repSeq;
+    }
+
+    /*
+     * create hall as configured on leader, with its orders when catching up
+     */
+    private void applyHall(String[] f) {
+        String key = f[3];
+        int rows = Integer.parseInt(f[6]);
+        int seatsPerRow = Integer.parseInt(f[7]);
+        if (cinemaService.getHallKeys().contains(key)) cinemaService.removeHall(key);
+        CinemaHall h = f[8].isEmpty()
+                ? cinemaService.configureHall(f[4], rows, seatsPerRow)
+                : cinemaService.scheduleShowtime(f[4],
+                cinemaService.defineTemplate(f[5], rows, seatsPerRow, specialSeats(f[9])), LocalDateTime.parse(f[8]));
+        if (!key.equals(h.getKey())) throw new IllegalStateException("Replicated hall key " + h.getKey() + " differs from " + key + ".");
+        for (Map.Entry<String, List<String>> e : orders(f, 10).entrySet()) {
+            List<Seat> seats = new ArrayList<>();
+            for (String label : e.getValue()) {
+                int[] pos = Seat.parseLabel(label, rows, seatsPerRow);
+                seats.add(h.seatAt(pos[0] * seatsPerRow + pos[1]));
+            }
+            cinemaService.confirmOrder(h, Order.builder().id(e.getKey()).movieName(h.getMovieName()).hallName(h.getHallName())
+                    .tickets(seats.size()).seatLabels(e.getValue()).build(), seats);
+        }
+    }
+
+    /*
+     * apply confirmed or cancelled seats
+     */
+    private void applyEvent(String key, String type, String movieName, String orderId, int[] seatIds) {
+        CinemaHall h = cinemaService.getHall(key);
+        if ("CONFIRMED".equals(type)) {
+            List<Seat> seats = new ArrayList<>(seatIds.length);
+            for (int id : seatIds) {
+                seats.add(h.seatAt(id));
+            }
+            Order order = h.getOrders().get(orderId);
+            if (order == null) {
+                order = Order.builder().id(orderId).movieName(movieName.isEmpty() ? h.getMovieName() : movieName)
+                        .hallName(h.getHallName()).build();
+            } else {
+                // seats added to an existing order: a new copy, the published one stays as readers saw it
+                List<String> labels = new ArrayList<>(order.getSeatLabels());
+                seats.forEach(s -> labels.add(s.getLabel()));
+                labels.sort(null);
+                order = order.toBuilder().seatLabels(labels).tickets(labels.size()).build();
+            }
+            cinemaService.confirmOrder(h, order, seats);
+        } else if ("CANCELLED".equals(type)) {
+            List<String> labels = new ArrayList<>(seatIds.length);
+            for (int id : seatIds) {
+                Seat s = h.seatAt(id);
+                if (s.getStatus() == SeatStatus.BOOKED) labels.add(s.getLabel());
+            }
+            cinemaService.releaseSeats(h, orderId, labels);
+        }
+    }
+}
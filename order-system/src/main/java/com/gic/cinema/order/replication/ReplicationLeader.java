@@ -0,0 +1,361 @@
+package com.gic.cinema.order.replication;
+
+import com.gic.cinema.order.event.HallEvent;
+import com.gic.cinema.order.event.HallEventStore;
+import com.gic.cinema.order.event.HallEventType;
+import com.gic.cinema.order.service.CinemaService;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.gic.cinema.order.replication.ReplicationCodec.*;
+
+/**
+ * ReplicationLeader - streams committed hall events of its CinemaService to followers over a loopback socket.
+ *  - a new follower first gets every hall as rebuilt from the event store, then the live stream
+ *  - SYNC: a commit returns once every live follower acked it, a follower missing the timeout is dropped
+ *    and the commit counted as degraded; the wait runs as a CinemaService commit barrier, after the hall lock
+ *    is released, so it holds neither the hall nor its event stream
+ *  - ASYNC: a commit returns at once, lag is the number of messages still queued for a follower
+ * Reservations are not replicated, only CONFIGURED, CONFIRMED and CANCELLED.
+ */
+@Slf4j
+public class ReplicationLeader implements AutoCloseable {
+    public static final long DEFAULT_SYNC_TIMEOUT_MS = 5000;
+
+    private final CinemaService cinemaService;
+    private final AckMode ackMode;
+    private final long syncTimeoutMs;
+    private final List<FollowerLink> links = new CopyOnWriteArrayList<>();
+    /*
+     * replication seq, assigned and queued under the leader monitor so every follower sees the same order
+     */
+    private long repSeq;
+    /*
+     * SYNC: last event the current writer thread replicated, awaited by its commit barrier
+     */
+    private final ThreadLocal<PendingAck> pending = new ThreadLocal<>();
+    /*
+     * SYNC commits returned without the ack of every follower live when they were sent
+     */
+    private final LongAdder degradedCommits = new LongAdder();
+    private ServerSocket server;
+    private Thread acceptor;
+
+    public ReplicationLeader(CinemaService cinemaService, AckMode ackMode) {
+        this(cinemaService, ackMode, DEFAULT_SYNC_TIMEOUT_MS);
+    }
+
+    public ReplicationLeader(CinemaService cinemaService, AckMode ackMode, long syncTimeoutMs) {
+        if (syncTimeoutMs <= 0) throw new IllegalArgumentException("Sync timeout must be > 0.");
+        this.cinemaService = cinemaService;
+        this.ackMode = ackMode;
+        this.syncTimeoutMs = syncTimeoutMs;
+        cinemaService.getEventStore().subscribe(this::onEvent);
+        if (ackMode == AckMode.SYNC) cinemaService.addCommitBarrier(this::awaitAcks);
+    }
+
+    /**
+     * listen for followers on loopback
+     * @param port - 0 for any free port
+     * @return bound port
+     * @throws IOException
+     */
+    public synchronized int start(int port) throws IOException {
+        if (server != null) throw new IllegalStateException("Leader already started.");
+        server = new ServerSocket(port, 16, InetAddress.getLoopbackAddress());
+        acceptor = new Thread(this::acceptLoop, "replication-leader-" + server.getLocalPort());
+        acceptor.start();
+        return server.getLocalPort();
+    }
+
+    /**
+     * get ack mode
+     * @return
+     */
+    public AckMode getAckMode() {
+        return ackMode;
+    }
+
+    /**
+     * get connected followers, including those still catching up
+     * @return
+     */
+    public int getFollowerCount() {
+        return links.size();
+    }
+
+    /**
+     * get last replication seq handed to followers
+     * @return
+     */
+    public synchronized long getLastSeq() {
+        return repSeq;
+    }
+
+    /**
+     * get messages not yet acked by the slowest follower
+     * @return
+     */
+    public long getMaxLag() {
+        long last = getLastSeq();
+        long lag = 0;
+        for (FollowerLink link : links) {
+            lag = Math.max(lag, last - link.ackedSeq());
+        }
+        return lag;
+    }
+
+    /**
+     * get SYNC commits that returned without the ack of every follower, those followers were dropped
+     * @return
+     */
+    public long getDegradedCommits() {
+        return degradedCommits.sum();
+    }
+
+    /**
+     * wait until every follower acked everything sent so far
+     * @param timeout
+     * @param unit
+     * @return false if a follower is still behind
+     * @throws InterruptedException
+     */
+    public boolean awaitFollowers(long timeout, TimeUnit unit) throws InterruptedException {
+        long seq = getLastSeq();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (FollowerLink link : links) {
+            if (!link.awaitAck(seq, deadline)) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (server != null) server.close();
+        for (FollowerLink link : links) {
+            link.close();
+        }
+    }
+
+    /*
+     * replicate one appended event, runs on the writer thread inside the hall stream - queues only, never waits
+     */
+    private void onEvent(HallEvent e) {
+        if (e.getType() == HallEventType.RESERVED || links.isEmpty()) return;
+        long seq;
+        List<FollowerLink> live = new ArrayList<>();
+        synchronized (this) {
+            seq = ++repSeq;
+            String msg = e.getType() == HallEventType.CONFIGURED ? configured(seq, e) : event(seq, e);
+            for (FollowerLink link : links) {
+                if (link.send(msg)) live.add(link);
+            }
+        }
+        // acks are cumulative, waiting for the writer's last event covers the earlier ones
+        if (ackMode == AckMode.SYNC && !live.isEmpty()) pending.set(new PendingAck(seq, live));
+    }
+
+    /*
+     * SYNC commit barrier: wait for the acks of the last event this thread replicated, drop followers missing the timeout
+     */
+    private void awaitAcks() {
+        PendingAck p = pending.get();
+        if (p == null) return;
+        pending.remove();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(syncTimeoutMs);
+        boolean degraded = false;
+        for (FollowerLink link : p.links) {
+            try {
+                if (!link.awaitAck(p.seq, deadline)) {
+                    link.close();
+                    degraded = true;
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                degraded = true;
+                break;
+            }
+        }
+        if (degraded) degradedCommits.increment();
+    }
+
+    /*
+     * replication seq a writer waits for and the followers that were live when it was sent
+     */
+    private record PendingAck(long seq, List<FollowerLink> links) {
+    }
+
+    /*
+     * accept followers, catch each one up on its own thread before it joins the live stream
+     */
+    private void acceptLoop() {
+        try {
+            while (!server.isClosed()) {
+                Socket socket = server.accept();
+                FollowerLink link = new FollowerLink(socket);
+                long base;
+                synchronized (this) {
+                    base = repSeq;
+                    links.add(link);
+                }
+                // rebuilding every hall takes a while, the next follower need not wait for it
+                Thread.ofVirtual().name("replication-catchup-" + socket.getPort()).start(() -> {
+                    try {
+                        catchUp(link, base);
+                    } catch (RuntimeException e) {
+                        log.error("Catching up follower {} failed.", socket.getRemoteSocketAddress(), e);
+                        link.close();
+                    }
+                });
+            }
+        } catch (SocketException e) {
+            // server closed
+        } catch (IOException e) {
+            log.error("Replication leader on port {} stopped accepting.", server.getLocalPort(), e);
+        }
+    }
+
+    /*
+     * send every hall rebuilt at its current seq; live events meanwhile are buffered on the link,
+     * and the follower skips any of them already covered by the rebuilt hall
+     */
+    private void catchUp(FollowerLink link, long base) {
+        HallEventStore store = cinemaService.getEventStore();
+        for (String key : store.getHallKeys()) {
+            long seq = store.getLastSeq(key);
+            if (seq == 0) continue;
+            try {
+                link.queue(snapshot(seq, store.stateAt(key, seq)));
+            } catch (IllegalArgumentException e) {
+                // hall removed meanwhile
+            }
+        }
+        link.goLive(base);
+    }
+
+    /*
+     * one connected follower: writer drains the queue, reader tracks acks
+     */
+    private class FollowerLink {
+        private final Socket socket;
+        private final LinkedBlockingQueue<String> outbound = new LinkedBlockingQueue<>();
+        private final List<String> buffered = new ArrayList<>();
+        private boolean live;
+        private boolean closed;
+        private long acked;
+
+        FollowerLink(Socket socket) throws IOException {
+            this.socket = socket;
+            socket.setTcpNoDelay(true);
+            Thread.ofVirtual().name("replication-out-" + socket.getPort()).start(this::writeLoop);
+            Thread.ofVirtual().name("replication-ack-" + socket.getPort()).start(this::readLoop);
+        }
+
+        /*
+         * queue live message, buffered while catching up
+         * @return true if the follower is live and must ack it
+         */
+        synchronized boolean send(String msg) {
+            if (closed) return false;
+            if (!live) {
+                buffered.add(msg);
+                return false;
+            }
+            outbound.add(msg);
+            return true;
+        }
+
+        void queue(String msg) {
+            outbound.add(msg);
+        }
+
+        synchronized void goLive(long base) {
+            // follower acks base once every rebuilt hall is applied
+            outbound.add(SYNCED + SEP + base);
+            outbound.addAll(buffered);
+            buffered.clear();
+            live = true;
+        }
+
+        synchronized long ackedSeq() {
+            return acked;
+        }
+
+        synchronized boolean awaitAck(long seq, long deadline) throws InterruptedException {
+            while (acked < seq && !closed) {
+                long waitMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (waitMs <= 0) return false;
+                wait(waitMs);
+            }
+            return acked >= seq;
+        }
+
+        synchronized void close() {
+            if (closed) return;
+            closed = true;
+            links.remove(this);
+            notifyAll();
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // already closed
+            }
+        }
+
+        private void writeLoop() {
+            try {
+                Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+                while (!socket.isClosed()) {
+                    String msg = outbound.take();
+                    out.write(msg);
+                    out.write('\n');
+                    // batch whatever queued up meanwhile into one flush
+                    while ((msg = outbound.poll()) != null) {
+                        out.write(msg);
+                        out.write('\n');
+                    }
+                    out.flush();
+                }
+            } catch (IOException | InterruptedException e) {
+                close();
+            }
+        }
+
+        private void readLoop() {
+            try {
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String[] f = line.split(SEP, -1);
+                    if (!ACK.equals(f[0])) continue;
+                    long seq = Long.parseLong(f[1]);
+                    synchronized (this) {
+                        if (seq > acked) acked = seq;
+                        notifyAll();
+                    }
+                }
+            } catch (IOException e) {
+                // follower went away
+            } finally {
+                close();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return socket.getRemoteSocketAddress().toString();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.gic.cinema.order.service;
+
+import com.gic.cinema.order.model.CinemaHall;
+import com.gic.cinema.order.model.Seat;
+import com.gic.cinema.order.model.SeatIndex;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * AdaptiveAllocator - default rule (furthest row first, middle-out within a row) with a per-row choice of scan.
+ *  - middle-out probing reads seats outward from the middle, cheap while most probed seats are free
+ *  - the free-list walk steps through the row's free columns in the hall index, outward from the middle,
+ *    so taken seats cost nothing
+ * The choice looks at the hall's fill ratio and, per row, at its free density and the gap around the middle.
+ * Both scans visit free seats in the same order, so the seats picked are exactly those of the middle-out rule.
+ */
+public class AdaptiveAllocator {
+    /*
+     * halls filled less than this always probe middle-out
+     */
+    public static final double DEFAULT_LOW_FILL = 0.25;
+    /*
+     * rows with a smaller share of free seats walk the free list
+     */
+    public static final double DEFAULT_DENSE_ROW = 0.5;
+
+    private final double lowFill;
+    private final double denseRow;
+    /*
+     * rows scanned by each strategy
+     */
+    private final LongAdder middleOutRows = new LongAdder();
+    private final LongAdder freeListRows = new LongAdder();
+
+    public AdaptiveAllocator() {
+        this(DEFAULT_LOW_FILL, DEFAULT_DENSE_ROW);
+    }
+
+    /**
+     * init allocator
+     * @param lowFill - hall fill ratio below which rows are probed middle-out without looking
+     * @param denseRow - free share of a row from which middle-out probing is used
+     */
+    public AdaptiveAllocator(double lowFill, double denseRow) {
+        if (lowFill < 0 || lowFill > 1) throw new IllegalArgumentException("Low fill must be 0 - 1.");
+        if (denseRow < 0) throw new IllegalArgumentException("Dense row must be >= 0.");
+        this.lowFill = lowFill;
+        this.denseRow = denseRow;
+    }
+
+    /**
+     * scan strategy of one row
+     */
+    public enum Strategy {
+        MIDDLE_OUT,
+        FREE_LIST
+    }
+
+    /**
+     * default rule from fromRow towards the screen into a reset result
+     * @param h
+     * @param tickets
+     * @param fromRow
+     * @param out
+     * @return out
+     */
+    public AllocationResult allocate(CinemaHall h, int tickets, int fromRow, AllocationResult out) {
+        SeatIndex index = h.getIndex();
+        // off-heap halls have no seat rows to probe, the free list gives the same middle-out order
+        Seat[][] seats = h.getOffHeap() != null ? null : h.getSeats();
+        boolean lowFillHall = index == null || fillRatio(h, index) < lowFill;
+        for (int row = fromRow; row >= 0 && out.getCount() < tickets; row--) {
+            //full rows give nothing, skip them without a scan
+            if (index != null && index.getRowFreeCount(row) == 0) continue;
+            out.scanned();
+            if (seats == null) {
+                freeListRows.increment();
+                walkFreeList(index, row, h.getSeatsPerRow(), tickets, out);
+            } else {
+                pickFromRow(lowFillHall ? null : index, seats[row], row, tickets, out);
+            }
+        }
+        if (out.getCount() != tickets) out.fail(AllocationResult.NO_FIT, "Cannot allocate seats with default rule.");
+        return out;
+    }
+
+    /**
+     * pick seats of one row middle-out until out holds tickets seat ids
+     * @param index - hall index, null to probe middle-out
+     * @param rowSeats
+     * @param row
+     * @param tickets
+     * @param out
+     */
+    public void pickFromRow(SeatIndex index, Seat[] rowSeats, int row, int tickets, AllocationResult out) {
+        if (index != null && choose(index, row, rowSeats.length, tickets - out.getCount()) == Strategy.FREE_LIST) {
+            freeListRows.increment();
+            walkFreeList(index, row, rowSeats.length, tickets, out);
+        } else {
+            middleOutRows.increment();
+            CinemaService.pickFromRowMiddleOut(rowSeats, row, tickets, out);
+        }
+    }
+
+    /**
+     * choose scan of a row: middle-out while the row is dense and free seats sit near the middle
+     * @param index
+     * @param row
+     * @param seatsPerRow
+     * @param need - seats still to pick
+     * @return
+     */
+    public Strategy choose(SeatIndex index, int row, int seatsPerRow, int need) {
+        int free = index.getRowFreeCount(row);
+        if (free < seatsPerRow * denseRow) return Strategy.FREE_LIST;
+        // fragmentation: a taken block around the middle costs probes before the first free seat
+        int center = (seatsPerRow - 1) / 2 + 1;
+        int left = index.prevFree(row, center);
+        int right = index.nextFree(row, center + 1);
+        int gap = Math.min(left < 0 ? seatsPerRow : center - left, right < 0 ? seatsPerRow : right - center);
+        return gap > need ? Strategy.FREE_LIST : Strategy.MIDDLE_OUT;
+    }
+
+    /*
+     * free columns of the row in middle-out order: nearer the middle first, left before right at the same distance
+     */
+    static void walkFreeList(SeatIndex index, int row, int seatsPerRow, int tickets, AllocationResult out) {
+        int center = (seatsPerRow - 1) / 2 + 1;
+        int left = index.prevFree(row, center);
+        int right = index.nextFree(row, center + 1);
+        while (out.getCount() < tickets && (left >= 0 || right >= 0)) {
+            if (right < 0 || (left >= 0 && center - left <= right - center)) {
+                out.add(row * seatsPerRow + left);
+                left = index.prevFree(row, left - 1);
+            } else {
+                out.add(row * seatsPerRow + right);
+                right = index.nextFree(row, right + 1);
+            }
+        }
+    }
+
+    /*
+     * share of seats not available
+     */
+    private static double fillRatio(CinemaHall h, SeatIndex index) {
+        int capacity = h.getRows() * h.getSeatsPerRow();
+        return capacity == 0 ? 0 : 1 - (double) index.getAvailableCount() / capacity;
+    }
+
+    /**
+     * get rows probed middle-out
+     * @return
+     */
+    public long getMiddleOutRows() {
+        return middleOutRows.sum();
+    }
+
+    /**
+     * get rows scanned by free-list walk
+     * @return
+     */
+    public long getFreeListRows() {
+        return freeListRows.sum();
+    }
+}
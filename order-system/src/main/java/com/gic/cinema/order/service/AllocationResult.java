@@ -0,0 +1,151 @@
+package com.gic.cinema.order.service;
+
+import com.gic.cinema.order.model.CinemaHall;
+import com.gic.cinema.order.model.Seat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * AllocationResult - outcome of one allocation without exceptions: a status code, the seat ids in pick order
+ * and a constant reason. Meant to be reused by one caller thread: every try method resets it first, and the
+ * seat id buffer only grows, so a warmed-up result allocates nothing.
+ */
+public final class AllocationResult {
+    /*
+     * status codes
+     */
+    public static final int OK = 0;
+    public static final int INVALID_TICKETS = 1;
+    public static final int NOT_ENOUGH_SEATS = 2;
+    public static final int OUT_OF_BOUNDS = 3;
+    public static final int NO_FIT = 4;
+    public static final int CLOSED = 5;
+
+    private int status;
+    private String reason;
+    private int[] seatIds;
+    private int count;
+    private int rowsScanned;
+
+    public AllocationResult() {
+        this(16);
+    }
+
+    /**
+     * init result
+     * @param capacity - initial seat id capacity
+     */
+    public AllocationResult(int capacity) {
+        this.seatIds = new int[Math.max(1, capacity)];
+    }
+
+    /**
+     * clear for reuse
+     * @return this
+     */
+    public AllocationResult reset() {
+        status = OK;
+        reason = null;
+        count = 0;
+        rowsScanned = 0;
+        return this;
+    }
+
+    /**
+     * check seats were allocated
+     * @return
+     */
+    public boolean isOk() {
+        return status == OK;
+    }
+
+    /**
+     * get status code
+     * @return
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * get reason of a failed allocation, null if ok
+     * @return
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    /**
+     * get number of seat ids
+     * @return
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * get rows the allocator looked at, full rows skipped without a look are not counted
+     * @return
+     */
+    public int getRowsScanned() {
+        return rowsScanned;
+    }
+
+    /**
+     * get seat id (row * seatsPerRow + col) at i, in pick order
+     * @param i
+     * @return
+     */
+    public int getSeatId(int i) {
+        if (i < 0 || i >= count) throw new IndexOutOfBoundsException(i);
+        return seatIds[i];
+    }
+
+    /**
+     * copy seat ids
+     * @return
+     */
+    public int[] toSeatIds() {
+        return Arrays.copyOf(seatIds, count);
+    }
+
+    /**
+     * map seat ids to seats of hall
+     * @param h
+     * @return
+     */
+    public List<Seat> toSeats(CinemaHall h) {
+        List<Seat> seats = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            seats.add(h.seatAt(seatIds[i]));
+        }
+        return seats;
+    }
+
+    /*
+     * append seat id, growing the buffer if needed
+     */
+    void add(int seatId) {
+        if (count == seatIds.length) seatIds = Arrays.copyOf(seatIds, count * 2);
+        seatIds[count++] = seatId;
+    }
+
+    /*
+     * count one row looked at
+     */
+    void scanned() {
+        rowsScanned++;
+    }
+
+    /*
+     * mark failed and drop seat ids picked so far, rows scanned are kept
+     */
+    AllocationResult fail(int status, String reason) {
+        this.status = status;
+        this.reason = reason;
+        this.count = 0;
+        return this;
+    }
+}
@@ -0,0 +1,406 @@
+package com.gic.cinema.order.service;
+
+import com.gic.cinema.order.event.HallEvent;
+import com.gic.cinema.order.event.HallEventStore;
+import com.gic.cinema.order.event.HallEventType;
+import com.gic.cinema.order.model.CinemaHall;
+import com.gic.cinema.order.model.Order;
+import com.gic.cinema.order.model.Seat;
+import com.gic.cinema.order.model.SeatStatus;
+import com.gic.cinema.order.service.ImportConflict.Reason;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * BulkImporter - load pre-sold bookings from a CSV file straight into hall seat maps.
+ *  - the file is split at line boundaries into chunks, chunks are memory-mapped and parsed in parallel
+ *  - lines are grouped by hall, every hall is booked in one pass under its lock, halls in parallel
+ *  - each booked line appends one CONFIRMED event, so projections, analytics and indexes follow as usual
+ *  - lines that do not fit the hall are skipped and listed in the report, earlier lines win
+ * The file needs a header with hall_key, order_id and seats columns (seat labels separated by spaces),
+ * other columns are ignored, so an orders CSV from BookingExporter loads as is.
+ */
+public class BulkImporter {
+    public static final String HALL_KEY = "hall_key";
+    public static final String ORDER_ID = "order_id";
+    public static final String SEATS = "seats";
+
+    /*
+     * smallest chunk worth its own task
+     */
+    private static final long MIN_CHUNK = 1 << 20;
+    /*
+     * largest chunk one mapping can hold
+     */
+    private static final long MAX_CHUNK = Integer.MAX_VALUE;
+
+    private final CinemaService cinemaService;
+    private final HallEventStore eventStore;
+    /*
+     * chunks to split a large file into
+     */
+    private final int chunks;
+
+    public BulkImporter(CinemaService cinemaService) {
+        this(cinemaService, Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    public BulkImporter(CinemaService cinemaService, int chunks) {
+        if (chunks < 1) throw new IllegalArgumentException("Chunks must be > 0.");
+        this.cinemaService = cinemaService;
+        this.eventStore = cinemaService.getEventStore();
+        this.chunks = chunks;
+    }
+
+    /**
+     * import booking file
+     * @param file
+     * @return report with counts and rejected lines
+     */
+    public ImportReport importFile(Path file) {
+        List<Chunk> parsed;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            Header header = readHeader(ch);
+            long[] bounds = split(ch, header.end, ch.size());
+            parsed = IntStream.range(0, bounds.length - 1).parallel()
+                    .mapToObj(i -> parse(ch, bounds[i], bounds[i + 1], header))
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // number lines now every chunk knows its line count, then merge halls in file order
+        ImportReport report = new ImportReport();
+        Map<String, List<Row>> byHall = new LinkedHashMap<>();
+        long line = 1;
+        for (Chunk c : parsed) {
+            for (Row r : c.malformed) {
+                report.getConflicts().add(conflict(r, line, Reason.MALFORMED, r.detail));
+            }
+            for (Map.Entry<String, List<Row>> e : c.byHall.entrySet()) {
+                for (Row r : e.getValue()) {
+                    r.line += line;
+                }
+                byHall.computeIfAbsent(e.getKey(), k -> new ArrayList<>()).addAll(e.getValue());
+            }
+            line += c.lines;
+        }
+        List<HallResult> results = byHall.entrySet().parallelStream()
+                .map(e -> apply(e.getKey(), e.getValue()))
+                .toList();
+        for (HallResult r : results) {
+            report.setOrders(report.getOrders() + r.orders);
+            report.setSeats(report.getSeats() + r.seats);
+            report.getConflicts().addAll(r.conflicts);
+        }
+        report.setLines(line - 1);
+        report.setHalls(byHall.size());
+        report.getConflicts().sort(Comparator.comparingLong(ImportConflict::getLine));
+        return report;
+    }
+
+    /*
+     * book every line of one hall in file order under the hall lock, then wait for commit barriers outside it
+     */
+    private HallResult apply(String key, List<Row> rows) {
+        HallResult result = new HallResult();
+        CinemaHall h;
+        try {
+            h = cinemaService.getHall(key);
+        } catch (IllegalArgumentException e) {
+            for (Row r : rows) {
+                result.conflicts.add(conflict(r, 0, Reason.UNKNOWN_HALL, e.getMessage()));
+            }
+            return result;
+        }
+        synchronized (h) {
+            if (!cinemaService.isOpen(h)) {
+                for (Row r : rows) {
+                    result.conflicts.add(conflict(r, 0, Reason.HALL_CLOSED, "Hall " + key + " is closed."));
+                }
+                return result;
+            }
+            BitSet listed = new BitSet(h.getRows() * h.getSeatsPerRow());
+            for (Row r : rows) {
+                if (h.getOrders().containsKey(r.orderId)) {
+                    result.conflicts.add(conflict(r, 0, Reason.DUPLICATE_ORDER, "Order " + r.orderId + " already booked."));
+                    continue;
+                }
+                int[] ids = resolve(h, r, listed, result);
+                if (ids == null) continue;
+                clear(listed, ids, ids.length);
+                List<String> labels = new ArrayList<>(ids.length);
+                for (int id : ids) {
+                    Seat s = h.seatAt(id);
+                    s.setStatus(SeatStatus.BOOKED);
+                    s.setOrderId(r.orderId);
+                    labels.add(s.getLabel());
+                }
+                labels.sort(null);
+                Order order = Order.builder().id(r.orderId).movieName(h.getMovieName()).tickets(ids.length)
+                        .seatLabels(labels).hallName(h.getHallName()).build();
+                h.putOrder(order);
+                if (h.getKey() != null) {
+                    eventStore.append(HallEvent.builder().hallKey(h.getKey()).type(HallEventType.CONFIRMED)
+                            .movieName(order.getMovieName()).orderId(order.getId()).seatIds(ids).build());
+                }
+                result.orders++;
+                result.seats += ids.length;
+            }
+            h.publishSnapshot();
+        }
+        // like any commit, the hall's bookings are durable before the import reports them
+        if (result.orders > 0) cinemaService.awaitCommitBarriers();
+        return result;
+    }
+
+    /*
+     * seat ids of a line, null after recording the conflict if any seat does not fit
+     */
+    private static int[] resolve(CinemaHall h, Row r, BitSet listed, HallResult result) {
+        int[] ids = new int[r.labels.length];
+        for (int i = 0; i < ids.length; i++) {
+            int[] pos;
+            try {
+                pos = Seat.parseLabel(r.labels[i], h.getRows(), h.getSeatsPerRow());
+            } catch (IllegalArgumentException e) {
+                result.conflicts.add(conflict(r, 0, Reason.INVALID_SEAT, r.labels[i] + ": " + e.getMessage()));
+                return clear(listed, ids, i);
+            }
+            int id = pos[0] * h.getSeatsPerRow() + pos[1];
+            if (listed.get(id)) {
+                result.conflicts.add(conflict(r, 0, Reason.INVALID_SEAT, r.labels[i] + " listed twice."));
+                return clear(listed, ids, i);
+            }
+            if (h.getSeatStatus(pos[0], pos[1]) != SeatStatus.AVAILABLE) {
+                Seat s = h.seatAt(id);
+                String by = s.getOrderId() != null ? " by " + s.getOrderId() : " " + s.getStatus();
+                result.conflicts.add(conflict(r, 0, Reason.SEAT_TAKEN, s.getLabel() + " taken" + by + "."));
+                return clear(listed, ids, i);
+            }
+            listed.set(id);
+            ids[i] = id;
+        }
+        return ids;
+    }
+
+    /*
+     * drop the first n seat ids of a rejected line from the listed set
+     */
+    private static int[] clear(BitSet listed, int[] ids, int n) {
+        for (int i = 0; i < n; i++) {
+            listed.clear(ids[i]);
+        }
+        return null;
+    }
+
+    private static ImportConflict conflict(Row r, long lineOffset, Reason reason, String detail) {
+        return ImportConflict.builder().line(r.line + lineOffset).hallKey(r.hallKey).orderId(r.orderId)
+                .reason(reason).detail(detail).build();
+    }
+
+    /*
+     * read header line and find the columns
+     */
+    private static Header readHeader(FileChannel ch) throws IOException {
+        long end = lineEnd(ch, 0, ch.size());
+        if (end == 0) throw new IllegalArgumentException("Booking file is empty.");
+        ByteBuffer buf = ByteBuffer.allocate((int) end);
+        ch.read(buf, 0);
+        String line = new String(buf.array(), 0, (int) end, StandardCharsets.UTF_8).strip();
+        if (line.startsWith("\uFEFF")) line = line.substring(1);
+        List<String> names = fields(line);
+        Header header = new Header();
+        header.end = end;
+        header.hallKey = names.indexOf(HALL_KEY);
+        header.orderId = names.indexOf(ORDER_ID);
+        header.seats = names.indexOf(SEATS);
+        if (header.hallKey < 0 || header.orderId < 0 || header.seats < 0)
+            throw new IllegalArgumentException("Booking file needs columns " + HALL_KEY + ", " + ORDER_ID + ", " + SEATS + ".");
+        header.width = Math.max(header.hallKey, Math.max(header.orderId, header.seats)) + 1;
+        return header;
+    }
+
+    /*
+     * chunk bounds, every chunk starts at a line start
+     */
+    private long[] split(FileChannel ch, long start, long size) throws IOException {
+        long length = size - start;
+        int n = (int) Math.max(1, Math.min(chunks, length / MIN_CHUNK));
+        n = (int) Math.max(n, length / MAX_CHUNK + 1);
+        long[] bounds = new long[n + 1];
+        bounds[0] = start;
+        bounds[n] = size;
+        for (int i = 1; i < n; i++) {
+            long p = Math.max(start + length * i / n, bounds[i - 1]);
+            bounds[i] = p == start ? start : lineEnd(ch, p - 1, size);
+        }
+        return bounds;
+    }
+
+    /*
+     * position after the first line break at or after from, size if none
+     */
+    private static long lineEnd(FileChannel ch, long from, long size) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(8192);
+        for (long pos = from; pos < size; ) {
+            buf.clear();
+            int n = ch.read(buf, pos);
+            if (n <= 0) break;
+            for (int i = 0; i < n; i++) {
+                if (buf.get(i) == '\n') return pos + i + 1;
+            }
+            pos += n;
+        }
+        return size;
+    }
+
+    /*
+     * parse lines of [from, to) into rows per hall
+     */
+    private static Chunk parse(FileChannel ch, long from, long to, Header header) {
+        Chunk chunk = new Chunk();
+        if (from >= to) return chunk;
+        MappedByteBuffer buf;
+        try {
+            buf = ch.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] line = new byte[256];
+        int len = 0;
+        while (buf.hasRemaining()) {
+            byte b = buf.get();
+            if (b == '\n') {
+                chunk.line(line, len, header);
+                len = 0;
+            } else {
+                if (len == line.length) line = Arrays.copyOf(line, len * 2);
+                line[len++] = b;
+            }
+        }
+        if (len > 0) chunk.line(line, len, header);
+        return chunk;
+    }
+
+    /*
+     * split CSV line into fields, double quotes escape separators and quotes
+     */
+    static List<String> fields(String line) {
+        List<String> out = new ArrayList<>(8);
+        StringBuilder f = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    f.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    f.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                out.add(f.toString());
+                f.setLength(0);
+            } else {
+                f.append(c);
+            }
+        }
+        out.add(f.toString());
+        return out;
+    }
+
+    /*
+     * column positions of the header
+     */
+    private static final class Header {
+        private long end;
+        private int hallKey;
+        private int orderId;
+        private int seats;
+        private int width;
+    }
+
+    /*
+     * one booking line, line is chunk-local until the chunks are merged
+     */
+    private static final class Row {
+        private long line;
+        private String hallKey;
+        private String orderId;
+        private String[] labels;
+        private String detail;
+    }
+
+    /*
+     * parsed lines of one chunk
+     */
+    private static final class Chunk {
+        private final Map<String, List<Row>> byHall = new HashMap<>();
+        private final List<Row> malformed = new ArrayList<>();
+        private long lines;
+
+        void line(byte[] bytes, int len, Header header) {
+            lines++;
+            if (len > 0 && bytes[len - 1] == '\r') len--;
+            if (len == 0) return;
+            Row r = new Row();
+            r.line = lines;
+            List<String> f = fields(new String(bytes, 0, len, StandardCharsets.UTF_8));
+            if (f.size() < header.width) {
+                r.detail = "Expected at least " + header.width + " fields, found " + f.size() + ".";
+                malformed.add(r);
+                return;
+            }
+            r.hallKey = f.get(header.hallKey);
+            r.orderId = f.get(header.orderId);
+            r.labels = labels(f.get(header.seats));
+            if (r.hallKey.isEmpty() || r.orderId.isEmpty() || r.labels.length == 0) {
+                r.detail = "Hall key, order id and seats are required.";
+                malformed.add(r);
+                return;
+            }
+            byHall.computeIfAbsent(r.hallKey, k -> new ArrayList<>()).add(r);
+        }
+
+        /*
+         * seat labels separated by spaces
+         */
+        private static String[] labels(String seats) {
+            String[] parts = seats.split(" ");
+            int n = 0;
+            for (String p : parts) {
+                if (!p.isEmpty()) parts[n++] = p;
+            }
+            return n == parts.length ? parts : Arrays.copyOf(parts, n);
+        }
+    }
+
+    /*
+     * outcome of one hall
+     */
+    private static final class HallResult {
+        private final List<ImportConflict> conflicts = new ArrayList<>();
+        private long orders;
+        private long seats;
+    }
+}
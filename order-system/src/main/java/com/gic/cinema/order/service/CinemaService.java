@@ -1,33 +1,154 @@
 package com.gic.cinema.order.service;
 
+import com.gic.cinema.order.analytics.OccupancyAnalytics;
+import com.gic.cinema.order.event.HallEvent;
+import com.gic.cinema.order.event.HallEventStore;
+import com.gic.cinema.order.event.HallEventType;
+import com.gic.cinema.order.event.HallProjection;
 import com.gic.cinema.order.exception.NotEnoughSeatsException;
+import com.gic.cinema.order.jfr.BookingEvent;
+import com.gic.cinema.order.jfr.CinemaEvent;
+import com.gic.cinema.order.jfr.ConfigureHallEvent;
+import com.gic.cinema.order.jfr.ConfirmEvent;
 import com.gic.cinema.order.model.CinemaHall;
+import com.gic.cinema.order.model.HallState;
 import com.gic.cinema.order.model.Order;
 import com.gic.cinema.order.model.Seat;
+import com.gic.cinema.order.model.SeatIndex;
+import com.gic.cinema.order.model.SeatMapTemplate;
+import com.gic.cinema.order.model.SeatQuality;
 import com.gic.cinema.order.model.SeatStatus;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * Cinema Service -- allocate seat etc
+ * Writes validate first, append the event to the hall stream and only then change the hall, all under the hall lock:
+ * a failed append leaves the hall untouched, so the stream never lags the hall it projects.
+ * Picking seats records nothing; only confirmOrder and releases reach the stream.
  */
 @Service
 public class CinemaService {
     public static final int MIN_INT = 1;
+    private static final DateTimeFormatter SHOWTIME_KEY_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmm");
     @Value("${com.gic.cinema.order.hall.maxrow:26}")
    private int cinemaHallMaxRow=26;
 
     @Value("${com.gic.cinema.order.hall.maxseatsperrow:50}")
     private int cinemaHallMaxSeatsPerRow=50;
 
+    @Value("${com.gic.cinema.order.hall.offheap:false}")
+    private boolean offHeapSeats=false;
+
+    @Value("${com.gic.cinema.order.group.budgetms:50}")
+    private long groupPlacementBudgetMs=50;
+
+    @Value("${com.gic.cinema.order.idempotency.capacity:100000}")
+    private int idempotencyCapacity=100000;
+
+    @Value("${com.gic.cinema.order.idempotency.ttlseconds:600}")
+    private long idempotencyTtlSeconds=600;
+
+    @Value("${com.gic.cinema.order.admission.concurrency:8}")
+    private int admissionConcurrency=8;
+
+    @Value("${com.gic.cinema.order.admission.maxqueue:10000}")
+    private int admissionMaxQueue=10000;
+
+    @Value("${com.gic.cinema.order.admission.maxwaitms:2000}")
+    private long admissionMaxWaitMs=2000;
+
+    @Value("${com.gic.cinema.order.flashsale.batchsize:64}")
+    private int flashSaleBatchSize=64;
+
+    @Value("${com.gic.cinema.order.flashsale.queuecapacity:4096}")
+    private int flashSaleQueueCapacity=4096;
+
+    @Value("${com.gic.cinema.order.waitlist.maxperhall:10000}")
+    private int waitlistMaxPerHall=10000;
+
+    @Value("${com.gic.cinema.order.registry.maxclosed:1000}")
+    private int maxClosedHalls=1000;
+
+    @Value("${com.gic.cinema.order.allocator.adaptive:true}")
+    private boolean adaptiveAllocation=true;
+
     /*
-     * CinemaHalls Map
+     * CinemaHalls in memory with their lifecycle state
      */
-    private Map<String,CinemaHall> cinemaHalls = new ConcurrentHashMap<>();
+    private final HallRegistry cinemaHalls = new HallRegistry();
+    /*
+     * hall event streams - source of truth, cinemaHalls is their projection
+     */
+    private final HallEventStore eventStore = new HallEventStore();
+    /*
+     * open screenings by movie and largest run of free seats together, fed by hall events
+     */
+    private final FreeRunIndex freeRuns = new FreeRunIndex(eventStore);
+    /*
+     * default rule allocator switching between middle-out probing and free-list walks by hall fill
+     */
+    private final AdaptiveAllocator allocator = new AdaptiveAllocator();
+    /*
+     * standard seat quality per hall shape (rows x seatsPerRow), shared by halls without a template
+     */
+    private final Map<String, SeatQuality> qualityByShape = new ConcurrentHashMap<>();
+    /*
+     * parallel search for large parties
+     */
+    private final GroupPlacementSolver groupSolver = new GroupPlacementSolver();
+    /*
+     * waits run by writers once they released the hall lock, e.g. SYNC replication acks
+     */
+    private final List<Runnable> commitBarriers = new CopyOnWriteArrayList<>();
+    /*
+     * told the key of each removed hall, e.g. to delete its stored rows
+     */
+    private final List<Consumer<String>> removalListeners = new CopyOnWriteArrayList<>();
+    /*
+     * results of keyed confirm requests, built on first use once the settings are injected;
+     * keyed bookings only look up the order confirmed under their key, unconfirmed seats are never cached
+     */
+    private volatile IdempotencyCache<Order> confirmRequests;
+    /*
+     * admission control per hall, built on first use
+     */
+    private volatile WaitingRoom waitingRoom;
+    /*
+     * single writer per hot hall, built on first use
+     */
+    private volatile FlashSaleAllocator flashSale;
+    /*
+     * unmet requests served on seat release, built on first use
+     */
+    private volatile Waitlist waitlist;
+    /*
+     * occupancy counters fed by hall events, built on first use
+     */
+    private volatile OccupancyAnalytics analytics;
+    /*
+     * store of halls not yet in memory, null if none
+     */
+    private volatile HallLoader hallLoader;
+    /*
+     * store of closed halls evicted from memory, null if none
+     */
+    private volatile HallArchive hallArchive;
     /*
      * current CinemaHall
      */
@@ -41,23 +162,361 @@ public class CinemaService {
      * @return
      */
     public CinemaHall configureHall(String title, int rows, int seatsPerRow) {
+        ConfigureHallEvent event = new ConfigureHallEvent();
+        event.begin();
+        String key = null;
+        try {
+            //check movie name
+            if(!StringUtils.hasLength(title)) throw new IllegalArgumentException("Movie Name can't be empty.");
+            checkHallSize(rows, seatsPerRow);
+            //generate key
+            key = hallKey(title, rows, seatsPerRow);
+            //get CinemaHall from memory, archive or store
+            CinemaHall hall = lookupHall(key);
+            //first time generate cinema hall, build CinemaHall once even when called concurrently
+            if(hall == null){
+                CinemaHall created = offHeapSeats ? CinemaHall.offHeap(title, rows, seatsPerRow, CinemaHall.DEFAULT_HALL_NAME)
+                        : new CinemaHall(title, rows, seatsPerRow);
+                created.setKey(key);
+                hall = registerHall(created, HallEvent.builder().hallKey(key).type(HallEventType.CONFIGURED).movieName(title)
+                        .hallName(created.getHallName()).rows(rows).seatsPerRow(seatsPerRow).build());
+            }
+            this.currenHall=hall;
+            event.end(key, 0, rows, CinemaEvent.OK);
+            return hall;
+        } catch (RuntimeException e) {
+            event.failed(key, 0, e);
+            throw e;
+        }
+    }
+
+    /**
+     * get hall key used by configureHall
+     * @param title
+     * @param rows
+     * @param seatsPerRow
+     * @return
+     */
+    public static String hallKey(String title, int rows, int seatsPerRow) {
+        return title+"_"+CinemaHall.DEFAULT_HALL_NAME+"_row_"+rows+"_col_"+seatsPerRow;
+    }
+
+    /**
+     * Build a seat layout shared by showtimes of one hall
+     * @param hallName
+     * @param rows
+     * @param seatsPerRow
+     * @param specialSeats - seat label to BLOCKED / HOUSE
+     * @return
+     */
+    public SeatMapTemplate defineTemplate(String hallName, int rows, int seatsPerRow, Map<String, SeatStatus> specialSeats) {
+        if(!StringUtils.hasLength(hallName)) throw new IllegalArgumentException("Hall Name can't be empty.");
+        checkHallSize(rows, seatsPerRow);
+        return new SeatMapTemplate(hallName, rows, seatsPerRow, specialSeats);
+    }
+
+    /**
+     * Open one showtime - the seat map is shared with the template until the first booking
+     * @param title - movie name
+     * @param template - hall layout
+     * @param startsAt - showtime start
+     * @return
+     */
+    public CinemaHall scheduleShowtime(String title, SeatMapTemplate template, LocalDateTime startsAt) {
         //check movie name
         if(!StringUtils.hasLength(title)) throw new IllegalArgumentException("Movie Name can't be empty.");
+        if(template == null || startsAt == null) throw new IllegalArgumentException("Template and showtime are required.");
+        //generate key
+        String key = title+"_"+template.getName()+"_"+SHOWTIME_KEY_FORMAT.format(startsAt);
+        CinemaHall stored = lookupHall(key);
+        if (stored != null) return stored;
+        CinemaHall created = offHeapSeats ? CinemaHall.offHeap(title, template, template.getName(), startsAt)
+                : new CinemaHall(title, template, template.getName(), startsAt);
+        created.setKey(key);
+        return registerHall(created, HallEvent.builder().hallKey(key).type(HallEventType.CONFIGURED).movieName(title)
+                .hallName(template.getName()).rows(template.getRows()).seatsPerRow(template.getSeatsPerRow())
+                .startsAt(startsAt).template(template).build());
+    }
+
+    /*
+     * put a new open hall in memory, then record it as CONFIGURED outside the registry map;
+     * the hall lock keeps bookings waiting until the event is in. Returns the hall a concurrent caller put first.
+     */
+    private CinemaHall registerHall(CinemaHall hall, HallEvent configured) {
+        synchronized (hall) {
+            CinemaHall existing = cinemaHalls.putIfAbsent(hall.getKey(), hall, HallState.OPEN);
+            if (existing != null) return existing;
+            try {
+                eventStore.append(configured);
+            } catch (RuntimeException e) {
+                cinemaHalls.remove(hall.getKey());
+                throw e;
+            }
+        }
+        awaitCommitBarriers();
+        return hall;
+    }
+
+    /**
+     * find open showtimes of one movie with seats together in one row, from the free run index
+     * @param title - movie name
+     * @param together - seats wanted side by side
+     * @param from - earliest start, inclusive, null for any
+     * @param to - latest start, exclusive, null for any
+     * @return halls ordered by start time
+     */
+    public List<CinemaHall> findShowtimes(String title, int together, LocalDateTime from, LocalDateTime to) {
+        List<CinemaHall> found = new ArrayList<>();
+        for (String key : freeRuns.find(title, together, from, to)) {
+            CinemaHall h = cinemaHalls.get(key);
+            if (h != null) found.add(h);
+        }
+        return found;
+    }
+
+    /**
+     * get free run index of open halls
+     * @return
+     */
+    public FreeRunIndex getFreeRunIndex() {
+        return freeRuns;
+    }
+
+    /**
+     * get showtimes of one movie in memory, ordered by start time
+     * @param title
+     * @return
+     */
+    public List<CinemaHall> getShowtimes(String title) {
+        return cinemaHalls.halls().stream()
+                .filter(h -> h.getStartsAt() != null && h.getMovieName().equals(title))
+                .sorted(Comparator.comparing(CinemaHall::getStartsAt))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * switch current cinema hall
+     * @param key
+     * @return
+     */
+    public CinemaHall selectHall(String key) {
+        CinemaHall hall = getHall(key);
+        this.currenHall = hall;
+        return hall;
+    }
+
+    /*
+     * check hall rows and seats per row against configured limits
+     */
+    private void checkHallSize(int rows, int seatsPerRow) {
         //check row
         if (rows < MIN_INT || rows > cinemaHallMaxRow) throw new IllegalArgumentException("Rows must be 1 - "+cinemaHallMaxRow+".");
         //check seat per row
         if (seatsPerRow < MIN_INT || seatsPerRow> cinemaHallMaxSeatsPerRow )
             throw new IllegalArgumentException("Seats Per Row must be 1 – "+cinemaHallMaxSeatsPerRow+".");
-        //generate key
-        String key = title+"_"+CinemaHall.DEFAULT_HALL_NAME+"_row_"+rows+"_col_"+seatsPerRow;
-        //get CinemaHall from map
+    }
+
+    /**
+     * get cinema hall by key
+     * @param key
+     * @return
+     */
+    public CinemaHall getHall(String key) {
+        CinemaHall hall = lookupHall(key);
+        if (hall == null) throw new IllegalArgumentException("Unknown hall: " + key);
+        return hall;
+    }
+
+    /*
+     * get hall from memory, else reload it from the archive (closed) or the hall loader (open), null if unknown
+     */
+    private CinemaHall lookupHall(String key) {
+        CinemaHall hall = cinemaHalls.get(key);
+        if (hall == null && hallArchive != null) {
+            boolean[] reloaded = new boolean[1];
+            hall = cinemaHalls.getOrCreate(key, k -> {
+                CinemaHall h = loadHall(hallArchive, k);
+                reloaded[0] = h != null;
+                return h;
+            }, HallState.CLOSED);
+            // only a hall this call reloaded, not one a concurrent configureHall just opened
+            if (reloaded[0]) {
+                // closed halls are not for sale, keep them out of seat searches
+                freeRuns.remove(key);
+                // a reloaded hall is the most recently used, older closed halls make room for it
+                for (String k : cinemaHalls.overflow(maxClosedHalls)) {
+                    if (!k.equals(key)) archiveHall(k);
+                }
+            }
+        }
+        if (hall == null && hallLoader != null) hall = cinemaHalls.getOrCreate(key, k -> loadHall(hallLoader, k), HallState.OPEN);
+        return hall;
+    }
+
+    /**
+     * keep seat state of new halls off-heap
+     * @param offHeapSeats
+     */
+    public void setOffHeapSeats(boolean offHeapSeats) {
+        this.offHeapSeats = offHeapSeats;
+    }
+
+    /**
+     * switch default rule between the adaptive allocator and plain middle-out probing
+     * @param adaptiveAllocation
+     */
+    public void setAdaptiveAllocation(boolean adaptiveAllocation) {
+        this.adaptiveAllocation = adaptiveAllocation;
+    }
+
+    /**
+     * get adaptive allocator
+     * @return
+     */
+    public AdaptiveAllocator getAllocator() {
+        return allocator;
+    }
+
+    /**
+     * set store of halls not yet in memory
+     * @param hallLoader
+     */
+    public void setHallLoader(HallLoader hallLoader) {
+        this.hallLoader = hallLoader;
+    }
+
+    /**
+     * set store of closed halls evicted from memory
+     * @param hallArchive
+     */
+    public void setHallArchive(HallArchive hallArchive) {
+        this.hallArchive = hallArchive;
+    }
+
+    /*
+     * load stored hall into the event store and project it, null if unknown
+     */
+    private CinemaHall loadHall(HallLoader loader, String key) {
+        List<HallEvent> events = loader.load(key);
+        if (events.isEmpty()) return null;
+        for (HallEvent e : events) {
+            eventStore.append(e);
+        }
+        return eventStore.replay(key);
+    }
+
+    /**
+     * get keys of all halls in memory
+     * @return
+     */
+    public Set<String> getHallKeys() {
+        return cinemaHalls.keys();
+    }
+
+    /**
+     * get lifecycle state of hall
+     * @param key
+     * @return
+     */
+    public HallState getHallState(String key) {
+        HallState state = cinemaHalls.stateOf(key);
+        if (state != null) return state;
+        if (hallArchive != null && hallArchive.contains(key)) return HallState.ARCHIVED;
+        throw new IllegalArgumentException("Unknown hall: " + key);
+    }
+
+    /**
+     * close hall once its screening is over: no more bookings. Closed halls over the configured limit are archived,
+     * least recently used first, when an archive is set.
+     * @param key
+     */
+    public void closeHall(String key) {
+        getHall(key);
+        freeRuns.remove(key);
+        if (waitlist != null) waitlist.remove(key);
+        for (String k : cinemaHalls.close(key, maxClosedHalls)) {
+            if (hallArchive == null) break;
+            archiveHall(k);
+        }
+    }
+
+    /**
+     * close every showtime in memory starting before cutoff
+     * @param cutoff
+     * @return halls closed
+     */
+    public int closeShowtimesBefore(LocalDateTime cutoff) {
+        int closed = 0;
+        for (CinemaHall h : cinemaHalls.halls()) {
+            if (h.getStartsAt() != null && h.getStartsAt().isBefore(cutoff) && cinemaHalls.stateOf(h.getKey()) == HallState.OPEN) {
+                closeHall(h.getKey());
+                closed++;
+            }
+        }
+        return closed;
+    }
+
+    /**
+     * move closed hall to the archive and drop it from memory, it is reloaded on next access
+     * @param key
+     */
+    public void archiveHall(String key) {
+        if (hallArchive == null) throw new IllegalStateException("No hall archive.");
         CinemaHall hall = cinemaHalls.get(key);
-        //first time generate cinema hall, build CinemaHall and put to map
-        if(hall == null){
-          hall = new CinemaHall(title, rows, seatsPerRow);
-            cinemaHalls.put(key,hall);
+        if (hall == null) return;
+        if (cinemaHalls.stateOf(key) != HallState.CLOSED) throw new IllegalStateException("Hall " + key + " is not closed.");
+        synchronized (hall) {
+            hallArchive.store(key, HallProjection.toEvents(hall, eventStore.getConfigured(key)));
+            cinemaHalls.remove(key);
+            eventStore.remove(key);
+        }
+        if (waitingRoom != null) waitingRoom.remove(key);
+        if (flashSale != null) flashSale.remove(key);
+        if (hall == currenHall) currenHall = null;
+    }
+
+    /*
+     * reject bookings of closed and archived halls
+     */
+    private void checkOpen(CinemaHall h) {
+        if (!isOpen(h)) throw new IllegalStateException("Hall " + h.getKey() + " is closed.");
+    }
+
+    /*
+     * check hall takes bookings, halls built outside the service count as open
+     */
+    boolean isOpen(CinemaHall h) {
+        String key = h.getKey();
+        if (key == null) return true;
+        HallState state = cinemaHalls.stateOf(key);
+        if (state == HallState.OPEN) return true;
+        return state == null && (hallArchive == null || !hallArchive.contains(key));
+    }
+
+    /*
+     * check hall is still held by the service and takes bookings
+     */
+    boolean isServing(CinemaHall h) {
+        return h.getKey() != null && cinemaHalls.stateOf(h.getKey()) == HallState.OPEN;
+    }
+
+    /**
+     * drop a hall and its event stream, e.g. after it moved to another node
+     * @param key
+     * @return removed hall, null if unknown
+     */
+    public CinemaHall removeHall(String key) {
+        CinemaHall hall = cinemaHalls.remove(key);
+        eventStore.remove(key);
+        if (waitingRoom != null) waitingRoom.remove(key);
+        if (flashSale != null) flashSale.remove(key);
+        if (analytics != null) analytics.remove(key);
+        if (waitlist != null) waitlist.remove(key);
+        freeRuns.remove(key);
+        for (Consumer<String> l : removalListeners) {
+            l.accept(key);
         }
-        this.currenHall=hall;
+        if (hall != null && hall == currenHall) currenHall = null;
         return hall;
     }
 
@@ -76,14 +535,99 @@ public class CinemaService {
      * @return
      */
     public List<Seat> bookDefault(int tickets) {
-        //get current hall
-        CinemaHall h = getHall();
+        return bookDefault(getHall(), tickets);
+    }
+
+    /**
+     * Book ticket default seats in given hall
+     * @param h
+     * @param tickets
+     * @return
+     */
+    public List<Seat> bookDefault(CinemaHall h, int tickets) {
+        return seatsOrThrow(h, tryBookDefault(h, tickets, new AllocationResult(tickets)));
+    }
+
+    /**
+     * Book ticket default seats in given hall without exceptions: sold out, bad ticket count or a closed hall
+     * come back as a status code. Seats are only picked, nothing is recorded until confirmOrder.
+     * @param h
+     * @param tickets
+     * @param out - result to fill, reset first and reusable by the caller
+     * @return out
+     */
+    public AllocationResult tryBookDefault(CinemaHall h, int tickets, AllocationResult out) {
+        BookingEvent event = new BookingEvent(BookingEvent.DEFAULT);
+        event.begin();
+        out.reset();
         //check booking tickets number, it should be between 0 and current hall available seat count
+        if (tickets <= 0) out.fail(AllocationResult.INVALID_TICKETS, "Tickets must be > 0.");
+        else if (!isOpen(h)) out.fail(AllocationResult.CLOSED, "Hall is closed.");
+        else if (tickets > h.getAvailableSeatCount()) out.fail(AllocationResult.NOT_ENOUGH_SEATS, "Not enough seats.");
+        //allocate default seats
+        else tryAllocateDefault(h, tickets, h.getRows() - 1, out);
+        endEvent(event, h, tickets, out);
+        return out;
+    }
+
+    /*
+     * seats of a successful result, else the exception the booking methods have always thrown
+     */
+    private static List<Seat> seatsOrThrow(CinemaHall h, AllocationResult r) {
+        switch (r.getStatus()) {
+            case AllocationResult.OK -> {
+                return r.toSeats(h);
+            }
+            case AllocationResult.INVALID_TICKETS, AllocationResult.OUT_OF_BOUNDS -> throw new IllegalArgumentException(r.getReason());
+            case AllocationResult.CLOSED -> throw new IllegalStateException("Hall " + h.getKey() + " is closed.");
+            default -> throw new NotEnoughSeatsException(r.getReason());
+        }
+    }
+
+    /*
+     * end booking event with the rows the allocator scanned, also on failure
+     */
+    private static void endEvent(BookingEvent event, CinemaHall h, int tickets, AllocationResult r) {
+        if (!event.shouldCommit()) return;
+        String outcome = switch (r.getStatus()) {
+            case AllocationResult.OK -> CinemaEvent.OK;
+            case AllocationResult.INVALID_TICKETS, AllocationResult.OUT_OF_BOUNDS -> CinemaEvent.INVALID;
+            case AllocationResult.CLOSED -> CinemaEvent.REJECTED;
+            default -> CinemaEvent.NOT_ENOUGH_SEATS;
+        };
+        event.end(h.getKey(), tickets, r.getRowsScanned(), outcome);
+    }
+
+    /**
+     * Book ticket by default rule in given hall under a request key: once the key's order is confirmed a retry
+     * gets its seats, before that nothing is held and a retry allocates again
+     * @param requestKey - idempotency key from client, shared with confirmOrder
+     * @param h
+     * @param tickets
+     * @return
+     */
+    public List<Seat> bookDefault(String requestKey, CinemaHall h, int tickets) {
+        List<Seat> confirmed = confirmedSeats(requestKey, h);
+        return confirmed != null ? confirmed : bookDefault(h, tickets);
+    }
+
+    /**
+     * Run a booking call on hall through its waiting room: at most the configured number of calls work on
+     * one hall at once, the rest queue in arrival order, and calls the hall cannot serve are shed early.
+     * @param h
+     * @param tickets - seats wanted
+     * @param onPosition - queue position feedback, may be null
+     * @param call - booking work done while admitted
+     * @return result of call
+     */
+    public <T> T admit(CinemaHall h, int tickets, IntConsumer onPosition, Supplier<T> call) {
         if (tickets <= 0) throw new IllegalArgumentException("Tickets must be > 0.");
-        if (tickets > h.getAvailableSeatCount())
-            throw new NotEnoughSeatsException("Not enough seats.");
-         //allocate default seats
-         return allocateDefault(h, tickets);
+        WaitingRoom.Admission admission = waitingRoom().enter(h, tickets, Duration.ofMillis(admissionMaxWaitMs), onPosition);
+        try {
+            return call.get();
+        } finally {
+            admission.close();
+        }
     }
 
     /**
@@ -94,13 +638,54 @@ public class CinemaService {
      * @return
      */
     public List<Seat> bookFromPosition(int tickets, char rowChar, int seatNumber) {
-        //get current hall
-        CinemaHall h = getHall();
+        return bookFromPosition(getHall(), tickets, rowChar, seatNumber);
+    }
+
+    /**
+     * Book ticket for special seat in given hall
+     * @param h
+     * @param tickets
+     * @param rowChar
+     * @param seatNumber
+     * @return
+     */
+    public List<Seat> bookFromPosition(CinemaHall h, int tickets, char rowChar, int seatNumber) {
+        return seatsOrThrow(h, tryBookFromPosition(h, tickets, rowChar, seatNumber, new AllocationResult(tickets)));
+    }
+
+    /**
+     * Book ticket for special seat in given hall without exceptions, see tryBookDefault
+     * @param h
+     * @param tickets
+     * @param rowChar
+     * @param seatNumber
+     * @param out - result to fill, reset first and reusable by the caller
+     * @return out
+     */
+    public AllocationResult tryBookFromPosition(CinemaHall h, int tickets, char rowChar, int seatNumber, AllocationResult out) {
+        BookingEvent event = new BookingEvent(BookingEvent.POSITION);
+        event.begin();
+        out.reset();
+        //get custom row and seat index
+        int rowIndex = h.getRows() - (Character.toUpperCase(rowChar) - 'A')-1;
+        int colIndex = seatNumber - 1;
         //check booking tickets number, it should be between 0 and current hall available seat count
-        if (tickets <= 0) throw new IllegalArgumentException("Tickets must be > 0.");
-        if (tickets > h.getAvailableSeatCount())
-            throw new NotEnoughSeatsException("Not enough seats.");
+        if (tickets <= 0) out.fail(AllocationResult.INVALID_TICKETS, "Tickets must be > 0.");
+        else if (!isOpen(h)) out.fail(AllocationResult.CLOSED, "Hall is closed.");
+        else if (tickets > h.getAvailableSeatCount()) out.fail(AllocationResult.NOT_ENOUGH_SEATS, "Not enough seats.");
+        // check row/column index
+        else if (rowIndex < 0 || rowIndex >= h.getRows() || colIndex < 0 || colIndex >= h.getSeatsPerRow())
+            out.fail(AllocationResult.OUT_OF_BOUNDS, "Seat out of bounds.");
+        //allocate seats custom position
+        else tryAllocateFromPosition(h, tickets, rowIndex, colIndex, out);
+        endEvent(event, h, tickets, out);
+        return out;
+    }
 
+    /*
+     * row and column index of a custom start seat
+     */
+    static int[] positionOf(CinemaHall h, char rowChar, int seatNumber) {
         //get custom row index
         int rowIndex = h.getRows() - (Character.toUpperCase(rowChar) - 'A')-1;
         //get customer seat index
@@ -108,8 +693,116 @@ public class CinemaService {
         // check row/column index
         if (rowIndex < 0 || rowIndex >= h.getRows() || colIndex < 0 || colIndex >= h.getSeatsPerRow())
             throw new IllegalArgumentException("Seat out of bounds.");
-        //allocate seats custom position
-        return allocateFromPosition(h, tickets, rowIndex, colIndex);
+        return new int[]{rowIndex, colIndex};
+    }
+
+    /**
+     * Book ticket for special seat in given hall under a request key: once the key's order is confirmed a retry
+     * gets its seats, before that nothing is held and a retry allocates again
+     * @param requestKey - idempotency key from client, shared with confirmOrder
+     * @param h
+     * @param tickets
+     * @param rowChar
+     * @param seatNumber
+     * @return
+     */
+    public List<Seat> bookFromPosition(String requestKey, CinemaHall h, int tickets, char rowChar, int seatNumber) {
+        List<Seat> confirmed = confirmedSeats(requestKey, h);
+        return confirmed != null ? confirmed : bookFromPosition(h, tickets, rowChar, seatNumber);
+    }
+
+    /*
+     * seats of the order confirmed under request key, null if none yet
+     */
+    private List<Seat> confirmedSeats(String requestKey, CinemaHall h) {
+        if (requestKey == null || requestKey.isEmpty()) throw new IllegalArgumentException("Idempotency key required.");
+        Order order = confirmRequests().get(h.getKey() + ":" + requestKey);
+        if (order == null) return null;
+        List<Seat> seats = new ArrayList<>(order.getSeatLabels().size());
+        for (String label : order.getSeatLabels()) {
+            int[] pos = Seat.parseLabel(label, h.getRows(), h.getSeatsPerRow());
+            seats.add(h.seatAt(pos[0] * h.getSeatsPerRow() + pos[1]));
+        }
+        return seats;
+    }
+
+    /**
+     * Book the best available seats by seat quality score, seats need not be together
+     * @param tickets
+     * @return seats best first
+     */
+    public List<Seat> bookBest(int tickets) {
+        //get current hall
+        CinemaHall h = getHall();
+        //check booking tickets number, it should be between 0 and current hall available seat count
+        if (tickets <= 0) throw new IllegalArgumentException("Tickets must be > 0.");
+        checkOpen(h);
+        List<Seat> result = new ArrayList<>(tickets);
+        //the priority index changes under the hall lock on every confirm / cancel, read it under the same lock
+        synchronized (h) {
+            if (tickets > h.getAvailableSeatCount())
+                throw new NotEnoughSeatsException("Not enough seats.");
+            //pick top seats from hall priority index
+            List<Integer> seatIds = h.getBestSeats(qualityOf(h)).best(tickets);
+            if (seatIds.size() != tickets)
+                throw new NotEnoughSeatsException("Cannot allocate seats by seat quality.");
+            for (int id : seatIds) {
+                result.add(h.seatAt(id));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Book seats for a large party: fewest consecutive rows, one block per row, most central.
+     * Search stops at the latency budget with the best plan so far, and falls back to the default rule
+     * if no plan was found. The search runs without the hall lock, so the plan is checked again under it.
+     * @param tickets
+     * @return
+     */
+    public List<Seat> bookGroup(int tickets) {
+        //get current hall
+        CinemaHall h = getHall();
+        //check booking tickets number, it should be between 0 and current hall available seat count
+        if (tickets <= 0) throw new IllegalArgumentException("Tickets must be > 0.");
+        checkOpen(h);
+        if (tickets > h.getAvailableSeatCount())
+            throw new NotEnoughSeatsException("Not enough seats.");
+        GroupPlan plan = groupSolver.solve(h, tickets, Duration.ofMillis(groupPlacementBudgetMs));
+        synchronized (h) {
+            checkOpen(h);
+            // a booking may have taken part of the plan while the solver ran
+            if (plan == null || plan.getSeatIds() == null || !allAvailable(h, plan.getSeatIds())) {
+                if (tickets > h.getAvailableSeatCount()) throw new NotEnoughSeatsException("Not enough seats.");
+                return allocateDefault(h, tickets);
+            }
+            List<Seat> result = new ArrayList<>(tickets);
+            for (int id : plan.getSeatIds()) {
+                result.add(h.seatAt(id));
+            }
+            return result;
+        }
+    }
+
+    /*
+     * every seat id still free, caller holds the hall lock
+     */
+    private static boolean allAvailable(CinemaHall h, int[] seatIds) {
+        for (int id : seatIds) {
+            if (h.getSeatStatus(id / h.getSeatsPerRow(), id % h.getSeatsPerRow()) != SeatStatus.AVAILABLE) return false;
+        }
+        return true;
+    }
+
+    /**
+     * get seat quality of hall layout
+     * @param h
+     * @return
+     */
+    public SeatQuality qualityOf(CinemaHall h) {
+        if (h.getTemplate() != null) return h.getTemplate().getQuality();
+        return qualityByShape.computeIfAbsent(h.getRows() + "x" + h.getSeatsPerRow(),
+                k -> SeatQuality.standard(h.getRows(), h.getSeatsPerRow()));
     }
 
     /**
@@ -128,16 +821,322 @@ public class CinemaService {
      * @return
      */
     public Order confirmOrder(CinemaHall h, Order order, List<Seat> seatsToBook) {
+        ConfirmEvent event = new ConfirmEvent();
+        event.begin();
+        try {
+            //one writer per hall, readers use the published snapshot
+            synchronized (h) {
+                commit(h, order, seatsToBook);
+                h.publishSnapshot();
+            }
+            awaitCommitBarriers();
+            event.succeeded(h.getKey(), seatsToBook);
+            return order;
+        } catch (RuntimeException e) {
+            event.failed(h.getKey(), seatsToBook.size(), e);
+            throw e;
+        }
+    }
+
+    /*
+     * book seats for order and record it, caller holds the hall lock and publishes the snapshot
+     */
+    void commit(CinemaHall h, Order order, List<Seat> seatsToBook) {
+        checkOpen(h);
+        //one order per id: the same order again, or a copy listing all its seats plus new ones, extends it
+        Order existing = h.getOrders().get(order.getId());
+        if (existing != null && existing != order
+                && (order.getSeatLabels() == null || !order.getSeatLabels().containsAll(existing.getSeatLabels())))
+            throw new IllegalArgumentException("Duplicate booking: " + order.getId());
+        //never re-stamp a seat another order holds
+        for (Seat s : seatsToBook) {
+            if (s.getStatus() != SeatStatus.AVAILABLE && !(s.getStatus() == SeatStatus.BOOKED && order.getId().equals(s.getOrderId())))
+                throw new NotEnoughSeatsException("Seat " + s.getLabel() + " is no longer available.");
+        }
+        //record first, then apply: a failed append leaves the hall untouched
+        if (h.getKey() != null) {
+            eventStore.append(HallEvent.builder().hallKey(h.getKey()).type(HallEventType.CONFIRMED)
+                    .movieName(order.getMovieName()).orderId(order.getId()).seatIds(seatIds(h, seatsToBook)).build());
+        }
         //loop to set seat of booking status to BOOKED
         for (Seat s : seatsToBook) {
             s.setStatus(SeatStatus.BOOKED);
             s.setOrderId(order.getId());
         }
+        //keep seat labels on order so it can be cancelled later
+        if (order.getSeatLabels() == null) {
+            order.setSeatLabels(seatsToBook.stream().map(Seat::getLabel).sorted().collect(Collectors.toList()));
+            order.setTickets(seatsToBook.size());
+        }
         //set order
-        h.getOrders().put(order.getId(), order);
+        h.putOrder(order);
+    }
+
+    /**
+     * Confirm booking seats once per request key: a retry gets the original order without touching the seat map
+     * @param requestKey - idempotency key from client
+     * @param h
+     * @param order
+     * @param seatsToBook
+     * @return
+     */
+    public Order confirmOrder(String requestKey, CinemaHall h, Order order, List<Seat> seatsToBook) {
+        return confirmRequests().execute(h.getKey() + ":" + requestKey, () -> confirmOrder(h, order, seatsToBook));
+    }
+
+    /**
+     * Cancel a whole order and release its seats
+     * @param h
+     * @param orderId
+     * @return cancelled order
+     */
+    public Order cancelOrder(CinemaHall h, String orderId) {
+        Order cancelled;
+        synchronized (h) {
+            Order order = h.getOrders().get(orderId);
+            if (order == null) throw new IllegalArgumentException("Invalid booking: " + orderId);
+            cancelled = release(h, orderId, order.getSeatLabels());
+        }
+        awaitCommitBarriers();
+        return cancelled;
+    }
+
+    /**
+     * Release some seats of an order (partial refund), the order is removed once it has no seats left.
+     * Cost is O(seats released): every hall index is updated per seat, nothing is rebuilt.
+     * @param h
+     * @param orderId
+     * @param seatLabels - seats to release, e.g. B04
+     * @return order after release
+     */
+    public Order releaseSeats(CinemaHall h, String orderId, Collection<String> seatLabels) {
+        Order order;
+        synchronized (h) {
+            order = release(h, orderId, seatLabels);
+        }
+        awaitCommitBarriers();
         return order;
     }
 
+    /*
+     * release seats of order, caller holds the hall lock
+     */
+    private Order release(CinemaHall h, String orderId, Collection<String> seatLabels) {
+        Order order = h.getOrders().get(orderId);
+        if (order == null) throw new IllegalArgumentException("Invalid booking: " + orderId);
+        //resolve and check every seat first, so a bad label releases nothing
+        List<Seat> seats = new ArrayList<>(seatLabels.size());
+        for (String label : new LinkedHashSet<>(seatLabels)) {
+            int[] pos = Seat.parseLabel(label, h.getRows(), h.getSeatsPerRow());
+            Seat s = h.seatAt(pos[0] * h.getSeatsPerRow() + pos[1]);
+            if (s.getStatus() != SeatStatus.BOOKED || !orderId.equals(s.getOrderId()))
+                throw new IllegalArgumentException("Seat " + label + " is not booked by " + orderId + ".");
+            seats.add(s);
+        }
+        //record first, then apply
+        if (h.getKey() != null) {
+            eventStore.append(HallEvent.builder().hallKey(h.getKey()).type(HallEventType.CANCELLED)
+                    .orderId(orderId).seatIds(seatIds(h, seats)).build());
+        }
+        //release seats
+        Set<String> released = new HashSet<>();
+        for (Seat s : seats) {
+            s.setStatus(SeatStatus.AVAILABLE);
+            s.setOrderId(null);
+            released.add(s.getLabel());
+        }
+        //drop released seats from order
+        List<String> remaining = new ArrayList<>(order.getSeatLabels().size());
+        for (String label : order.getSeatLabels()) {
+            if (!released.contains(label)) remaining.add(label);
+        }
+        //publish a copy, readers may still hold the old order
+        Order updated = order.toBuilder().seatLabels(remaining).tickets(remaining.size()).build();
+        if (remaining.isEmpty()) h.removeOrder(orderId);
+        else h.putOrder(updated);
+        h.publishSnapshot();
+        return updated;
+    }
+
+    /*
+     * confirm request cache, built on first use
+     */
+    private IdempotencyCache<Order> confirmRequests() {
+        IdempotencyCache<Order> c = confirmRequests;
+        if (c == null) {
+            synchronized (this) {
+                if (confirmRequests == null)
+                    confirmRequests = new IdempotencyCache<>(idempotencyCapacity, idempotencyTtlSeconds, TimeUnit.SECONDS);
+                c = confirmRequests;
+            }
+        }
+        return c;
+    }
+
+    /**
+     * get waiting room, built on first use
+     * @return
+     */
+    public WaitingRoom waitingRoom() {
+        WaitingRoom w = waitingRoom;
+        if (w == null) {
+            synchronized (this) {
+                if (waitingRoom == null) waitingRoom = new WaitingRoom(admissionConcurrency, admissionMaxQueue);
+                w = waitingRoom;
+            }
+        }
+        return w;
+    }
+
+    /**
+     * get flash sale allocator, built on first use
+     * @return
+     */
+    public FlashSaleAllocator flashSale() {
+        FlashSaleAllocator f = flashSale;
+        if (f == null) {
+            synchronized (this) {
+                if (flashSale == null) flashSale = new FlashSaleAllocator(this, flashSaleBatchSize, flashSaleQueueCapacity);
+                f = flashSale;
+            }
+        }
+        return f;
+    }
+
+    /**
+     * get waitlist, built on first use
+     * @return
+     */
+    public Waitlist waitlist() {
+        Waitlist w = waitlist;
+        if (w == null) {
+            synchronized (this) {
+                if (waitlist == null) waitlist = new Waitlist(this, eventStore, freeRuns, waitlistMaxPerHall);
+                w = waitlist;
+            }
+        }
+        return w;
+    }
+
+    /**
+     * Book and confirm tickets by default rule now, or join the hall's waitlist if the hall cannot hold them yet
+     * @param h
+     * @param order
+     * @param tickets
+     * @param together - all seats side by side in one row
+     * @return future of confirmed order, already complete if booked now
+     */
+    public CompletableFuture<Order> bookOrWait(CinemaHall h, Order order, int tickets, boolean together) {
+        if (tickets <= 0) throw new IllegalArgumentException("Tickets must be > 0.");
+        checkOpen(h);
+        try {
+            synchronized (h) {
+                List<Seat> seats = together ? allocateTogether(h, tickets) : allocateDefault(h, tickets);
+                commit(h, order, seats);
+                h.publishSnapshot();
+            }
+            awaitCommitBarriers();
+            return CompletableFuture.completedFuture(order);
+        } catch (NotEnoughSeatsException e) {
+            return waitlist().join(h, order, tickets, together);
+        }
+    }
+
+    /**
+     * get occupancy analytics, built on first use from the halls already in the event store
+     * @return
+     */
+    public OccupancyAnalytics analytics() {
+        OccupancyAnalytics a = analytics;
+        if (a == null) {
+            synchronized (this) {
+                if (analytics == null) {
+                    OccupancyAnalytics built = new OccupancyAnalytics(eventStore);
+                    built.rebuild();
+                    analytics = built;
+                }
+                a = analytics;
+            }
+        }
+        return a;
+    }
+
+    /**
+     * Book and confirm tickets by default rule through the hall's flash sale queue
+     * @param h
+     * @param order
+     * @param tickets
+     * @return future of confirmed order
+     */
+    public CompletableFuture<Order> bookFlashSale(CinemaHall h, Order order, int tickets) {
+        return flashSale().submit(h, order, tickets);
+    }
+
+    /**
+     * Load pre-sold bookings from a CSV file straight into the halls, bypassing confirmOrder
+     * @param file - hall_key, order_id and seats columns
+     * @return report with counts and rejected lines
+     */
+    public ImportReport importBookings(Path file) {
+        return new BulkImporter(this).importFile(file);
+    }
+
+    /**
+     * add a wait run after configure, confirm, cancel and release once the hall lock is released,
+     * so slow work like replication acks never holds up other writers of the hall
+     * @param barrier
+     */
+    public void addCommitBarrier(Runnable barrier) {
+        commitBarriers.add(barrier);
+    }
+
+    /**
+     * add a listener told the key of each hall dropped by removeHall
+     * @param listener
+     */
+    public void addRemovalListener(Consumer<String> listener) {
+        removalListeners.add(listener);
+    }
+
+    /*
+     * run commit barriers, caller does not hold the hall lock
+     */
+    void awaitCommitBarriers() {
+        for (Runnable barrier : commitBarriers) {
+            barrier.run();
+        }
+    }
+
+    /**
+     * get hall event store
+     * @return
+     */
+    public HallEventStore getEventStore() {
+        return eventStore;
+    }
+
+    /**
+     * rebuild every hall from its event stream, e.g. after a deploy
+     */
+    public void rebuildFromEvents() {
+        Map<String, CinemaHall> rebuilt = eventStore.replayAll();
+        rebuilt.forEach(cinemaHalls::put);
+        if (currenHall != null && currenHall.getKey() != null) {
+            currenHall = cinemaHalls.get(currenHall.getKey());
+        }
+    }
+
+    /*
+     * seat ids of seats in hall
+     */
+    private static int[] seatIds(CinemaHall h, List<Seat> seats) {
+        int[] ids = new int[seats.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = h.seatIdOf(seats.get(i));
+        }
+        return ids;
+    }
+
 
     /**
      * Default rule:
@@ -146,18 +1145,72 @@ public class CinemaService {
      *  - If row cannot fit, overflow to next row closer to screen.
      */
     private List<Seat> allocateDefault(CinemaHall h, int tickets) {
-        List<Seat> result = new ArrayList<>();
-        int remaining = tickets;
+        return allocateDefault(h, tickets, h.getRows() - 1);
+    }
+
+    /*
+     * default rule from fromRow towards the screen, every row behind fromRow must be full
+     */
+    List<Seat> allocateDefault(CinemaHall h, int tickets, int fromRow) {
+        AllocationResult r = tryAllocateDefault(h, tickets, fromRow, new AllocationResult(tickets));
+        if (!r.isOk()) throw new NotEnoughSeatsException(r.getReason());
+        return r.toSeats(h);
+    }
+
+    /*
+     * default rule from fromRow towards the screen into a reset result
+     */
+    AllocationResult tryAllocateDefault(CinemaHall h, int tickets, int fromRow, AllocationResult out) {
+        if (adaptiveAllocation) return allocator.allocate(h, tickets, fromRow, out);
+        SeatIndex index = h.getIndex();
+        Seat[][] seats = h.getOffHeap() != null ? null : h.getSeats();
         //loop start the furthest row
-        for (int row = h.getRows() - 1; row >= 0 && remaining > 0; row--) {
-            List<Seat> rowSeats = pickFromRowMiddleOut(h.getSeats()[row], remaining);
-            result.addAll(rowSeats);
-            remaining = tickets - result.size();
+        for (int row = fromRow; row >= 0 && out.getCount() < tickets; row--) {
+            //full rows give nothing, skip them without a scan
+            if (index != null && index.getRowFreeCount(row) == 0) continue;
+            out.scanned();
+            pickMiddleOut(h, seats, index, row, tickets, out);
         }
+        if (out.getCount() != tickets) out.fail(AllocationResult.NO_FIT, "Cannot allocate seats with default rule.");
+        return out;
+    }
 
-        if (result.size() != tickets)
-            throw new NotEnoughSeatsException("Cannot allocate seats with default rule.");
-        return result;
+    /*
+     * seats side by side in one row, furthest row first, block as central as the free run allows
+     */
+    List<Seat> allocateTogether(CinemaHall h, int tickets) {
+        double centre = (h.getSeatsPerRow() - 1) / 2.0;
+        for (int row = h.getRows() - 1; row >= 0; row--) {
+            int best = -1;
+            double bestDist = Double.MAX_VALUE;
+            for (int s = 0; s < h.getSeatsPerRow(); ) {
+                if (h.getSeatStatus(row, s) != SeatStatus.AVAILABLE) {
+                    s++;
+                    continue;
+                }
+                int e = s;
+                while (e < h.getSeatsPerRow() && h.getSeatStatus(row, e) == SeatStatus.AVAILABLE) {
+                    e++;
+                }
+                if (e - s >= tickets) {
+                    int b = (int) Math.max(s, Math.min(e - tickets, Math.round(centre - (tickets - 1) / 2.0)));
+                    double dist = Math.abs(b + (tickets - 1) / 2.0 - centre);
+                    if (dist < bestDist) {
+                        bestDist = dist;
+                        best = b;
+                    }
+                }
+                s = e;
+            }
+            if (best >= 0) {
+                List<Seat> block = new ArrayList<>(tickets);
+                for (int c = best; c < best + tickets; c++) {
+                    block.add(h.seatAt(row * h.getSeatsPerRow() + c));
+                }
+                return block;
+            }
+        }
+        throw new NotEnoughSeatsException("Cannot allocate " + tickets + " seats together.");
     }
 
     /**
@@ -165,75 +1218,63 @@ public class CinemaService {
      *  - from starting seat, fill to the right in same row;
      *  - if not enough, overflow to next row closer to screen using default rule.
      */
-    private List<Seat> allocateFromPosition(CinemaHall h, int tickets,
+    List<Seat> allocateFromPosition(CinemaHall h, int tickets,
                                             int startRow, int startCol) {
-        List<Seat> result = new ArrayList<>();
-        int remaining = tickets;
+        AllocationResult r = tryAllocateFromPosition(h, tickets, startRow, startCol, new AllocationResult(tickets));
+        if (!r.isOk()) throw new NotEnoughSeatsException(r.getReason());
+        return r.toSeats(h);
+    }
 
+    /*
+     * starting-position rule into a reset result
+     */
+    AllocationResult tryAllocateFromPosition(CinemaHall h, int tickets, int startRow, int startCol, AllocationResult out) {
+        Seat[][] seats = h.getOffHeap() != null ? null : h.getSeats();
+        int seatsPerRow = h.getSeatsPerRow();
         // fill to right in custom row
-        Seat[] rowSeats = h.getSeats()[startRow];
-        for (int c = startCol; c < h.getSeatsPerRow() && remaining > 0; c++) {
-            Seat s = rowSeats[c];
-            if (s.getStatus() == SeatStatus.AVAILABLE) {
-                result.add(s);
-                remaining--;
-            }
+        out.scanned();
+        for (int c = startCol; c < seatsPerRow && out.getCount() < tickets; c++) {
+            if (h.getSeatStatus(startRow, c) == SeatStatus.AVAILABLE) out.add(startRow * seatsPerRow + c);
         }
-
         // overflow to rows closer to screen
-        if (remaining > 0) {
-            for (int row = startRow - 1; row >= 0 && remaining > 0; row--) {
-                List<Seat> rowPick = pickFromRowMiddleOut(h.getSeats()[row], remaining);
-                result.addAll(rowPick);
-                remaining = tickets - result.size();
-            }
+        SeatIndex index = h.getIndex();
+        for (int row = startRow - 1; row >= 0 && out.getCount() < tickets; row--) {
+            out.scanned();
+            if (adaptiveAllocation && seats != null) allocator.pickFromRow(index, seats[row], row, tickets, out);
+            else pickMiddleOut(h, seats, index, row, tickets, out);
         }
+        if (out.getCount() != tickets) out.fail(AllocationResult.NO_FIT, "Cannot allocate seats from position.");
+        return out;
+    }
 
-        if (result.size() != tickets)
-            throw new NotEnoughSeatsException("Cannot allocate seats from position.");
-        return result;
+    /*
+     * middle-out pick of one row: probe the seat row on heap, walk the free list off-heap, same order
+     */
+    private static void pickMiddleOut(CinemaHall h, Seat[][] seats, SeatIndex index, int row, int tickets, AllocationResult out) {
+        if (seats != null) pickFromRowMiddleOut(seats[row], row, tickets, out);
+        else AdaptiveAllocator.walkFreeList(index, row, h.getSeatsPerRow(), tickets, out);
     }
 
     /*
-     * Pick up to max seats from a row using middle-out strategy.
+     * Pick seats of a row using middle-out strategy until out holds tickets seat ids:
+     * middle seat first, then one step left and one step right at a time.
      * @param rowSeats
-     * @param max
-     * @return
+     * @param row - row index
+     * @param tickets
+     * @param out
      */
-    private List<Seat> pickFromRowMiddleOut(Seat[] rowSeats, int max) {
-        List<Seat> picked = new ArrayList<>();
-        //row index
+    static void pickFromRowMiddleOut(Seat[] rowSeats, int row, int tickets, AllocationResult out) {
         int n = rowSeats.length;
         //middle index
-        int center = (n - 1) / 2+1; // for even, left-middle
-        boolean[] used = new boolean[n];
-        int explored = 0;
-        //loop follow middle most possible
-        while (explored < n && picked.size() < max) {
-            //offset to middle
-            int offset = explored;
-            //left index of middle
+        int center = (n - 1) / 2+1; // for even, right-middle
+        for (int offset = 0; out.getCount() < tickets && (center - offset >= 0 || center + offset < n); offset++) {
+            //left index of middle, the middle itself first
             int left = center - offset;
+            if (left >= 0 && left < n && rowSeats[left].getStatus() == SeatStatus.AVAILABLE) out.add(row * n + left);
             //right index of middle
             int right = center + offset;
-            //check left
-            if (left >= 0 && !used[left]) {
-                used[left] = true;
-                if (rowSeats[left].getStatus() == SeatStatus.AVAILABLE) {
-                    picked.add(rowSeats[left]);
-                    if (picked.size() == max) break;
-                }
-            }
-            //check right
-            if (right < n && !used[right]) {
-                used[right] = true;
-                if (rowSeats[right].getStatus() == SeatStatus.AVAILABLE) {
-                    picked.add(rowSeats[right]);
-                    if (picked.size() == max) break;
-                }
-            }
-            explored++;
+            if (offset > 0 && right < n && out.getCount() < tickets && rowSeats[right].getStatus() == SeatStatus.AVAILABLE)
+                out.add(row * n + right);
         }
-        return picked;
     }
 }
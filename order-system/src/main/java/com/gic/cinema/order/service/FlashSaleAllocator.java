@@ -0,0 +1,284 @@
+package com.gic.cinema.order.service;
+
+import com.gic.cinema.order.exception.AdmissionRejectedException;
+import com.gic.cinema.order.exception.NotEnoughSeatsException;
+import com.gic.cinema.order.model.CinemaHall;
+import com.gic.cinema.order.model.Order;
+import com.gic.cinema.order.model.SeatIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * FlashSaleAllocator - combining writer per hot hall. Callers queue booking requests on the hall's bounded queue
+ * and get a future; whichever caller finds the hall idle becomes its combiner, drains up to batchSize requests
+ * at a time and applies them in arrival order, while the other callers return at once:
+ *  - no thread per hall and no wakeup handoff, the combiner is a caller that was running anyway
+ *  - one hall lock, one snapshot and one feed delta per batch instead of per order
+ *  - default-rule requests share a row cursor that only moves towards the screen, so full rows are passed once per batch
+ *  - a request that cannot be served fails its own future, the rest of the batch goes on
+ *  - a combiner applies at most MAX_COMBINED_BATCHES batches, then a pool thread takes over, so no caller is held hostage
+ * Requests are allocated and confirmed in one step.
+ */
+public class FlashSaleAllocator implements AutoCloseable {
+    public static final int MAX_COMBINED_BATCHES = 8;
+    private final CinemaService cinemaService;
+    private final int batchSize;
+    private final int queueCapacity;
+    private final Map<String, HallQueue> queues = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+    /*
+     * batches applied and requests in them
+     */
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedRequests = new LongAdder();
+
+    public FlashSaleAllocator(CinemaService cinemaService, int batchSize, int queueCapacity) {
+        if (batchSize < 1) throw new IllegalArgumentException("Batch size must be > 0.");
+        if (queueCapacity < 1) throw new IllegalArgumentException("Queue capacity must be > 0.");
+        this.cinemaService = cinemaService;
+        this.batchSize = batchSize;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * book and confirm tickets by default rule
+     * @param h
+     * @param order
+     * @param tickets
+     * @return future of confirmed order
+     */
+    public CompletableFuture<Order> submit(CinemaHall h, Order order, int tickets) {
+        return submit(h, new Request(order, tickets, -1, -1));
+    }
+
+    /**
+     * book and confirm tickets from a start seat
+     * @param h
+     * @param order
+     * @param tickets
+     * @param rowChar
+     * @param seatNumber
+     * @return future of confirmed order
+     */
+    public CompletableFuture<Order> submit(CinemaHall h, Order order, int tickets, char rowChar, int seatNumber) {
+        int[] pos = CinemaService.positionOf(h, rowChar, seatNumber);
+        return submit(h, new Request(order, tickets, pos[0], pos[1]));
+    }
+
+    /**
+     * drop queue of a removed hall, queued requests fail
+     * @param hallKey
+     */
+    public void remove(String hallKey) {
+        HallQueue q = queues.remove(hallKey);
+        if (q != null) q.stop();
+    }
+
+    /**
+     * get halls with a flash sale queue
+     * @return
+     */
+    public int getQueueCount() {
+        return queues.size();
+    }
+
+    /**
+     * get batches applied
+     * @return
+     */
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    /**
+     * get requests applied in batches
+     * @return
+     */
+    public long getBatchedRequests() {
+        return batchedRequests.sum();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (String key : queues.keySet()) {
+            remove(key);
+        }
+    }
+
+    private CompletableFuture<Order> submit(CinemaHall h, Request r) {
+        if (r.tickets <= 0) throw new IllegalArgumentException("Tickets must be > 0.");
+        if (h.getKey() == null) throw new IllegalArgumentException("Hall has no key.");
+        if (closed) throw new IllegalStateException("Flash sale allocator closed.");
+        // sold out: fail at once without queueing
+        if (r.tickets > h.getAvailableSeatCount())
+            return CompletableFuture.failedFuture(new NotEnoughSeatsException("Not enough seats."));
+        HallQueue q = queues.computeIfAbsent(h.getKey(), k -> new HallQueue(h));
+        // checked after the queue is in the map: a removal either shows here or finds the queue and stops it
+        if (q.hall != h || !cinemaService.isServing(h)) {
+            if (q.hall == h) remove(h.getKey());
+            throw new IllegalStateException("Hall " + h.getKey() + " closed for flash sale.");
+        }
+        if (!q.offer(r))
+            return CompletableFuture.failedFuture(new AdmissionRejectedException(AdmissionRejectedException.QUEUE_FULL,
+                    "Flash sale queue is full."));
+        q.combine();
+        return r.result;
+    }
+
+    /*
+     * one queued booking, row -1 for default rule
+     */
+    private record Request(Order order, int tickets, int row, int col, CompletableFuture<Order> result) {
+        Request(Order order, int tickets, int row, int col) {
+            this(order, tickets, row, col, new CompletableFuture<>());
+        }
+    }
+
+    /*
+     * request queue and combiner flag of one hall
+     */
+    private class HallQueue {
+        private final CinemaHall hall;
+        private final ConcurrentLinkedQueue<Request> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        /*
+         * held by the caller applying batches, guards result and batch
+         */
+        private final AtomicBoolean combining = new AtomicBoolean();
+        private final AllocationResult result = new AllocationResult();
+        private final List<Request> batch = new ArrayList<>(batchSize);
+        private volatile boolean stopped;
+
+        HallQueue(CinemaHall hall) {
+            this.hall = hall;
+        }
+
+        boolean offer(Request r) {
+            if (size.incrementAndGet() > queueCapacity) {
+                size.decrementAndGet();
+                return false;
+            }
+            pending.offer(r);
+            return true;
+        }
+
+        /*
+         * fail whatever is queued, a late submit fails in its own combine
+         */
+        void stop() {
+            stopped = true;
+            combine();
+        }
+
+        /*
+         * apply queued batches if no other caller does, re-check after letting go so no request is left behind
+         */
+        void combine() {
+            while (!pending.isEmpty() && combining.compareAndSet(false, true)) {
+                int applied = 0;
+                try {
+                    for (Request r; applied < MAX_COMBINED_BATCHES && (r = pending.poll()) != null; ) {
+                        batch.add(r);
+                        if (batch.size() == batchSize || pending.isEmpty()) {
+                            size.addAndGet(-batch.size());
+                            run(batch);
+                            applied++;
+                        }
+                    }
+                } finally {
+                    combining.set(false);
+                }
+                // this caller did its share, hand the rest to a pool thread
+                if (applied == MAX_COMBINED_BATCHES && !pending.isEmpty()) {
+                    ForkJoinPool.commonPool().execute(this::combine);
+                    return;
+                }
+            }
+        }
+
+        /*
+         * apply or fail one batch; whatever breaks, no future of it is left waiting and the batch is emptied
+         */
+        private void run(List<Request> batch) {
+            RuntimeException failure = null;
+            try {
+                if (stopped) failure = new IllegalStateException("Hall " + hall.getKey() + " closed for flash sale.");
+                else apply(batch);
+            } catch (RuntimeException e) {
+                failure = e;
+            } finally {
+                for (Request r : batch) {
+                    if (r.result.isDone()) continue;
+                    if (failure == null) failure = new IllegalStateException("Flash sale batch aborted.");
+                    r.result.completeExceptionally(failure);
+                }
+                batch.clear();
+            }
+        }
+
+        /*
+         * allocate and confirm one batch in arrival order
+         */
+        private void apply(List<Request> batch) {
+            batches.increment();
+            batchedRequests.add(batch.size());
+            Object[] outcomes = new Object[batch.size()];
+            synchronized (hall) {
+                try {
+                    allocate(batch, outcomes);
+                } finally {
+                    // orders committed before a failure are published all the same
+                    hall.publishSnapshot();
+                }
+            }
+            cinemaService.awaitCommitBarriers();
+            // complete outside the hall lock, callbacks may book again and only queue while this caller combines
+            for (int i = 0; i < outcomes.length; i++) {
+                if (outcomes[i] instanceof RuntimeException e) batch.get(i).result.completeExceptionally(e);
+                else batch.get(i).result.complete((Order) outcomes[i]);
+            }
+        }
+
+        /*
+         * allocate and commit each request under the hall lock, a failure stays with its own request
+         */
+        private void allocate(List<Request> batch, Object[] outcomes) {
+            SeatIndex index = hall.getIndex();
+            // every row behind the cursor is full
+            int cursor = hall.getRows() - 1;
+            for (int i = 0; i < batch.size(); i++) {
+                Request r = batch.get(i);
+                if (r.tickets > hall.getAvailableSeatCount()) {
+                    outcomes[i] = new NotEnoughSeatsException("Not enough seats.");
+                    continue;
+                }
+                while (cursor >= 0 && index.getRowFreeCount(cursor) == 0) {
+                    cursor--;
+                }
+                try {
+                    result.reset();
+                    if (r.row < 0) cinemaService.tryAllocateDefault(hall, r.tickets, cursor, result);
+                    else cinemaService.tryAllocateFromPosition(hall, r.tickets, r.row, r.col, result);
+                    if (!result.isOk()) {
+                        outcomes[i] = new NotEnoughSeatsException(result.getReason());
+                        continue;
+                    }
+                    cinemaService.commit(hall, r.order, result.toSeats(hall));
+                    outcomes[i] = r.order;
+                } catch (RuntimeException e) {
+                    outcomes[i] = e;
+                }
+            }
+        }
+    }
+}
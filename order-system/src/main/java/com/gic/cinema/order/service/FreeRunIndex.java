@@ -0,0 +1,250 @@
+package com.gic.cinema.order.service;
+
+import com.gic.cinema.order.event.HallEvent;
+import com.gic.cinema.order.event.HallEventStore;
+import com.gic.cinema.order.event.HallEventType;
+import com.gic.cinema.order.model.SeatMapTemplate;
+import com.gic.cinema.order.model.SeatStatus;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * FreeRunIndex - inverted index from movie and largest run of adjacent free seats in one row to screenings,
+ * answering "a showing of this movie with N seats together" without touching any seat map.
+ *  - fed by hall events: CONFIRMED / CANCELLED rescan only the rows they touch
+ *  - per movie one bucket per run length, each bucket ordered by start time, so a search visits at most
+ *    seatsPerRow buckets with a log-time range lookup in each
+ */
+public class FreeRunIndex {
+    private static final Comparator<HallRuns> BY_START = Comparator
+            .comparing((HallRuns h) -> h.startsAt == null ? LocalDateTime.MIN : h.startsAt)
+            .thenComparing(h -> h.key);
+
+    private final Map<String, HallRuns> halls = new ConcurrentHashMap<>();
+    private final Map<String, MovieRuns> movies = new ConcurrentHashMap<>();
+
+    /**
+     * follow event store from now on
+     * @param eventStore
+     */
+    public FreeRunIndex(HallEventStore eventStore) {
+        eventStore.subscribe(this::onEvent);
+    }
+
+    /**
+     * find screenings of movie with at least together adjacent free seats in one row
+     * @param movieName
+     * @param together - seats wanted side by side
+     * @param from - earliest start, inclusive, null for any
+     * @param to - latest start, exclusive, null for any
+     * @return hall keys ordered by start time, halls without start time first
+     */
+    public List<String> find(String movieName, int together, LocalDateTime from, LocalDateTime to) {
+        if (together <= 0) throw new IllegalArgumentException("Seats together must be > 0.");
+        MovieRuns m = movies.get(movieName);
+        if (m == null) return List.of();
+        List<HallRuns> found = new ArrayList<>();
+        synchronized (m) {
+            for (int run = together; run < m.buckets.size(); run++) {
+                TreeSet<HallRuns> bucket = m.buckets.get(run);
+                if (bucket == null || bucket.isEmpty()) continue;
+                found.addAll(window(bucket, from, to));
+            }
+        }
+        found.sort(BY_START);
+        List<String> keys = new ArrayList<>(found.size());
+        for (HallRuns h : found) {
+            keys.add(h.key);
+        }
+        return keys;
+    }
+
+    /**
+     * find earliest screening of movie at or after from with at least together adjacent free seats in one row
+     * @param movieName
+     * @param together
+     * @param from - null for any
+     * @return hall key, empty if none
+     */
+    public Optional<String> findFirst(String movieName, int together, LocalDateTime from) {
+        if (together <= 0) throw new IllegalArgumentException("Seats together must be > 0.");
+        MovieRuns m = movies.get(movieName);
+        if (m == null) return Optional.empty();
+        HallRuns best = null;
+        synchronized (m) {
+            for (int run = together; run < m.buckets.size(); run++) {
+                TreeSet<HallRuns> bucket = m.buckets.get(run);
+                if (bucket == null || bucket.isEmpty()) continue;
+                HallRuns first = from == null ? bucket.first() : bucket.ceiling(probe(from));
+                if (first != null && (best == null || BY_START.compare(first, best) < 0)) best = first;
+            }
+        }
+        return best == null ? Optional.empty() : Optional.of(best.key);
+    }
+
+    /**
+     * get largest run of adjacent free seats in one row of hall
+     * @param hallKey
+     * @return run, 0 if hall is not indexed
+     */
+    public int largestRun(String hallKey) {
+        HallRuns h = halls.get(hallKey);
+        if (h == null) return 0;
+        synchronized (h.movie) {
+            return h.largest;
+        }
+    }
+
+    /**
+     * stop indexing a hall, e.g. once it is closed or removed
+     * @param hallKey
+     */
+    public void remove(String hallKey) {
+        HallRuns h = halls.remove(hallKey);
+        if (h != null) unindex(h);
+    }
+
+    /*
+     * event store listener, runs on the writer thread in hall stream order
+     */
+    private void onEvent(HallEvent e) {
+        if (e.getType() == HallEventType.CONFIGURED) {
+            add(e);
+            return;
+        }
+        if (e.getType() != HallEventType.CONFIRMED && e.getType() != HallEventType.CANCELLED) return;
+        HallRuns h = halls.get(e.getHallKey());
+        if (h == null) return;
+        boolean free = e.getType() == HallEventType.CANCELLED;
+        synchronized (h.movie) {
+            BitSet rows = new BitSet(h.rowLongest.length);
+            for (int id : e.getSeatIds()) {
+                h.free.set(id, free);
+                rows.set(id / h.seatsPerRow);
+            }
+            for (int r = rows.nextSetBit(0); r >= 0; r = rows.nextSetBit(r + 1)) {
+                h.rowLongest[r] = longestRun(h.free, r * h.seatsPerRow, (r + 1) * h.seatsPerRow);
+            }
+            reindex(h);
+        }
+    }
+
+    /*
+     * index new hall, every seat of its layout free
+     */
+    private void add(HallEvent e) {
+        int rows = e.getRows();
+        int seatsPerRow = e.getSeatsPerRow();
+        SeatMapTemplate t = e.getTemplate();
+        MovieRuns movie = movies.computeIfAbsent(e.getMovieName(), k -> new MovieRuns());
+        HallRuns h = new HallRuns(e.getHallKey(), e.getStartsAt(), movie, rows, seatsPerRow);
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < seatsPerRow; c++) {
+                if (t == null || t.statusAt(r, c) == SeatStatus.AVAILABLE) h.free.set(r * seatsPerRow + c);
+            }
+            h.rowLongest[r] = longestRun(h.free, r * seatsPerRow, (r + 1) * seatsPerRow);
+        }
+        HallRuns old = halls.put(h.key, h);
+        if (old != null) unindex(old);
+        synchronized (movie) {
+            h.largest = -1;
+            reindex(h);
+        }
+    }
+
+    /*
+     * take hall out of its movie bucket
+     */
+    private static void unindex(HallRuns h) {
+        synchronized (h.movie) {
+            if (h.largest >= 0) h.movie.bucket(h.largest).remove(h);
+        }
+    }
+
+    /*
+     * move hall to the bucket of its largest run, caller holds the movie lock
+     */
+    private static void reindex(HallRuns h) {
+        int largest = 0;
+        for (int run : h.rowLongest) {
+            largest = Math.max(largest, run);
+        }
+        if (largest == h.largest) return;
+        if (h.largest >= 0) h.movie.bucket(h.largest).remove(h);
+        h.largest = largest;
+        h.movie.bucket(largest).add(h);
+    }
+
+    /*
+     * longest run of set bits in [from, to)
+     */
+    private static int longestRun(BitSet free, int from, int to) {
+        int longest = 0;
+        for (int s = free.nextSetBit(from); s >= 0 && s < to; ) {
+            int end = Math.min(free.nextClearBit(s), to);
+            longest = Math.max(longest, end - s);
+            s = free.nextSetBit(end);
+        }
+        return longest;
+    }
+
+    /*
+     * halls of bucket starting in [from, to)
+     */
+    private static SortedSet<HallRuns> window(TreeSet<HallRuns> bucket, LocalDateTime from, LocalDateTime to) {
+        if (from == null && to == null) return bucket;
+        if (to == null) return bucket.tailSet(probe(from), true);
+        if (from == null) return bucket.headSet(probe(to), false);
+        return bucket.subSet(probe(from), true, probe(to), false);
+    }
+
+    /*
+     * search key sorting before every hall starting at time
+     */
+    private static HallRuns probe(LocalDateTime at) {
+        return new HallRuns("", at, null, 0, 0);
+    }
+
+    /*
+     * buckets of one movie, index = largest run, guarded by the instance monitor
+     */
+    private static class MovieRuns {
+        private final List<TreeSet<HallRuns>> buckets = new ArrayList<>();
+
+        TreeSet<HallRuns> bucket(int run) {
+            while (buckets.size() <= run) {
+                buckets.add(null);
+            }
+            TreeSet<HallRuns> b = buckets.get(run);
+            if (b == null) {
+                b = new TreeSet<>(BY_START);
+                buckets.set(run, b);
+            }
+            return b;
+        }
+    }
+
+    /*
+     * free seats and per-row longest runs of one hall, guarded by its movie monitor
+     */
+    private static class HallRuns {
+        private final String key;
+        private final LocalDateTime startsAt;
+        private final MovieRuns movie;
+        private final int seatsPerRow;
+        private final BitSet free;
+        private final int[] rowLongest;
+        private int largest;
+
+        HallRuns(String key, LocalDateTime startsAt, MovieRuns movie, int rows, int seatsPerRow) {
+            this.key = key;
+            this.startsAt = startsAt;
+            this.movie = movie;
+            this.seatsPerRow = seatsPerRow;
+            this.free = new BitSet(rows * seatsPerRow);
+            this.rowLongest = new int[rows];
+        }
+    }
+}
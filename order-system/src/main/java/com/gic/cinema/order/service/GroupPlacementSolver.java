@@ -0,0 +1,259 @@
+package com.gic.cinema.order.service;
+
+import com.gic.cinema.order.model.CinemaHall;
+import com.gic.cinema.order.model.SeatIndex;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * GroupPlacementSolver - place a large party in as few consecutive rows as possible,
+ * one contiguous block per row, as central as possible.
+ *  - per-row free-run summaries prune windows of rows that cannot hold the party
+ *  - candidate windows of the smallest feasible row count are evaluated in parallel on the fork/join pool
+ *  - once the latency budget is spent the best plan found so far is returned
+ */
+public class GroupPlacementSolver {
+    /*
+     * windows evaluated by one task before splitting
+     */
+    private static final int WINDOWS_PER_TASK = 2;
+
+    private final ForkJoinPool pool;
+
+    public GroupPlacementSolver() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public GroupPlacementSolver(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * find best plan for party
+     * @param hall
+     * @param tickets
+     * @param budget - latency budget
+     * @return best plan, null if none found in budget
+     */
+    public GroupPlan solve(CinemaHall hall, int tickets, Duration budget) {
+        long deadline = System.nanoTime() + budget.toNanos();
+        RowRuns[] runs = summarize(hall);
+        int rows = hall.getRows();
+        // prefix sums of longest run per row, to test a window in O(1)
+        long[] longestSum = new long[rows + 1];
+        boolean[] hasFree = new boolean[rows];
+        for (int r = 0; r < rows; r++) {
+            longestSum[r + 1] = longestSum[r] + runs[r].longest;
+            hasFree[r] = runs[r].longest > 0;
+        }
+        for (int k = 1; k <= rows && k <= tickets; k++) {
+            int[] starts = feasibleWindows(longestSum, hasFree, k, tickets);
+            if (starts.length == 0) continue;
+            Search search = new Search(hall, runs, tickets, k, deadline);
+            return pool.invoke(new WindowTask(search, starts, 0, starts.length));
+        }
+        return null;
+    }
+
+    /*
+     * start rows of windows of k rows where every row has a free seat and longest runs add up to tickets
+     */
+    private static int[] feasibleWindows(long[] longestSum, boolean[] hasFree, int k, int tickets) {
+        int[] starts = new int[hasFree.length];
+        int n = 0;
+        int freeRowsInWindow = 0;
+        for (int r = 0; r < hasFree.length; r++) {
+            if (hasFree[r]) freeRowsInWindow++;
+            if (r >= k && hasFree[r - k]) freeRowsInWindow--;
+            int start = r - k + 1;
+            if (start >= 0 && freeRowsInWindow == k && longestSum[r + 1] - longestSum[start] >= tickets) {
+                starts[n++] = start;
+            }
+        }
+        return Arrays.copyOf(starts, n);
+    }
+
+    /*
+     * free runs of every row from the hall index
+     */
+    private static RowRuns[] summarize(CinemaHall hall) {
+        SeatIndex index = hall.getIndex();
+        RowRuns[] runs = new RowRuns[hall.getRows()];
+        for (int r = 0; r < runs.length; r++) {
+            BitSet free = index.getRowFree(r);
+            int count = 0;
+            int[] starts = new int[hall.getSeatsPerRow()];
+            int[] lengths = new int[hall.getSeatsPerRow()];
+            int longest = 0;
+            for (int s = free.nextSetBit(0); s >= 0; ) {
+                int e = free.nextClearBit(s);
+                starts[count] = s;
+                lengths[count++] = e - s;
+                longest = Math.max(longest, e - s);
+                s = free.nextSetBit(e);
+            }
+            runs[r] = new RowRuns(Arrays.copyOf(starts, count), Arrays.copyOf(lengths, count), longest);
+        }
+        return runs;
+    }
+
+    /*
+     * free runs of one row
+     */
+    private record RowRuns(int[] starts, int[] lengths, int longest) {
+    }
+
+    /*
+     * shared state of one solve call
+     */
+    private static class Search {
+        private final RowRuns[] runs;
+        private final int tickets;
+        private final int rowsUsed;
+        private final int seatsPerRow;
+        private final double centre;
+        private final double preferredRow;
+        private final long deadline;
+
+        Search(CinemaHall hall, RowRuns[] runs, int tickets, int rowsUsed, long deadline) {
+            this.runs = runs;
+            this.tickets = tickets;
+            this.rowsUsed = rowsUsed;
+            this.seatsPerRow = hall.getSeatsPerRow();
+            this.centre = (hall.getSeatsPerRow() - 1) / 2.0;
+            this.preferredRow = (hall.getRows() - 1) * 2 / 3.0;
+            this.deadline = deadline;
+        }
+
+        /*
+         * most central block start of c seats in row, -1 if no run fits
+         */
+        int bestStart(int row, int c) {
+            RowRuns rr = runs[row];
+            int best = -1;
+            double bestDist = Double.MAX_VALUE;
+            for (int i = 0; i < rr.starts.length; i++) {
+                if (rr.lengths[i] < c) continue;
+                int lo = rr.starts[i];
+                int hi = rr.starts[i] + rr.lengths[i] - c;
+                int b = (int) Math.max(lo, Math.min(hi, Math.round(centre - (c - 1) / 2.0)));
+                double dist = Math.abs(b + (c - 1) / 2.0 - centre);
+                if (dist < bestDist) {
+                    bestDist = dist;
+                    best = b;
+                }
+            }
+            return best;
+        }
+
+        /*
+         * cost of c seats in row: seats times distance from centre column and preferred row
+         */
+        double blockCost(int row, int c, int start) {
+            return c * (Math.abs(start + (c - 1) / 2.0 - centre) + Math.abs(row - preferredRow));
+        }
+
+        /*
+         * split tickets over rows [start, start + rowsUsed) by dynamic programming on seats per row,
+         * a partial plan without seats once the deadline passes
+         */
+        GroupPlan evaluate(int start) {
+            int k = rowsUsed;
+            // cost[i][t] - best cost of first i rows holding t seats, count[i][t] - seats in row i-1
+            double[][] cost = new double[k + 1][tickets + 1];
+            int[][] count = new int[k + 1][tickets + 1];
+            for (double[] row : cost) Arrays.fill(row, Double.MAX_VALUE);
+            cost[0][0] = 0;
+            for (int i = 1; i <= k; i++) {
+                int row = start + i - 1;
+                int max = Math.min(runs[row].longest, tickets);
+                for (int c = 1; c <= max; c++) {
+                    // wide halls make one window cost rows x seats x tickets, stop inside it too
+                    if (System.nanoTime() > deadline) return GroupPlan.builder().complete(false).build();
+                    int b = bestStart(row, c);
+                    double bc = blockCost(row, c, b);
+                    for (int t = c; t <= tickets; t++) {
+                        double prev = cost[i - 1][t - c];
+                        if (prev == Double.MAX_VALUE) continue;
+                        if (prev + bc < cost[i][t]) {
+                            cost[i][t] = prev + bc;
+                            count[i][t] = c;
+                        }
+                    }
+                }
+            }
+            if (cost[k][tickets] == Double.MAX_VALUE) return null;
+            int[] seatIds = new int[tickets];
+            int n = 0;
+            for (int i = k, t = tickets; i >= 1; i--) {
+                int row = start + i - 1;
+                int c = count[i][t];
+                int b = bestStart(row, c);
+                for (int col = b; col < b + c; col++) {
+                    seatIds[n++] = row * seatsPerRow + col;
+                }
+                t -= c;
+            }
+            return GroupPlan.builder().seatIds(seatIds).rowsUsed(k).cost(cost[k][tickets]).complete(true).build();
+        }
+    }
+
+    /*
+     * evaluate windows [from, to) of candidate start rows, splitting across the pool
+     */
+    private static class WindowTask extends RecursiveTask<GroupPlan> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Search search;
+        private final int[] starts;
+        private final int from;
+        private final int to;
+
+        WindowTask(Search search, int[] starts, int from, int to) {
+            this.search = search;
+            this.starts = starts;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected GroupPlan compute() {
+            if (to - from > WINDOWS_PER_TASK) {
+                int mid = (from + to) >>> 1;
+                WindowTask left = new WindowTask(search, starts, from, mid);
+                left.fork();
+                GroupPlan right = new WindowTask(search, starts, mid, to).compute();
+                return better(left.join(), right);
+            }
+            GroupPlan best = null;
+            for (int i = from; i < to; i++) {
+                if (System.nanoTime() > search.deadline) {
+                    // budget spent - keep what we have and mark it partial
+                    if (best != null) best.setComplete(false);
+                    return best == null ? GroupPlan.builder().complete(false).build() : best;
+                }
+                best = better(best, search.evaluate(starts[i]));
+            }
+            return best;
+        }
+
+        /*
+         * lower cost wins, a partial plan stays partial
+         */
+        private static GroupPlan better(GroupPlan a, GroupPlan b) {
+            if (a == null) return b;
+            if (b == null) return a;
+            boolean complete = a.isComplete() && b.isComplete();
+            GroupPlan best;
+            if (a.getSeatIds() == null) best = b;
+            else if (b.getSeatIds() == null) best = a;
+            else best = a.getCost() <= b.getCost() ? a : b;
+            best.setComplete(complete);
+            return best;
+        }
+    }
+}
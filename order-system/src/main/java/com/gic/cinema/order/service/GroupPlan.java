@@ -0,0 +1,30 @@
+package com.gic.cinema.order.service;
+
+import lombok.*;
+
+/**
+ * GroupPlan - seats for one party, a contiguous block per row over consecutive rows
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class GroupPlan {
+    /*
+     * seat ids (row * seatsPerRow + col) of the plan
+     */
+    private int[] seatIds;
+    /*
+     * rows used
+     */
+    private int rowsUsed;
+    /*
+     * distance from hall centre and preferred row, lower is better
+     */
+    private double cost;
+    /*
+     * false if the latency budget ran out before every candidate was evaluated
+     */
+    private boolean complete;
+}
@@ -0,0 +1,31 @@
+package com.gic.cinema.order.service;
+
+import com.gic.cinema.order.event.HallEvent;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * HallArchive - store of closed halls evicted from memory, loaded back on access
+ */
+public interface HallArchive extends HallLoader {
+    /**
+     * store closed hall, replacing any earlier copy
+     * @param hallKey
+     * @param events - CONFIGURED first, then one CONFIRMED per order
+     */
+    void store(String hallKey, List<HallEvent> events);
+
+    /**
+     * check hall is archived
+     * @param hallKey
+     * @return
+     */
+    boolean contains(String hallKey);
+
+    /**
+     * get keys of all archived halls
+     * @return
+     */
+    Set<String> getHallKeys();
+}
@@ -0,0 +1,18 @@
+package com.gic.cinema.order.service;
+
+import com.gic.cinema.order.event.HallEvent;
+
+import java.util.List;
+
+/**
+ * HallLoader - source of halls not yet in memory, read on first access of a hall key
+ */
+@FunctionalInterface
+public interface HallLoader {
+    /**
+     * load stored hall as events: CONFIGURED first, then one CONFIRMED per order
+     * @param hallKey
+     * @return events, empty if the hall is unknown
+     */
+    List<HallEvent> load(String hallKey);
+}
@@ -0,0 +1,188 @@
+package com.gic.cinema.order.service;
+
+import com.gic.cinema.order.model.CinemaHall;
+import com.gic.cinema.order.model.HallState;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * HallRegistry - halls in memory with their lifecycle state.
+ *  - create-or-get is atomic per key, the factory runs at most once
+ *  - closed halls are kept least recently used first; past maxClosed the oldest are handed back for archiving
+ *  - archived halls keep no entry at all, so memory is bounded by open halls plus maxClosed
+ */
+public class HallRegistry {
+    private final Map<String, Entry> halls = new ConcurrentHashMap<>();
+    /*
+     * closed hall keys, least recently used first, guarded by itself
+     */
+    private final LinkedHashSet<String> closed = new LinkedHashSet<>();
+
+    /**
+     * get hall in memory, null if none
+     * @param key
+     * @return
+     */
+    public CinemaHall get(String key) {
+        Entry e = halls.get(key);
+        if (e == null) return null;
+        if (e.state == HallState.CLOSED) touch(key);
+        return e.hall;
+    }
+
+    /**
+     * get hall in memory or create it, atomically per key
+     * @param key
+     * @param factory - builds the hall, may return null for none
+     * @param state - state of a created hall, a closed one is most recently used
+     * @return hall, null if factory returned null
+     */
+    public CinemaHall getOrCreate(String key, Function<String, CinemaHall> factory, HallState state) {
+        Entry e = halls.computeIfAbsent(key, k -> {
+            CinemaHall h = factory.apply(k);
+            return h == null ? null : new Entry(h, state);
+        });
+        if (e == null) return null;
+        if (e.state == HallState.CLOSED) {
+            synchronized (closed) {
+                closed.remove(key);
+                closed.add(key);
+            }
+        }
+        return e.hall;
+    }
+
+    /**
+     * put hall in memory unless one is there, atomically per key
+     * @param key
+     * @param hall
+     * @param state - state of the put hall, a closed one is most recently used
+     * @return hall already in memory, null if hall was put
+     */
+    public CinemaHall putIfAbsent(String key, CinemaHall hall, HallState state) {
+        Entry e = halls.putIfAbsent(key, new Entry(hall, state));
+        if (e != null) return e.hall;
+        if (state == HallState.CLOSED) {
+            synchronized (closed) {
+                closed.add(key);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * put hall in memory, keeping the state of an earlier one, open if none
+     * @param key
+     * @param hall
+     */
+    public void put(String key, CinemaHall hall) {
+        halls.compute(key, (k, old) -> new Entry(hall, old == null ? HallState.OPEN : old.state));
+    }
+
+    /**
+     * get state of hall in memory
+     * @param key
+     * @return state, null if not in memory
+     */
+    public HallState stateOf(String key) {
+        Entry e = halls.get(key);
+        return e == null ? null : e.state;
+    }
+
+    /**
+     * close hall
+     * @param key
+     * @param maxClosed - closed halls kept in memory
+     * @return keys of closed halls over maxClosed, least recently used first, for the caller to archive
+     */
+    public List<String> close(String key, int maxClosed) {
+        if (maxClosed < 0) throw new IllegalArgumentException("Max closed halls must be >= 0.");
+        Entry e = halls.get(key);
+        if (e == null) throw new IllegalArgumentException("Unknown hall: " + key);
+        e.state = HallState.CLOSED;
+        synchronized (closed) {
+            closed.add(key);
+        }
+        return overflow(maxClosed);
+    }
+
+    /**
+     * get closed halls over limit
+     * @param maxClosed - closed halls kept in memory
+     * @return keys, least recently used first
+     */
+    public List<String> overflow(int maxClosed) {
+        synchronized (closed) {
+            List<String> evict = new ArrayList<>();
+            Iterator<String> it = closed.iterator();
+            for (int n = closed.size() - maxClosed; n > 0 && it.hasNext(); n--) {
+                evict.add(it.next());
+            }
+            return evict;
+        }
+    }
+
+    /**
+     * drop hall from memory
+     * @param key
+     * @return removed hall, null if none
+     */
+    public CinemaHall remove(String key) {
+        Entry e = halls.remove(key);
+        synchronized (closed) {
+            closed.remove(key);
+        }
+        return e == null ? null : e.hall;
+    }
+
+    /**
+     * get keys of halls in memory
+     * @return
+     */
+    public Set<String> keys() {
+        return Collections.unmodifiableSet(halls.keySet());
+    }
+
+    /**
+     * get halls in memory
+     * @return
+     */
+    public Collection<CinemaHall> halls() {
+        return halls.values().stream().map(e -> e.hall).collect(Collectors.toList());
+    }
+
+    /**
+     * get count of closed halls in memory
+     * @return
+     */
+    public int getClosedCount() {
+        synchronized (closed) {
+            return closed.size();
+        }
+    }
+
+    /*
+     * mark closed hall most recently used
+     */
+    private void touch(String key) {
+        synchronized (closed) {
+            if (closed.remove(key)) closed.add(key);
+        }
+    }
+
+    /*
+     * hall and its state
+     */
+    private static class Entry {
+        private final CinemaHall hall;
+        private volatile HallState state;
+
+        Entry(CinemaHall hall, HallState state) {
+            this.hall = hall;
+            this.state = state;
+        }
+    }
+}
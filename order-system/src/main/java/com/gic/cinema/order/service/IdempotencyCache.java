@@ -0,0 +1,153 @@
+package com.gic.cinema.order.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * IdempotencyCache - result of the first call per request key, returned to every retry.
+ *  - bounded: segments of insertion-ordered maps, the oldest completed keys are evicted once a segment is full;
+ *    a call still running is never evicted, so its retries keep waiting for it
+ *  - time-expiring: keys older than the ttl are dropped from the head of their segment on access
+ *  - a retry arriving while the first call still runs waits for its result instead of running again
+ *  - a failed call is forgotten, so the client may retry it
+ * @param <V> - result type
+ */
+public class IdempotencyCache<V> {
+    private static final int SEGMENTS = 16;
+
+    private final Segment<V>[] segments;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+
+    public IdempotencyCache(int capacity, long ttl, TimeUnit unit) {
+        this(capacity, ttl, unit, System::nanoTime);
+    }
+
+    @SuppressWarnings("unchecked")
+    IdempotencyCache(int capacity, long ttl, TimeUnit unit, LongSupplier clock) {
+        if (capacity < SEGMENTS) throw new IllegalArgumentException("Capacity must be >= " + SEGMENTS + ".");
+        if (ttl <= 0) throw new IllegalArgumentException("Ttl must be > 0.");
+        this.ttlNanos = unit.toNanos(ttl);
+        this.clock = clock;
+        this.segments = (Segment<V>[]) new Segment<?>[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment<>(capacity / SEGMENTS);
+        }
+    }
+
+    /**
+     * run call once per key within the ttl
+     * @param key - request key from client
+     * @param call
+     * @return result of the first call with this key
+     */
+    public V execute(String key, Supplier<V> call) {
+        if (key == null || key.isEmpty()) throw new IllegalArgumentException("Idempotency key required.");
+        Segment<V> segment = segments[(key.hashCode() & 0x7fffffff) % SEGMENTS];
+        long now = clock.getAsLong();
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing;
+        synchronized (segment) {
+            segment.expire(now, ttlNanos);
+            Entry<V> e = segment.map.get(key);
+            existing = e == null ? null : e.result;
+            if (existing == null) {
+                segment.map.put(key, new Entry<>(mine, now));
+                segment.evict();
+            }
+        }
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException ex) {
+                // first call failed and was forgotten - run again
+                return execute(key, call);
+            }
+        }
+        try {
+            V value = call.get();
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error ex) {
+            synchronized (segment) {
+                Entry<V> e = segment.map.get(key);
+                if (e != null && e.result == mine) segment.map.remove(key);
+            }
+            mine.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * get completed result of key, null if unknown, expired or still running
+     * @param key
+     * @return
+     */
+    public V get(String key) {
+        Segment<V> segment = segments[(key.hashCode() & 0x7fffffff) % SEGMENTS];
+        synchronized (segment) {
+            segment.expire(clock.getAsLong(), ttlNanos);
+            Entry<V> e = segment.map.get(key);
+            return e == null ? null : e.result.getNow(null);
+        }
+    }
+
+    /**
+     * get number of keys held, expired ones included until their segment is touched
+     * @return
+     */
+    public int size() {
+        int size = 0;
+        for (Segment<V> segment : segments) {
+            synchronized (segment) {
+                size += segment.map.size();
+            }
+        }
+        return size;
+    }
+
+    /*
+     * result of first call and when it started
+     */
+    private record Entry<V>(CompletableFuture<V> result, long createdAt) {
+    }
+
+    /*
+     * insertion-ordered keys of one segment, oldest first, guarded by its own monitor
+     */
+    private static class Segment<V> {
+        private final LinkedHashMap<String, Entry<V>> map;
+        private final int capacity;
+
+        Segment(int capacity) {
+            this.map = new LinkedHashMap<>(capacity * 4 / 3 + 1);
+            this.capacity = capacity;
+        }
+
+        /*
+         * drop oldest completed keys while over capacity, running calls stay
+         */
+        void evict() {
+            Iterator<Entry<V>> it = map.values().iterator();
+            while (map.size() > capacity && it.hasNext()) {
+                if (it.next().result.isDone()) it.remove();
+            }
+        }
+
+        /*
+         * drop expired keys from the head, entries are in creation order
+         */
+        void expire(long now, long ttlNanos) {
+            Iterator<Entry<V>> it = map.values().iterator();
+            while (it.hasNext()) {
+                if (now - it.next().createdAt < ttlNanos) return;
+                it.remove();
+            }
+        }
+    }
+}
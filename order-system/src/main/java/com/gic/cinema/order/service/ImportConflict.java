@@ -0,0 +1,64 @@
+package com.gic.cinema.order.service;
+
+import lombok.*;
+
+/**
+ * ImportConflict - one booking line the bulk import rejected
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class ImportConflict {
+    /*
+     * 1-based line in the booking file, the header is line 1
+     */
+    private long line;
+    /*
+     * hall key of the line, null if it could not be parsed
+     */
+    private String hallKey;
+    /*
+     * order id of the line, null if it could not be parsed
+     */
+    private String orderId;
+    /*
+     * why the line was rejected
+     */
+    private Reason reason;
+    /*
+     * details, e.g. the seat already taken
+     */
+    private String detail;
+
+    /**
+     * reject reason
+     */
+    public enum Reason {
+        /*
+         * line is not hall_key, order_id, seats
+         */
+        MALFORMED,
+        /*
+         * no hall with this key
+         */
+        UNKNOWN_HALL,
+        /*
+         * hall closed or archived
+         */
+        HALL_CLOSED,
+        /*
+         * seat label outside the hall layout or listed twice
+         */
+        INVALID_SEAT,
+        /*
+         * seat booked, blocked or taken by an earlier line
+         */
+        SEAT_TAKEN,
+        /*
+         * order id already in the hall
+         */
+        DUPLICATE_ORDER
+    }
+}
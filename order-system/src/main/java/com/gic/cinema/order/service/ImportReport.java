@@ -0,0 +1,69 @@
+package com.gic.cinema.order.service;
+
+import lombok.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ImportReport - outcome of one bulk import
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString(exclude = "conflicts")
+public class ImportReport {
+    /*
+     * booking lines read, header excluded
+     */
+    private long lines;
+    /*
+     * halls touched
+     */
+    private int halls;
+    /*
+     * orders booked
+     */
+    private long orders;
+    /*
+     * seats booked
+     */
+    private long seats;
+    /*
+     * rejected lines in file order
+     */
+    @Builder.Default
+    private List<ImportConflict> conflicts = new ArrayList<>();
+
+    /**
+     * write conflicts as CSV: line, hall_key, order_id, reason, detail
+     * @param file
+     */
+    public void writeConflicts(Path file) {
+        try (BufferedWriter w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            w.write("line,hall_key,order_id,reason,detail\n");
+            for (ImportConflict c : conflicts) {
+                w.write(c.getLine() + "," + csv(c.getHallKey()) + "," + csv(c.getOrderId()) + ","
+                        + c.getReason() + "," + csv(c.getDetail()) + "\n");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /*
+     * quote field when it holds a separator, quote or line break
+     */
+    private static String csv(String s) {
+        if (s == null) return "";
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0 && s.indexOf('\r') < 0) return s;
+        return "\"" + s.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,229 @@
+package com.gic.cinema.order.service;
+
+import com.gic.cinema.order.exception.AdmissionRejectedException;
+import com.gic.cinema.order.exception.NotEnoughSeatsException;
+import com.gic.cinema.order.model.CinemaHall;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntConsumer;
+
+/**
+ * WaitingRoom - admission control per hall, so a hot release cannot swamp one hall or starve the others.
+ *  - at most concurrency requests work on a hall at once, the rest wait in a fair FIFO queue
+ *  - waiters hear their queue position while they wait
+ *  - requests for more seats than the hall has left are shed before queueing and again when reaching the head
+ *  - the queue is bounded, and a waiter gives up after its max wait
+ */
+public class WaitingRoom {
+    /*
+     * how often a waiter behind the head refreshes its position
+     */
+    private static final long POSITION_REFRESH_MS = 100;
+
+    private final int concurrency;
+    private final int maxQueue;
+    private final Map<String, HallGate> gates = new ConcurrentHashMap<>();
+
+    public WaitingRoom(int concurrency, int maxQueue) {
+        if (concurrency < 1) throw new IllegalArgumentException("Concurrency must be > 0.");
+        if (maxQueue < 0) throw new IllegalArgumentException("Max queue must be >= 0.");
+        this.concurrency = concurrency;
+        this.maxQueue = maxQueue;
+    }
+
+    /**
+     * wait for a slot on hall
+     * @param h
+     * @param tickets - seats wanted, used to shed requests the hall cannot serve
+     * @param maxWait
+     * @param onPosition - called with 1-based queue position whenever it changes, may be null
+     * @return admission, close it when done with the hall
+     */
+    public Admission enter(CinemaHall h, int tickets, Duration maxWait, IntConsumer onPosition) {
+        return gates.computeIfAbsent(keyOf(h), k -> new HallGate()).enter(h, tickets, maxWait, onPosition);
+    }
+
+    /**
+     * get requests waiting for hall
+     * @param h
+     * @return
+     */
+    public int getQueueLength(CinemaHall h) {
+        HallGate gate = gates.get(keyOf(h));
+        return gate == null ? 0 : gate.queueLength();
+    }
+
+    /**
+     * get requests working on hall
+     * @param h
+     * @return
+     */
+    public int getInFlight(CinemaHall h) {
+        HallGate gate = gates.get(keyOf(h));
+        return gate == null ? 0 : gate.inFlight();
+    }
+
+    /**
+     * forget gate of a removed hall
+     * @param hallKey
+     */
+    public void remove(String hallKey) {
+        gates.remove(hallKey);
+    }
+
+    private static String keyOf(CinemaHall h) {
+        return h.getKey() == null ? "" : h.getKey();
+    }
+
+    /*
+     * shed request the hall cannot serve
+     */
+    private static void shed(CinemaHall h, int tickets) {
+        if (tickets > h.getAvailableSeatCount())
+            throw new NotEnoughSeatsException("SOLD_OUT", "Not enough seats.");
+    }
+
+    /**
+     * slot on one hall, released on close
+     */
+    public static final class Admission implements AutoCloseable {
+        private final HallGate gate;
+        private boolean closed;
+
+        private Admission(HallGate gate) {
+            this.gate = gate;
+        }
+
+        @Override
+        public void close() {
+            if (closed) return;
+            closed = true;
+            gate.exit();
+        }
+    }
+
+    /*
+     * queue and in-flight count of one hall
+     */
+    private class HallGate {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ArrayDeque<Waiter> queue = new ArrayDeque<>();
+        private long nextSeq;
+        private int inFlight;
+
+        Admission enter(CinemaHall h, int tickets, Duration maxWait, IntConsumer onPosition) {
+            shed(h, tickets);
+            Waiter w;
+            lock.lock();
+            try {
+                if (queue.isEmpty() && inFlight < concurrency) {
+                    inFlight++;
+                    return new Admission(this);
+                }
+                if (queue.size() >= maxQueue)
+                    throw new AdmissionRejectedException(AdmissionRejectedException.QUEUE_FULL, "Waiting room is full.");
+                w = new Waiter(nextSeq++, lock.newCondition());
+                queue.addLast(w);
+            } finally {
+                lock.unlock();
+            }
+            return await(h, tickets, w, System.nanoTime() + maxWait.toNanos(), onPosition);
+        }
+
+        /*
+         * wait until w is at the head and a slot is free, reporting position on the way
+         */
+        private Admission await(CinemaHall h, int tickets, Waiter w, long deadline, IntConsumer onPosition) {
+            int reported = -1;
+            while (true) {
+                int position;
+                lock.lock();
+                try {
+                    if (queue.peekFirst() == w) {
+                        if (inFlight < concurrency) {
+                            queue.pollFirst();
+                            try {
+                                shed(h, tickets);
+                            } finally {
+                                signalHead();
+                            }
+                            inFlight++;
+                            return new Admission(this);
+                        }
+                        position = 1;
+                    } else {
+                        // seq distance to the head, waiters ahead that gave up still count until the head passes them
+                        position = (int) (w.seq - queue.peekFirst().seq) + 1;
+                    }
+                    long left = deadline - System.nanoTime();
+                    if (left <= 0) {
+                        queue.remove(w);
+                        signalHead();
+                        throw new AdmissionRejectedException(AdmissionRejectedException.TIMEOUT, "Timed out in waiting room.");
+                    }
+                    if (position == reported) {
+                        w.ready.await(Math.min(left, TimeUnit.MILLISECONDS.toNanos(POSITION_REFRESH_MS)), TimeUnit.NANOSECONDS);
+                        continue;
+                    }
+                } catch (InterruptedException e) {
+                    queue.remove(w);
+                    signalHead();
+                    Thread.currentThread().interrupt();
+                    throw new AdmissionRejectedException(AdmissionRejectedException.TIMEOUT, "Interrupted in waiting room.");
+                } finally {
+                    lock.unlock();
+                }
+                reported = position;
+                if (onPosition != null) onPosition.accept(position);
+            }
+        }
+
+        void exit() {
+            lock.lock();
+            try {
+                inFlight--;
+                signalHead();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /*
+         * wake the head waiter, caller holds the lock
+         */
+        private void signalHead() {
+            Waiter head = queue.peekFirst();
+            if (head != null) head.ready.signal();
+        }
+
+        int queueLength() {
+            lock.lock();
+            try {
+                return queue.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int inFlight() {
+            lock.lock();
+            try {
+                return inFlight;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /*
+     * one queued request
+     */
+    private record Waiter(long seq, Condition ready) {
+    }
+}
@@ -0,0 +1,237 @@
+package com.gic.cinema.order.service;
+
+import com.gic.cinema.order.event.HallEvent;
+import com.gic.cinema.order.event.HallEventStore;
+import com.gic.cinema.order.event.HallEventType;
+import com.gic.cinema.order.exception.NotEnoughSeatsException;
+import com.gic.cinema.order.model.CinemaHall;
+import com.gic.cinema.order.model.Order;
+import com.gic.cinema.order.model.Seat;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Waitlist - unmet booking requests per hall, served when seats are released.
+ *  - CANCELLED events only mark the hall dirty; one matcher thread runs one pass per dirty hall, so a burst of
+ *    cancellations is matched in a single pass under one hall lock with one snapshot
+ *  - a pass walks requests in arrival order and serves every one that fits; one that cannot fit yet is skipped,
+ *    not blocking smaller requests behind it
+ *  - fit is checked before any allocation: free seat count for the default rule, the free run index for
+ *    requests that need seats together, and the pass stops once the hall has no free seat
+ */
+public class Waitlist implements AutoCloseable {
+    private final CinemaService cinemaService;
+    private final FreeRunIndex freeRuns;
+    private final int maxPerHall;
+    private final Map<String, HallQueue> queues = new ConcurrentHashMap<>();
+    /*
+     * halls with released seats and waiting requests, each queued once until its pass starts
+     */
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final LinkedBlockingQueue<String> passes = new LinkedBlockingQueue<>();
+    private final Thread matcher;
+    private volatile boolean closed;
+
+    public Waitlist(CinemaService cinemaService, HallEventStore eventStore, FreeRunIndex freeRuns, int maxPerHall) {
+        if (maxPerHall < 1) throw new IllegalArgumentException("Waitlist size must be > 0.");
+        this.cinemaService = cinemaService;
+        this.freeRuns = freeRuns;
+        this.maxPerHall = maxPerHall;
+        this.matcher = Thread.ofPlatform().daemon().name("waitlist-matcher").start(this::run);
+        eventStore.subscribe(this::onEvent);
+    }
+
+    /**
+     * wait for seats by default rule
+     * @param h
+     * @param order
+     * @param tickets
+     * @param together - all seats side by side in one row
+     * @return future of confirmed order, cancel it to leave the waitlist
+     */
+    public CompletableFuture<Order> join(CinemaHall h, Order order, int tickets, boolean together) {
+        return join(h, new Request(order, tickets, together, -1, -1));
+    }
+
+    /**
+     * wait for seats from a preferred start seat
+     * @param h
+     * @param order
+     * @param tickets
+     * @param rowChar
+     * @param seatNumber
+     * @return future of confirmed order, cancel it to leave the waitlist
+     */
+    public CompletableFuture<Order> join(CinemaHall h, Order order, int tickets, char rowChar, int seatNumber) {
+        int[] pos = CinemaService.positionOf(h, rowChar, seatNumber);
+        return join(h, new Request(order, tickets, false, pos[0], pos[1]));
+    }
+
+    /**
+     * get requests waiting on hall
+     * @param hallKey
+     * @return
+     */
+    public int getWaiting(String hallKey) {
+        HallQueue q = queues.get(hallKey);
+        if (q == null) return 0;
+        synchronized (q) {
+            return q.requests.size();
+        }
+    }
+
+    /**
+     * drop waitlist of a closed or removed hall, waiting requests fail
+     * @param hallKey
+     */
+    public void remove(String hallKey) {
+        HallQueue q = queues.remove(hallKey);
+        if (q == null) return;
+        List<Request> dropped;
+        synchronized (q) {
+            dropped = new ArrayList<>(q.requests);
+            q.requests.clear();
+        }
+        for (Request r : dropped) {
+            r.result.completeExceptionally(new IllegalStateException("Hall " + hallKey + " is closed."));
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        matcher.interrupt();
+        for (String key : queues.keySet()) {
+            remove(key);
+        }
+    }
+
+    private CompletableFuture<Order> join(CinemaHall h, Request r) {
+        if (r.tickets <= 0) throw new IllegalArgumentException("Tickets must be > 0.");
+        if (h.getKey() == null) throw new IllegalArgumentException("Hall has no key.");
+        if (closed) throw new IllegalStateException("Waitlist closed.");
+        // a request the hall can never hold would wait forever
+        if (r.together && r.tickets > h.getSeatsPerRow())
+            throw new IllegalArgumentException("At most " + h.getSeatsPerRow() + " seats together.");
+        HallQueue q = queues.computeIfAbsent(h.getKey(), k -> new HallQueue(h));
+        synchronized (q) {
+            if (q.requests.size() >= maxPerHall) throw new IllegalStateException("Waitlist of " + h.getKey() + " is full.");
+            q.requests.add(r);
+        }
+        // a cancelled request leaves at once, not on the next pass, so it stops counting against maxPerHall
+        r.result.whenComplete((o, e) -> {
+            if (r.result.isCancelled()) {
+                synchronized (q) {
+                    q.requests.removeIf(x -> x == r);
+                }
+            }
+        });
+        // seats may have been released between the failed booking and joining
+        schedule(h.getKey());
+        return r.result;
+    }
+
+    /*
+     * event store listener, runs on the writer thread: only mark the hall, never match inline
+     */
+    private void onEvent(HallEvent e) {
+        if (e.getType() == HallEventType.CANCELLED && queues.containsKey(e.getHallKey())) schedule(e.getHallKey());
+    }
+
+    private void schedule(String hallKey) {
+        if (dirty.add(hallKey)) passes.offer(hallKey);
+    }
+
+    private void run() {
+        try {
+            while (!closed) {
+                String key = passes.take();
+                dirty.remove(key);
+                HallQueue q = queues.get(key);
+                if (q != null) match(q);
+            }
+        } catch (InterruptedException e) {
+            // closed
+        }
+    }
+
+    /*
+     * serve waiting requests of one hall in arrival order
+     */
+    private void match(HallQueue q) {
+        CinemaHall hall = q.hall;
+        List<Request> served = new ArrayList<>();
+        List<Order> orders = new ArrayList<>();
+        synchronized (hall) {
+            synchronized (q) {
+                Iterator<Request> it = q.requests.iterator();
+                while (it.hasNext() && hall.getAvailableSeatCount() > 0) {
+                    Request r = it.next();
+                    if (r.result.isDone()) {
+                        // cancelled by the caller
+                        it.remove();
+                        continue;
+                    }
+                    if (!fits(hall, r)) continue;
+                    try {
+                        List<Seat> seats = r.row >= 0 ? cinemaService.allocateFromPosition(hall, r.tickets, r.row, r.col)
+                                : r.together ? cinemaService.allocateTogether(hall, r.tickets)
+                                : cinemaService.allocateDefault(hall, r.tickets, hall.getRows() - 1);
+                        cinemaService.commit(hall, r.order, seats);
+                    } catch (NotEnoughSeatsException e) {
+                        // preferred position is not free yet
+                        continue;
+                    } catch (RuntimeException e) {
+                        it.remove();
+                        served.add(r);
+                        orders.add(null);
+                        r.result.completeExceptionally(e);
+                        continue;
+                    }
+                    it.remove();
+                    served.add(r);
+                    orders.add(r.order);
+                }
+            }
+            hall.publishSnapshot();
+        }
+        // e.g. SYNC replication acks: nobody is told confirmed before the followers have the booking
+        if (!served.isEmpty()) cinemaService.awaitCommitBarriers();
+        // complete outside the hall lock, callbacks may book again
+        for (int i = 0; i < served.size(); i++) {
+            if (orders.get(i) != null) served.get(i).result.complete(orders.get(i));
+        }
+    }
+
+    /*
+     * cheap check before allocating: enough free seats, and a long enough run when seats must be together
+     */
+    private boolean fits(CinemaHall hall, Request r) {
+        if (r.tickets > hall.getAvailableSeatCount()) return false;
+        return !r.together || freeRuns.largestRun(hall.getKey()) >= r.tickets;
+    }
+
+    /*
+     * one waiting request, row -1 for default rule
+     */
+    private record Request(Order order, int tickets, boolean together, int row, int col, CompletableFuture<Order> result) {
+        Request(Order order, int tickets, boolean together, int row, int col) {
+            this(order, tickets, together, row, col, new CompletableFuture<>());
+        }
+    }
+
+    /*
+     * waiting requests of one hall in arrival order, guarded by the instance monitor
+     */
+    private static class HallQueue {
+        private final CinemaHall hall;
+        private final LinkedList<Request> requests = new LinkedList<>();
+
+        HallQueue(CinemaHall hall) {
+            this.hall = hall;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.gic.cinema.order;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * StartupBenchmark - time from JVM launch to the first console prompt, default start vs the fast-start steps.
+ * Needs the fast-start build: mvn -Pfaststart package
+ * Run with: java -cp target/test-classes com.gic.cinema.order.StartupBenchmark [runs] [extracted jar]
+ */
+public class StartupBenchmark {
+    private static final String PROMPT = "Please define movie title";
+
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        Path jar = Path.of(args.length > 1 ? args[1] : "target/faststart/order-system-0.0.1-SNAPSHOT.jar");
+        Path archive = jar.resolveSibling("application.jsa");
+        if (!Files.exists(jar) || !Files.exists(archive))
+            throw new IllegalStateException("No fast-start build at " + jar.getParent() + ", run mvn -Pfaststart package first.");
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        List<String> lazy = List.of("-Dspring.profiles.active=faststart");
+        List<String> aot = concat(lazy, List.of("-Dspring.aot.enabled=true"));
+        List<String> cds = concat(aot, List.of("-XX:SharedArchiveFile=" + archive, "-Xlog:cds=off"));
+        // warm the file cache once
+        launch(java, jar, List.of());
+        report("default", java, jar, List.of(), runs);
+        report("lazy", java, jar, lazy, runs);
+        report("lazy+aot", java, jar, aot, runs);
+        report("lazy+aot+cds", java, jar, cds, runs);
+    }
+
+    private static List<String> concat(List<String> a, List<String> b) {
+        List<String> out = new ArrayList<>(a);
+        out.addAll(b);
+        return out;
+    }
+
+    private static void report(String name, String java, Path jar, List<String> flags, int runs) throws Exception {
+        long[] millis = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            millis[i] = launch(java, jar, flags);
+        }
+        Arrays.sort(millis);
+        System.out.printf("%-14s median %5d ms  min %5d ms  max %5d ms%n", name, millis[runs / 2], millis[0], millis[runs - 1]);
+    }
+
+    /*
+     * start the application and wait for its first prompt, ms
+     */
+    private static long launch(String java, Path jar, List<String> flags) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(java);
+        command.addAll(flags);
+        command.add("-jar");
+        command.add(jar.toString());
+        long start = System.nanoTime();
+        Process p = new ProcessBuilder(command).redirectErrorStream(true).start();
+        try (InputStream in = p.getInputStream()) {
+            StringBuilder out = new StringBuilder();
+            byte[] buf = new byte[8192];
+            for (int n; (n = in.read(buf)) > 0; ) {
+                out.append(new String(buf, 0, n, StandardCharsets.UTF_8));
+                if (out.indexOf(PROMPT) >= 0) return (System.nanoTime() - start) / 1_000_000;
+            }
+            throw new IllegalStateException("No prompt from " + command + ":\n" + out);
+        } finally {
+            p.destroyForcibly();
+        }
+    }
+}
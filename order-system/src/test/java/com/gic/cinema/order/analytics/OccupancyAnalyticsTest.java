@@ -0,0 +1,145 @@
+package com.gic.cinema.order.analytics;
+
+import com.gic.cinema.order.model.CinemaHall;
+import com.gic.cinema.order.model.Order;
+import com.gic.cinema.order.model.Seat;
+import com.gic.cinema.order.model.SeatMapTemplate;
+import com.gic.cinema.order.model.SeatStatus;
+import com.gic.cinema.order.service.CinemaService;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for OccupancyAnalytics
+ */
+class OccupancyAnalyticsTest {
+
+    private final CinemaService cinemaService = new CinemaService();
+
+    /*
+     * book and confirm tickets by default rule
+     */
+    private Order book(CinemaHall h, String orderId, int tickets) {
+        List<Seat> seats = cinemaService.bookDefault(h, tickets);
+        return cinemaService.confirmOrder(h, Order.builder().id(orderId).build(), seats);
+    }
+
+    /**
+     * Test Counters Follow Bookings And Cancels
+     */
+    @Test
+    void testCountersFollowBookingsAndCancels() {
+        OccupancyAnalytics analytics = cinemaService.analytics();
+        CinemaHall a = cinemaService.configureHall("Inception", 4, 10);
+        CinemaHall b = cinemaService.configureHall("Inception", 5, 10);
+        CinemaHall c = cinemaService.configureHall("Dune", 4, 10);
+        book(a, "ORD-1", 10);
+        book(a, "ORD-2", 4);
+        book(b, "ORD-3", 5);
+        book(c, "ORD-4", 20);
+
+        assertEquals(new Occupancy(14, 40), analytics.hall(a.getKey()));
+        assertEquals(new Occupancy(19, 90), analytics.movie("Inception"));
+        assertEquals(new Occupancy(20, 40), analytics.movie("Dune"));
+        assertEquals(new Occupancy(39, 130), analytics.total());
+        assertEquals(List.of(c.getKey(), a.getKey(), b.getKey()), analytics.busiestHalls(3));
+
+        cinemaService.cancelOrder(a, "ORD-1");
+        assertEquals(new Occupancy(4, 40), analytics.hall(a.getKey()));
+        assertEquals(new Occupancy(9, 90), analytics.movie("Inception"));
+        cinemaService.releaseSeats(c, "ORD-4", List.of("A01"));
+        assertEquals(new Occupancy(19, 40), analytics.movie("Dune"));
+
+        cinemaService.removeHall(b.getKey());
+        assertEquals(Occupancy.NONE, analytics.hall(b.getKey()));
+        assertEquals(new Occupancy(4, 40), analytics.movie("Inception"));
+    }
+
+    /**
+     * Test Row Bands Split Hall From The Screen
+     */
+    @Test
+    void testRowBandsSplitHallFromTheScreen() {
+        OccupancyAnalytics analytics = cinemaService.analytics();
+        CinemaHall h = cinemaService.configureHall("Inception", 6, 10);
+        // default rule fills the row furthest from the screen first
+        book(h, "ORD-1", 10);
+        book(h, "ORD-2", 5);
+
+        Occupancy[] bands = analytics.hallBands(h.getKey());
+        assertEquals(3, bands.length);
+        assertEquals(new Occupancy(0, 20), bands[0]);
+        assertEquals(new Occupancy(0, 20), bands[1]);
+        assertEquals(new Occupancy(15, 20), bands[2]);
+        assertArrayEquals(bands, analytics.movieBands("Inception"));
+    }
+
+    /**
+     * Test Heatmap Adds Up Screenings Of One Template
+     */
+    @Test
+    void testHeatmapAddsUpScreeningsOfOneTemplate() {
+        OccupancyAnalytics analytics = cinemaService.analytics();
+        SeatMapTemplate t = cinemaService.defineTemplate("Hall_1", 3, 4, Map.of("A01", SeatStatus.BLOCKED));
+        LocalDateTime at = LocalDateTime.of(2026, 1, 1, 18, 0);
+        CinemaHall first = cinemaService.scheduleShowtime("Inception", t, at);
+        CinemaHall second = cinemaService.scheduleShowtime("Dune", t, at.plusHours(3));
+        book(first, "ORD-1", 2);
+        book(second, "ORD-2", 2);
+
+        assertEquals(2, analytics.screenings("Hall_1"));
+        assertEquals(new Occupancy(2, 11), analytics.hall(first.getKey()));
+        int[][] heat = analytics.heatmap("Hall_1");
+        int total = 0;
+        for (int[] row : heat) {
+            for (int n : row) total += n;
+        }
+        assertEquals(4, total);
+        for (Seat[] row : first.getSeats()) {
+            for (Seat s : row) {
+                if (s.getStatus() == SeatStatus.BOOKED) assertEquals(2, heat[s.getRowIndex()][s.getColIndex()]);
+            }
+        }
+    }
+
+    /**
+     * Test Rebuild Counts Halls Booked Before Analytics Started
+     */
+    @Test
+    void testRebuildCountsHallsBookedBeforeAnalyticsStarted() {
+        CinemaHall h = cinemaService.configureHall("Inception", 4, 10);
+        book(h, "ORD-1", 7);
+        OccupancyAnalytics analytics = cinemaService.analytics();
+        assertEquals(new Occupancy(7, 40), analytics.hall(h.getKey()));
+        book(h, "ORD-2", 3);
+        assertEquals(new Occupancy(10, 40), analytics.movie("Inception"));
+        assertEquals(1, analytics.screenings("4x10"));
+    }
+
+    /**
+     * Test Removed Halls And Unused Movies Free Their Slots
+     */
+    @Test
+    void testRemovedHallsAndUnusedMoviesFreeTheirSlots() {
+        OccupancyAnalytics analytics = cinemaService.analytics();
+        CinemaHall keep = cinemaService.configureHall("Inception", 4, 10);
+        book(keep, "ORD-1", 5);
+        for (int i = 0; i < 50; i++) {
+            CinemaHall h = cinemaService.configureHall("Movie " + i, 3, 10);
+            book(h, "ORD-" + (i + 2), 2);
+            cinemaService.removeHall(h.getKey());
+        }
+
+        assertEquals(2, analytics.getHallSlots());
+        assertEquals(1, analytics.getMovieCount());
+        assertEquals(Occupancy.NONE, analytics.movie("Movie 0"));
+        assertEquals(0, analytics.screenings("3x10"));
+        assertEquals(new Occupancy(5, 40), analytics.total());
+        assertEquals(List.of(keep.getKey()), analytics.busiestHalls(5));
+    }
+}
@@ -0,0 +1,74 @@
+package com.gic.cinema.order.cluster;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ClusterBenchmark - routed booking throughput by node count, every node a PartitionNode.main process on loopback.
+ * Run with: java -cp target/classes:target/test-classes com.gic.cinema.order.cluster.ClusterBenchmark [max nodes] [clients] [orders]
+ */
+public class ClusterBenchmark {
+    private static final int HALLS = 64;
+
+    public static void main(String[] args) throws Exception {
+        int maxNodes = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        int orders = args.length > 2 ? Integer.parseInt(args[2]) : 20000;
+        System.out.printf("cpus %d, clients %d, %d halls%n", Runtime.getRuntime().availableProcessors(), clients, HALLS);
+        System.out.printf("%-6s %10s %12s%n", "nodes", "orders/s", "avg us");
+        for (int nodes = 1; nodes <= maxNodes; nodes++) {
+            run(nodes, clients, orders);
+        }
+    }
+
+    /*
+     * one run: fresh node processes, 26x50 halls spread over them, clients booking two seats per order
+     */
+    private static void run(int nodes, int clients, int orders) throws Exception {
+        List<Process> processes = new ArrayList<>();
+        try (PartitionRouter router = new PartitionRouter()) {
+            for (int i = 0; i < nodes; i++) {
+                router.addNode("node-" + i, "127.0.0.1", PartitionRouterTest.startProcess(processes));
+            }
+            String[] keys = new String[HALLS];
+            for (int i = 0; i < HALLS; i++) {
+                keys[i] = router.configureHall("Bench " + i, 26, 50);
+            }
+            // warm up the nodes and the connection pools before timing
+            book(router, keys, clients, orders / 10, "warm");
+            long start = System.nanoTime();
+            book(router, keys, clients, orders, "run");
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("%-6d %10.0f %12.1f%n", nodes, orders / (elapsed / 1e9), elapsed / 1e3 * clients / orders);
+        } finally {
+            for (Process p : processes) {
+                p.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    /*
+     * clients take order numbers from a shared counter, order n goes to hall n % HALLS
+     */
+    private static void book(PartitionRouter router, String[] keys, int clients, int orders, String prefix) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        AtomicInteger next = new AtomicInteger();
+        List<Future<?>> done = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            done.add(pool.submit(() -> {
+                for (int n; (n = next.getAndIncrement()) < orders; ) {
+                    router.book(keys[n % HALLS], 2, prefix + "-" + n);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> f : done) {
+            f.get();
+        }
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,202 @@
+package com.gic.cinema.order.cluster;
+
+import com.gic.cinema.order.exception.NotEnoughSeatsException;
+import com.gic.cinema.order.service.CinemaService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PartitionRouter - partition nodes on loopback sockets
+ */
+class PartitionRouterTest {
+
+    private final List<PartitionNode> nodes = new ArrayList<>();
+    private final Map<String, Integer> ports = new HashMap<>();
+    private PartitionRouter router;
+
+    /**
+     * start three nodes before run test case
+     * @throws IOException
+     */
+    @BeforeEach
+    void setUp() throws IOException {
+        router = new PartitionRouter();
+        for (int i = 1; i <= 3; i++) {
+            startNode("node-" + i);
+        }
+    }
+
+    /**
+     * stop nodes after test case
+     * @throws IOException
+     */
+    @AfterEach
+    void tearDown() throws IOException {
+        router.close();
+        for (PartitionNode node : nodes) {
+            node.close();
+        }
+    }
+
+    /*
+     * start node on free port and join router
+     */
+    private PartitionNode startNode(String nodeId) throws IOException {
+        PartitionNode node = new PartitionNode(new CinemaService());
+        int port = node.start(0);
+        nodes.add(node);
+        ports.put(nodeId, port);
+        router.addNode(nodeId, "127.0.0.1", port);
+        return node;
+    }
+
+    /**
+     * Test Halls Spread Over Nodes And Bookings Reach Owner
+     */
+    @Test
+    void testHallsSpreadOverNodesAndBookingsReachOwner() {
+        Set<String> owners = new HashSet<>();
+        for (int i = 0; i < 30; i++) {
+            String key = router.configureHall("Movie " + i, 5, 10);
+            owners.add(router.ownerOf(key));
+            assertEquals(List.of("A05", "A06"), router.book(key, 2, "ORD-" + i));
+            assertEquals(48, router.availableSeats(key));
+        }
+        assertEquals(3, owners.size());
+        int total = nodes.stream().mapToInt(n -> n.getCinemaService().getHallKeys().size()).sum();
+        assertEquals(30, total);
+    }
+
+    /**
+     * Test Remote Errors Map To Local Exceptions
+     */
+    @Test
+    void testRemoteErrorsMapToLocalExceptions() {
+        String key = router.configureHall("Movie", 1, 3);
+        router.book(key, 3, "ORD-1");
+        assertThrows(NotEnoughSeatsException.class, () -> router.book(key, 1, "ORD-2"));
+        assertThrows(IllegalArgumentException.class, () -> router.cancel(key, "ORD-X"));
+        router.cancel(key, "ORD-1");
+        assertEquals(List.of("A01", "A02"), router.bookFromPosition(key, 2, "A01", "ORD-3"));
+    }
+
+    /**
+     * Test Join And Leave Move Only Affected Halls With Their Bookings
+     * @throws IOException
+     */
+    @Test
+    void testJoinAndLeaveMoveHallsWithBookings() throws IOException {
+        Map<String, Integer> available = new HashMap<>();
+        for (int i = 0; i < 40; i++) {
+            String key = router.configureHall("Movie " + i, 4, 8);
+            router.book(key, 1 + i % 5, "ORD-" + i);
+            available.put(key, router.availableSeats(key));
+        }
+
+        PartitionNode joined = startNode("node-4");
+        int onJoined = joined.getCinemaService().getHallKeys().size();
+        assertTrue(onJoined > 0 && onJoined < 40);
+
+        router.removeNode("node-1");
+        assertEquals(40, nodes.stream().mapToInt(n -> n.getCinemaService().getHallKeys().size()).sum());
+        for (Map.Entry<String, Integer> e : available.entrySet()) {
+            assertNotEquals("node-1", router.ownerOf(e.getKey()));
+            assertEquals(e.getValue(), router.availableSeats(e.getKey()));
+        }
+        // cancelling a moved booking works on the new owner
+        router.cancel("Movie 0_Hall_1_row_4_col_8", "ORD-0");
+        assertEquals(32, router.availableSeats("Movie 0_Hall_1_row_4_col_8"));
+    }
+
+    /*
+     * start PartitionNode.main in its own JVM on a free loopback port, returns the port it printed
+     */
+    static int startProcess(List<Process> processes) throws IOException {
+        Process p = new ProcessBuilder(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java",
+                "-cp", System.getProperty("java.class.path"), PartitionNode.class.getName(), "0")
+                .redirectErrorStream(true).start();
+        processes.add(p);
+        BufferedReader out = new BufferedReader(new InputStreamReader(p.getInputStream(), StandardCharsets.UTF_8));
+        String line = out.readLine();
+        if (line == null || !line.startsWith("Partition node listening on "))
+            throw new IllegalStateException("Node process did not start: " + line);
+        return Integer.parseInt(line.substring(line.lastIndexOf(' ') + 1).trim());
+    }
+
+    /**
+     * Test Nodes In Separate Processes Serve Routed Bookings And Rebalance
+     * @throws Exception
+     */
+    @Test
+    void testNodesInSeparateProcessesServeRoutedBookings() throws Exception {
+        List<Process> processes = new ArrayList<>();
+        try (PartitionRouter remote = new PartitionRouter()) {
+            for (int i = 1; i <= 3; i++) {
+                remote.addNode("jvm-" + i, "127.0.0.1", startProcess(processes));
+            }
+            Set<String> owners = new HashSet<>();
+            List<String> keys = new ArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                String key = remote.configureHall("Movie " + i, 5, 10);
+                keys.add(key);
+                owners.add(remote.ownerOf(key));
+                assertEquals(List.of("A05", "A06"), remote.book(key, 2, "ORD-" + i));
+            }
+            assertEquals(3, owners.size());
+            assertThrows(IllegalArgumentException.class, () -> remote.book(keys.get(0), 1, "ORD-0"));
+
+            // halls of the leaving process move, with their bookings, to the other two
+            remote.removeNode("jvm-2");
+            for (String key : keys) {
+                assertNotEquals("jvm-2", remote.ownerOf(key));
+                assertEquals(48, remote.availableSeats(key));
+            }
+            remote.cancel(keys.get(0), "ORD-0");
+            assertEquals(50, remote.availableSeats(keys.get(0)));
+        } finally {
+            for (Process p : processes) {
+                p.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    /**
+     * Test Bare Error Reply Fails The Call Cleanly
+     * @throws Exception
+     */
+    @Test
+    void testBareErrorReplyFailsTheCallCleanly() throws Exception {
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            Thread peer = new Thread(() -> {
+                try (Socket s = server.accept()) {
+                    new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8)).readLine();
+                    OutputStream out = s.getOutputStream();
+                    out.write("ERR\n".getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                } catch (IOException e) {
+                    // test ends either way
+                }
+            });
+            peer.start();
+            try (NodeClient client = new NodeClient("127.0.0.1", server.getLocalPort())) {
+                IllegalStateException e = assertThrows(IllegalStateException.class, () -> client.call("KEYS"));
+                assertEquals("ERR", e.getMessage());
+            }
+            peer.join(5000);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.gic.cinema.order.codec;
+
+import com.gic.cinema.order.model.AvailabilitySnapshot;
+import com.gic.cinema.order.model.CinemaHall;
+import com.gic.cinema.order.model.Seat;
+import com.gic.cinema.order.model.SeatStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SeatMapCodec
+ */
+class SeatMapCodecTest {
+
+    /**
+     * Test Random Maps Round Trip With Highlight
+     */
+    @Test
+    void testRandomMapsRoundTripWithHighlight() {
+        Random random = new Random(42);
+        for (int round = 0; round < 50; round++) {
+            CinemaHall hall = new CinemaHall("Movie", 1 + random.nextInt(26), 1 + random.nextInt(50));
+            BitSet highlight = new BitSet();
+            for (Seat[] row : hall.getSeats()) {
+                for (Seat s : row) {
+                    int p = random.nextInt(10);
+                    if (p < 3) s.setStatus(SeatStatus.BOOKED);
+                    else if (p == 3) s.setStatus(SeatStatus.BLOCKED);
+                    else if (p == 4) highlight.set(hall.seatIdOf(s));
+                }
+            }
+            AvailabilitySnapshot snapshot = hall.publishSnapshot();
+
+            DecodedSeatMap map = SeatMapCodec.decode(SeatMapCodec.encode(snapshot, highlight));
+
+            assertEquals(snapshot.getVersion(), map.getVersion());
+            for (int r = 0; r < hall.getRows(); r++) {
+                for (int c = 0; c < hall.getSeatsPerRow(); c++) {
+                    int expected = highlight.get(r * hall.getSeatsPerRow() + c) ? SeatMapCodec.HIGHLIGHT
+                            : switch (hall.getSeats()[r][c].getStatus()) {
+                                case AVAILABLE -> SeatMapCodec.AVAILABLE;
+                                case BOOKED -> SeatMapCodec.BOOKED;
+                                default -> SeatMapCodec.UNAVAILABLE;
+                            };
+                    assertEquals(expected, map.symbolAt(r, c));
+                }
+            }
+        }
+    }
+
+    /**
+     * Test Large Venue Is An Order Of Magnitude Smaller Than Text Map
+     */
+    @Test
+    void testLargeVenueIsAnOrderOfMagnitudeSmallerThanTextMap() {
+        CinemaHall hall = new CinemaHall("Movie", 26, 50);
+        for (int c = 10; c < 40; c++) {
+            hall.getSeats()[25][c].setStatus(SeatStatus.BOOKED);
+        }
+        byte[] data = SeatMapCodec.encode(hall.publishSnapshot(), List.of("A20", "A21"));
+
+        // text map is about 3 chars per seat
+        assertTrue(data.length * 10 < 26 * 50 * 3, "encoded " + data.length + " bytes");
+        DecodedSeatMap map = SeatMapCodec.decode(data);
+        assertEquals(SeatMapCodec.HIGHLIGHT, map.symbolAt(25, 19));
+        assertEquals(SeatMapCodec.BOOKED, map.symbolAt(25, 18));
+        assertEquals(SeatMapCodec.AVAILABLE, map.symbolAt(0, 0));
+    }
+
+    /**
+     * Test Truncated Data Is Rejected
+     */
+    @Test
+    void testTruncatedDataIsRejected() {
+        byte[] data = SeatMapCodec.encode(new CinemaHall("Movie", 3, 4).getSnapshot());
+        byte[] truncated = Arrays.copyOf(data, data.length - 1);
+        assertThrows(IllegalArgumentException.class, () -> SeatMapCodec.decode(truncated));
+    }
+
+    /**
+     * Test Oversized Header Is Rejected Before Allocating
+     */
+    @Test
+    void testOversizedHeaderIsRejected() {
+        // 'S', v1, rows 0xFFFF, seats per row 0xFFFF, version 0, then a single byte of rows
+        byte[] huge = {'S', 1, (byte) 0xFF, (byte) 0xFF, 3, (byte) 0xFF, (byte) 0xFF, 3, 0, 0};
+        assertThrows(IllegalArgumentException.class, () -> SeatMapCodec.decode(huge));
+        // rows 0x10000
+        byte[] wide = {'S', 1, (byte) 0x80, (byte) 0x80, 4, 1, 0, 0};
+        assertThrows(IllegalArgumentException.class, () -> SeatMapCodec.decode(wide));
+    }
+
+    /*
+     * header claiming rows x cols, followed by filler bytes
+     */
+    private static byte[] header(int rows, int cols, int filler) {
+        byte[] data = new byte[8 + filler];
+        data[0] = 'S';
+        data[1] = 1;
+        data[2] = (byte) (0x80 | (rows & 0x7F));
+        data[3] = (byte) (0x80 | ((rows >>> 7) & 0x7F));
+        data[4] = (byte) (rows >>> 14);
+        data[5] = (byte) (0x80 | (cols & 0x7F));
+        data[6] = (byte) (0x80 | ((cols >>> 7) & 0x7F));
+        data[7] = (byte) (cols >>> 14);
+        // version 0, then filler
+        return data;
+    }
+
+    /**
+     * Test Huge Headers With Filler Are Rejected Before Allocating
+     */
+    @Test
+    void testHugeHeadersWithFillerAreRejected() {
+        // ~70 KB of input: 65535 x 65535 used to overflow rows * cols, 30000 x 65535 asked for ~2 GB
+        assertThrows(IllegalArgumentException.class, () -> SeatMapCodec.decode(header(0xFFFF, 0xFFFF, 70_000)));
+        assertThrows(IllegalArgumentException.class, () -> SeatMapCodec.decode(header(30000, 0xFFFF, 70_000)));
+        // fewer bytes than rows
+        assertThrows(IllegalArgumentException.class, () -> SeatMapCodec.decode(header(5000, 10, 100)));
+    }
+}
@@ -0,0 +1,147 @@
+package com.gic.cinema.order.event;
+
+import com.gic.cinema.order.model.CinemaHall;
+import com.gic.cinema.order.model.Order;
+import com.gic.cinema.order.model.SeatMapTemplate;
+import com.gic.cinema.order.model.SeatStatus;
+import com.gic.cinema.order.service.CinemaService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for HallEventStore - events appended by CinemaService, halls rebuilt as projections
+ */
+class HallEventStoreTest {
+
+    private CinemaService cinemaService;
+    private HallEventStore store;
+
+    /**
+     * init value before run test case
+     */
+    @BeforeEach
+    void setUp() {
+        cinemaService = new CinemaService();
+        store = cinemaService.getEventStore();
+    }
+
+    /*
+     * book and confirm tickets in current hall
+     */
+    private void book(CinemaHall hall, String orderId, int tickets) {
+        cinemaService.confirmOrder(hall,
+                Order.builder().id(orderId).movieName(hall.getMovieName()).build(),
+                cinemaService.bookDefault(tickets));
+    }
+
+    /**
+     * Test Replay Rebuilds Seats And Orders
+     */
+    @Test
+    void testReplayRebuildsSeatsAndOrders() {
+        CinemaHall hall = cinemaService.configureHall("Movie", 3, 4);
+        book(hall, "ORD-1", 3);
+        book(hall, "ORD-2", 2);
+
+        CinemaHall rebuilt = store.replay(hall.getKey());
+
+        assertEquals(hall.getAvailableSeatCount(), rebuilt.getAvailableSeatCount());
+        assertEquals(hall.getOrders().keySet(), rebuilt.getOrders().keySet());
+        for (int r = 0; r < 3; r++) {
+            for (int c = 0; c < 4; c++) {
+                assertEquals(hall.getSeats()[r][c].getStatus(), rebuilt.getSeats()[r][c].getStatus());
+                assertEquals(hall.getSeats()[r][c].getOrderId(), rebuilt.getSeats()[r][c].getOrderId());
+            }
+        }
+        // configure, then one confirm per booking - picking seats records nothing
+        assertEquals(3, store.getEvents(hall.getKey()).size());
+        assertEquals(List.of(HallEventType.CONFIRMED),
+                store.audit(hall.getKey(), "ORD-1").stream().map(HallEvent::getType).toList());
+    }
+
+    /**
+     * Test Compaction Keeps Point In Time Queries Back To Oldest Checkpoint
+     */
+    @Test
+    void testCompactionKeepsPointInTimeQueries() {
+        CinemaHall hall = cinemaService.configureHall("Movie", 2, 5);
+        String key = hall.getKey();
+        book(hall, "ORD-1", 2);
+        store.compact(key);
+        long afterFirst = store.getLastSeq(key);
+        book(hall, "ORD-2", 2);
+        store.compact(key);
+        book(hall, "ORD-3", 2);
+        store.compact(key);
+
+        // oldest checkpoint is after ORD-2, history before it is folded away
+        assertThrows(IllegalArgumentException.class, () -> store.stateAt(key, afterFirst));
+        assertEquals(List.of(HallEventType.CONFIRMED), store.getEvents(key).stream().map(HallEvent::getType).toList());
+        assertEquals(6, store.stateAt(key, store.getLastSeq(key) - 1).getAvailableSeatCount());
+        assertEquals(4, store.replay(key).getAvailableSeatCount());
+        assertEquals(3, store.replay(key).getOrders().size());
+    }
+
+    /**
+     * Test Append Compacts Every N Events
+     */
+    @Test
+    void testAppendCompactsEveryNEvents() {
+        HallEventStore small = new HallEventStore(2, 8);
+        small.append(HallEvent.builder().hallKey("H").type(HallEventType.CONFIGURED).movieName("Movie").rows(10).seatsPerRow(10).build());
+        for (int i = 0; i < 100; i++) {
+            small.append(HallEvent.builder().hallKey("H").type(HallEventType.RESERVED).orderId("ORD-" + i).seatIds(new int[]{i}).build());
+            small.append(HallEvent.builder().hallKey("H").type(HallEventType.CONFIRMED).orderId("ORD-" + i).seatIds(new int[]{i}).build());
+            // compaction runs in the background, let it keep up with the writer
+            small.awaitCompaction();
+        }
+
+        // bounded by two compaction intervals, and no RESERVED behind the newest checkpoint
+        assertTrue(small.getEvents("H").size() <= 16);
+        assertEquals(201, small.getLastSeq("H"));
+        assertEquals(0, small.replay("H").getAvailableSeatCount());
+        assertEquals(100, small.replay("H").getOrders().size());
+    }
+
+    /**
+     * Test Event Seat Ids Are Copied
+     */
+    @Test
+    void testEventSeatIdsAreCopied() {
+        int[] ids = {1, 2};
+        HallEvent e = HallEvent.builder().type(HallEventType.CONFIRMED).seatIds(ids).build();
+        ids[0] = 9;
+        e.getSeatIds()[1] = 9;
+        assertArrayEquals(new int[]{1, 2}, e.getSeatIds());
+    }
+
+    /**
+     * Test Replay All Rebuilds Every Showtime In Parallel
+     */
+    @Test
+    void testReplayAllRebuildsEveryShowtime() {
+        SeatMapTemplate template = cinemaService.defineTemplate("Hall_2", 4, 6, Map.of("A01", SeatStatus.BLOCKED));
+        LocalDateTime start = LocalDateTime.of(2026, 10, 19, 10, 0);
+        for (int i = 0; i < 50; i++) {
+            CinemaHall show = cinemaService.scheduleShowtime("Movie", template, start.plusHours(i));
+            cinemaService.selectHall(show.getKey());
+            book(show, "ORD-" + i, i % 5 + 1);
+        }
+
+        Map<String, CinemaHall> rebuilt = store.replayAll();
+
+        assertEquals(50, rebuilt.size());
+        for (CinemaHall show : cinemaService.getShowtimes("Movie")) {
+            CinemaHall copy = rebuilt.get(show.getKey());
+            assertEquals(show.getAvailableSeatCount(), copy.getAvailableSeatCount());
+            assertEquals(SeatStatus.BLOCKED, copy.getSeatStatus(3, 0));
+            assertEquals(show.getStartsAt(), copy.getStartsAt());
+        }
+    }
+}
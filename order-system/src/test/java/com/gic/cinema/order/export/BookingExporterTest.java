@@ -0,0 +1,220 @@
+package com.gic.cinema.order.export;
+
+import com.gic.cinema.order.exception.NotEnoughSeatsException;
+import com.gic.cinema.order.model.CinemaHall;
+import com.gic.cinema.order.model.Order;
+import com.gic.cinema.order.model.Seat;
+import com.gic.cinema.order.model.SeatStatus;
+import com.gic.cinema.order.persistence.FileHallArchive;
+import com.gic.cinema.order.service.CinemaService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for BookingExporter
+ */
+class BookingExporterTest {
+
+    private final CinemaService cinemaService = new CinemaService();
+
+    @TempDir
+    Path dir;
+
+    /*
+     * book and confirm tickets by default rule
+     */
+    private Order book(CinemaHall h, String orderId, int tickets) {
+        List<Seat> seats = cinemaService.bookDefault(h, tickets);
+        return cinemaService.confirmOrder(h, Order.builder().id(orderId).build(), seats);
+    }
+
+    /**
+     * Test Csv Holds Every Order And Seat
+     */
+    @Test
+    void testCsvHoldsEveryOrderAndSeat() throws IOException {
+        CinemaHall a = cinemaService.configureHall("Inception", 4, 10);
+        CinemaHall b = cinemaService.configureHall("Up, \"Again\"", 26, 50);
+        book(a, "ORD-1", 3);
+        book(a, "ORD-2", 12);
+        for (int i = 0; i < 40; i++) {
+            book(b, "ORD-B" + i, 5);
+        }
+        cinemaService.cancelOrder(a, "ORD-1");
+
+        // small buffers so every worker drains many times
+        ExportStats stats = new BookingExporter(cinemaService.getEventStore(), 2, 4096)
+                .exportCsv(dir.resolve("orders.csv"), dir.resolve("seats.csv"));
+        assertEquals(2, stats.getHalls());
+        assertEquals(41, stats.getOrders());
+        assertEquals(40 + 26 * 50, stats.getSeats());
+
+        List<String> orders = Files.readAllLines(dir.resolve("orders.csv"), StandardCharsets.UTF_8);
+        assertEquals(BookingExporter.ORDERS_HEADER.trim(), orders.get(0));
+        assertEquals(42, orders.size());
+        assertTrue(orders.contains(a.getKey() + "," + cinemaService.getEventStore().getLastSeq(a.getKey()) + ",ORD-2,Inception,12,"
+                + String.join(" ", a.getOrders().get("ORD-2").getSeatLabels())));
+        assertEquals(40, orders.stream().filter(l -> l.contains(",\"Up, \"\"Again\"\"\",5,")).count());
+
+        List<String> seats = Files.readAllLines(dir.resolve("seats.csv"), StandardCharsets.UTF_8);
+        assertEquals(1 + 40 + 26 * 50, seats.size());
+        Map<String, Integer> booked = new HashMap<>();
+        for (String line : seats.subList(1, seats.size())) {
+            // the quoted hall key may hold a comma - read the other fields from the right
+            String[] f = line.split(",", -1);
+            int n = f.length;
+            assertTrue(n >= 5, line);
+            if (f[n - 2].equals(SeatStatus.BOOKED.name())) {
+                assertFalse(f[n - 1].isEmpty(), line);
+                booked.merge(String.join(",", List.of(f).subList(0, n - 4)), 1, Integer::sum);
+            }
+        }
+        assertEquals(12, booked.get(a.getKey()));
+        assertEquals(200, booked.get("\"" + b.getKey().replace("\"", "\"\"") + "\""));
+    }
+
+    /**
+     * Test Columnar Round Trip
+     */
+    @Test
+    void testColumnarRoundTrip() {
+        CinemaHall a = cinemaService.configureHall("Inception", 4, 10);
+        CinemaHall b = cinemaService.configureHall("Dune", 26, 50);
+        book(a, "ORD-1", 7);
+        book(b, "ORD-2", 30);
+        cinemaService.bookFromPosition(b, 2, 'C', 4);
+
+        Path file = dir.resolve("halls.col");
+        ExportStats stats = new BookingExporter(cinemaService.getEventStore(), 2, 4096).exportColumnar(file);
+        assertEquals(2, stats.getHalls());
+        // the 26 x 50 hall does not fit a 4k buffer and goes out on its own
+        assertTrue(stats.getBytes() > 26 * 50 * 3);
+
+        Map<String, ExportedHall> read = new HashMap<>();
+        BookingExporter.readColumnar(file, e -> read.put(e.getHallKey(), e));
+        assertEquals(2, read.size());
+        for (CinemaHall h : List.of(a, b)) {
+            ExportedHall e = read.get(h.getKey());
+            assertEquals(h.getMovieName(), e.getMovieName());
+            assertEquals(cinemaService.getEventStore().getLastSeq(h.getKey()), e.getSeq());
+            for (int r = 0; r < h.getRows(); r++) {
+                for (int c = 0; c < h.getSeatsPerRow(); c++) {
+                    int id = r * h.getSeatsPerRow() + c;
+                    // reservation not confirmed yet is exported as it stands in the event stream
+                    assertEquals(h.getSeatStatus(r, c), BookingExporter.statusOf(e.getStatuses()[id]));
+                    assertEquals(h.getSeats()[r][c].getOrderId(), e.getSeatOrders()[id]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Test Archived Halls Are Exported From The Archive
+     */
+    @Test
+    void testArchivedHallsAreExportedFromTheArchive() {
+        FileHallArchive archive = new FileHallArchive(dir.resolve("archive"));
+        cinemaService.setHallArchive(archive);
+        CinemaHall closed = cinemaService.configureHall("Inception", 4, 10);
+        CinemaHall open = cinemaService.configureHall("Dune", 4, 10);
+        book(closed, "ORD-1", 6);
+        book(open, "ORD-2", 3);
+        cinemaService.closeHall(closed.getKey());
+        cinemaService.archiveHall(closed.getKey());
+
+        Path file = dir.resolve("halls.col");
+        ExportStats stats = new BookingExporter(cinemaService.getEventStore(), archive, 2, 4096).exportColumnar(file);
+        assertEquals(2, stats.getHalls());
+        assertEquals(2, stats.getOrders());
+        Map<String, ExportedHall> read = new HashMap<>();
+        BookingExporter.readColumnar(file, e -> read.put(e.getHallKey(), e));
+        ExportedHall archived = read.get(closed.getKey());
+        assertEquals(0, archived.getSeq());
+        for (int r = 0; r < closed.getRows(); r++) {
+            for (int c = 0; c < closed.getSeatsPerRow(); c++) {
+                int id = r * closed.getSeatsPerRow() + c;
+                assertEquals(closed.getSeatStatus(r, c), BookingExporter.statusOf(archived.getStatuses()[id]));
+            }
+        }
+        // without the archive only the event store halls are there
+        assertEquals(1, new BookingExporter(cinemaService.getEventStore(), 2, 4096).exportColumnar(file).getHalls());
+    }
+
+    /**
+     * Test Corrupt Block Length Is Rejected Before Allocating
+     */
+    @Test
+    void testCorruptBlockLengthIsRejectedBeforeAllocating() throws IOException {
+        Path file = dir.resolve("halls.col");
+        Files.write(file, ByteBuffer.allocate(12).putInt(BookingExporter.MAGIC).putInt(Integer.MAX_VALUE).array());
+        assertThrows(IllegalArgumentException.class, () -> BookingExporter.readColumnar(file, e -> { }));
+    }
+
+    /**
+     * Test Export While Booking
+     */
+    @Test
+    void testExportWhileBooking() throws InterruptedException {
+        List<CinemaHall> halls = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            halls.add(cinemaService.configureHall("Movie" + i, 26, 50));
+        }
+        AtomicBoolean stop = new AtomicBoolean();
+        Thread booker = new Thread(() -> {
+            int n = 0;
+            while (!stop.get()) {
+                CinemaHall h = halls.get(n % halls.size());
+                try {
+                    book(h, "ORD-" + n++, 3);
+                } catch (NotEnoughSeatsException e) {
+                    cinemaService.cancelOrder(h, h.getOrders().keySet().iterator().next());
+                }
+            }
+        });
+        booker.start();
+        try {
+            for (int run = 0; run < 5; run++) {
+                Path file = dir.resolve("halls" + run + ".col");
+                Map<String, Long> before = new HashMap<>();
+                for (CinemaHall h : halls) {
+                    before.put(h.getKey(), cinemaService.getEventStore().getLastSeq(h.getKey()));
+                }
+                ExportStats stats = new BookingExporter(cinemaService.getEventStore(), 4, 1 << 16).exportColumnar(file);
+                assertEquals(0, stats.getHallsPastCut());
+                List<ExportedHall> read = new ArrayList<>();
+                BookingExporter.readColumnar(file, read::add);
+                assertEquals(8, read.size());
+                for (ExportedHall e : read) {
+                    // the cut is taken before any hall is rebuilt and covers what was committed before the export
+                    assertTrue(e.getSeq() >= before.get(e.getHallKey()));
+                    assertTrue(e.getSeq() <= cinemaService.getEventStore().getLastSeq(e.getHallKey()));
+                    // every block is one point of its hall stream: booked seats are exactly the ordered seats
+                    int bookedSeats = 0;
+                    int orderedSeats = 0;
+                    for (int i = 0; i < e.getStatuses().length; i++) {
+                        if (BookingExporter.statusOf(e.getStatuses()[i]) == SeatStatus.BOOKED) bookedSeats++;
+                        if (e.getSeatOrders()[i] != null) orderedSeats++;
+                    }
+                    assertEquals(orderedSeats, bookedSeats);
+                    assertEquals(0, bookedSeats % 3);
+                }
+            }
+        } finally {
+            stop.set(true);
+            booker.join();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.gic.cinema.order.jfr;
+
+import com.gic.cinema.order.exception.NotEnoughSeatsException;
+import com.gic.cinema.order.model.CinemaHall;
+import com.gic.cinema.order.model.Order;
+import com.gic.cinema.order.model.Seat;
+import com.gic.cinema.order.service.CinemaService;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the booking pipeline flight recorder events
+ */
+class CinemaEventTest {
+
+    @TempDir
+    Path dir;
+
+    /*
+     * recorded events of one type
+     */
+    private static List<RecordedEvent> eventsOf(List<RecordedEvent> events, String name) {
+        return events.stream().filter(e -> e.getEventType().getName().equals(name)).toList();
+    }
+
+    /**
+     * Test Booking Storm Profile Records Pipeline Events
+     * @throws Exception
+     */
+    @Test
+    void testBookingStormProfileRecordsPipelineEvents() throws Exception {
+        CinemaService cinemaService = new CinemaService();
+        Path file = dir.resolve("storm.jfr");
+        try (Recording recording = new Recording(BookingStormProfile.load())) {
+            recording.start();
+            CinemaHall h = cinemaService.configureHall("Inception", 4, 10);
+            List<Seat> seats = cinemaService.bookDefault(h, 15);
+            cinemaService.confirmOrder(h, Order.builder().id("ORD-1").build(), seats);
+            cinemaService.bookFromPosition(h, 3, 'C', 9);
+            assertThrows(NotEnoughSeatsException.class, () -> cinemaService.bookDefault(h, 30));
+            // row D is nearest the screen, nothing to overflow into
+            assertThrows(NotEnoughSeatsException.class, () -> cinemaService.bookFromPosition(h, 20, 'D', 1));
+            recording.stop();
+            recording.dump(file);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+
+        List<RecordedEvent> configured = eventsOf(events, "com.gic.cinema.order.ConfigureHall");
+        assertEquals(1, configured.size());
+        assertEquals(CinemaService.hallKey("Inception", 4, 10), configured.get(0).getString("hallKey"));
+
+        List<RecordedEvent> bookings = eventsOf(events, "com.gic.cinema.order.Booking");
+        assertEquals(4, bookings.size());
+        RecordedEvent first = bookings.get(0);
+        assertEquals(BookingEvent.DEFAULT, first.getString("rule"));
+        assertEquals(15, first.getInt("tickets"));
+        assertEquals(2, first.getInt("rowsScanned"));
+        assertEquals(CinemaEvent.OK, first.getString("outcome"));
+        // C09 and C10, then one seat from row B
+        assertEquals(BookingEvent.POSITION, bookings.get(1).getString("rule"));
+        assertEquals(2, bookings.get(1).getInt("rowsScanned"));
+        assertEquals(CinemaEvent.NOT_ENOUGH_SEATS, bookings.get(2).getString("outcome"));
+        // rejected before any row was looked at
+        assertEquals(0, bookings.get(2).getInt("rowsScanned"));
+        // a failed scan still counts the rows it visited
+        assertEquals(CinemaEvent.NOT_ENOUGH_SEATS, bookings.get(3).getString("outcome"));
+        assertEquals(1, bookings.get(3).getInt("rowsScanned"));
+
+        List<RecordedEvent> confirms = eventsOf(events, "com.gic.cinema.order.Confirm");
+        assertEquals(1, confirms.size());
+        assertEquals(15, confirms.get(0).getInt("tickets"));
+        assertEquals(2, confirms.get(0).getInt("rowsScanned"));
+    }
+}
@@ -35,7 +35,7 @@ class MainMenuTest {
 
         // Safe defaults for all tests
         when(hall.getMovieName()).thenReturn("Inception");
-        when(hall.getAvailableSeatCount()).thenReturn(10);
+        when(hall.getPublishedAvailableSeatCount()).thenReturn(10);
 
         // Make seating map “do nothing” (0 rows/cols => no array indexing)
         when(hall.getRows()).thenReturn(0);
@@ -180,7 +180,7 @@ class MainMenuTest {
         String input = "1\n20\n2\n\n3\n";
         BufferedReader reader = new BufferedReader(new StringReader(input));
 
-        when(hall.getAvailableSeatCount()).thenReturn(10);
+        when(hall.getPublishedAvailableSeatCount()).thenReturn(10);
 
         List<Seat> defaultSeats = Arrays.asList(mockSeat("A01"), mockSeat("A02"));
         when(cinemaService.bookDefault(2)).thenReturn(defaultSeats);
@@ -231,7 +231,7 @@ class MainMenuTest {
      */
     @Test
     void testShowBookingsNoBookingsPrintsMessageAndReturns() throws Exception {
-        when(hall.getOrders()).thenReturn(Collections.emptyMap());
+        when(hall.getPublishedOrders()).thenReturn(Collections.emptyList());
 
         BufferedReader reader = new BufferedReader(new StringReader(""));
 
@@ -258,7 +258,7 @@ class MainMenuTest {
                 .build();
         orders.put(order.getId(), order);
 
-        when(hall.getOrders()).thenReturn(orders);
+        when(hall.getPublishedOrders()).thenReturn(List.copyOf(orders.values()));
 
         // user just presses enter (blank) to go back
         String input = "\n";
@@ -286,7 +286,8 @@ class MainMenuTest {
                 .build();
         orders.put(order.getId(), order);
 
-        when(hall.getOrders()).thenReturn(orders);
+        when(hall.getPublishedOrders()).thenReturn(List.copyOf(orders.values()));
+        when(hall.getPublishedOrder("GIC999999")).thenReturn(order);
 
         // "wrong" -> invalid, then "GIC999999" -> valid, then "" -> back to menu
         String input = "wrong\nGIC999999\n\n";
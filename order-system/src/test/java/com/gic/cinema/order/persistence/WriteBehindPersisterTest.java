@@ -0,0 +1,207 @@
+package com.gic.cinema.order.persistence;
+
+import com.gic.cinema.order.model.CinemaHall;
+import com.gic.cinema.order.model.Order;
+import com.gic.cinema.order.model.SeatMapTemplate;
+import com.gic.cinema.order.model.SeatStatus;
+import com.gic.cinema.order.service.CinemaService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for WriteBehindPersister and BookingStore on in-memory H2
+ */
+class WriteBehindPersisterTest {
+
+    private final CinemaService cinemaService = new CinemaService();
+    private BookingStore store;
+    private WriteBehindPersister persister;
+
+    /**
+     * open store before run test case
+     * @throws Exception
+     */
+    @BeforeEach
+    void setUp() throws Exception {
+        store = new BookingStore("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        persister = new WriteBehindPersister(store, cinemaService.getEventStore(), 1024, 100);
+        cinemaService.addRemovalListener(persister::forget);
+    }
+
+    /**
+     * close store after test case
+     * @throws Exception
+     */
+    @AfterEach
+    void tearDown() throws Exception {
+        persister.close();
+        store.close();
+    }
+
+    /*
+     * single number query
+     */
+    private long count(String sql) throws Exception {
+        try (Connection c = store.connect(); Statement st = c.createStatement(); ResultSet rs = st.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    /*
+     * book and confirm
+     */
+    private Order book(CinemaService service, CinemaHall h, String orderId, int tickets) {
+        return service.confirmOrder(h, Order.builder().id(orderId).movieName(h.getMovieName()).build(), service.bookDefault(h, tickets));
+    }
+
+    /**
+     * Test Confirm And Cancel Reach The Store
+     * @throws Exception
+     */
+    @Test
+    void testConfirmAndCancelReachTheStore() throws Exception {
+        CinemaHall h = cinemaService.configureHall("Inception", 5, 8);
+        book(cinemaService, h, "GIC0001", 3);
+        book(cinemaService, h, "GIC0002", 2);
+        cinemaService.releaseSeats(h, "GIC0001", List.of(h.getOrders().get("GIC0001").getSeatLabels().get(0)));
+        cinemaService.cancelOrder(h, "GIC0002");
+        assertTrue(persister.awaitFlushed(5, TimeUnit.SECONDS));
+
+        assertEquals(1, count("SELECT COUNT(*) FROM halls"));
+        assertEquals(1, count("SELECT COUNT(*) FROM orders"));
+        assertEquals(2, count("SELECT COUNT(*) FROM seats WHERE order_id = 'GIC0001'"));
+        assertEquals(0, persister.getPending());
+        assertEquals(0, persister.getLagMillis());
+        assertEquals(5, persister.getFlushed());
+        assertEquals(0, persister.getFailures());
+    }
+
+    /**
+     * Test Stored Halls Load Lazily On First Access
+     * @throws Exception
+     */
+    @Test
+    void testStoredHallsLoadLazilyOnFirstAccess() throws Exception {
+        CinemaHall h = cinemaService.configureHall("Inception", 5, 8);
+        SeatMapTemplate template = cinemaService.defineTemplate("Hall_1", 4, 6, Map.of("A01", SeatStatus.BLOCKED));
+        CinemaHall showtime = cinemaService.scheduleShowtime("Dune", template, LocalDateTime.of(2026, 1, 1, 20, 0));
+        book(cinemaService, h, "GIC0001", 4);
+        book(cinemaService, showtime, "GIC0002", 2);
+        assertTrue(persister.awaitFlushed(5, TimeUnit.SECONDS));
+
+        CinemaService restarted = new CinemaService();
+        restarted.setHallLoader(store);
+        assertTrue(restarted.getHallKeys().isEmpty());
+        assertEquals(List.of(showtime.getKey(), h.getKey()).stream().sorted().toList(), store.getHallKeys());
+
+        CinemaHall loaded = restarted.getHall(h.getKey());
+        assertEquals(36, loaded.getAvailableSeatCount());
+        assertEquals(h.getOrders().get("GIC0001").getSeatLabels(), loaded.getOrders().get("GIC0001").getSeatLabels());
+        assertEquals(1, restarted.getHallKeys().size());
+
+        CinemaHall loadedShowtime = restarted.scheduleShowtime("Dune", template, LocalDateTime.of(2026, 1, 1, 20, 0));
+        assertEquals(SeatStatus.BLOCKED, loadedShowtime.getSeatStatus(3, 0));
+        assertEquals(21, loadedShowtime.getAvailableSeatCount());
+        assertEquals("Dune", loadedShowtime.getOrders().get("GIC0002").getMovieName());
+
+        // a loaded hall keeps booking
+        book(restarted, loaded, "GIC0003", 2);
+        assertEquals(34, loaded.getAvailableSeatCount());
+    }
+
+    /**
+     * Test Burst Is Written In Batches
+     * @throws Exception
+     */
+    @Test
+    void testBurstIsWrittenInBatches() throws Exception {
+        CinemaHall h = cinemaService.configureHall("Inception", 26, 50);
+        for (int i = 0; i < 500; i++) {
+            book(cinemaService, h, "GIC" + i, 2);
+        }
+        assertTrue(persister.awaitFlushed(10, TimeUnit.SECONDS));
+        assertEquals(501, persister.getFlushed());
+        assertTrue(persister.getBatches() <= persister.getFlushed());
+        assertEquals(1000, count("SELECT COUNT(*) FROM seats"));
+        assertEquals(500, count("SELECT COUNT(*) FROM orders"));
+    }
+
+    /**
+     * Test Removed Hall Is Deleted From Store
+     * @throws Exception
+     */
+    @Test
+    void testRemovedHallIsDeletedFromStore() throws Exception {
+        CinemaHall h = cinemaService.configureHall("Inception", 5, 8);
+        CinemaHall kept = cinemaService.configureHall("Dune", 5, 8);
+        book(cinemaService, h, "GIC0001", 3);
+        book(cinemaService, kept, "GIC0002", 2);
+        cinemaService.removeHall(h.getKey());
+        assertTrue(persister.awaitFlushed(5, TimeUnit.SECONDS));
+
+        assertEquals(List.of(kept.getKey()), store.getHallKeys());
+        assertEquals(2, count("SELECT COUNT(*) FROM seats"));
+        assertEquals(1, count("SELECT COUNT(*) FROM orders"));
+        CinemaService restarted = new CinemaService();
+        restarted.setHallLoader(store);
+        assertThrows(IllegalArgumentException.class, () -> restarted.getHall(h.getKey()));
+    }
+
+    /**
+     * Test Full Queue Rewrites Hall Instead Of Blocking
+     * @throws Exception
+     */
+    @Test
+    void testFullQueueRewritesHallInsteadOfBlocking() throws Exception {
+        CinemaService service = new CinemaService();
+        try (BookingStore small = new BookingStore("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+             WriteBehindPersister tiny = new WriteBehindPersister(small, service.getEventStore(), 1, 1)) {
+            CinemaHall h = service.configureHall("Inception", 26, 50);
+            for (int i = 0; i < 300; i++) {
+                book(service, h, "GIC" + i, 2);
+            }
+            service.cancelOrder(h, "GIC7");
+            assertTrue(tiny.getOverflows() > 0);
+            assertTrue(tiny.awaitFlushed(10, TimeUnit.SECONDS));
+            assertEquals(0, tiny.getPendingResyncs());
+            try (Connection c = small.connect(); Statement st = c.createStatement();
+                 ResultSet rs = st.executeQuery("SELECT COUNT(*), COUNT(DISTINCT order_id) FROM seats")) {
+                rs.next();
+                assertEquals(598, rs.getLong(1));
+                assertEquals(299, rs.getLong(2));
+            }
+        }
+    }
+
+    /**
+     * Test Dropped Batches Are Not Counted As Flushed
+     * @throws Exception
+     */
+    @Test
+    void testDroppedBatchesAreNotCountedAsFlushed() throws Exception {
+        CinemaService service = new CinemaService();
+        BookingStore broken = new BookingStore("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        broken.close();
+        try (WriteBehindPersister failing = new WriteBehindPersister(broken, service.getEventStore(), 16, 16)) {
+            CinemaHall h = service.configureHall("Inception", 5, 8);
+            book(service, h, "GIC0001", 2);
+            assertFalse(failing.awaitFlushed(2, TimeUnit.SECONDS));
+            assertEquals(0, failing.getFlushed());
+            assertEquals(2, failing.getDropped());
+            assertEquals(1, failing.getPendingResyncs());
+        }
+    }
+}
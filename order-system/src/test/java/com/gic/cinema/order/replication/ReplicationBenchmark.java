@@ -0,0 +1,78 @@
+package com.gic.cinema.order.replication;
+
+import com.gic.cinema.order.model.CinemaHall;
+import com.gic.cinema.order.model.Order;
+import com.gic.cinema.order.model.Seat;
+import com.gic.cinema.order.service.CinemaService;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ReplicationBenchmark - commit throughput of the leader with no follower, ASYNC and SYNC acks,
+ * followers running as separate local processes.
+ * Run with: java -cp target/classes:target/test-classes com.gic.cinema.order.replication.ReplicationBenchmark [followers] [orders]
+ */
+public class ReplicationBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int followers = args.length > 0 ? Integer.parseInt(args[0]) : 2;
+        int orders = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+        System.out.printf("%-8s %10s %12s%n", "mode", "orders/s", "avg us");
+        run(null, 0, orders);
+        run(AckMode.ASYNC, followers, orders);
+        run(AckMode.SYNC, followers, orders);
+    }
+
+    /*
+     * one run: fresh leader, followers, halls of 26x50 booked two seats per order
+     */
+    private static void run(AckMode mode, int followers, int orders) throws Exception {
+        CinemaService service = new CinemaService();
+        ReplicationLeader leader = mode == null ? null : new ReplicationLeader(service, mode);
+        List<Process> processes = new ArrayList<>();
+        if (leader != null) {
+            int port = leader.start(0);
+            for (int i = 0; i < followers; i++) {
+                processes.add(new ProcessBuilder(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java",
+                        "-cp", System.getProperty("java.class.path"), ReplicationFollower.class.getName(), "127.0.0.1", String.valueOf(port))
+                        .redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD).start());
+            }
+            while (leader.getFollowerCount() < followers) {
+                Thread.sleep(10);
+            }
+        }
+        // warm up allocation paths before timing
+        book(service, "warm", orders / 10);
+        if (leader != null) leader.awaitFollowers(30, TimeUnit.SECONDS);
+        long start = System.nanoTime();
+        book(service, "run", orders);
+        long elapsed = System.nanoTime() - start;
+        if (leader != null) {
+            leader.awaitFollowers(60, TimeUnit.SECONDS);
+            leader.close();
+        }
+        for (Process p : processes) {
+            p.destroy();
+            p.waitFor();
+        }
+        System.out.printf("%-8s %10.0f %12.1f%n", mode == null ? "NONE" : mode,
+                orders / (elapsed / 1e9), elapsed / 1e3 / orders);
+    }
+
+    /*
+     * confirm orders of two seats, a new hall whenever one sells out
+     */
+    private static void book(CinemaService service, String prefix, int orders) {
+        CinemaHall h = null;
+        for (int i = 0; i < orders; i++) {
+            if (h == null || h.getAvailableSeatCount() < 2) {
+                h = service.configureHall(prefix + "-" + i, 26, 50);
+            }
+            List<Seat> seats = service.bookDefault(h, 2);
+            service.confirmOrder(h, Order.builder().id(prefix + i).movieName(h.getMovieName()).build(), seats);
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.gic.cinema.order.replication;
+
+import com.gic.cinema.order.model.CinemaHall;
+import com.gic.cinema.order.model.Order;
+import com.gic.cinema.order.model.Seat;
+import com.gic.cinema.order.model.SeatMapTemplate;
+import com.gic.cinema.order.model.SeatStatus;
+import com.gic.cinema.order.service.CinemaService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ReplicationLeader and ReplicationFollower on loopback sockets
+ */
+class ReplicationTest {
+
+    private final CinemaService leaderService = new CinemaService();
+    private ReplicationLeader leader;
+    private ReplicationFollower follower;
+
+    /**
+     * stop leader and follower after test case
+     * @throws IOException
+     */
+    @AfterEach
+    void tearDown() throws IOException {
+        if (follower != null) follower.close();
+        if (leader != null) leader.close();
+    }
+
+    /*
+     * start leader and one follower, wait until the follower is live
+     */
+    private void start(AckMode mode) throws Exception {
+        leader = new ReplicationLeader(leaderService, mode);
+        int port = leader.start(0);
+        follower = new ReplicationFollower(new CinemaService());
+        follower.connect("127.0.0.1", port);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!follower.isSynced()) {
+            assertTrue(System.currentTimeMillis() < deadline, "follower never synced");
+            Thread.sleep(5);
+        }
+    }
+
+    /*
+     * book and confirm on leader
+     */
+    private Order book(CinemaHall h, String orderId, int tickets) {
+        List<Seat> seats = leaderService.bookDefault(h, tickets);
+        return leaderService.confirmOrder(h, Order.builder().id(orderId).movieName(h.getMovieName()).build(), seats);
+    }
+
+    /*
+     * assert follower hall has the same seats and orders as leader hall
+     */
+    private void assertMirrored(CinemaHall expected) {
+        CinemaHall actual = follower.getCinemaService().getHall(expected.getKey());
+        for (int r = 0; r < expected.getRows(); r++) {
+            for (int c = 0; c < expected.getSeatsPerRow(); c++) {
+                assertEquals(expected.getSeatStatus(r, c), actual.getSeatStatus(r, c), "seat " + r + "," + c);
+            }
+        }
+        assertEquals(expected.getAvailableSeatCount(), actual.getAvailableSeatCount());
+        assertEquals(expected.getOrders().keySet(), actual.getOrders().keySet());
+        for (Order o : expected.getOrders().values()) {
+            assertEquals(o.getSeatLabels(), actual.getOrders().get(o.getId()).getSeatLabels());
+        }
+    }
+
+    /**
+     * Test Sync Commit Is Applied On Follower Before It Returns
+     * @throws Exception
+     */
+    @Test
+    void testSyncCommitIsAppliedOnFollowerBeforeItReturns() throws Exception {
+        start(AckMode.SYNC);
+        CinemaHall h = leaderService.configureHall("Inception", 5, 8);
+        book(h, "GIC0001", 4);
+        assertMirrored(h);
+        leaderService.releaseSeats(h, "GIC0001", List.of(h.getOrders().get("GIC0001").getSeatLabels().get(0)));
+        assertMirrored(h);
+        leaderService.cancelOrder(h, "GIC0001");
+        assertMirrored(h);
+        assertEquals(0, leader.getMaxLag());
+    }
+
+    /**
+     * Test Async Follower Catches Up
+     * @throws Exception
+     */
+    @Test
+    void testAsyncFollowerCatchesUp() throws Exception {
+        start(AckMode.ASYNC);
+        CinemaHall h = leaderService.configureHall("Inception", 5, 8);
+        for (int i = 1; i <= 5; i++) {
+            book(h, "GIC000" + i, 3);
+        }
+        assertTrue(leader.awaitFollowers(5, TimeUnit.SECONDS));
+        assertMirrored(h);
+        assertEquals(leader.getLastSeq(), follower.getLastRepSeq());
+    }
+
+    /**
+     * Test Late Follower Gets Existing Halls Then Live Stream
+     * @throws Exception
+     */
+    @Test
+    void testLateFollowerGetsExistingHallsThenLiveStream() throws Exception {
+        SeatMapTemplate template = leaderService.defineTemplate("Hall_1", 4, 6, Map.of("A01", SeatStatus.BLOCKED));
+        CinemaHall showtime = leaderService.scheduleShowtime("Dune", template, LocalDateTime.of(2026, 1, 1, 20, 0));
+        CinemaHall h = leaderService.configureHall("Inception", 5, 8);
+        book(showtime, "GIC0001", 2);
+        book(h, "GIC0002", 6);
+        leaderService.getEventStore().compactAll();
+
+        start(AckMode.SYNC);
+        assertMirrored(showtime);
+        assertMirrored(h);
+        book(h, "GIC0003", 2);
+        assertMirrored(h);
+    }
+
+    /**
+     * Test Follower Extends An Order With A New Copy
+     * @throws Exception
+     */
+    @Test
+    void testFollowerExtendsAnOrderWithANewCopy() throws Exception {
+        start(AckMode.SYNC);
+        CinemaHall h = leaderService.configureHall("Inception", 5, 8);
+        Order order = book(h, "GIC0001", 2);
+        Order before = follower.getCinemaService().getHall(h.getKey()).getPublishedOrder("GIC0001");
+        List<String> labels = List.copyOf(before.getSeatLabels());
+
+        List<Seat> more = leaderService.bookDefault(h, 2);
+        List<String> all = new ArrayList<>(order.getSeatLabels());
+        more.forEach(s -> all.add(s.getLabel()));
+        all.sort(null);
+        leaderService.confirmOrder(h, order.toBuilder().seatLabels(all).tickets(all.size()).build(), more);
+        assertMirrored(h);
+        // the order readers already had is left as it was
+        assertEquals(labels, before.getSeatLabels());
+        assertEquals(2, before.getTickets());
+        assertEquals(4, follower.getCinemaService().getHall(h.getKey()).getPublishedOrder("GIC0001").getTickets());
+    }
+
+    /**
+     * Test Reservation Is Not Replicated
+     * @throws Exception
+     */
+    @Test
+    void testReservationIsNotReplicated() throws Exception {
+        start(AckMode.SYNC);
+        CinemaHall h = leaderService.configureHall("Inception", 5, 8);
+        leaderService.bookDefault(h, 4);
+        assertEquals(40, follower.getCinemaService().getHall(h.getKey()).getAvailableSeatCount());
+    }
+
+    /**
+     * Test Promoted Follower Takes Over With Warm Halls
+     * @throws Exception
+     */
+    @Test
+    void testPromotedFollowerTakesOverWithWarmHalls() throws Exception {
+        start(AckMode.SYNC);
+        CinemaHall h = leaderService.configureHall("Inception", 5, 8);
+        book(h, "GIC0001", 4);
+        leader.close();
+
+        CinemaService takeover = follower.promote();
+        assertTrue(follower.isPromoted());
+        CinemaHall warm = takeover.getHall(h.getKey());
+        assertTrue(warm.isMaterialized());
+        List<Seat> seats = takeover.bookDefault(warm, 4);
+        takeover.confirmOrder(warm, Order.builder().id("GIC0002").movieName("Inception").build(), seats);
+        assertEquals(32, warm.getAvailableSeatCount());
+        assertEquals(2, warm.getOrders().size());
+    }
+
+    /**
+     * Test Sync Leader Drops Follower Missing Timeout
+     * @throws Exception
+     */
+    @Test
+    void testSyncLeaderDropsFollowerMissingTimeout() throws Exception {
+        leader = new ReplicationLeader(leaderService, AckMode.SYNC, 200);
+        int port = leader.start(0);
+        // a follower that never acks
+        try (Socket silent = new Socket("127.0.0.1", port)) {
+            assertTrue(silent.isConnected());
+            long deadline = System.currentTimeMillis() + 5000;
+            while (leader.getFollowerCount() == 0) {
+                assertTrue(System.currentTimeMillis() < deadline, "follower never connected");
+                Thread.sleep(5);
+            }
+            // let the empty catch-up finish so the follower is live
+            Thread.sleep(50);
+            CinemaHall h = leaderService.configureHall("Inception", 5, 8);
+            book(h, "GIC0001", 2);
+            assertEquals(0, leader.getFollowerCount());
+            assertEquals(1, leader.getDegradedCommits());
+            assertEquals(38, h.getAvailableSeatCount());
+        }
+    }
+
+    /**
+     * Test Sync Ack Wait Does Not Hold The Hall Lock
+     * @throws Exception
+     */
+    @Test
+    void testSyncAckWaitDoesNotHoldHallLock() throws Exception {
+        leader = new ReplicationLeader(leaderService, AckMode.SYNC, 2000);
+        CinemaHall h = leaderService.configureHall("Inception", 5, 8);
+        int port = leader.start(0);
+        try (Socket silent = new Socket("127.0.0.1", port)) {
+            assertTrue(silent.isConnected());
+            long deadline = System.currentTimeMillis() + 5000;
+            while (leader.getFollowerCount() == 0) {
+                assertTrue(System.currentTimeMillis() < deadline, "follower never connected");
+                Thread.sleep(5);
+            }
+            Thread.sleep(50);
+            CompletableFuture<Order> booking = CompletableFuture.supplyAsync(() -> book(h, "GIC0001", 2));
+            while (h.getPublishedAvailableSeatCount() == 40) {
+                Thread.sleep(5);
+            }
+            // the booking thread is still waiting for the ack, yet the hall lock is free
+            long start = System.nanoTime();
+            synchronized (h) {
+                assertFalse(booking.isDone());
+            }
+            assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+            booking.get(10, TimeUnit.SECONDS);
+            assertEquals(1, leader.getDegradedCommits());
+            assertEquals(0, leader.getFollowerCount());
+        }
+    }
+}
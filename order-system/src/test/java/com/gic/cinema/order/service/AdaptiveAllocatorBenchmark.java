@@ -0,0 +1,61 @@
+package com.gic.cinema.order.service;
+
+import com.gic.cinema.order.model.CinemaHall;
+import com.gic.cinema.order.model.Seat;
+import com.gic.cinema.order.model.SeatStatus;
+
+import java.util.Random;
+
+/**
+ * AdaptiveAllocatorBenchmark - default rule allocations/s on 26x50 halls by fill level: middle-out probing vs adaptive.
+ * Nothing is confirmed, every allocation sees the same hall.
+ * Run with: java -cp target/classes:target/test-classes com.gic.cinema.order.service.AdaptiveAllocatorBenchmark [tickets] [allocations]
+ */
+public class AdaptiveAllocatorBenchmark {
+
+    public static void main(String[] args) {
+        int tickets = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int allocations = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+        CinemaService middleOut = new CinemaService();
+        middleOut.setAdaptiveAllocation(false);
+        CinemaService adaptive = new CinemaService();
+        for (double fill : new double[]{0.0, 0.5, 0.8, 0.9, 0.95, 0.99}) {
+            CinemaHall h = hall(fill, tickets);
+            for (int warm = 0; warm < 2; warm++) {
+                run(middleOut, h, tickets, allocations / 4);
+                run(adaptive, h, tickets, allocations / 4);
+            }
+            double m = run(middleOut, h, tickets, allocations);
+            double a = run(adaptive, h, tickets, allocations);
+            System.out.printf("fill %4.2f  middle-out %12.0f/s  adaptive %12.0f/s  x%.2f%n", fill, m, a, a / m);
+        }
+    }
+
+    /*
+     * 26x50 hall with seats booked at random, enough left free for one allocation
+     */
+    private static CinemaHall hall(double fill, int tickets) {
+        Random random = new Random(50);
+        CinemaHall h = new CinemaHall("Bench", 26, 50);
+        Seat[][] seats = h.getSeats();
+        for (Seat[] row : seats) {
+            for (Seat s : row) {
+                if (random.nextDouble() < fill && h.getAvailableSeatCount() > tickets) s.setStatus(SeatStatus.BOOKED);
+            }
+        }
+        return h;
+    }
+
+    private static double run(CinemaService service, CinemaHall h, int tickets, int allocations) {
+        AllocationResult out = new AllocationResult(tickets);
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < allocations; i++) {
+            out.reset();
+            sink += service.tryAllocateDefault(h, tickets, h.getRows() - 1, out).getCount();
+        }
+        double secs = (System.nanoTime() - start) / 1e9;
+        if (sink == 42) System.out.print("");
+        return allocations / secs;
+    }
+}
@@ -0,0 +1,160 @@
+package com.gic.cinema.order.service;
+
+import com.gic.cinema.order.exception.NotEnoughSeatsException;
+import com.gic.cinema.order.model.CinemaHall;
+import com.gic.cinema.order.model.Order;
+import com.gic.cinema.order.model.Seat;
+import com.gic.cinema.order.model.SeatStatus;
+import com.gic.cinema.order.service.AdaptiveAllocator.Strategy;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AdaptiveAllocator
+ */
+class AdaptiveAllocatorTest {
+
+    private static final SeatStatus[] TAKEN = {SeatStatus.BOOKED, SeatStatus.BLOCKED, SeatStatus.HOUSE};
+
+    /*
+     * reference: the default rule with plain middle-out probing
+     */
+    private final CinemaService reference = new CinemaService();
+
+    {
+        reference.setAdaptiveAllocation(false);
+    }
+
+    /*
+     * hall of random shape, seats taken at random, in runs or around the middle
+     */
+    private static CinemaHall randomHall(Random random) {
+        int rows = 1 + random.nextInt(26);
+        int seatsPerRow = 1 + random.nextInt(50);
+        CinemaHall h = new CinemaHall("Random", rows, seatsPerRow);
+        double fill = random.nextDouble();
+        int pattern = random.nextInt(3);
+        Seat[][] seats = h.getSeats();
+        int center = (seatsPerRow - 1) / 2 + 1;
+        for (int r = 0; r < rows; r++) {
+            int halfWidth = random.nextInt(seatsPerRow / 2 + 1);
+            for (int c = 0; c < seatsPerRow; ) {
+                boolean take = switch (pattern) {
+                    case 0 -> random.nextDouble() < fill;
+                    case 1 -> Math.abs(c - center) <= halfWidth;
+                    default -> random.nextDouble() < fill;
+                };
+                // pattern 2 takes whole runs, fragmenting the row
+                int run = pattern == 2 ? 1 + random.nextInt(6) : 1;
+                for (int i = 0; i < run && c < seatsPerRow; i++, c++) {
+                    if (take) seats[r][c].setStatus(TAKEN[random.nextInt(TAKEN.length)]);
+                }
+            }
+        }
+        return h;
+    }
+
+    private static void assertSameResult(AllocationResult expected, AllocationResult actual, String context) {
+        assertEquals(expected.getStatus(), actual.getStatus(), context);
+        assertEquals(expected.getReason(), actual.getReason(), context);
+        assertArrayEquals(expected.toSeatIds(), actual.toSeatIds(), context);
+    }
+
+    /**
+     * Test Random Halls Match Middle Out
+     */
+    @Test
+    void testRandomHallsMatchMiddleOut() {
+        Random random = new Random(49);
+        AdaptiveAllocator adaptive = new AdaptiveAllocator();
+        // every row walks the free list
+        AdaptiveAllocator freeList = new AdaptiveAllocator(0, 2);
+        for (int i = 0; i < 3000; i++) {
+            CinemaHall h = randomHall(random);
+            int available = h.getAvailableSeatCount();
+            int tickets = 1 + random.nextInt(Math.max(1, available + 2));
+            int fromRow = random.nextInt(h.getRows());
+            String context = "case " + i + ": " + h.getRows() + "x" + h.getSeatsPerRow() + " tickets " + tickets + " from " + fromRow;
+
+            AllocationResult expected = reference.tryAllocateDefault(h, tickets, fromRow, new AllocationResult(tickets));
+            assertSameResult(expected, adaptive.allocate(h, tickets, fromRow, new AllocationResult(tickets)), context);
+            assertSameResult(expected, freeList.allocate(h, tickets, fromRow, new AllocationResult(tickets)), context);
+        }
+        assertTrue(adaptive.getFreeListRows() > 0);
+        assertTrue(adaptive.getMiddleOutRows() > 0);
+        assertEquals(0, freeList.getMiddleOutRows());
+    }
+
+    /**
+     * Test Booking Sequences Match Middle Out
+     */
+    @Test
+    void testBookingSequencesMatchMiddleOut() {
+        Random random = new Random(7);
+        CinemaService adaptive = new CinemaService();
+        for (int round = 0; round < 40; round++) {
+            int rows = 1 + random.nextInt(26);
+            int seatsPerRow = 1 + random.nextInt(50);
+            CinemaHall a = adaptive.configureHall("Adaptive" + round, rows, seatsPerRow);
+            CinemaHall b = reference.configureHall("Reference" + round, rows, seatsPerRow);
+            List<String> orders = new ArrayList<>();
+            for (int step = 0; step < 200; step++) {
+                // book until the hall fills, cancel now and then so freed seats open gaps
+                if (!orders.isEmpty() && random.nextInt(5) == 0) {
+                    String id = orders.remove(random.nextInt(orders.size()));
+                    adaptive.cancelOrder(a, id);
+                    reference.cancelOrder(b, id);
+                    continue;
+                }
+                int tickets = 1 + random.nextInt(Math.min(10, rows * seatsPerRow));
+                boolean fromPosition = random.nextInt(4) == 0;
+                char rowChar = (char) ('A' + random.nextInt(rows));
+                int seat = 1 + random.nextInt(seatsPerRow);
+                List<Seat> x;
+                try {
+                    x = fromPosition ? adaptive.bookFromPosition(a, tickets, rowChar, seat) : adaptive.bookDefault(a, tickets);
+                } catch (NotEnoughSeatsException e) {
+                    assertThrows(NotEnoughSeatsException.class, () -> {
+                        if (fromPosition) reference.bookFromPosition(b, tickets, rowChar, seat);
+                        else reference.bookDefault(b, tickets);
+                    });
+                    continue;
+                }
+                List<Seat> y = fromPosition ? reference.bookFromPosition(b, tickets, rowChar, seat) : reference.bookDefault(b, tickets);
+                assertEquals(y.stream().map(Seat::getLabel).toList(), x.stream().map(Seat::getLabel).toList(),
+                        "round " + round + " step " + step);
+                String id = "ORD-" + round + "-" + step;
+                adaptive.confirmOrder(a, Order.builder().id(id).build(), x);
+                reference.confirmOrder(b, Order.builder().id(id).build(), y);
+                orders.add(id);
+            }
+        }
+        assertTrue(adaptive.getAllocator().getFreeListRows() > 0);
+    }
+
+    /**
+     * Test Strategy Follows Fill
+     */
+    @Test
+    void testStrategyFollowsFill() {
+        AdaptiveAllocator allocator = new AdaptiveAllocator();
+        CinemaHall h = new CinemaHall("Inception", 3, 10);
+        Seat[][] seats = h.getSeats();
+        // row 0 mostly taken, row 1 dense but taken around the middle, row 2 empty
+        for (int c = 0; c < 8; c++) {
+            seats[0][c].setStatus(SeatStatus.BOOKED);
+        }
+        for (int c = 3; c <= 7; c++) {
+            seats[1][c].setStatus(SeatStatus.BOOKED);
+        }
+        assertEquals(Strategy.FREE_LIST, allocator.choose(h.getIndex(), 0, 10, 1));
+        assertEquals(Strategy.FREE_LIST, allocator.choose(h.getIndex(), 1, 10, 2));
+        assertEquals(Strategy.MIDDLE_OUT, allocator.choose(h.getIndex(), 1, 10, 4));
+        assertEquals(Strategy.MIDDLE_OUT, allocator.choose(h.getIndex(), 2, 10, 1));
+    }
+}
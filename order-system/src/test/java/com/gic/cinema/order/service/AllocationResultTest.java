@@ -0,0 +1,91 @@
+package com.gic.cinema.order.service;
+
+import com.gic.cinema.order.model.CinemaHall;
+import com.gic.cinema.order.model.Order;
+import com.gic.cinema.order.model.Seat;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the exception-free booking API
+ */
+class AllocationResultTest {
+
+    private final CinemaService cinemaService = new CinemaService();
+
+    /**
+     * Test Try Book Default Matches Book Default
+     */
+    @Test
+    void testTryBookDefaultMatchesBookDefault() {
+        CinemaHall a = cinemaService.configureHall("Inception", 5, 7);
+        CinemaHall b = cinemaService.configureHall("Dune", 5, 7);
+        AllocationResult r = new AllocationResult(1);
+        for (int tickets : new int[]{3, 8, 1, 7, 4}) {
+            List<Seat> seats = cinemaService.bookDefault(a, tickets);
+            cinemaService.confirmOrder(a, Order.builder().id("A-" + tickets).build(), seats);
+            assertTrue(cinemaService.tryBookDefault(b, tickets, r).isOk());
+            assertEquals(tickets, r.getCount());
+            List<Seat> tried = r.toSeats(b);
+            for (int i = 0; i < tickets; i++) {
+                assertEquals(seats.get(i).getLabel(), tried.get(i).getLabel());
+            }
+            cinemaService.confirmOrder(b, Order.builder().id("B-" + tickets).build(), tried);
+        }
+    }
+
+    /**
+     * Test Failures Come Back As Status Codes
+     */
+    @Test
+    void testFailuresComeBackAsStatusCodes() {
+        CinemaHall h = cinemaService.configureHall("Inception", 2, 4);
+        AllocationResult r = new AllocationResult();
+
+        assertEquals(AllocationResult.INVALID_TICKETS, cinemaService.tryBookDefault(h, 0, r).getStatus());
+        assertEquals(AllocationResult.NOT_ENOUGH_SEATS, cinemaService.tryBookDefault(h, 9, r).getStatus());
+        assertEquals("Not enough seats.", r.getReason());
+        assertEquals(0, r.getCount());
+        assertEquals(AllocationResult.OUT_OF_BOUNDS, cinemaService.tryBookFromPosition(h, 1, 'C', 1, r).getStatus());
+        assertEquals(AllocationResult.OUT_OF_BOUNDS, cinemaService.tryBookFromPosition(h, 1, 'A', 5, r).getStatus());
+        // row B is nearest the screen, there is no row left to overflow into
+        assertEquals(AllocationResult.NO_FIT, cinemaService.tryBookFromPosition(h, 3, 'B', 3, r).getStatus());
+
+        assertTrue(cinemaService.tryBookFromPosition(h, 3, 'A', 2, r).isOk());
+        assertEquals(List.of("A02", "A03", "A04"), r.toSeats(h).stream().map(Seat::getLabel).toList());
+
+        cinemaService.closeHall(h.getKey());
+        assertEquals(AllocationResult.CLOSED, cinemaService.tryBookDefault(h, 1, r).getStatus());
+        assertThrows(IllegalStateException.class, () -> cinemaService.bookDefault(h, 1));
+    }
+
+    /**
+     * Test Reused Result Keeps Its Buffer
+     */
+    @Test
+    void testReusedResultKeepsItsBuffer() {
+        CinemaHall h = cinemaService.configureHall("Inception", 26, 50);
+        AllocationResult r = new AllocationResult(64);
+        cinemaService.tryBookDefault(h, 40, r);
+        int[] before = r.toSeatIds();
+        cinemaService.tryBookDefault(h, 0, r);
+        assertFalse(r.isOk());
+        cinemaService.tryBookDefault(h, 40, r);
+        // nothing confirmed, so the same seats come back
+        assertArrayEquals(before, r.toSeatIds());
+        assertThrows(IndexOutOfBoundsException.class, () -> r.getSeatId(40));
+    }
+
+    /**
+     * Test Single Seat Rows Are Allocated
+     */
+    @Test
+    void testSingleSeatRowsAreAllocated() {
+        CinemaHall h = cinemaService.configureHall("Inception", 3, 1);
+        List<Seat> seats = cinemaService.bookDefault(h, 2);
+        assertEquals(List.of("A01", "B01"), seats.stream().map(Seat::getLabel).toList());
+    }
+}
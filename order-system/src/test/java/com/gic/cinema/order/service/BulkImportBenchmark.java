@@ -0,0 +1,103 @@
+package com.gic.cinema.order.service;
+
+import com.gic.cinema.order.model.CinemaHall;
+import com.gic.cinema.order.model.Order;
+import com.gic.cinema.order.model.Seat;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * BulkImportBenchmark - load pre-sold bookings: bulk import of a booking file vs one confirmOrder call per order.
+ * Run with: java -cp target/classes:target/test-classes com.gic.cinema.order.service.BulkImportBenchmark [bookings]
+ */
+public class BulkImportBenchmark {
+    private static final int ROWS = 26;
+    private static final int SEATS_PER_ROW = 50;
+    private static final int SEATS_PER_ORDER = 2;
+
+    public static void main(String[] args) throws Exception {
+        int bookings = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int perHall = ROWS * SEATS_PER_ROW / SEATS_PER_ORDER;
+        int halls = (bookings + perHall - 1) / perHall;
+        Path file = Files.createTempFile("bookings", ".csv");
+        try {
+            write(file, halls, bookings);
+            System.out.printf("%d bookings, %d halls, %d MB%n", bookings, halls, Files.size(file) >> 20);
+            for (int warm = 0; warm < 2; warm++) {
+                bulk(file, halls);
+            }
+            bulk(file, halls);
+            perOrder(file, halls, bookings);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /*
+     * one line per booking: hall_key, order_id, seats
+     */
+    private static void write(Path file, int halls, int bookings) throws Exception {
+        int perHall = ROWS * SEATS_PER_ROW / SEATS_PER_ORDER;
+        try (BufferedWriter w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            w.write("hall_key,order_id,seats\n");
+            for (int i = 0; i < bookings; i++) {
+                int hall = i % halls;
+                int seat = i / halls * SEATS_PER_ORDER;
+                String key = CinemaService.hallKey("Movie" + hall, ROWS, SEATS_PER_ROW);
+                w.write(key + ",PRE-" + i + "," + label(seat) + " " + label(seat + 1) + "\n");
+                if (i / halls >= perHall) throw new IllegalStateException("Too many bookings per hall.");
+            }
+        }
+    }
+
+    private static String label(int seat) {
+        return Seat.labelOf(seat / SEATS_PER_ROW, seat % SEATS_PER_ROW, ROWS);
+    }
+
+    private static CinemaService service(int halls) {
+        CinemaService service = new CinemaService();
+        for (int i = 0; i < halls; i++) {
+            service.configureHall("Movie" + i, ROWS, SEATS_PER_ROW);
+        }
+        return service;
+    }
+
+    private static void bulk(Path file, int halls) {
+        CinemaService service = service(halls);
+        long start = System.nanoTime();
+        ImportReport report = service.importBookings(file);
+        report(start, "bulk", report.getOrders(), report.getConflicts().size());
+    }
+
+    /*
+     * same bookings through confirmOrder, lines read up front so only booking time counts
+     */
+    private static void perOrder(Path file, int halls, int bookings) throws Exception {
+        CinemaService service = service(halls);
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        long start = System.nanoTime();
+        long orders = 0;
+        for (String line : lines.subList(1, lines.size())) {
+            String[] f = line.split(",");
+            CinemaHall h = service.getHall(f[0]);
+            List<Seat> seats = new ArrayList<>(SEATS_PER_ORDER);
+            for (String label : f[2].split(" ")) {
+                int[] pos = Seat.parseLabel(label, ROWS, SEATS_PER_ROW);
+                seats.add(h.getSeats()[pos[0]][pos[1]]);
+            }
+            service.confirmOrder(h, Order.builder().id(f[1]).build(), seats);
+            orders++;
+        }
+        report(start, "per-order", orders, bookings - orders);
+    }
+
+    private static void report(long start, String name, long orders, long conflicts) {
+        double secs = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-10s %8d orders %6d conflicts %7.2f s %10.0f orders/s%n", name, orders, conflicts, secs, orders / secs);
+    }
+}
@@ -0,0 +1,187 @@
+package com.gic.cinema.order.service;
+
+import com.gic.cinema.order.export.BookingExporter;
+import com.gic.cinema.order.model.CinemaHall;
+import com.gic.cinema.order.model.Order;
+import com.gic.cinema.order.model.Seat;
+import com.gic.cinema.order.model.SeatStatus;
+import com.gic.cinema.order.service.ImportConflict.Reason;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for BulkImporter
+ */
+class BulkImporterTest {
+
+    private final CinemaService cinemaService = new CinemaService();
+
+    @TempDir
+    Path dir;
+
+    /*
+     * write booking file, header first
+     */
+    private Path write(String... lines) throws IOException {
+        Path file = dir.resolve("bookings.csv");
+        Files.write(file, List.of(lines), StandardCharsets.UTF_8);
+        return file;
+    }
+
+    /**
+     * Test Conflict Report
+     */
+    @Test
+    void testConflictReport() throws IOException {
+        CinemaHall a = cinemaService.configureHall("Inception", 4, 10);
+        CinemaHall closed = cinemaService.configureHall("Dune", 4, 10);
+        cinemaService.confirmOrder(a, Order.builder().id("LIVE-1").build(), cinemaService.bookDefault(a, 2));
+        cinemaService.closeHall(closed.getKey());
+        String taken = a.getOrders().get("LIVE-1").getSeatLabels().get(0);
+        String k = a.getKey();
+
+        Path file = write(
+                "order_id,hall_key,seats,source",
+                "PRE-1," + k + ",A01 A02,legacy",
+                "PRE-2," + k + ",A01,legacy",
+                "PRE-3," + k + ",D01 E01,legacy",
+                "PRE-4," + k + "," + taken + ",legacy",
+                "PRE-1," + k + ",B01,legacy",
+                "PRE-5," + k + ",C01 C01,legacy",
+                "PRE-6,Nowhere,A01,legacy",
+                "PRE-7," + closed.getKey() + ",A01,legacy",
+                "PRE-8," + k,
+                "",
+                "PRE-9," + k + ",\"B02 B03\",legacy");
+        ImportReport report = cinemaService.importBookings(file);
+
+        assertEquals(11, report.getLines());
+        assertEquals(2, report.getOrders());
+        assertEquals(4, report.getSeats());
+        assertEquals(3, report.getHalls());
+        List<Reason> reasons = report.getConflicts().stream().map(ImportConflict::getReason).toList();
+        assertEquals(List.of(Reason.SEAT_TAKEN, Reason.INVALID_SEAT, Reason.SEAT_TAKEN, Reason.DUPLICATE_ORDER,
+                Reason.INVALID_SEAT, Reason.UNKNOWN_HALL, Reason.HALL_CLOSED, Reason.MALFORMED), reasons);
+        assertEquals(List.of(3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L),
+                report.getConflicts().stream().map(ImportConflict::getLine).toList());
+        assertEquals("A01 taken by PRE-1.", report.getConflicts().get(0).getDetail());
+
+        // seats of rejected lines stay free, booked orders are in the hall and in its event stream
+        assertEquals(List.of("A01", "A02"), a.getOrders().get("PRE-1").getSeatLabels());
+        assertEquals(List.of("B02", "B03"), a.getOrders().get("PRE-9").getSeatLabels());
+        assertEquals(SeatStatus.AVAILABLE, a.getSeats()[1][0].getStatus());
+        assertEquals(SeatStatus.AVAILABLE, a.getSeats()[0][0].getStatus());
+        assertEquals(40 - 2 - 4, a.getAvailableSeatCount());
+        assertEquals(a.getAvailableSeatCount(), a.getSnapshot().getAvailableCount());
+        CinemaHall replayed = cinemaService.getEventStore().replay(k);
+        assertEquals(a.getOrders().keySet(), replayed.getOrders().keySet());
+        assertEquals("PRE-9", replayed.getSeats()[2][2].getOrderId());
+
+        Path conflicts = dir.resolve("conflicts.csv");
+        report.writeConflicts(conflicts);
+        assertEquals(9, Files.readAllLines(conflicts).size());
+    }
+
+    /**
+     * Test Parallel Chunks Keep File Order
+     */
+    @Test
+    void testParallelChunksKeepFileOrder() throws IOException {
+        List<CinemaHall> halls = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            halls.add(cinemaService.configureHall("Movie" + i, 26, 50));
+        }
+        // ~3MB so the file splits into several chunks, the last line of every hall clashes with its first
+        Path file = dir.resolve("bookings.csv");
+        long lines = 0;
+        try (BufferedWriter w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            w.write("hall_key,order_id,seats\n");
+            for (int r = 0; r < 26; r++) {
+                for (int c = 1; c <= 50; c++) {
+                    for (CinemaHall h : halls) {
+                        String label = Seat.labelOf(h.getRows() - 1 - r, c - 1, h.getRows());
+                        w.write(h.getKey() + ",ORD-" + r + "-" + c + "-" + "x".repeat(80) + "," + label + "\n");
+                        lines++;
+                    }
+                }
+            }
+            for (CinemaHall h : halls) {
+                w.write(h.getKey() + ",LATE," + "A01\n");
+                lines++;
+            }
+        }
+        assertTrue(Files.size(file) > 3 << 20);
+
+        ImportReport report = new BulkImporter(cinemaService, 8).importFile(file);
+        assertEquals(lines, report.getLines());
+        assertEquals(20 * 26 * 50, report.getOrders());
+        assertEquals(20, report.getConflicts().size());
+        for (ImportConflict c : report.getConflicts()) {
+            assertEquals(Reason.SEAT_TAKEN, c.getReason());
+            assertEquals("A01 taken by ORD-0-1-" + "x".repeat(80) + ".", c.getDetail());
+        }
+        for (CinemaHall h : halls) {
+            assertEquals(0, h.getAvailableSeatCount());
+        }
+    }
+
+    /**
+     * Test Import Waits For Commit Barriers Outside The Hall Lock
+     */
+    @Test
+    void testImportWaitsForCommitBarriersOutsideTheHallLock() throws IOException {
+        CinemaHall a = cinemaService.configureHall("Inception", 4, 10);
+        CinemaHall b = cinemaService.configureHall("Dune", 4, 10);
+        AtomicInteger barriers = new AtomicInteger();
+        cinemaService.addCommitBarrier(() -> {
+            assertFalse(Thread.holdsLock(a));
+            assertFalse(Thread.holdsLock(b));
+            barriers.incrementAndGet();
+        });
+        Path file = write("order_id,hall_key,seats",
+                "PRE-1," + a.getKey() + ",A01",
+                "PRE-2," + b.getKey() + ",A01",
+                "PRE-3," + b.getKey() + ",A02");
+
+        ImportReport report = new BulkImporter(cinemaService, 2).importFile(file);
+        assertEquals(3, report.getOrders());
+        // once per hall, not per line
+        assertEquals(2, barriers.get());
+    }
+
+    /**
+     * Test Import Exported Orders
+     */
+    @Test
+    void testImportExportedOrders() throws IOException {
+        CinemaHall a = cinemaService.configureHall("Inception", 8, 10);
+        for (int i = 0; i < 5; i++) {
+            cinemaService.confirmOrder(a, Order.builder().id("ORD-" + i).build(), cinemaService.bookDefault(a, 7));
+        }
+        Path orders = dir.resolve("orders.csv");
+        new BookingExporter(cinemaService.getEventStore()).exportCsv(orders, dir.resolve("seats.csv"));
+
+        CinemaService target = new CinemaService();
+        CinemaHall b = target.configureHall("Inception", 8, 10);
+        ImportReport report = target.importBookings(orders);
+        assertTrue(report.getConflicts().isEmpty());
+        assertEquals(5, report.getOrders());
+        for (int r = 0; r < 8; r++) {
+            for (int c = 0; c < 10; c++) {
+                assertEquals(a.getSeats()[r][c].getStatus(), b.getSeats()[r][c].getStatus());
+                assertEquals(a.getSeats()[r][c].getOrderId(), b.getSeats()[r][c].getOrderId());
+            }
+        }
+    }
+}
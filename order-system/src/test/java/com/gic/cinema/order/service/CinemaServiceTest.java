@@ -1,15 +1,28 @@
 package com.gic.cinema.order.service;
 
+import com.gic.cinema.order.event.HallEventType;
 import com.gic.cinema.order.exception.NotEnoughSeatsException;
+import com.gic.cinema.order.model.AvailabilitySnapshot;
 import com.gic.cinema.order.model.CinemaHall;
 import com.gic.cinema.order.model.Order;
 import com.gic.cinema.order.model.Seat;
+import com.gic.cinema.order.model.SeatDelta;
+import com.gic.cinema.order.model.SeatFeedSubscription;
+import com.gic.cinema.order.model.SeatMapTemplate;
+import com.gic.cinema.order.model.SeatQuality;
 import com.gic.cinema.order.model.SeatStatus;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -247,4 +260,456 @@ class CinemaServiceTest {
         assertEquals(1, bookings.size());
         assertTrue(bookings.contains(order));
     }
-}
\ No newline at end of file
+
+    // ====================
+    // scheduleShowtime tests
+    // ====================
+
+    /**
+     * Test Showtimes Share Template Until First Booking
+     */
+    @Test
+    void testShowtimesShareTemplateUntilFirstBooking() {
+        SeatMapTemplate template = cinemaService.defineTemplate("Hall_2", 3, 4,
+                Map.of("A01", SeatStatus.BLOCKED, "C04", SeatStatus.HOUSE));
+        LocalDateTime start = LocalDateTime.of(2026, 10, 19, 18, 0);
+        CinemaHall early = cinemaService.scheduleShowtime("Movie", template, start);
+        CinemaHall late = cinemaService.scheduleShowtime("Movie", template, start.plusHours(3));
+
+        assertNotSame(early, late);
+        assertFalse(early.isMaterialized());
+        assertEquals(10, early.getAvailableSeatCount());
+        assertEquals(SeatStatus.BLOCKED, early.getSeatStatus(2, 0));
+
+        // booking the early show copies its seat map only
+        cinemaService.selectHall(early.getKey());
+        List<Seat> seats = cinemaService.bookDefault(10);
+        cinemaService.confirmOrder(early, Order.builder().id("ORD-1").build(), seats);
+
+        assertTrue(early.isMaterialized());
+        assertEquals(0, early.getAvailableSeatCount());
+        assertFalse(late.isMaterialized());
+        assertEquals(10, late.getAvailableSeatCount());
+        assertEquals(SeatStatus.HOUSE, early.getSeats()[0][3].getStatus());
+    }
+
+    /**
+     * Test Schedule Same Showtime Twice Returns Same Hall And Lists In Start Order
+     */
+    @Test
+    void testScheduleSameShowtimeTwiceReturnsSameHall() {
+        SeatMapTemplate template = cinemaService.defineTemplate("Hall_2", 3, 4, Map.of());
+        LocalDateTime start = LocalDateTime.of(2026, 10, 19, 21, 0);
+        CinemaHall late = cinemaService.scheduleShowtime("Movie", template, start);
+        CinemaHall early = cinemaService.scheduleShowtime("Movie", template, start.minusHours(2));
+
+        assertSame(late, cinemaService.scheduleShowtime("Movie", template, start));
+        assertEquals(List.of(early, late), cinemaService.getShowtimes("Movie"));
+        assertThrows(IllegalArgumentException.class,
+                () -> cinemaService.defineTemplate("Hall_2", 3, 4, Map.of("Z01", SeatStatus.BLOCKED)));
+    }
+
+    // ====================
+    // cancelOrder / releaseSeats tests
+    // ====================
+
+    /**
+     * Test Cancel Order Releases Seats And Removes Order
+     */
+    @Test
+    void testCancelOrderReleasesSeatsAndRemovesOrder() {
+        CinemaHall hall = cinemaService.configureHall("Movie", 2, 4);
+        List<Seat> allocated = cinemaService.bookDefault(3);
+        cinemaService.confirmOrder(hall, Order.builder().id("ORD-1").build(), allocated);
+        assertEquals(5, hall.getAvailableSeatCount());
+        assertEquals(1, hall.getIndex().getRowFreeCount(1));
+
+        cinemaService.cancelOrder(hall, "ORD-1");
+
+        assertEquals(8, hall.getAvailableSeatCount());
+        assertEquals(4, hall.getIndex().getRowFreeCount(1));
+        assertTrue(allocated.stream().allMatch(s -> s.getStatus() == SeatStatus.AVAILABLE && s.getOrderId() == null));
+        assertFalse(hall.getOrders().containsKey("ORD-1"));
+        assertThrows(IllegalArgumentException.class, () -> cinemaService.cancelOrder(hall, "ORD-1"));
+    }
+
+    /**
+     * Test Release Seats Keeps Rest Of Order And Rejects Foreign Seats
+     */
+    @Test
+    void testReleaseSeatsKeepsRestOfOrderAndRejectsForeignSeats() {
+        CinemaHall hall = cinemaService.configureHall("Movie", 2, 4);
+        cinemaService.confirmOrder(hall, Order.builder().id("ORD-1").build(), cinemaService.bookDefault(3));
+        Order order = hall.getOrders().get("ORD-1");
+        String kept = order.getSeatLabels().get(0);
+        String released = order.getSeatLabels().get(1);
+
+        // a seat not in the order releases nothing
+        assertThrows(IllegalArgumentException.class,
+                () -> cinemaService.releaseSeats(hall, "ORD-1", List.of(released, "B01")));
+        assertEquals(5, hall.getAvailableSeatCount());
+
+        Order before = order;
+        order = cinemaService.releaseSeats(hall, "ORD-1", List.of(released));
+
+        assertEquals(6, hall.getAvailableSeatCount());
+        // the booked order is replaced by a copy, never changed in place
+        assertEquals(3, before.getTickets());
+        assertSame(order, hall.getOrders().get("ORD-1"));
+        assertEquals(2, order.getTickets());
+        assertFalse(order.getSeatLabels().contains(released));
+        assertTrue(order.getSeatLabels().contains(kept));
+
+        // event stream replays to the same state
+        CinemaHall rebuilt = cinemaService.getEventStore().replay(hall.getKey());
+        assertEquals(6, rebuilt.getAvailableSeatCount());
+        assertEquals(order.getSeatLabels(), rebuilt.getOrders().get("ORD-1").getSeatLabels());
+    }
+
+    // ====================
+    // bookBest tests
+    // ====================
+
+    /**
+     * Test Book Best Picks Highest Scores And Follows Bookings And Releases
+     */
+    @Test
+    void testBookBestPicksHighestScoresAndFollowsBookingsAndReleases() {
+        CinemaHall hall = cinemaService.configureHall("Movie", 6, 9);
+        SeatQuality quality = cinemaService.qualityOf(hall);
+
+        List<Seat> best = cinemaService.bookBest(4);
+        assertEquals(4, best.size());
+        // no free seat scores better than the worst one picked
+        int worstPicked = best.stream().mapToInt(s -> quality.scoreOf(hall.seatIdOf(s))).min().getAsInt();
+        for (Seat[] row : hall.getSeats()) {
+            for (Seat s : row) {
+                if (!best.contains(s)) assertTrue(quality.scoreOf(hall.seatIdOf(s)) <= worstPicked);
+            }
+        }
+
+        // booked seats leave the index, released seats come back
+        cinemaService.confirmOrder(hall, Order.builder().id("ORD-1").build(), best);
+        List<Seat> next = cinemaService.bookBest(4);
+        assertTrue(next.stream().noneMatch(best::contains));
+        cinemaService.cancelOrder(hall, "ORD-1");
+        assertEquals(best, cinemaService.bookBest(4));
+    }
+
+    /**
+     * Test Book Best Rejects Closed Hall
+     */
+    @Test
+    void testBookBestRejectsClosedHall() {
+        CinemaHall hall = cinemaService.configureHall("Movie", 6, 9);
+        cinemaService.closeHall(hall.getKey());
+        assertThrows(IllegalStateException.class, () -> cinemaService.bookBest(2));
+    }
+
+    /**
+     * Test Book Group Rejects Closed Hall
+     */
+    @Test
+    void testBookGroupRejectsClosedHall() {
+        CinemaHall hall = cinemaService.configureHall("Movie", 8, 10);
+        cinemaService.closeHall(hall.getKey());
+        assertThrows(IllegalStateException.class, () -> cinemaService.bookGroup(25));
+    }
+
+    /**
+     * Test Book Group Keeps Party In Consecutive Rows
+     */
+    @Test
+    void testBookGroupKeepsPartyInConsecutiveRows() {
+        CinemaHall hall = cinemaService.configureHall("Movie", 8, 10);
+
+        List<Seat> seats = cinemaService.bookGroup(25);
+
+        assertEquals(25, seats.size());
+        assertEquals(3, seats.stream().mapToInt(Seat::getRowIndex).distinct().count());
+        int minRow = seats.stream().mapToInt(Seat::getRowIndex).min().getAsInt();
+        int maxRow = seats.stream().mapToInt(Seat::getRowIndex).max().getAsInt();
+        assertEquals(2, maxRow - minRow);
+        assertTrue(seats.stream().allMatch(s -> s.getStatus() == SeatStatus.AVAILABLE));
+        assertEquals(80, hall.getAvailableSeatCount());
+    }
+
+    // ====================
+    // availability snapshot tests
+    // ====================
+
+    /**
+     * Test Commits Publish New Snapshots And Leave Old Ones Unchanged
+     */
+    @Test
+    void testCommitsPublishNewSnapshotsAndLeaveOldOnesUnchanged() {
+        CinemaHall hall = cinemaService.configureHall("Movie", 2, 4);
+        AvailabilitySnapshot before = hall.getSnapshot();
+
+        List<Seat> seats = cinemaService.bookDefault(3);
+        // allocation alone commits nothing
+        assertSame(before, hall.getSnapshot());
+        cinemaService.confirmOrder(hall, Order.builder().id("ORD-1").build(), seats);
+        AvailabilitySnapshot after = hall.getSnapshot();
+
+        assertTrue(after.getVersion() > before.getVersion());
+        assertEquals(8, before.getAvailableCount());
+        assertEquals(5, after.getAvailableCount());
+        assertEquals(3, after.getBookedCount());
+        Seat first = seats.get(0);
+        assertEquals(SeatStatus.AVAILABLE, before.statusAt(first.getRowIndex(), first.getColIndex()));
+        assertEquals(SeatStatus.BOOKED, after.statusAt(first.getRowIndex(), first.getColIndex()));
+        assertEquals(3, Long.bitCount(after.occupancy()[0]));
+
+        cinemaService.cancelOrder(hall, "ORD-1");
+        assertEquals(8, hall.getSnapshot().getAvailableCount());
+        assertEquals(5, after.getAvailableCount());
+    }
+
+    /**
+     * Test Published Orders Follow Snapshots
+     */
+    @Test
+    void testPublishedOrdersFollowSnapshots() {
+        CinemaHall hall = cinemaService.configureHall("Movie", 2, 4);
+        List<Seat> seats = cinemaService.bookDefault(3);
+        assertTrue(hall.getPublishedOrders().isEmpty());
+
+        cinemaService.confirmOrder(hall, Order.builder().id("ORD-1").build(), seats);
+        List<Order> published = hall.getPublishedOrders();
+        assertEquals(List.of("ORD-1"), published.stream().map(Order::getId).toList());
+        assertEquals(5, hall.getPublishedAvailableSeatCount());
+        assertThrows(UnsupportedOperationException.class, () -> published.remove(0));
+
+        cinemaService.cancelOrder(hall, "ORD-1");
+        assertTrue(hall.getPublishedOrders().isEmpty());
+        assertEquals(1, published.size());
+        assertEquals(8, hall.getPublishedAvailableSeatCount());
+    }
+
+    /**
+     * Test Release Publishes A Copy And Keeps Booking Order
+     */
+    @Test
+    void testReleasePublishesACopyAndKeepsBookingOrder() {
+        CinemaHall hall = cinemaService.configureHall("Movie", 10, 10);
+        for (int i = 0; i < 40; i++) {
+            cinemaService.confirmOrder(hall, Order.builder().id("ORD-" + i).build(), cinemaService.bookDefault(2));
+        }
+        Order before = hall.getPublishedOrder("ORD-5");
+        List<Order> published = hall.getPublishedOrders();
+        Order after = cinemaService.releaseSeats(hall, "ORD-5", List.of(before.getSeatLabels().get(0)));
+
+        // readers of the old snapshot still see the order as it was
+        assertEquals(2, before.getTickets());
+        assertEquals(2, published.get(5).getTickets());
+        assertEquals(1, after.getTickets());
+        assertSame(after, hall.getPublishedOrder("ORD-5"));
+
+        // cancel enough orders to compact the tombstones, the rest stay in booking order
+        for (int i = 0; i < 30; i++) {
+            if (i != 5) cinemaService.cancelOrder(hall, "ORD-" + i);
+        }
+        assertEquals(40, published.size());
+        assertSame(before, published.stream().filter(o -> o.getId().equals("ORD-5")).findFirst().orElseThrow());
+        List<String> ids = hall.getPublishedOrders().stream().map(Order::getId).toList();
+        assertEquals(11, ids.size());
+        assertEquals("ORD-30", ids.get(0));
+        assertEquals("ORD-5", ids.get(10));
+        assertNull(hall.getPublishedOrder("ORD-0"));
+        assertEquals("ORD-39", hall.getPublishedOrder("ORD-39").getId());
+    }
+
+    /**
+     * Test Unbooked Showtimes Share The Template Snapshot
+     */
+    @Test
+    void testUnbookedShowtimesShareTheTemplateSnapshot() {
+        SeatMapTemplate template = cinemaService.defineTemplate("Hall_2", 3, 4, Map.of("A01", SeatStatus.HOUSE));
+        LocalDateTime start = LocalDateTime.of(2026, 10, 19, 18, 0);
+        CinemaHall early = cinemaService.scheduleShowtime("Movie", template, start);
+        CinemaHall late = cinemaService.scheduleShowtime("Movie", template, start.plusHours(3));
+
+        assertSame(early.getSnapshot(), late.getSnapshot());
+        assertEquals(11, early.getSnapshot().getAvailableCount());
+        assertEquals(SeatStatus.BLOCKED, early.getSnapshot().statusAt(2, 0));
+        assertFalse(early.isMaterialized());
+    }
+
+    // ====================
+    // seat change feed tests
+    // ====================
+
+    /**
+     * Test Feed Sends Deltas Per Commit And Asks Slow Subscriber To Resync
+     */
+    @Test
+    void testFeedSendsDeltasPerCommitAndAsksSlowSubscriberToResync() throws Exception {
+        CinemaHall hall = cinemaService.configureHall("Movie", 2, 4);
+        SeatFeedSubscription fast = hall.subscribe(8);
+        SeatFeedSubscription slow = hall.subscribe(1);
+
+        List<Seat> seats = cinemaService.bookDefault(3);
+        cinemaService.confirmOrder(hall, Order.builder().id("ORD-1").build(), seats);
+        cinemaService.releaseSeats(hall, "ORD-1", List.of(seats.get(0).getLabel()));
+
+        SeatDelta booked = fast.poll(1, TimeUnit.SECONDS);
+        assertEquals(SeatStatus.BOOKED, booked.getStatus());
+        assertEquals(3, booked.getSeatIds().length);
+        SeatDelta released = fast.poll(1, TimeUnit.SECONDS);
+        assertEquals(SeatStatus.AVAILABLE, released.getStatus());
+        assertArrayEquals(new int[]{hall.seatIdOf(seats.get(0))}, released.getSeatIds());
+        assertTrue(released.getVersion() > booked.getVersion());
+        assertNull(fast.poll(0, TimeUnit.SECONDS));
+
+        // slow subscriber overflowed on the second commit
+        assertTrue(slow.isResyncRequired());
+        assertNull(slow.poll(0, TimeUnit.SECONDS));
+        AvailabilitySnapshot snapshot = slow.resync();
+        assertEquals(6, snapshot.getAvailableCount());
+        assertFalse(slow.isResyncRequired());
+        slow.close();
+    }
+
+    // ====================
+    // idempotency tests
+    // ====================
+
+    /**
+     * Test Retried Confirm Returns Original Order Without Touching Seats
+     */
+    @Test
+    void testRetriedConfirmReturnsOriginalOrderWithoutTouchingSeats() {
+        CinemaHall hall = cinemaService.configureHall("Movie", 3, 5);
+        List<Seat> seats = cinemaService.bookDefault("req-1", hall, 3);
+        // nothing is held before confirm: a retry allocates again and gets the same free seats
+        assertEquals(seats, cinemaService.bookDefault("req-1", hall, 3));
+
+        Order first = cinemaService.confirmOrder("req-1", hall, Order.builder().id("ORD-1").build(), seats);
+        long version = hall.getSnapshot().getVersion();
+        // after confirm the key is bound to the order and a booking retry gets its seats
+        assertEquals(seats.stream().map(Seat::getLabel).sorted().toList(),
+                cinemaService.bookDefault("req-1", hall, 3).stream().map(Seat::getLabel).toList());
+        // client timed out and retries with a fresh order id
+        Order retry = cinemaService.confirmOrder("req-1", hall, Order.builder().id("ORD-2").build(), seats);
+
+        assertSame(first, retry);
+        assertEquals(1, hall.getOrders().size());
+        assertEquals(version, hall.getSnapshot().getVersion());
+        assertEquals(12, hall.getAvailableSeatCount());
+    }
+
+    /**
+     * Test Confirm Rejects Seats Booked By Another Order
+     */
+    @Test
+    void testConfirmRejectsSeatsBookedByAnotherOrder() {
+        CinemaHall hall = cinemaService.configureHall("Movie", 3, 5);
+        List<Seat> seats = cinemaService.bookDefault(hall, 2);
+        cinemaService.confirmOrder(hall, Order.builder().id("ORD-1").build(), seats);
+
+        assertThrows(NotEnoughSeatsException.class,
+                () -> cinemaService.confirmOrder("req-2", hall, Order.builder().id("ORD-2").build(), seats));
+        assertEquals("ORD-1", seats.get(0).getOrderId());
+        // failed request is not cached, a retry with fresh seats goes through
+        List<Seat> fresh = cinemaService.bookDefault(hall, 2);
+        assertEquals("ORD-2", cinemaService.confirmOrder("req-2", hall, Order.builder().id("ORD-2").build(), fresh).getId());
+    }
+
+    // ====================
+    // off-heap seat tests
+    // ====================
+
+    /**
+     * Test Off Heap Hall Books Like Heap Hall And Frees Order Slots
+     */
+    @Test
+    void testOffHeapHallBooksLikeHeapHallAndFreesOrderSlots() {
+        CinemaService offHeapService = new CinemaService();
+        offHeapService.setOffHeapSeats(true);
+        CinemaHall heap = cinemaService.configureHall("Movie", 5, 8);
+        CinemaHall offHeap = offHeapService.configureHall("Movie", 5, 8);
+        assertNotNull(offHeap.getOffHeap());
+        assertEquals(40, offHeap.getAvailableSeatCount());
+
+        for (int i = 0; i < 4; i++) {
+            cinemaService.confirmOrder(heap, Order.builder().id("ORD-" + i).build(), cinemaService.bookDefault(heap, 3));
+            offHeapService.confirmOrder(offHeap, Order.builder().id("ORD-" + i).build(), offHeapService.bookDefault(offHeap, 3));
+        }
+        cinemaService.confirmOrder(heap, Order.builder().id("ORD-4").build(), cinemaService.bookFromPosition(heap, 4, 'C', 6));
+        offHeapService.confirmOrder(offHeap, Order.builder().id("ORD-4").build(), offHeapService.bookFromPosition(offHeap, 4, 'C', 6));
+        assertEquals(5, offHeap.getOffHeap().getOrderSlotCount());
+        cinemaService.cancelOrder(heap, "ORD-1");
+        offHeapService.cancelOrder(offHeap, "ORD-1");
+        assertEquals(4, offHeap.getOffHeap().getOrderSlotCount());
+
+        // render views are built per call and not kept by the hall
+        assertNotSame(offHeap.getSeats(), offHeap.getSeats());
+        assertEquals(heap.getAvailableSeatCount(), offHeap.getAvailableSeatCount());
+        for (int r = 0; r < 5; r++) {
+            for (int c = 0; c < 8; c++) {
+                assertEquals(heap.getSeatStatus(r, c), offHeap.getSeatStatus(r, c));
+                assertEquals(heap.getSeats()[r][c].getOrderId(), offHeap.getSeats()[r][c].getOrderId());
+            }
+        }
+        assertEquals(heap.getOrders(), offHeap.getOrders());
+        assertEquals(heap.getSnapshot().getAvailableCount(), offHeap.getSnapshot().getAvailableCount());
+
+        // a freed slot is reused by the next order
+        List<Seat> seats = offHeapService.bookDefault(offHeap, 2);
+        offHeapService.confirmOrder(offHeap, Order.builder().id("ORD-5").build(), seats);
+        assertEquals(5, offHeap.getOffHeap().getOrderSlotCount());
+        assertEquals("ORD-5", offHeap.seatAt(offHeap.seatIdOf(seats.get(1))).getOrderId());
+    }
+
+    /**
+     * Test Off Heap Showtime Keeps Template Layout
+     */
+    @Test
+    void testOffHeapShowtimeKeepsTemplateLayout() {
+        cinemaService.setOffHeapSeats(true);
+        SeatMapTemplate template = cinemaService.defineTemplate("Hall_1", 4, 6, Map.of("A01", SeatStatus.BLOCKED));
+        CinemaHall showtime = cinemaService.scheduleShowtime("Movie", template, LocalDateTime.of(2026, 1, 1, 20, 0));
+        assertSame(template.getInitialSnapshot(), showtime.getSnapshot());
+        assertEquals(23, showtime.getAvailableSeatCount());
+        assertEquals(SeatStatus.BLOCKED, showtime.getSeatStatus(3, 0));
+
+        List<Seat> seats = cinemaService.bookDefault(showtime, 2);
+        cinemaService.confirmOrder(showtime, Order.builder().id("ORD-1").build(), seats);
+        assertEquals(21, showtime.getAvailableSeatCount());
+        assertEquals(SeatStatus.BLOCKED, showtime.getSeats()[3][0].getStatus());
+        assertEquals("ORD-1", showtime.seatAt(showtime.seatIdOf(seats.get(0))).getOrderId());
+    }
+
+    /**
+     * Test Concurrent Configure Records One Hall
+     * @throws Exception
+     */
+    @Test
+    void testConcurrentConfigureRecordsOneHall() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<CinemaHall>> halls = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                final String id = "ORD-" + i;
+                halls.add(pool.submit(() -> {
+                    CinemaHall h = cinemaService.configureHall("Inception", 5, 8);
+                    // booking right after configure finds the CONFIGURED event in place
+                    synchronized (h) {
+                        cinemaService.confirmOrder(h, Order.builder().id(id).build(), cinemaService.bookDefault(h, 1));
+                    }
+                    return h;
+                }));
+            }
+            CinemaHall first = halls.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<CinemaHall> f : halls) {
+                assertSame(first, f.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(8, first.getAvailableSeatCount());
+            assertEquals(1, cinemaService.getEventStore().getEvents(first.getKey()).stream()
+                    .filter(e -> e.getType() == HallEventType.CONFIGURED).count());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.gic.cinema.order.service;
+
+import com.gic.cinema.order.exception.NotEnoughSeatsException;
+import com.gic.cinema.order.model.CinemaHall;
+import com.gic.cinema.order.model.Order;
+import com.gic.cinema.order.model.Seat;
+import com.gic.cinema.order.model.SeatStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for FlashSaleAllocator
+ */
+class FlashSaleAllocatorTest {
+
+    private final CinemaService cinemaService = new CinemaService();
+    private final ExecutorService pool = Executors.newFixedThreadPool(8);
+
+    /**
+     * stop thread pool after test case
+     */
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+        cinemaService.flashSale().close();
+    }
+
+    /*
+     * booked seat labels of hall
+     */
+    private static Set<String> booked(CinemaHall h) {
+        Set<String> labels = new TreeSet<>();
+        for (Seat[] row : h.getSeats()) {
+            for (Seat s : row) {
+                if (s.getStatus() == SeatStatus.BOOKED) labels.add(s.getLabel());
+            }
+        }
+        return labels;
+    }
+
+    /**
+     * Test Concurrent Requests Fill Hall Like Sequential Default Rule
+     * @throws Exception
+     */
+    @Test
+    void testConcurrentRequestsFillHallLikeSequentialDefaultRule() throws Exception {
+        CinemaHall hot = cinemaService.configureHall("Hot", 10, 20);
+        List<Future<CompletableFuture<Order>>> submitted = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            final String id = "ORD-" + i;
+            submitted.add(pool.submit(() -> cinemaService.bookFlashSale(hot, Order.builder().id(id).build(), 2)));
+        }
+        Set<String> seen = new HashSet<>();
+        for (Future<CompletableFuture<Order>> f : submitted) {
+            Order o = f.get(5, TimeUnit.SECONDS).get(5, TimeUnit.SECONDS);
+            assertEquals(2, o.getTickets());
+            for (String label : o.getSeatLabels()) {
+                assertTrue(seen.add(label), "seat sold twice: " + label);
+            }
+        }
+        assertEquals(80, hot.getAvailableSeatCount());
+        assertEquals(60, hot.getOrders().size());
+
+        // pairs of the default rule fill the same seats whatever the arrival order
+        CinemaHall plain = cinemaService.configureHall("Plain", 10, 20);
+        for (int i = 0; i < 60; i++) {
+            cinemaService.confirmOrder(plain, Order.builder().id("ORD-" + i).build(), cinemaService.bookDefault(plain, 2));
+        }
+        assertEquals(booked(plain), booked(hot));
+    }
+
+    /**
+     * Test Oversold Requests Fail Alone
+     * @throws Exception
+     */
+    @Test
+    void testOversoldRequestsFailAlone() throws Exception {
+        CinemaHall hall = cinemaService.configureHall("Movie", 2, 5);
+        List<CompletableFuture<Order>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(cinemaService.bookFlashSale(hall, Order.builder().id("ORD-" + i).build(), 3));
+        }
+        int ok = 0;
+        int failed = 0;
+        for (CompletableFuture<Order> r : results) {
+            try {
+                r.get(5, TimeUnit.SECONDS);
+                ok++;
+            } catch (ExecutionException e) {
+                assertInstanceOf(NotEnoughSeatsException.class, e.getCause());
+                failed++;
+            }
+        }
+        assertEquals(3, ok);
+        assertEquals(5, failed);
+        assertEquals(1, hall.getAvailableSeatCount());
+    }
+
+    /**
+     * Test Position Request Books From Start Seat
+     * @throws Exception
+     */
+    @Test
+    void testPositionRequestBooksFromStartSeat() throws Exception {
+        CinemaHall hall = cinemaService.configureHall("Movie", 3, 5);
+        Order o = cinemaService.flashSale().submit(hall, Order.builder().id("ORD-1").build(), 2, 'B', 4).get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("B04", "B05"), o.getSeatLabels());
+        assertThrows(IllegalArgumentException.class,
+                () -> cinemaService.flashSale().submit(hall, Order.builder().id("ORD-2").build(), 2, 'Z', 1));
+    }
+
+    /**
+     * Test Removed Hall Drops Its Queue
+     * @throws Exception
+     */
+    @Test
+    void testRemovedHallDropsItsQueue() throws Exception {
+        CinemaHall hall = cinemaService.configureHall("Movie", 3, 5);
+        cinemaService.bookFlashSale(hall, Order.builder().id("ORD-1").build(), 2).get(5, TimeUnit.SECONDS);
+        assertEquals(1, cinemaService.flashSale().getQueueCount());
+        cinemaService.removeHall(hall.getKey());
+        assertEquals(0, cinemaService.flashSale().getQueueCount());
+        // a late submit must not bring the queue back
+        assertThrows(IllegalStateException.class,
+                () -> cinemaService.bookFlashSale(hall, Order.builder().id("ORD-2").build(), 2));
+        assertEquals(0, cinemaService.flashSale().getQueueCount());
+        assertEquals(13, hall.getAvailableSeatCount());
+    }
+
+    /**
+     * Test Failing Barrier Fails Its Batch And Frees The Combiner
+     * @throws Exception
+     */
+    @Test
+    void testFailingBarrierFailsItsBatchAndFreesTheCombiner() throws Exception {
+        CinemaHall h = cinemaService.configureHall("Movie", 5, 10);
+        boolean[] broken = {true};
+        cinemaService.addCommitBarrier(() -> {
+            if (broken[0]) throw new IllegalStateException("disk full");
+        });
+        CompletableFuture<Order> first = cinemaService.bookFlashSale(h, Order.builder().id("ORD-1").build(), 2);
+        ExecutionException e = assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+        assertEquals("disk full", e.getCause().getMessage());
+
+        broken[0] = false;
+        Order second = cinemaService.bookFlashSale(h, Order.builder().id("ORD-2").build(), 2).get(5, TimeUnit.SECONDS);
+        assertEquals("ORD-2", second.getId());
+        assertEquals(2, cinemaService.flashSale().getBatches());
+    }
+
+    /**
+     * Test Combiner Hands Off After Max Batches
+     * @throws Exception
+     */
+    @Test
+    void testCombinerHandsOffAfterMaxBatches() throws Exception {
+        CinemaHall h = cinemaService.configureHall("Movie", 10, 10);
+        FlashSaleAllocator oneByOne = new FlashSaleAllocator(cinemaService, 1, 100);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread[] combiner = new Thread[1];
+        Map<Thread, Integer> batchesBy = new ConcurrentHashMap<>();
+        cinemaService.addCommitBarrier(() -> {
+            batchesBy.merge(Thread.currentThread(), 1, Integer::sum);
+            if (Thread.currentThread() == combiner[0] && holding.getCount() > 0) {
+                holding.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        // first caller becomes the combiner and is held in its first batch while the rest queue up
+        Future<CompletableFuture<Order>> first = pool.submit(() -> {
+            combiner[0] = Thread.currentThread();
+            return oneByOne.submit(h, Order.builder().id("ORD-0").build(), 1);
+        });
+        assertTrue(holding.await(5, TimeUnit.SECONDS));
+        List<CompletableFuture<Order>> queued = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            queued.add(oneByOne.submit(h, Order.builder().id("ORD-" + i).build(), 1));
+        }
+        release.countDown();
+
+        first.get(5, TimeUnit.SECONDS).get(5, TimeUnit.SECONDS);
+        for (CompletableFuture<Order> f : queued) {
+            f.get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(21, h.getOrders().size());
+        // the caller applied its share, a pool thread the rest
+        assertEquals(FlashSaleAllocator.MAX_COMBINED_BATCHES, batchesBy.get(combiner[0]));
+        assertFalse(batchesBy.containsKey(Thread.currentThread()));
+        oneByOne.close();
+    }
+}
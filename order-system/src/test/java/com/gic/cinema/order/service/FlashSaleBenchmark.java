@@ -0,0 +1,95 @@
+package com.gic.cinema.order.service;
+
+import com.gic.cinema.order.model.CinemaHall;
+import com.gic.cinema.order.model.Order;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * FlashSaleBenchmark - orders/s on one hot hall: callers booking under the hall lock vs the flash sale writer.
+ * Run with: java -cp target/classes:target/test-classes com.gic.cinema.order.service.FlashSaleBenchmark [threads] [rounds]
+ */
+public class FlashSaleBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 400;
+        for (int warm = 0; warm < 2; warm++) {
+            run("locked", threads, rounds / 4, false);
+            run("flash", threads, rounds / 4, true);
+        }
+        run("locked", threads, rounds, false);
+        run("flash", threads, rounds, true);
+    }
+
+    /*
+     * sell out fresh 26x50 halls, two seats per order, each thread keeps booking until the hall is full
+     */
+    private static void run(String name, int threads, int rounds, boolean flash) throws Exception {
+        CinemaService service = new CinemaService();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        AtomicInteger orders = new AtomicInteger();
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            CinemaHall h = service.configureHall("Hot-" + round, 26, 50);
+            List<Future<?>> callers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final int caller = t;
+                callers.add(pool.submit(() -> {
+                    List<CompletableFuture<Order>> pending = new ArrayList<>();
+                    for (int i = 0; ; i++) {
+                        Order o = Order.builder().id(caller + "-" + i).build();
+                        if (flash) {
+                            if (h.getAvailableSeatCount() < 2) {
+                                drain(pending, orders);
+                                return;
+                            }
+                            pending.add(service.bookFlashSale(h, o, 2));
+                            // keep a window of requests in flight per caller
+                            if (pending.size() == 16 && !drain(pending, orders)) return;
+                        } else {
+                            synchronized (h) {
+                                if (h.getAvailableSeatCount() < 2) return;
+                                service.confirmOrder(h, o, service.bookDefault(h, 2));
+                            }
+                            orders.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> f : callers) {
+                f.get();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        pool.shutdown();
+        FlashSaleAllocator f = service.flashSale();
+        f.close();
+        System.out.printf("%-8s %8d orders %10.0f orders/s", name, orders.get(), orders.get() / (elapsed / 1e9));
+        if (flash) System.out.printf("  %5.1f requests/batch", (double) f.getBatchedRequests() / Math.max(1, f.getBatches()));
+        System.out.println();
+    }
+
+    /*
+     * wait for pending requests, false once the hall sold out
+     */
+    private static boolean drain(List<CompletableFuture<Order>> pending, AtomicInteger orders) {
+        boolean open = true;
+        for (CompletableFuture<Order> f : pending) {
+            try {
+                f.join();
+                orders.incrementAndGet();
+            } catch (RuntimeException e) {
+                open = false;
+            }
+        }
+        pending.clear();
+        return open;
+    }
+}
@@ -0,0 +1,116 @@
+package com.gic.cinema.order.service;
+
+import com.gic.cinema.order.exception.NotEnoughSeatsException;
+import com.gic.cinema.order.model.CinemaHall;
+import com.gic.cinema.order.model.Order;
+import com.gic.cinema.order.model.Seat;
+import com.gic.cinema.order.model.SeatMapTemplate;
+import com.gic.cinema.order.model.SeatStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for FreeRunIndex
+ */
+class FreeRunIndexTest {
+
+    private final CinemaService cinemaService = new CinemaService();
+    private final LocalDateTime tonight = LocalDateTime.of(2026, 1, 1, 18, 0);
+
+    /*
+     * largest run of available seats in one row, by scanning the seat map
+     */
+    private static int scanLargestRun(CinemaHall h) {
+        int largest = 0;
+        for (int r = 0; r < h.getRows(); r++) {
+            int run = 0;
+            for (int c = 0; c < h.getSeatsPerRow(); c++) {
+                run = h.getSeatStatus(r, c) == SeatStatus.AVAILABLE ? run + 1 : 0;
+                largest = Math.max(largest, run);
+            }
+        }
+        return largest;
+    }
+
+    /**
+     * Test Find Showtimes With Seats Together
+     */
+    @Test
+    void testFindShowtimesWithSeatsTogether() {
+        SeatMapTemplate t = cinemaService.defineTemplate("Hall_1", 2, 8, Map.of("A04", SeatStatus.BLOCKED, "B04", SeatStatus.BLOCKED));
+        CinemaHall early = cinemaService.scheduleShowtime("Inception", t, tonight);
+        CinemaHall late = cinemaService.scheduleShowtime("Inception", t, tonight.plusHours(3));
+        CinemaHall tomorrow = cinemaService.scheduleShowtime("Inception", t, tonight.plusDays(1));
+        cinemaService.scheduleShowtime("Dune", t, tonight);
+
+        // seat 4 is blocked in every row, so at most 4 together (seats 5 - 8)
+        assertEquals(4, cinemaService.getFreeRunIndex().largestRun(early.getKey()));
+        assertEquals(List.of(early, late), cinemaService.findShowtimes("Inception", 4, tonight, tonight.plusHours(6)));
+        assertEquals(List.of(), cinemaService.findShowtimes("Inception", 5, null, null));
+
+        // take seats 5 - 8 of both rows in the early show
+        List<Seat> seats = cinemaService.bookFromPosition(early, 4, 'A', 5);
+        cinemaService.confirmOrder(early, Order.builder().id("ORD-1").build(), seats);
+        seats = cinemaService.bookFromPosition(early, 4, 'B', 5);
+        cinemaService.confirmOrder(early, Order.builder().id("ORD-2").build(), seats);
+        assertEquals(3, cinemaService.getFreeRunIndex().largestRun(early.getKey()));
+        assertEquals(List.of(late, tomorrow), cinemaService.findShowtimes("Inception", 4, null, null));
+        assertEquals(Optional.of(early.getKey()), cinemaService.getFreeRunIndex().findFirst("Inception", 3, tonight));
+        assertEquals(Optional.of(late.getKey()), cinemaService.getFreeRunIndex().findFirst("Inception", 4, tonight));
+
+        cinemaService.cancelOrder(early, "ORD-1");
+        assertEquals(List.of(early, late, tomorrow), cinemaService.findShowtimes("Inception", 4, null, null));
+
+        cinemaService.closeHall(late.getKey());
+        assertEquals(List.of(early), cinemaService.findShowtimes("Inception", 4, tonight, tonight.plusHours(6)));
+    }
+
+    /**
+     * Test Index Matches Seat Map After Random Bookings And Cancels
+     */
+    @Test
+    void testIndexMatchesSeatMapAfterRandomBookingsAndCancels() {
+        Random random = new Random(44);
+        List<CinemaHall> halls = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            halls.add(cinemaService.scheduleShowtime("Inception",
+                    cinemaService.defineTemplate("Hall_" + i, 3 + i, 5 + i, Map.of()), tonight.plusMinutes(i)));
+        }
+        List<String[]> orders = new ArrayList<>();
+        for (int step = 0; step < 400; step++) {
+            CinemaHall h = halls.get(random.nextInt(halls.size()));
+            if (!orders.isEmpty() && random.nextInt(3) == 0) {
+                String[] o = orders.remove(random.nextInt(orders.size()));
+                CinemaHall owner = cinemaService.getHall(o[0]);
+                cinemaService.cancelOrder(owner, o[1]);
+            } else if (h.getAvailableSeatCount() > 0) {
+                int tickets = 1 + random.nextInt(Math.min(4, h.getAvailableSeatCount()));
+                char row = (char) ('A' + random.nextInt(h.getRows()));
+                List<Seat> seats;
+                try {
+                    seats = cinemaService.bookFromPosition(h, tickets, row, 1 + random.nextInt(h.getSeatsPerRow()));
+                } catch (NotEnoughSeatsException e) {
+                    // nothing left from that seat towards the screen
+                    continue;
+                }
+                String id = "ORD-" + step;
+                cinemaService.confirmOrder(h, Order.builder().id(id).build(), seats);
+                orders.add(new String[]{h.getKey(), id});
+            }
+            for (CinemaHall each : halls) {
+                assertEquals(scanLargestRun(each), cinemaService.getFreeRunIndex().largestRun(each.getKey()));
+            }
+        }
+        for (int together = 1; together <= 10; together++) {
+            List<CinemaHall> expected = new ArrayList<>();
+            for (CinemaHall each : halls) {
+                if (scanLargestRun(each) >= together) expected.add(each);
+            }
+            assertEquals(expected, cinemaService.findShowtimes("Inception", together, null, null));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.gic.cinema.order.service;
+
+import com.gic.cinema.order.model.CinemaHall;
+import com.gic.cinema.order.model.Seat;
+import com.gic.cinema.order.model.SeatStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for GroupPlacementSolver
+ */
+class GroupPlacementSolverTest {
+
+    private GroupPlacementSolver solver;
+
+    /**
+     * init value before run test case
+     */
+    @BeforeEach
+    void setUp() {
+        solver = new GroupPlacementSolver();
+    }
+
+    /**
+     * Test Party Fitting One Row Is Placed Centrally In One Row
+     */
+    @Test
+    void testPartyFittingOneRowIsPlacedCentrally() {
+        CinemaHall hall = new CinemaHall("Movie", 6, 10);
+
+        GroupPlan plan = solver.solve(hall, 4, Duration.ofSeconds(5));
+
+        assertTrue(plan.isComplete());
+        assertEquals(1, plan.getRowsUsed());
+        int[] cols = Arrays.stream(plan.getSeatIds()).map(id -> id % 10).sorted().toArray();
+        assertArrayEquals(new int[]{3, 4, 5, 6}, cols);
+    }
+
+    /**
+     * Test Party Larger Than A Row Uses Fewest Consecutive Rows Around Gaps
+     */
+    @Test
+    void testPartyUsesFewestConsecutiveRowsAroundGaps() {
+        CinemaHall hall = new CinemaHall("Movie", 8, 10);
+        // split every row into runs of 5 except rows 2 and 3
+        for (int r = 0; r < 8; r++) {
+            if (r != 2 && r != 3) hall.getSeats()[r][4].setStatus(SeatStatus.BOOKED);
+        }
+
+        GroupPlan plan = solver.solve(hall, 18, Duration.ofSeconds(5));
+
+        assertEquals(2, plan.getRowsUsed());
+        assertEquals(18, plan.getSeatIds().length);
+        for (int id : plan.getSeatIds()) {
+            Seat s = hall.seatAt(id);
+            assertEquals(SeatStatus.AVAILABLE, s.getStatus());
+            assertTrue(s.getRowIndex() == 2 || s.getRowIndex() == 3);
+        }
+        assertEquals(18, Arrays.stream(plan.getSeatIds()).distinct().count());
+    }
+
+    /**
+     * Test Spent Budget Returns Partial Result
+     */
+    @Test
+    void testSpentBudgetReturnsPartialResult() {
+        CinemaHall hall = new CinemaHall("Movie", 26, 50);
+
+        GroupPlan plan = solver.solve(hall, 120, Duration.ZERO);
+
+        assertNotNull(plan);
+        assertFalse(plan.isComplete());
+    }
+}
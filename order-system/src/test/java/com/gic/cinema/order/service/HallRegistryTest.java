@@ -0,0 +1,115 @@
+package com.gic.cinema.order.service;
+
+import com.gic.cinema.order.model.CinemaHall;
+import com.gic.cinema.order.model.HallState;
+import com.gic.cinema.order.model.Order;
+import com.gic.cinema.order.model.Seat;
+import com.gic.cinema.order.model.SeatMapTemplate;
+import com.gic.cinema.order.model.SeatStatus;
+import com.gic.cinema.order.persistence.FileHallArchive;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for HallRegistry and hall archiving
+ */
+class HallRegistryTest {
+
+    @TempDir
+    Path archiveDir;
+
+    private final CinemaService cinemaService = new CinemaService();
+
+    /*
+     * book and confirm tickets by default rule
+     */
+    private Order book(CinemaHall h, String orderId, int tickets) {
+        List<Seat> seats = cinemaService.bookDefault(h, tickets);
+        return cinemaService.confirmOrder(h, Order.builder().id(orderId).movieName(h.getMovieName()).build(), seats);
+    }
+
+    /**
+     * Test Concurrent Configure Builds One Hall
+     * @throws Exception
+     */
+    @Test
+    void testConcurrentConfigureBuildsOneHall() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<CinemaHall>> halls = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                halls.add(pool.submit(() -> cinemaService.configureHall("Inception", 8, 10)));
+            }
+            Set<CinemaHall> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Future<CinemaHall> f : halls) {
+                distinct.add(f.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, distinct.size());
+            assertEquals(1, cinemaService.getEventStore().getEvents(distinct.iterator().next().getKey()).size());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Test Closed Hall Rejects Bookings
+     */
+    @Test
+    void testClosedHallRejectsBookings() {
+        CinemaHall h = cinemaService.configureHall("Inception", 8, 10);
+        List<Seat> seats = cinemaService.bookDefault(h, 2);
+        cinemaService.closeHall(h.getKey());
+        assertEquals(HallState.CLOSED, cinemaService.getHallState(h.getKey()));
+        assertThrows(IllegalStateException.class, () -> cinemaService.bookDefault(h, 2));
+        assertThrows(IllegalStateException.class, () -> cinemaService.confirmOrder(h, Order.builder().id("ORD-1").build(), seats));
+        // without an archive closed halls stay in memory
+        assertSame(h, cinemaService.getHall(h.getKey()));
+    }
+
+    /**
+     * Test Closed Halls Over Limit Are Archived And Reloaded On Access
+     */
+    @Test
+    void testClosedHallsOverLimitAreArchivedAndReloadedOnAccess() {
+        ReflectionTestUtils.setField(cinemaService, "maxClosedHalls", 1);
+        cinemaService.setHallArchive(new FileHallArchive(archiveDir));
+        SeatMapTemplate t = cinemaService.defineTemplate("Hall_1", 5, 8, Map.of("A01", SeatStatus.BLOCKED, "E08", SeatStatus.HOUSE));
+        LocalDateTime at = LocalDateTime.of(2026, 1, 1, 18, 0);
+        CinemaHall first = cinemaService.scheduleShowtime("Inception", t, at);
+        CinemaHall second = cinemaService.scheduleShowtime("Inception", t, at.plusHours(3));
+        CinemaHall later = cinemaService.scheduleShowtime("Inception", t, at.plusDays(1));
+        book(first, "ORD-1", 3);
+        book(first, "ORD-2", 2);
+        book(second, "ORD-3", 4);
+
+        assertEquals(2, cinemaService.closeShowtimesBefore(at.plusHours(4)));
+        // the least recently used closed hall moved to the archive
+        assertEquals(HallState.ARCHIVED, cinemaService.getHallState(first.getKey()));
+        assertEquals(HallState.CLOSED, cinemaService.getHallState(second.getKey()));
+        assertEquals(HallState.OPEN, cinemaService.getHallState(later.getKey()));
+        assertFalse(cinemaService.getHallKeys().contains(first.getKey()));
+        assertThrows(IllegalStateException.class, () -> cinemaService.bookDefault(first, 1));
+
+        CinemaHall reloaded = cinemaService.getHall(first.getKey());
+        assertNotSame(first, reloaded);
+        assertEquals(HallState.CLOSED, cinemaService.getHallState(first.getKey()));
+        assertEquals(first.getAvailableSeatCount(), reloaded.getAvailableSeatCount());
+        assertEquals(first.getOrders().keySet(), reloaded.getOrders().keySet());
+        assertEquals(first.getOrders().get("ORD-1").getSeatLabels(), reloaded.getOrders().get("ORD-1").getSeatLabels());
+        for (int r = 0; r < first.getRows(); r++) {
+            for (int c = 0; c < first.getSeatsPerRow(); c++) {
+                assertEquals(first.getSeatStatus(r, c), reloaded.getSeatStatus(r, c));
+            }
+        }
+        // reloading pushed the other closed hall out
+        assertEquals(HallState.ARCHIVED, cinemaService.getHallState(second.getKey()));
+    }
+}
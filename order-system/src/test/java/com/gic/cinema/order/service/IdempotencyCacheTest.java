@@ -0,0 +1,140 @@
+package com.gic.cinema.order.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for IdempotencyCache
+ */
+class IdempotencyCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    /**
+     * Test Retry Within Ttl Returns First Result
+     */
+    @Test
+    void testRetryWithinTtlReturnsFirstResult() {
+        IdempotencyCache<String> cache = new IdempotencyCache<>(16, 10, TimeUnit.SECONDS, now::get);
+        assertEquals("first", cache.execute("k", () -> "first"));
+        now.set(TimeUnit.SECONDS.toNanos(9));
+        assertEquals("first", cache.execute("k", () -> "second"));
+        now.set(TimeUnit.SECONDS.toNanos(10));
+        assertEquals("third", cache.execute("k", () -> "third"));
+    }
+
+    /**
+     * Test Failed Call Is Forgotten
+     */
+    @Test
+    void testFailedCallIsForgotten() {
+        IdempotencyCache<String> cache = new IdempotencyCache<>(16, 10, TimeUnit.SECONDS, now::get);
+        assertThrows(IllegalStateException.class, () -> cache.execute("k", () -> {
+            throw new IllegalStateException("boom");
+        }));
+        assertNull(cache.get("k"));
+        assertEquals("ok", cache.execute("k", () -> "ok"));
+        assertThrows(IllegalArgumentException.class, () -> cache.execute("", () -> "x"));
+    }
+
+    /**
+     * Test Size Stays Bounded Under Retry Storm
+     */
+    @Test
+    void testSizeStaysBoundedUnderRetryStorm() {
+        IdempotencyCache<Integer> cache = new IdempotencyCache<>(64, 10, TimeUnit.SECONDS, now::get);
+        for (int i = 0; i < 100_000; i++) {
+            final int v = i;
+            cache.execute("req-" + i, () -> v);
+        }
+        assertTrue(cache.size() <= 64);
+        assertEquals(99_999, cache.get("req-99999"));
+        assertNull(cache.get("req-0"));
+    }
+
+    /**
+     * Test Concurrent Retries Run Call Once
+     * @throws Exception
+     */
+    @Test
+    void testConcurrentRetriesRunCallOnce() throws Exception {
+        IdempotencyCache<Integer> cache = new IdempotencyCache<>(16, 10, TimeUnit.SECONDS);
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            Future<?>[] results = new Future<?>[8];
+            for (int i = 0; i < results.length; i++) {
+                results[i] = pool.submit(() -> cache.execute("k", () -> {
+                    calls.incrementAndGet();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return 42;
+                }));
+            }
+            Thread.sleep(50);
+            release.countDown();
+            for (Future<?> f : results) {
+                assertEquals(42, f.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, calls.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Test Running Calls Are Never Evicted
+     * @throws Exception
+     */
+    @Test
+    void testRunningCallsAreNeverEvicted() throws Exception {
+        IdempotencyCache<Integer> cache = new IdempotencyCache<>(16, 10, TimeUnit.SECONDS, now::get);
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> first = pool.submit(() -> cache.execute("slow", () -> {
+                calls.incrementAndGet();
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return 1;
+            }));
+            started.await(5, TimeUnit.SECONDS);
+            // flood every segment well past its capacity while the slow call runs
+            for (int i = 0; i < 1000; i++) {
+                final int v = i;
+                cache.execute("req-" + i, () -> v);
+            }
+            Future<Integer> retry = pool.submit(() -> cache.execute("slow", () -> {
+                calls.incrementAndGet();
+                return 2;
+            }));
+            Thread.sleep(50);
+            release.countDown();
+            assertEquals(1, first.get(5, TimeUnit.SECONDS));
+            assertEquals(1, retry.get(5, TimeUnit.SECONDS));
+            assertEquals(1, calls.get());
+            assertTrue(cache.size() <= 17);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
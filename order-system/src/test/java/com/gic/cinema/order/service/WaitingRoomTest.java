@@ -0,0 +1,174 @@
+package com.gic.cinema.order.service;
+
+import com.gic.cinema.order.exception.AdmissionRejectedException;
+import com.gic.cinema.order.exception.NotEnoughSeatsException;
+import com.gic.cinema.order.model.CinemaHall;
+import com.gic.cinema.order.model.Order;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for WaitingRoom
+ */
+class WaitingRoomTest {
+
+    private final CinemaService cinemaService = new CinemaService();
+    private ExecutorService pool;
+    private CinemaHall hall;
+
+    /**
+     * init hall and thread pool before run test case
+     */
+    @BeforeEach
+    void setUp() {
+        pool = Executors.newCachedThreadPool();
+        hall = cinemaService.configureHall("Movie", 3, 5);
+    }
+
+    /**
+     * stop thread pool after test case
+     */
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    /*
+     * wait until hall has n queued requests
+     */
+    private static void awaitQueue(WaitingRoom room, CinemaHall h, int n) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (room.getQueueLength(h) != n) {
+            assertTrue(System.currentTimeMillis() < deadline, "queue never reached " + n);
+            Thread.sleep(2);
+        }
+    }
+
+    /**
+     * Test Requests Over Cap Are Admitted In Arrival Order With Positions
+     * @throws Exception
+     */
+    @Test
+    void testRequestsOverCapAreAdmittedInArrivalOrderWithPositions() throws Exception {
+        WaitingRoom room = new WaitingRoom(1, 10);
+        WaitingRoom.Admission first = room.enter(hall, 1, Duration.ofSeconds(5), null);
+        List<Integer> admitted = new CopyOnWriteArrayList<>();
+        List<Integer> thirdPositions = new CopyOnWriteArrayList<>();
+        Future<?>[] waiters = new Future<?>[3];
+        for (int i = 0; i < waiters.length; i++) {
+            final int id = i;
+            waiters[i] = pool.submit(() -> {
+                WaitingRoom.Admission a = room.enter(hall, 1, Duration.ofSeconds(5), id == 2 ? thirdPositions::add : null);
+                try {
+                    admitted.add(id);
+                } finally {
+                    a.close();
+                }
+            });
+            awaitQueue(room, hall, i + 1);
+        }
+        assertEquals(1, room.getInFlight(hall));
+        first.close();
+        for (Future<?> f : waiters) {
+            f.get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(List.of(0, 1, 2), admitted);
+        assertEquals(3, thirdPositions.get(0));
+        // positions only move forward while waiting
+        for (int i = 1; i < thirdPositions.size(); i++) {
+            assertTrue(thirdPositions.get(i) < thirdPositions.get(i - 1));
+        }
+        assertEquals(0, room.getInFlight(hall));
+    }
+
+    /**
+     * Test Sold Out Hall Sheds Before Queueing
+     */
+    @Test
+    void testSoldOutHallShedsBeforeQueueing() {
+        WaitingRoom room = new WaitingRoom(1, 10);
+        cinemaService.confirmOrder(hall, Order.builder().id("ORD-1").build(), cinemaService.bookDefault(hall, 15));
+        NotEnoughSeatsException e = assertThrows(NotEnoughSeatsException.class,
+                () -> room.enter(hall, 1, Duration.ofSeconds(1), null));
+        assertEquals("SOLD_OUT", e.getCode());
+        assertEquals(0, room.getQueueLength(hall));
+        assertEquals(0, room.getInFlight(hall));
+    }
+
+    /**
+     * Test Waiter Is Shed When Hall Sells Out While It Queues
+     * @throws Exception
+     */
+    @Test
+    void testWaiterIsShedWhenHallSellsOutWhileItQueues() throws Exception {
+        WaitingRoom room = new WaitingRoom(1, 10);
+        WaitingRoom.Admission first = room.enter(hall, 15, Duration.ofSeconds(5), null);
+        Future<?> late = pool.submit(() -> room.enter(hall, 2, Duration.ofSeconds(5), null).close());
+        awaitQueue(room, hall, 1);
+        cinemaService.confirmOrder(hall, Order.builder().id("ORD-1").build(), cinemaService.bookDefault(hall, 14));
+        first.close();
+        ExecutionException e = assertThrows(ExecutionException.class, () -> late.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(NotEnoughSeatsException.class, e.getCause());
+        assertEquals(0, room.getQueueLength(hall));
+    }
+
+    /**
+     * Test Full Queue And Timeout Reject
+     * @throws Exception
+     */
+    @Test
+    void testFullQueueAndTimeoutReject() throws Exception {
+        WaitingRoom room = new WaitingRoom(1, 1);
+        WaitingRoom.Admission first = room.enter(hall, 1, Duration.ofSeconds(5), null);
+        Future<?> queued = pool.submit(() -> room.enter(hall, 1, Duration.ofMillis(200), null).close());
+        awaitQueue(room, hall, 1);
+        AdmissionRejectedException full = assertThrows(AdmissionRejectedException.class,
+                () -> room.enter(hall, 1, Duration.ofSeconds(1), null));
+        assertEquals(AdmissionRejectedException.QUEUE_FULL, full.getCode());
+
+        ExecutionException timeout = assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS));
+        assertEquals(AdmissionRejectedException.TIMEOUT, ((AdmissionRejectedException) timeout.getCause()).getCode());
+        assertEquals(0, room.getQueueLength(hall));
+        first.close();
+    }
+
+    /**
+     * Test Busy Hall Does Not Hold Up Other Halls
+     */
+    @Test
+    void testBusyHallDoesNotHoldUpOtherHalls() {
+        WaitingRoom room = new WaitingRoom(1, 0);
+        CinemaHall other = cinemaService.configureHall("Other", 3, 5);
+        WaitingRoom.Admission busy = room.enter(hall, 1, Duration.ofSeconds(1), null);
+        try {
+            assertThrows(AdmissionRejectedException.class, () -> room.enter(hall, 1, Duration.ofSeconds(1), null));
+            WaitingRoom.Admission a = room.enter(other, 1, Duration.ofSeconds(1), null);
+            try {
+                assertEquals(1, room.getInFlight(other));
+            } finally {
+                a.close();
+            }
+        } finally {
+            busy.close();
+        }
+    }
+
+    /**
+     * Test Service Admit Runs Booking And Frees Slot
+     */
+    @Test
+    void testServiceAdmitRunsBookingAndFreesSlot() {
+        Order order = cinemaService.admit(hall, 2, null, () -> cinemaService.confirmOrder(hall,
+                Order.builder().id("ORD-1").build(), cinemaService.bookDefault(hall, 2)));
+        assertEquals(2, order.getTickets());
+        assertEquals(0, cinemaService.waitingRoom().getInFlight(hall));
+        assertThrows(NotEnoughSeatsException.class, () -> cinemaService.admit(hall, 14, null, () -> null));
+    }
+}
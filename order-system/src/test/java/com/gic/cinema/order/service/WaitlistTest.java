@@ -0,0 +1,160 @@
+package com.gic.cinema.order.service;
+
+import com.gic.cinema.order.model.CinemaHall;
+import com.gic.cinema.order.model.Order;
+import com.gic.cinema.order.model.Seat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for Waitlist
+ */
+class WaitlistTest {
+
+    private final CinemaService cinemaService = new CinemaService();
+
+    /**
+     * stop matcher after test case
+     */
+    @AfterEach
+    void tearDown() {
+        cinemaService.waitlist().close();
+    }
+
+    /*
+     * book and confirm tickets by default rule
+     */
+    private void book(CinemaHall h, String orderId, int tickets) {
+        List<Seat> seats = cinemaService.bookDefault(h, tickets);
+        cinemaService.confirmOrder(h, Order.builder().id(orderId).build(), seats);
+    }
+
+    private static Order order(String id) {
+        return Order.builder().id(id).build();
+    }
+
+    /**
+     * Test Released Seats Go To Waiting Requests In Arrival Order
+     * @throws Exception
+     */
+    @Test
+    void testReleasedSeatsGoToWaitingRequestsInArrivalOrder() throws Exception {
+        CinemaHall h = cinemaService.configureHall("Inception", 2, 5);
+        book(h, "ORD-1", 3);
+        book(h, "ORD-2", 7);
+        CompletableFuture<Order> big = cinemaService.bookOrWait(h, order("W-1"), 4, false);
+        CompletableFuture<Order> small = cinemaService.bookOrWait(h, order("W-2"), 2, false);
+        CompletableFuture<Order> last = cinemaService.bookOrWait(h, order("W-3"), 1, false);
+        assertFalse(big.isDone());
+        assertEquals(3, cinemaService.waitlist().getWaiting(h.getKey()));
+
+        // 3 seats free: the first request cannot fit and is skipped, the next ones are served
+        cinemaService.cancelOrder(h, "ORD-1");
+        assertEquals(2, small.get(5, TimeUnit.SECONDS).getTickets());
+        assertEquals(1, last.get(5, TimeUnit.SECONDS).getTickets());
+        assertFalse(big.isDone());
+
+        cinemaService.cancelOrder(h, "ORD-2");
+        Order served = big.get(5, TimeUnit.SECONDS);
+        assertEquals(4, served.getSeatLabels().size());
+        assertSame(served, h.getOrders().get("W-1"));
+        assertEquals(0, cinemaService.waitlist().getWaiting(h.getKey()));
+    }
+
+    /**
+     * Test Seats Together Wait For A Long Enough Run
+     * @throws Exception
+     */
+    @Test
+    void testSeatsTogetherWaitForALongEnoughRun() throws Exception {
+        CinemaHall h = cinemaService.configureHall("Inception", 1, 6);
+        List<Seat> seats = cinemaService.bookDefault(h, 6);
+        cinemaService.confirmOrder(h, order("ORD-1"), seats);
+        CompletableFuture<Order> pair = cinemaService.bookOrWait(h, order("W-1"), 2, true);
+
+        // two free seats apart do not make a pair
+        cinemaService.releaseSeats(h, "ORD-1", List.of("A01", "A03"));
+        assertThrows(TimeoutException.class, () -> pair.get(200, TimeUnit.MILLISECONDS));
+        cinemaService.releaseSeats(h, "ORD-1", List.of("A02"));
+        // the block nearest the centre of A01 - A03
+        Order served = pair.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("A02", "A03"), served.getSeatLabels());
+    }
+
+    /**
+     * Test Closing Hall Fails Waiting Requests
+     */
+    @Test
+    void testClosingHallFailsWaitingRequests() {
+        CinemaHall h = cinemaService.configureHall("Inception", 1, 4);
+        book(h, "ORD-1", 4);
+        CompletableFuture<Order> waiting = cinemaService.bookOrWait(h, order("W-1"), 1, false);
+        cinemaService.closeHall(h.getKey());
+        ExecutionException e = assertThrows(ExecutionException.class, () -> waiting.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+
+    /**
+     * Test Mass Cancellation Serves Every Waiting Request
+     * @throws Exception
+     */
+    @Test
+    void testMassCancellationServesEveryWaitingRequest() throws Exception {
+        CinemaHall h = cinemaService.configureHall("Inception", 26, 50);
+        int orders = 26 * 50 / 2;
+        for (int i = 0; i < orders; i++) {
+            book(h, "ORD-" + i, 2);
+        }
+        List<CompletableFuture<Order>> waiting = new ArrayList<>();
+        for (int i = 0; i < orders; i++) {
+            waiting.add(cinemaService.bookOrWait(h, order("W-" + i), 2, i % 2 == 0));
+        }
+        for (int i = 0; i < orders; i++) {
+            cinemaService.cancelOrder(h, "ORD-" + i);
+        }
+        CompletableFuture.allOf(waiting.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+        Set<String> labels = new HashSet<>();
+        for (CompletableFuture<Order> f : waiting) {
+            labels.addAll(f.get().getSeatLabels());
+        }
+        assertEquals(26 * 50, labels.size());
+        assertEquals(0, h.getAvailableSeatCount());
+    }
+
+    /**
+     * Test Cancelled Request Leaves At Once
+     */
+    @Test
+    void testCancelledRequestLeavesAtOnce() {
+        CinemaHall h = cinemaService.configureHall("Inception", 2, 5);
+        book(h, "ORD-1", 10);
+        CompletableFuture<Order> w = cinemaService.bookOrWait(h, order("W-1"), 2, false);
+        assertEquals(1, cinemaService.waitlist().getWaiting(h.getKey()));
+        w.cancel(false);
+        assertEquals(0, cinemaService.waitlist().getWaiting(h.getKey()));
+    }
+
+    /**
+     * Test Waiting Request Completes After Commit Barriers
+     * @throws Exception
+     */
+    @Test
+    void testWaitingRequestCompletesAfterCommitBarriers() throws Exception {
+        CinemaHall h = cinemaService.configureHall("Inception", 2, 5);
+        book(h, "ORD-1", 10);
+        CompletableFuture<Order> w = cinemaService.bookOrWait(h, order("W-1"), 2, false);
+        List<Boolean> doneAtBarrier = new CopyOnWriteArrayList<>();
+        // the matcher runs the barriers before telling the customer
+        cinemaService.addCommitBarrier(() -> {
+            if (Thread.currentThread().getName().equals("waitlist-matcher")) doneAtBarrier.add(w.isDone());
+        });
+        cinemaService.cancelOrder(h, "ORD-1");
+        assertEquals(2, w.get(5, TimeUnit.SECONDS).getTickets());
+        assertEquals(List.of(false), doneAtBarrier);
+    }
+}